@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.BenchmarkListEntry;
+
+import com.gocypher.cybench.utils.ClassFingerprinter;
+import com.gocypher.cybench.utils.PluginUtils;
+
+/**
+ * Measures benchmark fingerprints computation, with and without persistent class hash cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FingerprintBenchmarks {
+    private static final Logger LOGGER = Logging.getLogger(FingerprintBenchmarks.class);
+
+    @Param({ "10", "100", "1000", "10000" })
+    public int methods;
+
+    private File workDir;
+    private SyntheticBenchmarks benchmarks;
+    private List<BenchmarkListEntry> entries;
+    private File coldCacheFile;
+    private File warmCacheFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDir = Files.createTempDirectory("cybench-fingerprint").toFile();
+        benchmarks = new SyntheticBenchmarks(new File(workDir, "classes"), methods);
+        entries = benchmarks.getEntries();
+        coldCacheFile = new File(workDir, "cold.cache");
+        warmCacheFile = new File(workDir, "warm.cache");
+        fingerprint(warmCacheFile);
+    }
+
+    @Setup(Level.Invocation)
+    public void deleteColdCache() throws IOException {
+        Files.deleteIfExists(coldCacheFile.toPath());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        SyntheticBenchmarks.delete(workDir);
+    }
+
+    @Benchmark
+    public Map<String, String> fingerprintCold() throws IOException {
+        return fingerprint(coldCacheFile);
+    }
+
+    @Benchmark
+    public Map<String, String> fingerprintCached() throws IOException {
+        return fingerprint(warmCacheFile);
+    }
+
+    private Map<String, String> fingerprint(File cacheFile) throws IOException {
+        Map<String, String> generatedFingerprints = new HashMap<>();
+        try (ClassFingerprinter fingerprinter = new ClassFingerprinter(benchmarks.getClasspath(), cacheFile,
+                LOGGER)) {
+            PluginUtils.fingerprintAndHashGeneration(fingerprinter, entries, generatedFingerprints, new HashMap<>(),
+                    new HashMap<>());
+        }
+        return generatedFingerprints;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.openjdk.jmh.annotations.*;
+
+import com.gocypher.cybench.utils.BenchmarkClassIndex;
+
+/**
+ * Measures CyBench metadata extraction from benchmark class files annotations, with and without persistent metadata
+ * cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MetadataBenchmarks {
+    private static final Logger LOGGER = Logging.getLogger(MetadataBenchmarks.class);
+
+    @Param({ "10", "100", "1000", "10000" })
+    public int methods;
+
+    private File workDir;
+    private SyntheticBenchmarks benchmarks;
+    private File coldCacheFile;
+    private File warmCacheFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        workDir = Files.createTempDirectory("cybench-metadata").toFile();
+        benchmarks = new SyntheticBenchmarks(new File(workDir, "classes"), methods);
+        coldCacheFile = new File(workDir, "cold.cache");
+        warmCacheFile = new File(workDir, "warm.cache");
+        extractMetadata(warmCacheFile);
+    }
+
+    @Setup(Level.Invocation)
+    public void deleteColdCache() throws IOException {
+        Files.deleteIfExists(coldCacheFile.toPath());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        SyntheticBenchmarks.delete(workDir);
+    }
+
+    @Benchmark
+    public int extractMetadataCold() throws Exception {
+        return extractMetadata(coldCacheFile);
+    }
+
+    @Benchmark
+    public int extractMetadataCached() throws Exception {
+        return extractMetadata(warmCacheFile);
+    }
+
+    private int extractMetadata(File cacheFile) throws Exception {
+        int entries = 0;
+        try (BenchmarkClassIndex classIndex = new BenchmarkClassIndex(benchmarks.getClasspath(), cacheFile,
+                LOGGER)) {
+            for (String name : benchmarks.getBenchmarkNames()) {
+                int separator = name.lastIndexOf('.');
+                BenchmarkClassIndex.ClassEntry classEntry = classIndex.getClassEntry(name.substring(0, separator));
+                entries += classEntry.getMethodMetadata(name.substring(separator + 1)).size();
+                entries += classEntry.getClassMetadata().size();
+            }
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.RunResult;
+
+import com.gocypher.cybench.Launcher;
+import com.gocypher.cybench.launcher.model.BenchmarkOverviewReport;
+import com.gocypher.cybench.launcher.model.BenchmarkingContext;
+import com.gocypher.cybench.launcher.report.ReportingService;
+import com.gocypher.cybench.launcher.utils.SecurityBuilder;
+import com.gocypher.cybench.utils.BenchmarkClassIndex;
+import com.gocypher.cybench.utils.ClassFingerprinter;
+import com.gocypher.cybench.utils.LauncherConfiguration;
+import com.gocypher.cybench.utils.PluginUtils;
+import com.gocypher.cybench.utils.ReportFileWriter;
+
+/**
+ * Measures report building from benchmarks run results and report serialization: JSON file and encrypted report
+ * prepared for delivery.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ReportBenchmarks {
+    private static final Logger LOGGER = Logging.getLogger(ReportBenchmarks.class);
+
+    @Param({ "10", "100", "1000", "10000" })
+    public int methods;
+
+    private final Launcher launcher = new Launcher();
+    private final LauncherConfiguration configuration = new LauncherConfiguration();
+    private final Map<String, Object> benchmarkSettings = new HashMap<>();
+    private File workDir;
+    private File reportFile;
+    private SyntheticBenchmarks benchmarks;
+    private List<RunResult> results;
+    private BenchmarkingContext benchContext;
+    private BenchmarkOverviewReport report;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDir = Files.createTempDirectory("cybench-report").toFile();
+        reportFile = new File(workDir, "report.cybench");
+        benchmarks = new SyntheticBenchmarks(new File(workDir, "classes"), methods);
+        results = benchmarks.createRunResults();
+
+        benchContext = new BenchmarkingContext();
+        benchContext.setSecurityBuilder(new SecurityBuilder());
+        // skip system properties probing, it is not a part of results processing
+        benchContext.getContextMetadata().put("unclassifiedProperties", Collections.emptyMap());
+        try (ClassFingerprinter fingerprinter = new ClassFingerprinter(benchmarks.getClasspath(),
+                new File(workDir, "fingerprints.cache"), LOGGER)) {
+            PluginUtils.fingerprintAndHashGeneration(fingerprinter, benchmarks.getEntries(),
+                    benchContext.getGeneratedFingerprints(), benchContext.getManualFingerprints(),
+                    benchContext.getClassFingerprints());
+        }
+
+        report = buildReport();
+        report.computeScores();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        SyntheticBenchmarks.delete(workDir);
+    }
+
+    @Benchmark
+    public BenchmarkOverviewReport buildReport() throws IOException {
+        try (BenchmarkClassIndex classIndex = new BenchmarkClassIndex(benchmarks.getClasspath(),
+                new File(workDir, "metadata.cache"), LOGGER)) {
+            return launcher.processResults(benchContext, benchmarkSettings, results, classIndex, LOGGER,
+                    configuration);
+        }
+    }
+
+    @Benchmark
+    public long writeReport() throws IOException {
+        ReportFileWriter.writeJson(report, reportFile, false, false);
+        return reportFile.length();
+    }
+
+    @Benchmark
+    public String encryptReport() {
+        return ReportingService.getInstance().prepareReportForDelivery(benchContext.getSecurityBuilder(), report);
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.bcel.Const;
+import org.apache.bcel.generic.*;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.results.*;
+import org.openjdk.jmh.runner.BenchmarkListEntry;
+import org.openjdk.jmh.runner.IterationType;
+import org.openjdk.jmh.runner.WorkloadParams;
+import org.openjdk.jmh.runner.options.TimeValue;
+import org.openjdk.jmh.util.Optional;
+
+import com.gocypher.cybench.core.annotation.BenchmarkTag;
+import com.gocypher.cybench.utils.PluginConstants;
+
+/**
+ * Synthetic benchmarks project: class files of generated JMH benchmark classes annotated with CyBench metadata and
+ * fabricated run results of their benchmarks. Lets plugin post-processing be measured on suites of any size without
+ * actually running benchmarks.
+ */
+public class SyntheticBenchmarks {
+    static final int METHODS_PER_CLASS = 10;
+
+    private static final String PACKAGE = "com.gocypher.cybench.synthetic";
+    private static final String BENCHMARK_ANNOTATION = "org.openjdk.jmh.annotations.Benchmark";
+    private static final int ITERATIONS = 5;
+
+    private final File classesDir;
+    private final List<String> classNames = new ArrayList<>();
+    private final List<String> benchmarkNames = new ArrayList<>();
+
+    /**
+     * Generates benchmark classes into provided directory.
+     *
+     * @param classesDir
+     *            directory to write class files to
+     * @param methods
+     *            total number of benchmark methods, spread over classes of {@link #METHODS_PER_CLASS} methods
+     * @throws IOException
+     *             if class file can't be written
+     */
+    public SyntheticBenchmarks(File classesDir, int methods) throws IOException {
+        this.classesDir = classesDir;
+        int classes = (methods + METHODS_PER_CLASS - 1) / METHODS_PER_CLASS;
+        for (int i = 0; i < classes; i++) {
+            String className = PACKAGE + ".Benchmarks" + i;
+            int classMethods = Math.min(METHODS_PER_CLASS, methods - i * METHODS_PER_CLASS);
+            writeClass(className, classMethods);
+            classNames.add(className);
+            for (int j = 0; j < classMethods; j++) {
+                benchmarkNames.add(className + ".benchmark" + j);
+            }
+        }
+    }
+
+    /**
+     * Returns benchmarks classpath: generated classes directory and CyBench annotations location.
+     *
+     * @return benchmarks classpath
+     */
+    public List<File> getClasspath() {
+        return Arrays.asList(classesDir, getCodeSourceLocation(BenchmarkTag.class));
+    }
+
+    public List<String> getClassNames() {
+        return classNames;
+    }
+
+    public List<String> getBenchmarkNames() {
+        return benchmarkNames;
+    }
+
+    /**
+     * Returns benchmark list entries of generated benchmarks, as JMH annotation processor would list them.
+     *
+     * @return benchmark list entries
+     */
+    public List<BenchmarkListEntry> getEntries() {
+        List<BenchmarkListEntry> entries = new ArrayList<>(benchmarkNames.size());
+        for (String name : benchmarkNames) {
+            String className = name.substring(0, name.lastIndexOf('.'));
+            String method = name.substring(className.length() + 1);
+            entries.add(new BenchmarkListEntry(className, className + "_jmhType", method, Mode.Throughput,
+                    Optional.none(), new int[] { 1 }, Optional.none(), Optional.none(), Optional.none(),
+                    Optional.none(), Optional.none(), Optional.none(), Optional.none(), Optional.none(),
+                    Optional.none(), Optional.none(), Optional.none(), Optional.none(), Optional.none(),
+                    Optional.none(), Optional.none(), Optional.none(), Optional.none()));
+        }
+        return entries;
+    }
+
+    /**
+     * Fabricates run results of generated benchmarks having {@value #ITERATIONS} measurement iterations each.
+     *
+     * @return run results
+     */
+    public List<RunResult> createRunResults() {
+        IterationParams warmup = new IterationParams(IterationType.WARMUP, ITERATIONS, TimeValue.seconds(1), 1);
+        IterationParams measurement = new IterationParams(IterationType.MEASUREMENT, ITERATIONS,
+                TimeValue.seconds(1), 1);
+        String jvm = new File(System.getProperty("java.home"), "bin/java").getAbsolutePath();
+        List<RunResult> results = new ArrayList<>(benchmarkNames.size());
+        Random random = new Random(benchmarkNames.size());
+        for (String name : benchmarkNames) {
+            BenchmarkParams params = new BenchmarkParams(name, name + "_jmhTest", false, 1, new int[] { 1 },
+                    Collections.emptyList(), 1, 0, warmup, measurement, Mode.Throughput, new WorkloadParams(),
+                    TimeUnit.SECONDS, 1, jvm, Collections.emptyList(), System.getProperty("java.version"),
+                    System.getProperty("java.vm.name"), System.getProperty("java.vm.version"), "1.35",
+                    TimeValue.minutes(10));
+            List<IterationResult> iterations = new ArrayList<>(ITERATIONS);
+            for (int i = 0; i < ITERATIONS; i++) {
+                IterationResult iteration = new IterationResult(params, measurement,
+                        new IterationResultMetaData(1000000L, 1000000L));
+                iteration.addResult(new ThroughputResult(ResultRole.PRIMARY, "",
+                        1000000L + random.nextInt(100000), TimeUnit.SECONDS.toNanos(1), TimeUnit.SECONDS));
+                iterations.add(iteration);
+            }
+            results.add(new RunResult(params, Collections.singletonList(new BenchmarkResult(params, iterations))));
+        }
+        return results;
+    }
+
+    private void writeClass(String className, int methods) throws IOException {
+        ClassGen classGen = new ClassGen(className, Object.class.getName(), "<generated>",
+                Const.ACC_PUBLIC | Const.ACC_SUPER, null);
+        // annotations are ignored by JVM in class files older than Java 5
+        classGen.setMajor(Const.MAJOR_1_8);
+        classGen.setMinor(Const.MINOR_1_8);
+        ConstantPoolGen constantPool = classGen.getConstantPool();
+        classGen.addEmptyConstructor(Const.ACC_PUBLIC);
+        ArrayElementValueGen classMetadata = new ArrayElementValueGen(constantPool);
+        classMetadata.addElement(new AnnotationElementValueGen(metadata("domain", "synthetic", constantPool),
+                constantPool));
+        classMetadata.addElement(new AnnotationElementValueGen(metadata("context", className, constantPool),
+                constantPool));
+        classGen.addAnnotationEntry(annotation(PluginConstants.METADATA_LIST, constantPool,
+                new ElementValuePairGen("value", classMetadata, constantPool)));
+
+        for (int i = 0; i < methods; i++) {
+            InstructionList instructions = new InstructionList();
+            instructions.append(new PUSH(constantPool, i));
+            instructions.append(InstructionConst.IRETURN);
+            MethodGen methodGen = new MethodGen(Const.ACC_PUBLIC, Type.INT, Type.NO_ARGS, new String[0],
+                    "benchmark" + i, className, instructions, constantPool);
+            methodGen.addAnnotationEntry(annotation(BENCHMARK_ANNOTATION, constantPool));
+            String tag = UUID.nameUUIDFromBytes((className + i).getBytes(StandardCharsets.UTF_8)).toString();
+            methodGen.addAnnotationEntry(
+                    annotation(PluginConstants.BENCHMARK_TAG, constantPool, stringValue("tag", tag, constantPool)));
+            methodGen.addAnnotationEntry(metadata("title", "Synthetic benchmark " + i, constantPool));
+            methodGen.setMaxStack();
+            methodGen.setMaxLocals();
+            classGen.addMethod(methodGen.getMethod());
+            instructions.dispose();
+        }
+
+        File classFile = new File(classesDir, className.replace('.', '/') + ".class");
+        Files.createDirectories(classFile.getParentFile().toPath());
+        classGen.getJavaClass().dump(classFile);
+    }
+
+    private static AnnotationEntryGen metadata(String key, String value, ConstantPoolGen constantPool) {
+        return annotation(PluginConstants.BENCHMARK_METADATA, constantPool, stringValue("key", key, constantPool),
+                stringValue("value", value, constantPool));
+    }
+
+    private static AnnotationEntryGen annotation(String type, ConstantPoolGen constantPool,
+            ElementValuePairGen... values) {
+        return new AnnotationEntryGen(new ObjectType(type), Arrays.asList(values), true, constantPool);
+    }
+
+    private static ElementValuePairGen stringValue(String name, String value, ConstantPoolGen constantPool) {
+        return new ElementValuePairGen(name, new SimpleElementValueGen(ElementValueGen.STRING, constantPool, value),
+                constantPool);
+    }
+
+    private static File getCodeSourceLocation(Class<?> cls) {
+        try {
+            return new File(cls.getProtectionDomain().getCodeSource().getLocation().toURI());
+        } catch (URISyntaxException exc) {
+            throw new IllegalStateException("Failed to resolve location of " + cls.getName(), exc);
+        }
+    }
+
+    /**
+     * Deletes directory with its content.
+     *
+     * @param dir
+     *            directory to delete
+     * @throws IOException
+     *             if file can't be deleted
+     */
+    public static void delete(File dir) throws IOException {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                delete(file);
+            }
+        }
+        Files.deleteIfExists(dir.toPath());
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench;
+
+import java.io.File;
+import java.util.*;
+import java.util.function.Function;
+
+import org.gradle.api.logging.Logger;
+import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.BenchmarkList;
+import org.openjdk.jmh.runner.BenchmarkListEntry;
+import org.openjdk.jmh.runner.Defaults;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.gocypher.cybench.utils.PluginUtils;
+
+/**
+ * Runs benchmarks adaptively: every benchmark is run with configured forks and iterations first, then in additional
+ * rounds (a single fork with configured warm-up and measurement iterations each) until relative error of its
+ * score at configured confidence level drops below target, or until benchmark rounds or time budget is exhausted.
+ * Results of all rounds are merged, as if they were forks of a single run.
+ * <p>
+ * JMH fixes iterations count of a fork when it is started, so a running fork can't be extended by further iterations:
+ * additional measurement iterations are run by additional forks, having warm-up repeated.
+ */
+public class AdaptiveRunner {
+    /**
+     * Minimal number of score samples having error estimated by JMH.
+     */
+    private static final int MIN_SAMPLES = 3;
+
+    private final File listFile;
+    private final double targetError;
+    private final double confidence;
+    private final int maxRounds;
+    private final long maxMillis;
+    private final Function<Options, Runner> runnerFactory;
+    private final Logger logger;
+    private final Map<String, String> statistics = new HashMap<>();
+
+    /**
+     * Creates adaptive benchmarks runner.
+     *
+     * @param listFile
+     *            file to write single benchmark list to
+     * @param targetError
+     *            target relative error (half-width of confidence interval divided by mean score)
+     * @param confidence
+     *            confidence level of confidence interval, e.g. {@code 0.99}
+     * @param maxRounds
+     *            maximum number of rounds per benchmark
+     * @param maxSeconds
+     *            maximum wall clock time per benchmark in seconds, not limited if {@code 0} or less
+     * @param runnerFactory
+     *            JMH runner factory
+     * @param logger
+     *            logger
+     */
+    public AdaptiveRunner(File listFile, double targetError, double confidence, int maxRounds, int maxSeconds,
+            Function<Options, Runner> runnerFactory, Logger logger) {
+        this.listFile = listFile;
+        this.targetError = targetError;
+        this.confidence = confidence;
+        this.maxRounds = Math.max(1, maxRounds);
+        this.maxMillis = maxSeconds > 0 ? maxSeconds * 1000L : Long.MAX_VALUE;
+        this.runnerFactory = runnerFactory;
+        this.logger = logger;
+    }
+
+    /**
+     * Runs benchmarks.
+     *
+     * @param entries
+     *            benchmarks to run
+     * @param options
+     *            JMH options to run benchmarks with
+     * @return merged run results of all benchmarks
+     * @throws Exception
+     *             if benchmarks run fails
+     */
+    public Collection<RunResult> run(Collection<BenchmarkListEntry> entries, Options options) throws Exception {
+        int forks = options.getForkCount().orElse(Defaults.MEASUREMENT_FORKS);
+        int iterations = options.getMeasurementIterations().orElse(Defaults.MEASUREMENT_ITERATIONS);
+        int firstRoundForks = Math.max(forks, 1);
+        // error can't be estimated after the first round having less samples
+        Options firstRoundOptions = firstRoundForks * iterations < MIN_SAMPLES ? new OptionsBuilder().parent(options)
+                .measurementIterations((MIN_SAMPLES + firstRoundForks - 1) / firstRoundForks).build() : options;
+        // non-forked runs stay non-forked
+        Options roundOptions = new OptionsBuilder().parent(options).forks(Math.min(forks, 1)).build();
+        List<RunResult> results = new ArrayList<>();
+        for (BenchmarkListEntry entry : new TreeSet<>(entries)) {
+            results.addAll(runBenchmark(entry, firstRoundOptions, roundOptions));
+        }
+        return results;
+    }
+
+    /**
+     * Returns achieved statistics of run benchmarks.
+     *
+     * @return map of benchmark name and its achieved statistics description
+     */
+    public Map<String, String> getStatistics() {
+        return statistics;
+    }
+
+    private Collection<RunResult> runBenchmark(BenchmarkListEntry entry, Options firstRoundOptions,
+            Options roundOptions) throws Exception {
+        Map<String, List<BenchmarkResult>> roundsResults = new LinkedHashMap<>();
+        Map<String, RunResult> merged = new LinkedHashMap<>();
+        long start = System.currentTimeMillis();
+        long lastRound = 0;
+        int rounds = 0;
+        double error = Double.NaN;
+        while (true) {
+            long roundStart = System.currentTimeMillis();
+            for (RunResult result : runRound(entry, rounds == 0 ? firstRoundOptions : roundOptions)) {
+                String id = result.getParams().id();
+                roundsResults.computeIfAbsent(id, k -> new ArrayList<>()).addAll(result.getBenchmarkResults());
+                merged.put(id, new RunResult(result.getParams(), roundsResults.get(id)));
+            }
+            rounds++;
+            lastRound = System.currentTimeMillis() - roundStart;
+
+            error = getMaxError(merged.values());
+            if (error <= targetError) {
+                break;
+            }
+            if (rounds >= maxRounds) {
+                logger.lifecycle("Benchmark {} did not reach target error {} in {} rounds", entry.getUsername(),
+                        targetError, rounds);
+                break;
+            }
+            if (System.currentTimeMillis() - start + lastRound > maxMillis) {
+                logger.lifecycle("Benchmark {} did not reach target error {} within time budget", entry.getUsername(),
+                        targetError);
+                break;
+            }
+        }
+        logger.lifecycle("Benchmark {} completed in {} round(s), relative error {}", entry.getUsername(), rounds,
+                String.format(Locale.ROOT, "%.4f", error));
+        statistics.put(entry.getUsername(), String.format(Locale.ROOT, "error=%.6f;confidence=%s;rounds=%d", error,
+                confidence, rounds));
+        return merged.values();
+    }
+
+    /**
+     * Runs single round of provided benchmark.
+     *
+     * @param entry
+     *            benchmark to run
+     * @param options
+     *            JMH options of round
+     * @return run results of round
+     * @throws Exception
+     *             if benchmark run fails
+     */
+    Collection<RunResult> runRound(BenchmarkListEntry entry, Options options) throws Exception {
+        PluginUtils.writeBenchmarkList(listFile, Collections.singletonList(entry));
+        Runner runner = runnerFactory.apply(options);
+        PluginUtils.updateFieldViaReflection(runner, "list", Runner.class,
+                BenchmarkList.fromFile(listFile.getAbsolutePath()));
+        return runner.run();
+    }
+
+    private double getMaxError(Collection<RunResult> results) {
+        double maxError = 0;
+        for (RunResult result : results) {
+            double mean = result.getPrimaryResult().getStatistics().getMean();
+            double meanError = result.getPrimaryResult().getStatistics().getMeanErrorAt(confidence);
+            double error = mean == 0 ? 0 : meanError / Math.abs(mean);
+            if (Double.isNaN(error)) {
+                // not enough samples to estimate error yet
+                return Double.POSITIVE_INFINITY;
+            }
+            maxError = Math.max(maxError, error);
+        }
+        return maxError;
+    }
+}
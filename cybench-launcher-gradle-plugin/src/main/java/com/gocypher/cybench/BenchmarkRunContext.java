@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.gocypher.cybench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.commons.lang3.StringUtils;
+import org.gradle.api.logging.Logger;
+import org.openjdk.jmh.runner.BenchmarkListEntry;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.format.OutputFormat;
+import org.openjdk.jmh.runner.format.OutputFormatFactory;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import com.gocypher.cybench.utils.BenchmarkBaseline;
+import com.gocypher.cybench.utils.EnvironmentCache;
+import com.gocypher.cybench.utils.HostQuiescence;
+import com.gocypher.cybench.utils.JsonLinesRunListener;
+import com.gocypher.cybench.utils.LauncherConfiguration;
+import com.gocypher.cybench.utils.ListeningOutputFormat;
+import com.gocypher.cybench.utils.PrometheusRunListener;
+import com.gocypher.cybench.utils.RunListener;
+import com.gocypher.cybench.utils.RunProgress;
+import com.gocypher.cybench.utils.ScoreGate;
+
+/**
+ * State of a single {@link Launcher#execute} call: background environment probe and listeners of benchmarks run.
+ * Plugin instance is shared by all tasks of the project, so run state is never kept in its fields.
+ */
+class BenchmarkRunContext implements AutoCloseable {
+    private final Logger logger;
+    private CompletableFuture<EnvironmentCache.Environment> environmentProbe;
+    private List<RunListener> runListeners = Collections.emptyList();
+    private OutputFormat outputFormat;
+    private ScoreGate scoreGate;
+    private HostQuiescence hostQuiescence;
+
+    BenchmarkRunContext(Logger logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * Starts collecting environment properties in background, storing them into environment cache.
+     *
+     * @param environmentCache
+     *            environment cache
+     */
+    void probeEnvironment(EnvironmentCache environmentCache) {
+        environmentProbe = CompletableFuture.supplyAsync(() -> {
+            EnvironmentCache.Environment collected = EnvironmentCache.collect();
+            environmentCache.put(collected);
+            return collected;
+        }, runnable -> {
+            Thread thread = new Thread(runnable, "cybench-environment-probe");
+            thread.setDaemon(true);
+            thread.start();
+        });
+    }
+
+    /**
+     * Waits for background environment probe to complete.
+     *
+     * @return collected environment properties, or {@code null} if environment is not probed in background
+     */
+    EnvironmentCache.Environment awaitEnvironment() {
+        if (environmentProbe == null) {
+            return null;
+        }
+        if (!environmentProbe.isDone()) {
+            logger.lifecycle("Waiting for hardware, software and JVM information collection to complete...");
+        }
+        try {
+            return environmentProbe.join();
+        } finally {
+            environmentProbe = null;
+        }
+    }
+
+    /**
+     * Creates listeners of benchmarks run: progress, host quiescence check and score thresholds gate.
+     *
+     * @param configuration
+     *            plugin configuration
+     * @param options
+     *            JMH options of benchmarks run
+     */
+    void startListeners(LauncherConfiguration configuration, Options options) {
+        runListeners = createRunListeners(configuration);
+        if (HostQuiescence.isEnabled(configuration.getQuiescenceCheck())) {
+            hostQuiescence = new HostQuiescence(configuration.getQuiescenceCheck(), configuration.getQuietCpuLoad(),
+                    configuration.getMaxCpuTemperature(), configuration.getQuiescenceTimeout(),
+                    configuration.getQuiescenceSampleInterval(), logger);
+            // first, so host is quiet before other listeners are notified about benchmark start
+            runListeners.add(0, hostQuiescence);
+        }
+        if (!configuration.getThresholds().isEmpty()) {
+            BenchmarkBaseline baseline = StringUtils.isBlank(configuration.getBaselineFile()) ? null
+                    : BenchmarkBaseline.load(new File(configuration.getBaselineFile()), logger);
+            scoreGate = new ScoreGate(configuration.getThresholds(), baseline,
+                    configuration.getThresholdViolationsAllowed(), logger);
+            // last, so other listeners are notified before benchmarks run is aborted
+            runListeners.add(scoreGate);
+        }
+        outputFormat = new ListeningOutputFormat(OutputFormatFactory.createFormatInstance(System.out,
+                options.verbosity().orElse(VerboseMode.NORMAL)), runListeners);
+    }
+
+    private List<RunListener> createRunListeners(LauncherConfiguration configuration) {
+        List<RunListener> listeners = new ArrayList<>();
+        RunProgress progress = new RunProgress(logger, configuration.isProgressLogging());
+        listeners.add(progress);
+        if (StringUtils.isNotBlank(configuration.getProgressFile())) {
+            try {
+                listeners.add(new JsonLinesRunListener(new File(configuration.getProgressFile()), logger));
+            } catch (IOException exc) {
+                logger.warn("Failed to open benchmarks progress file {}", configuration.getProgressFile(), exc);
+            }
+        }
+        if (configuration.getMetricsPort() > 0) {
+            try {
+                listeners.add(new PrometheusRunListener(configuration.getMetricsPort(), progress, logger));
+            } catch (IOException exc) {
+                logger.warn("Failed to start metrics endpoint on port {}", configuration.getMetricsPort(), exc);
+            }
+        }
+        return listeners;
+    }
+
+    Runner createRunner(Options options) {
+        return outputFormat == null ? new Runner(options) : new Runner(options, outputFormat);
+    }
+
+    void runPlanned(Collection<BenchmarkListEntry> entries) {
+        for (RunListener listener : runListeners) {
+            listener.runPlanned(entries);
+        }
+    }
+
+    /**
+     * Returns score thresholds gate.
+     *
+     * @return score gate, or {@code null} if no thresholds are configured
+     */
+    ScoreGate getScoreGate() {
+        return scoreGate;
+    }
+
+    /**
+     * Returns host quiescence check.
+     *
+     * @return host quiescence check, or {@code null} if check is disabled
+     */
+    HostQuiescence getHostQuiescence() {
+        return hostQuiescence;
+    }
+
+    /**
+     * Closes listeners of benchmarks run.
+     */
+    @Override
+    public void close() {
+        for (RunListener listener : runListeners) {
+            try {
+                listener.close();
+            } catch (IOException exc) {
+                logger.warn("Failed to close benchmarks run listener", exc);
+            }
+        }
+        runListeners = Collections.emptyList();
+    }
+}
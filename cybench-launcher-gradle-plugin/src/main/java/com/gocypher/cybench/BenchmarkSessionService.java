@@ -0,0 +1,31 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.gocypher.cybench;
+
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+
+/**
+ * Build service shared by benchmark running tasks of all projects in the build. It is registered with single parallel
+ * usage, so benchmarks of different projects are run one after another even in {@code --parallel} builds: they do not
+ * compete for CPUs and do not race on global JVM state (system properties, CyBench delivery session).
+ */
+public abstract class BenchmarkSessionService implements BuildService<BuildServiceParameters.None> {
+    public static final String NAME = "cybenchBenchmarkSession";
+}
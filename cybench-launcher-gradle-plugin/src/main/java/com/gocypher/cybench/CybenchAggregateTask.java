@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.gocypher.cybench;
+
+import java.io.File;
+
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+
+/**
+ * Root project task building a single CyBench report from benchmark results of all subprojects, when root project
+ * {@code cybenchJMH} configuration has {@code aggregate} enabled. Subproject {@code cybenchRun} tasks only run
+ * benchmarks and store their results, benchmarks of each subproject are reported in its own category. Environment is
+ * probed and report is sent to CyBench once.
+ */
+public class CybenchAggregateTask extends CybenchMergeTask {
+    private final ConfigurableFileCollection moduleResultFiles = getProject().getObjects().fileCollection();
+
+    @InputFiles
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public ConfigurableFileCollection getModuleResultFiles() {
+        return moduleResultFiles;
+    }
+
+    @Override
+    @Internal
+    public FileCollection getShardResultFiles() {
+        return moduleResultFiles.filter(File::isFile);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.TaskAction;
+
+import com.gocypher.cybench.utils.LauncherConfiguration;
+import com.gocypher.cybench.utils.ReportOutbox;
+
+/**
+ * Task sending all reports waiting in the outbox to CyBench, including ones having their retry delay not yet elapsed.
+ */
+public class CybenchFlushTask extends DefaultTask {
+    private LauncherConfiguration configuration;
+    private Provider<ReportDeliveryService> deliveryService;
+
+    public CybenchFlushTask() {
+        // outbox content is not tracked, task has to run every time it is requested
+        getOutputs().upToDateWhen(task -> false);
+    }
+
+    @Internal
+    public LauncherConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    public void setConfiguration(LauncherConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    @Internal
+    public Provider<ReportDeliveryService> getDeliveryService() {
+        return deliveryService;
+    }
+
+    public void setDeliveryService(Provider<ReportDeliveryService> deliveryService) {
+        this.deliveryService = deliveryService;
+    }
+
+    @TaskAction
+    public void flush() throws InterruptedException {
+        ReportOutbox outbox = new ReportOutbox(CybenchRunTask.getOutboxDir(getProject(), configuration));
+        int pending = deliveryService.get().deliver(outbox.getDir(), configuration.getReportDeliveryRetries(),
+                getLogger());
+        if (pending > 0) {
+            String message = pending + " report(s) were not delivered and are kept in " + outbox.getDir();
+            if (configuration.isShouldFailBuildOnReportDeliveryFailure()) {
+                throw new GradleException(message);
+            }
+            getLogger().warn(message);
+        } else {
+            getLogger().lifecycle("All reports from {} are delivered", outbox.getDir());
+        }
+    }
+}
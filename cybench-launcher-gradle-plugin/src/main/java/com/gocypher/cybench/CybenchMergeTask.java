@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench;
+
+import java.io.File;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.*;
+
+import com.gocypher.cybench.utils.AutomatedComparisonConfig;
+import com.gocypher.cybench.utils.LauncherConfiguration;
+import com.gocypher.cybench.utils.ShardResult;
+
+/**
+ * Task merging partial results of benchmark shards (produced by {@code cybenchRun} tasks having {@code shardCount}
+ * greater than {@code 1}, possibly on different machines) into a single CyBench report. Report scores are computed on
+ * merged results and report is sent to CyBench once.
+ * <p>
+ * Shard result files are taken from {@code shardResultsFolder}, so all shard results have to be copied there before
+ * running this task.
+ */
+public class CybenchMergeTask extends DefaultTask {
+    private final ConfigurableFileCollection benchmarkClasspath = getProject().getObjects().fileCollection();
+    private LauncherConfiguration configuration;
+    private AutomatedComparisonConfig automatedComparisonConfig;
+    private Provider<ReportDeliveryService> deliveryService;
+
+    public CybenchMergeTask() {
+        // merged report is sent or compared against local report history, which is updated by every run
+        getOutputs().upToDateWhen(task -> !configuration.isShouldSendReportToCyBench()
+                && !CybenchRunTask.isLocalComparison(configuration, automatedComparisonConfig));
+    }
+
+    @Classpath
+    public ConfigurableFileCollection getBenchmarkClasspath() {
+        return benchmarkClasspath;
+    }
+
+    @Nested
+    public LauncherConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    public void setConfiguration(LauncherConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    @Nested
+    public AutomatedComparisonConfig getAutomatedComparisonConfig() {
+        return automatedComparisonConfig;
+    }
+
+    public void setAutomatedComparisonConfig(AutomatedComparisonConfig automatedComparisonConfig) {
+        this.automatedComparisonConfig = automatedComparisonConfig;
+    }
+
+    @Internal
+    public Provider<ReportDeliveryService> getDeliveryService() {
+        return deliveryService;
+    }
+
+    public void setDeliveryService(Provider<ReportDeliveryService> deliveryService) {
+        this.deliveryService = deliveryService;
+    }
+
+    @InputFiles
+    @PathSensitive(PathSensitivity.NAME_ONLY)
+    public FileCollection getShardResultFiles() {
+        return getProject().fileTree(CybenchRunTask.getShardResultsDir(getProject(), configuration))
+                .matching(pattern -> pattern.include("*" + ShardResult.FILE_EXTENSION));
+    }
+
+    @OutputFile
+    public File getLastReportFile() {
+        return CybenchRunTask.getLastReportFile(this);
+    }
+
+    @TaskAction
+    public void mergeShards() {
+        LauncherConfiguration configuration = this.configuration.copy();
+        configuration.setReportsFolder(CybenchRunTask.getReportsDir(getProject(), configuration).getAbsolutePath());
+        configuration.setLastReportFile(getLastReportFile().getAbsolutePath());
+        configuration.setEnvironmentCacheFolder(
+                CybenchRunTask.getEnvironmentCacheDir(getProject(), configuration).getAbsolutePath());
+        configuration.setOutboxFolder(CybenchRunTask.getOutboxDir(getProject(), configuration).getAbsolutePath());
+        String buildPath = String.valueOf(getProject().getBuildDir());
+
+        System.setProperty("java.class.path", benchmarkClasspath.getAsPath());
+        new Launcher().execute(buildPath, configuration, automatedComparisonConfig, benchmarkClasspath.getFiles(),
+                getShardResultFiles().getFiles(), getLogger());
+        CybenchRunTask.deliverReports(deliveryService, configuration);
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench;
+
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.provider.Property;
+import org.gradle.workers.WorkAction;
+import org.gradle.workers.WorkParameters;
+
+import com.gocypher.cybench.launcher.report.DeliveryService;
+import com.gocypher.cybench.utils.AutomatedComparisonConfig;
+import com.gocypher.cybench.utils.LauncherConfiguration;
+
+/**
+ * Worker action running benchmarks in a separate worker process, so Gradle daemon state does not affect measurements
+ * and global JVM state changes made by benchmarks run do not leak into the daemon.
+ */
+public abstract class CybenchRunAction implements WorkAction<CybenchRunAction.Parameters> {
+    private static final Logger LOGGER = Logging.getLogger(CybenchRunAction.class);
+
+    public interface Parameters extends WorkParameters {
+        Property<String> getBuildPath();
+
+        Property<LauncherConfiguration> getConfiguration();
+
+        Property<AutomatedComparisonConfig> getAutomatedComparisonConfig();
+
+        ConfigurableFileCollection getBenchmarkClasspath();
+    }
+
+    @Override
+    public void execute() {
+        Parameters parameters = getParameters();
+        System.setProperty("java.class.path", parameters.getBenchmarkClasspath().getAsPath());
+
+        try {
+            new Launcher().execute(parameters.getBuildPath().get(), parameters.getConfiguration().get(),
+                    parameters.getAutomatedComparisonConfig().get(), parameters.getBenchmarkClasspath().getFiles(),
+                    LOGGER);
+        } finally {
+            // worker process runs single action at a time, its delivery client is not shared with other builds
+            DeliveryService.getInstance().close();
+        }
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.inject.Inject;
+
+import org.apache.commons.lang3.StringUtils;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.Project;
+import org.gradle.api.Task;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.*;
+import org.gradle.workers.WorkQueue;
+import org.gradle.workers.WorkerExecutor;
+import org.openjdk.jmh.util.Version;
+
+import com.gocypher.cybench.utils.AutomatedComparisonConfig;
+import com.gocypher.cybench.utils.LauncherConfiguration;
+import com.gocypher.cybench.utils.PluginConstants;
+import com.gocypher.cybench.utils.ShardResult;
+
+/**
+ * Task running project benchmarks and producing CyBench report.
+ * <p>
+ * Task is considered up-to-date (or its outputs are loaded from build cache) when benchmarks classpath, plugin
+ * configuration, JMH version and baseline scores file did not change since last run. When report is configured to be
+ * sent to CyBench or compared against local report history (which is updated by every run), task is always executed.
+ * Task outputs are the report of this run ({@code build/cybench/report/<task name>.json}) or
+ * shard/project results file, not the reports folder: it keeps reports and history of all previous runs, which must
+ * never be replaced by cached outputs.
+ * <p>
+ * By default benchmarks are run in a separate worker process, having its own heap and JVM arguments, instead of
+ * Gradle daemon.
+ */
+@CacheableTask
+public class CybenchRunTask extends DefaultTask {
+    private final WorkerExecutor workerExecutor;
+    private final ConfigurableFileCollection benchmarkClasspath = getProject().getObjects().fileCollection();
+    private final ConfigurableFileCollection benchmarkClassDirs = getProject().getObjects().fileCollection();
+    private LauncherConfiguration configuration;
+    private AutomatedComparisonConfig automatedComparisonConfig;
+    private Provider<ReportDeliveryService> deliveryService;
+
+    @Inject
+    public CybenchRunTask(WorkerExecutor workerExecutor) {
+        this.workerExecutor = workerExecutor;
+        getOutputs().upToDateWhen(task -> !isReportSent() && !isLocalComparison());
+        getOutputs().cacheIf("report is not sent to CyBench", task -> !isReportSent());
+        getOutputs().doNotCacheIf("report is compared against local report history", task -> isLocalComparison());
+        onlyIf(task -> {
+            if (configuration.isSkip() || System.getProperty("skipCybench") != null) {
+                getLogger().lifecycle("Skipping CyBench execution");
+                return false;
+            }
+            return true;
+        });
+    }
+
+    private boolean isReportSent() {
+        // results of aggregated project are reported by root project aggregation task
+        return configuration.isShouldSendReportToCyBench() && StringUtils.isBlank(configuration.getModuleName());
+    }
+
+    private boolean isLocalComparison() {
+        return isLocalComparison(configuration, automatedComparisonConfig);
+    }
+
+    static boolean isLocalComparison(LauncherConfiguration configuration,
+            AutomatedComparisonConfig automatedComparisonConfig) {
+        // comparison is enabled by valid automated comparison settings, which always have scope set
+        return automatedComparisonConfig != null && StringUtils.isNotBlank(automatedComparisonConfig.getScope())
+                && Launcher.isLocalComparison(configuration, automatedComparisonConfig);
+    }
+
+    @Classpath
+    public ConfigurableFileCollection getBenchmarkClasspath() {
+        return benchmarkClasspath;
+    }
+
+    /**
+     * Returns class output directories of benchmark source sets, where JMH generated benchmark lists are looked up. These
+     * are part of benchmarks classpath.
+     *
+     * @return benchmark class directories
+     */
+    @Internal
+    public ConfigurableFileCollection getBenchmarkClassDirs() {
+        return benchmarkClassDirs;
+    }
+
+    @Nested
+    public LauncherConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    public void setConfiguration(LauncherConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    @Nested
+    public AutomatedComparisonConfig getAutomatedComparisonConfig() {
+        return automatedComparisonConfig;
+    }
+
+    public void setAutomatedComparisonConfig(AutomatedComparisonConfig automatedComparisonConfig) {
+        this.automatedComparisonConfig = automatedComparisonConfig;
+    }
+
+    @Internal
+    public Provider<ReportDeliveryService> getDeliveryService() {
+        return deliveryService;
+    }
+
+    public void setDeliveryService(Provider<ReportDeliveryService> deliveryService) {
+        this.deliveryService = deliveryService;
+    }
+
+    /**
+     * Returns local baseline scores file, which score thresholds are checked against.
+     *
+     * @return baseline scores file, or {@code null} if not configured or not created yet
+     */
+    @InputFile
+    @Optional
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public File getBaselineFile() {
+        if (StringUtils.isBlank(configuration.getBaselineFile())) {
+            return null;
+        }
+        File baselineFile = getProject().file(configuration.getBaselineFile());
+        return baselineFile.isFile() ? baselineFile : null;
+    }
+
+    @Input
+    public String getJmhVersion() {
+        return Version.getPlainVersion();
+    }
+
+    @OutputFile
+    @Optional
+    public File getLastReportFile() {
+        return configuration.getShardCount() > 1 || StringUtils.isNotBlank(configuration.getModuleName()) ? null
+                : getLastReportFile(this);
+    }
+
+    @OutputFile
+    @Optional
+    public File getShardResultFile() {
+        return configuration.getShardCount() > 1 && StringUtils.isBlank(configuration.getModuleName())
+                ? new File(getShardResultsDir(getProject(), configuration),
+                        ShardResult.getFileName(configuration.getShardIndex(), configuration.getShardCount()))
+                : null;
+    }
+
+    @OutputFile
+    @Optional
+    public File getModuleResultFile() {
+        return StringUtils.isBlank(configuration.getModuleName()) ? null
+                : new File(getProject().getBuildDir(), PluginConstants.MODULE_RESULT_FILE);
+    }
+
+    @TaskAction
+    public void runBenchmarks() {
+        // extension is shared by tasks and builds of the daemon, run settings are resolved on a copy
+        LauncherConfiguration configuration = this.configuration.copy();
+        configuration.setReportsFolder(getReportsDir(getProject(), configuration).getAbsolutePath());
+        configuration.setShardResultsFolder(getShardResultsDir(getProject(), configuration).getAbsolutePath());
+        configuration.setEnvironmentCacheFolder(getEnvironmentCacheDir(getProject(), configuration).getAbsolutePath());
+        configuration.setOutboxFolder(getOutboxDir(getProject(), configuration).getAbsolutePath());
+        if (StringUtils.isBlank(configuration.getHostLockFile())) {
+            configuration.setHostLockFile(new File(getProject().getGradle().getGradleUserHomeDir(),
+                    PluginConstants.HOST_LOCK_FILE).getAbsolutePath());
+        }
+        File moduleResultFile = getModuleResultFile();
+        configuration.setModuleResultFile(moduleResultFile == null ? "" : moduleResultFile.getAbsolutePath());
+        File lastReportFile = getLastReportFile();
+        configuration.setLastReportFile(lastReportFile == null ? "" : lastReportFile.getAbsolutePath());
+        if (StringUtils.isNotBlank(configuration.getProgressFile())) {
+            configuration.setProgressFile(getProject().file(configuration.getProgressFile()).getAbsolutePath());
+        }
+        if (StringUtils.isNotBlank(configuration.getBaselineFile())) {
+            configuration.setBaselineFile(getProject().file(configuration.getBaselineFile()).getAbsolutePath());
+        }
+        List<String> classDirs = new ArrayList<>();
+        for (File classDir : benchmarkClassDirs.getFiles()) {
+            classDirs.add(classDir.getAbsolutePath());
+        }
+        configuration.setBenchmarkClassDirs(classDirs);
+        String buildPath = String.valueOf(getProject().getBuildDir());
+
+        if (configuration.isProcessIsolation()) {
+            WorkQueue workQueue = workerExecutor.processIsolation(spec -> spec.forkOptions(forkOptions -> {
+                if (StringUtils.isNotBlank(configuration.getWorkerMaxHeapSize())) {
+                    forkOptions.setMaxHeapSize(configuration.getWorkerMaxHeapSize());
+                }
+                forkOptions.jvmArgs(configuration.getWorkerJvmArgs());
+            }));
+            workQueue.submit(CybenchRunAction.class, parameters -> {
+                parameters.getBuildPath().set(buildPath);
+                parameters.getConfiguration().set(configuration);
+                parameters.getAutomatedComparisonConfig().set(automatedComparisonConfig.copy());
+                parameters.getBenchmarkClasspath().from(benchmarkClasspath);
+            });
+            // report is enqueued to the outbox by the worker, it has to complete before delivery is started
+            workQueue.await();
+        } else {
+            System.setProperty("java.class.path", benchmarkClasspath.getAsPath());
+            new Launcher().execute(buildPath, configuration, automatedComparisonConfig, benchmarkClasspath.getFiles(),
+                    getLogger());
+        }
+        deliverReports(deliveryService, configuration);
+    }
+
+    static void deliverReports(Provider<ReportDeliveryService> deliveryService,
+            LauncherConfiguration configuration) {
+        if (deliveryService != null && configuration.isShouldSendReportToCyBench()
+                && StringUtils.isBlank(configuration.getModuleName())) {
+            deliveryService.get().deliverAsync(new File(configuration.getOutboxFolder()),
+                    configuration.getReportDeliveryRetries());
+        }
+    }
+
+    static File getLastReportFile(Task task) {
+        return new File(task.getProject().getBuildDir(),
+                PluginConstants.LAST_REPORT_DIR + "/" + task.getName() + ".json");
+    }
+
+    static File getReportsDir(Project project, LauncherConfiguration configuration) {
+        String reportsFolder = configuration.getReportsFolder();
+        return project
+                .file(StringUtils.isBlank(reportsFolder) ? PluginConstants.DEFAULT_FILE_SAVE_LOCATION : reportsFolder);
+    }
+
+    static File getShardResultsDir(Project project, LauncherConfiguration configuration) {
+        String shardResultsFolder = configuration.getShardResultsFolder();
+        return StringUtils.isBlank(shardResultsFolder)
+                ? new File(project.getBuildDir(), PluginConstants.SHARD_RESULTS_DIR)
+                : project.file(shardResultsFolder);
+    }
+
+    static File getEnvironmentCacheDir(Project project, LauncherConfiguration configuration) {
+        String environmentCacheFolder = configuration.getEnvironmentCacheFolder();
+        return StringUtils.isBlank(environmentCacheFolder)
+                ? new File(project.getGradle().getGradleUserHomeDir(), PluginConstants.ENVIRONMENT_CACHE_DIR)
+                : project.file(environmentCacheFolder);
+    }
+
+    static File getOutboxDir(Project project, LauncherConfiguration configuration) {
+        String outboxFolder = configuration.getOutboxFolder();
+        return StringUtils.isBlank(outboxFolder) ? new File(project.getBuildDir(), PluginConstants.OUTBOX_DIR)
+                : project.file(outboxFolder);
+    }
+}
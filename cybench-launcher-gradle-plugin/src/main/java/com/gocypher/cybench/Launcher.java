@@ -20,13 +20,13 @@
 package com.gocypher.cybench;
 
 import java.io.File;
-import java.lang.reflect.Method;
-import java.net.URL;
-import java.net.URLClassLoader;
+import java.io.IOException;
 import java.text.MessageFormat;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.EnumUtils;
@@ -34,40 +34,69 @@ import org.apache.commons.lang3.StringUtils;
 import org.gradle.api.GradleException;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
+import org.gradle.api.artifacts.ConfigurationContainer;
 import org.gradle.api.file.FileCollection;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.plugins.JavaPlugin;
 import org.gradle.api.plugins.JavaPluginConvention;
+import org.gradle.api.provider.Provider;
 import org.gradle.api.tasks.SourceSet;
+import org.gradle.api.tasks.SourceSetContainer;
+import org.gradle.api.tasks.TaskProvider;
 import org.openjdk.jmh.profile.GCProfiler;
 import org.openjdk.jmh.profile.SafepointsProfiler;
 import org.openjdk.jmh.results.RunResult;
 import org.openjdk.jmh.runner.BenchmarkList;
+import org.openjdk.jmh.runner.BenchmarkListEntry;
 import org.openjdk.jmh.runner.CompilerHints;
 import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
 import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.ProfilerConfig;
 import org.openjdk.jmh.runner.options.TimeValue;
+import org.openjdk.jmh.util.Version;
 
 import com.gocypher.cybench.core.utils.IOUtils;
 import com.gocypher.cybench.core.utils.JMHUtils;
-import com.gocypher.cybench.core.utils.JSONUtils;
 import com.gocypher.cybench.launcher.BenchmarkRunner;
 import com.gocypher.cybench.launcher.environment.services.CollectSystemInformation;
 import com.gocypher.cybench.launcher.model.BenchmarkOverviewReport;
 import com.gocypher.cybench.launcher.model.BenchmarkReport;
 import com.gocypher.cybench.launcher.model.BenchmarkingContext;
 import com.gocypher.cybench.launcher.model.TooManyAnomaliesException;
-import com.gocypher.cybench.launcher.report.DeliveryService;
 import com.gocypher.cybench.launcher.report.ReportingService;
 import com.gocypher.cybench.launcher.utils.ComputationUtils;
 import com.gocypher.cybench.launcher.utils.Constants;
 import com.gocypher.cybench.launcher.utils.SecurityBuilder;
 import com.gocypher.cybench.model.ComparisonConfig;
 import com.gocypher.cybench.utils.AutomatedComparisonConfig;
+import com.gocypher.cybench.utils.BenchmarkBaseline;
+import com.gocypher.cybench.utils.BenchmarkClassIndex;
+import com.gocypher.cybench.utils.BenchmarkDurations;
+import com.gocypher.cybench.utils.BenchmarkOverride;
+import com.gocypher.cybench.utils.BenchmarkProfile;
+import com.gocypher.cybench.utils.BenchmarkResultStore;
+import com.gocypher.cybench.utils.BenchmarkSamples;
+import com.gocypher.cybench.utils.BenchmarkScheduler;
+import com.gocypher.cybench.utils.BenchmarkSharding;
+import com.gocypher.cybench.utils.ClassFingerprinter;
+import com.gocypher.cybench.utils.EnvironmentCache;
+import com.gocypher.cybench.utils.HostLock;
 import com.gocypher.cybench.utils.LauncherConfiguration;
+import com.gocypher.cybench.utils.LocalReportComparator;
 import com.gocypher.cybench.utils.PluginConstants;
 import com.gocypher.cybench.utils.PluginUtils;
+import com.gocypher.cybench.utils.ProfilerSettings;
+import com.gocypher.cybench.utils.ProfilerSupport;
+import com.gocypher.cybench.utils.ReportFileWriter;
+import com.gocypher.cybench.utils.ReportHistoryStore;
+import com.gocypher.cybench.utils.ReportOutbox;
+import com.gocypher.cybench.utils.ReportOutboxSender;
+import com.gocypher.cybench.utils.ScoreGate;
+import com.gocypher.cybench.utils.ShardResult;
+import com.gocypher.cybench.utils.ThresholdViolationException;
 
 public class Launcher implements Plugin<Project> {
-
     @Override
     public void apply(Project project) {
         LauncherConfiguration configuration = project.getExtensions().create("cybenchJMH", LauncherConfiguration.class);
@@ -75,60 +104,232 @@ public class Launcher implements Plugin<Project> {
             configuration.setReportName(MessageFormat.format("Benchmark for {0}:{1}:{2}", project.getGroup(),
                     project.getName(), project.getVersion()));
         }
+        configuration.setProfiles(project.container(BenchmarkProfile.class));
+        // command line profile selection takes precedence over the one set in build script
+        project.afterEvaluate(p -> {
+            Object profile = p.findProperty(PluginConstants.PROFILE_PROPERTY);
+            if (profile != null) {
+                configuration.setProfile(String.valueOf(profile));
+            }
+        });
         AutomatedComparisonConfig loadedAutoConfiguration = project.getExtensions().create("cybenchAutomation",
                 AutomatedComparisonConfig.class);
 
-        SourceSet sourceSets = project.getConvention().getPlugin(JavaPluginConvention.class).getSourceSets()
-                .getAt("main");
+        if (project == project.getRootProject() && !project.getPlugins().hasPlugin(JavaPlugin.class)) {
+            // aggregating root project may have no sources of its own
+            registerAggregateTask(project, configuration, loadedAutoConfiguration, Collections.emptyList());
+            return;
+        }
+        SourceSetContainer sourceSets = project.getConvention().getPlugin(JavaPluginConvention.class)
+                .getSourceSets();
+        createJmhSourceSet(project, sourceSets);
 
         try {
             cybenchJMHReflectiveTask(project, sourceSets, configuration, loadedAutoConfiguration);
-            project.getTasks().getByName("testClasses").finalizedBy("cybenchRun");
+            // benchmarks are run only when requested, unless configured to run after each test classes build
+            project.afterEvaluate(p -> {
+                if (configuration.isRunAfterTestClasses()) {
+                    p.getTasks().getByName("testClasses").finalizedBy("cybenchRun");
+                }
+            });
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
-    public void cybenchJMHReflectiveTask(Project project, SourceSet sourceSets, LauncherConfiguration configuration,
-            AutomatedComparisonConfig loadedAutoConfiguration) {
-        StringBuilder classpath = new StringBuilder();
-        String buildPath = String.valueOf(project.getBuildDir());
-        String testBuildPath = project.getBuildDir() + PluginConstants.TEST_SOURCE_ROOT;
-        FileCollection test = sourceSets.getRuntimeClasspath();
-        classpath.append(test.getAsPath()).append(";").append(testBuildPath);
+    /**
+     * Creates {@code jmh} source set ({@code src/jmh/java}), seeing main classes and dependencies, having JMH and its
+     * annotation processor added to its dependencies.
+     *
+     * @param project
+     *            project to create source set for
+     * @param sourceSets
+     *            project source sets
+     */
+    private static void createJmhSourceSet(Project project, SourceSetContainer sourceSets) {
+        SourceSet main = sourceSets.getByName(SourceSet.MAIN_SOURCE_SET_NAME);
+        SourceSet jmh = sourceSets.maybeCreate(PluginConstants.JMH_SOURCE_SET);
+        jmh.setCompileClasspath(jmh.getCompileClasspath().plus(main.getOutput()));
+        jmh.setRuntimeClasspath(jmh.getRuntimeClasspath().plus(main.getOutput()));
 
-        System.setProperty("java.class.path", classpath.toString());
-        project.task("cybenchRun").doLast(task -> {
-            if (!configuration.isSkip() && System.getProperty("skipCybench") == null) {
-                try {
-                    execute(buildPath, configuration, loadedAutoConfiguration, project);
-                } catch (GradleException e) {
-                    e.printStackTrace();
-                }
-            } else {
-                project.getLogger().lifecycle("Skipping CyBench execution");
+        ConfigurationContainer configurations = project.getConfigurations();
+        configurations.getByName(jmh.getImplementationConfigurationName())
+                .extendsFrom(configurations.getByName(main.getImplementationConfigurationName()));
+        configurations.getByName(jmh.getRuntimeOnlyConfigurationName())
+                .extendsFrom(configurations.getByName(main.getRuntimeOnlyConfigurationName()));
+
+        String jmhVersion = Version.getPlainVersion();
+        project.getDependencies().add(jmh.getImplementationConfigurationName(),
+                PluginConstants.JMH_CORE_DEPENDENCY + jmhVersion);
+        project.getDependencies().add(jmh.getAnnotationProcessorConfigurationName(),
+                PluginConstants.JMH_ANNOTATION_PROCESSOR_DEPENDENCY + jmhVersion);
+    }
+
+    private static List<SourceSet> getBenchmarkSourceSets(SourceSetContainer sourceSets,
+            LauncherConfiguration configuration) {
+        List<SourceSet> benchmarkSourceSets = new ArrayList<>();
+        for (String name : configuration.getBenchmarkSourceSets()) {
+            SourceSet sourceSet = sourceSets.findByName(name);
+            if (sourceSet == null) {
+                throw new GradleException("Benchmark source set '" + name + "' not found");
+            }
+            benchmarkSourceSets.add(sourceSet);
+        }
+        return benchmarkSourceSets;
+    }
+
+    public void cybenchJMHReflectiveTask(Project project, SourceSetContainer sourceSets,
+            LauncherConfiguration configuration, AutomatedComparisonConfig loadedAutoConfiguration) {
+        // resolved lazily, as benchmark source sets are configured after plugin is applied
+        Callable<List<FileCollection>> classpath = () -> {
+            List<FileCollection> runtimeClasspaths = new ArrayList<>();
+            for (SourceSet sourceSet : getBenchmarkSourceSets(sourceSets, configuration)) {
+                runtimeClasspaths.add(sourceSet.getRuntimeClasspath());
+            }
+            return runtimeClasspaths;
+        };
+        Callable<List<FileCollection>> classDirs = () -> {
+            List<FileCollection> outputDirs = new ArrayList<>();
+            for (SourceSet sourceSet : getBenchmarkSourceSets(sourceSets, configuration)) {
+                outputDirs.add(sourceSet.getOutput().getClassesDirs());
+            }
+            return outputDirs;
+        };
+        Callable<List<String>> classesTasks = () -> {
+            List<String> taskNames = new ArrayList<>();
+            for (SourceSet sourceSet : getBenchmarkSourceSets(sourceSets, configuration)) {
+                taskNames.add(sourceSet.getClassesTaskName());
             }
+            return taskNames;
+        };
+
+        project.getTasks().register("cybenchRun", CybenchRunTask.class, task -> {
+            task.setGroup("benchmark");
+            task.setDescription("Runs JMH benchmarks and produces CyBench report");
+            task.setConfiguration(configuration);
+            task.setAutomatedComparisonConfig(loadedAutoConfiguration);
+            task.getBenchmarkClasspath().from(classpath);
+            task.getBenchmarkClassDirs().from(classDirs);
+            task.dependsOn(classesTasks);
+        });
+        Provider<BenchmarkSessionService> benchmarkSession = getBenchmarkSession(project);
+        project.getTasks().named("cybenchRun", CybenchRunTask.class, task -> task.usesService(benchmarkSession));
+        Provider<ReportDeliveryService> deliveryService = getDeliveryService(project, configuration);
+        project.getTasks().named("cybenchRun", CybenchRunTask.class,
+                task -> task.setDeliveryService(deliveryService));
+        project.getTasks().register("cybenchFlush", CybenchFlushTask.class, task -> {
+            task.setGroup("benchmark");
+            task.setDescription("Sends reports waiting in the outbox to CyBench");
+            task.setConfiguration(configuration);
+            task.setDeliveryService(deliveryService);
+        });
+        project.getTasks().register("cybenchMerge", CybenchMergeTask.class, task -> {
+            task.setGroup("benchmark");
+            task.setDescription("Merges benchmark shard results into a single CyBench report");
+            task.setConfiguration(configuration);
+            task.setAutomatedComparisonConfig(loadedAutoConfiguration);
+            task.getBenchmarkClasspath().from(classpath);
+            task.setDeliveryService(deliveryService);
+            task.dependsOn(classesTasks);
+        });
+        if (project == project.getRootProject()) {
+            registerAggregateTask(project, configuration, loadedAutoConfiguration, classpath);
+        } else {
+            // root project is evaluated before subprojects, its configuration is known by now
+            project.afterEvaluate(p -> aggregateIntoRootProject(p, configuration));
+        }
+    }
+
+    private static Provider<BenchmarkSessionService> getBenchmarkSession(Project project) {
+        return project.getGradle().getSharedServices().registerIfAbsent(BenchmarkSessionService.NAME,
+                BenchmarkSessionService.class, spec -> spec.getMaxParallelUsages().set(1));
+    }
+
+    private static Provider<ReportDeliveryService> getDeliveryService(Project project,
+            LauncherConfiguration configuration) {
+        return project.getGradle().getSharedServices().registerIfAbsent(ReportDeliveryService.NAME,
+                ReportDeliveryService.class, spec -> spec.getParameters().getMaxConcurrentUploads()
+                        .set(project.provider(configuration::getReportDeliveryThreads)));
+    }
+
+    private static void registerAggregateTask(Project project, LauncherConfiguration configuration,
+            AutomatedComparisonConfig loadedAutoConfiguration, Object classpath) {
+        Provider<BenchmarkSessionService> benchmarkSession = getBenchmarkSession(project);
+        Provider<ReportDeliveryService> deliveryService = getDeliveryService(project, configuration);
+        project.getTasks().register("cybenchAggregate", CybenchAggregateTask.class, task -> {
+            task.setGroup("benchmark");
+            task.setDescription("Runs benchmarks of all subprojects and builds a single combined CyBench report");
+            task.setConfiguration(configuration);
+            task.setAutomatedComparisonConfig(loadedAutoConfiguration);
+            task.getBenchmarkClasspath().from(classpath);
+            task.setDeliveryService(deliveryService);
+            task.usesService(benchmarkSession);
+        });
+    }
+
+    private static void aggregateIntoRootProject(Project project, LauncherConfiguration configuration) {
+        Project rootProject = project.getRootProject();
+        LauncherConfiguration rootConfiguration = rootProject.getExtensions().findByType(LauncherConfiguration.class);
+        if (rootConfiguration == null || !rootConfiguration.isAggregate()) {
+            return;
+        }
+        configuration.setModuleName(project.getPath());
+        TaskProvider<CybenchRunTask> runTask = project.getTasks().named("cybenchRun", CybenchRunTask.class);
+        rootProject.getTasks().named("cybenchAggregate", CybenchAggregateTask.class, task -> {
+            task.dependsOn(runTask);
+            task.getModuleResultFiles().from(runTask.map(CybenchRunTask::getModuleResultFile));
+            // benchmark classes are needed to collect benchmark metadata
+            task.getBenchmarkClasspath().from(runTask.map(CybenchRunTask::getBenchmarkClasspath));
         });
     }
 
     public void execute(String buildPath, LauncherConfiguration configuration,
-            AutomatedComparisonConfig loadedAutoConfiguration, Project project) throws GradleException {
+            AutomatedComparisonConfig loadedAutoConfiguration, Collection<File> benchmarkClasspath, Logger logger)
+            throws GradleException {
+        execute(buildPath, configuration, loadedAutoConfiguration, benchmarkClasspath, null, logger);
+    }
+
+    /**
+     * Runs benchmarks and builds report, or, if shard result files are provided, builds report from the merged shard
+     * results without running any benchmarks.
+     *
+     * @param buildPath
+     *            project build directory path
+     * @param configuration
+     *            plugin configuration
+     * @param loadedAutoConfiguration
+     *            automated comparison configuration
+     * @param benchmarkClasspath
+     *            benchmarks classpath
+     * @param shardResultFiles
+     *            shard result files to merge, or {@code null} to run benchmarks
+     * @param logger
+     *            logger
+     * @throws GradleException
+     *             if benchmarks run or report building fails
+     */
+    public void execute(String buildPath, LauncherConfiguration configuration,
+            AutomatedComparisonConfig loadedAutoConfiguration, Collection<File> benchmarkClasspath,
+            Collection<File> shardResultFiles, Logger logger) throws GradleException {
         long start = System.currentTimeMillis();
-        project.getLogger()
-                .lifecycle("-----------------------------------------------------------------------------------------");
-        project.getLogger()
-                .lifecycle("                                 Starting CyBench benchmarks                             ");
-        project.getLogger()
-                .lifecycle("-----------------------------------------------------------------------------------------");
+        logger.lifecycle("-----------------------------------------------------------------------------------------");
+        logger.lifecycle("                                 Starting CyBench benchmarks                             ");
+        logger.lifecycle("-----------------------------------------------------------------------------------------");
         System.setProperty("collectHw", "true");
 
         ComparisonConfig automatedComparisonCfg;
         try {
-            automatedComparisonCfg = checkConfigValidity(project, loadedAutoConfiguration);
-            project.getLogger().lifecycle("** Configuration loaded: automated comparison configuration");
+            automatedComparisonCfg = checkConfigValidity(logger, loadedAutoConfiguration);
+            logger.lifecycle("** Configuration loaded: automated comparison configuration");
         } catch (Exception e) {
             automatedComparisonCfg = null;
-            project.getLogger().error("Failed to parse automated comparison configuration", e);
+            logger.error("Failed to parse automated comparison configuration", e);
+        }
+
+        BenchmarkProfile profile = configuration.getActiveProfile();
+        if (profile != null) {
+            configuration = profile.applyTo(configuration.copy());
+            logger.lifecycle("** Configuration loaded: benchmarks profile '{}'", profile.getName());
         }
 
         BenchmarkingContext benchContext = new BenchmarkingContext();
@@ -136,8 +337,16 @@ public class Launcher implements Plugin<Project> {
         benchContext.setBenchSource(PluginConstants.BENCH_SOURCE);
         benchContext.setAutomatedComparisonCfg(automatedComparisonCfg);
 
+        BenchmarkClassIndex classIndex = new BenchmarkClassIndex(benchmarkClasspath,
+                new File(buildPath + PluginConstants.METADATA_CACHE_FILE), logger);
+        BenchmarkRunContext runContext = new BenchmarkRunContext(logger);
         try {
-            initContext(benchContext, project);
+            if (isModuleRun(configuration, shardResultFiles)) {
+                // environment is collected once by aggregation task
+                logger.lifecycle("** Running benchmarks of '{}' for aggregated report", configuration.getModuleName());
+            } else {
+                initContext(benchContext, runContext, logger, configuration);
+            }
 
             Map<String, Object> benchmarkSettings = new HashMap<>();
             Map<String, Map<String, String>> customBenchmarksMetadata = ComputationUtils
@@ -152,52 +361,270 @@ public class Launcher implements Plugin<Project> {
 
             benchmarkSettings.put("benchThreadCount", configuration.getThreads());
             benchmarkSettings.put("benchReportName", configuration.getReportName());
+            if (profile != null) {
+                benchmarkSettings.put("benchProfile", profile.getName());
+            }
 
             BenchmarkRunner.checkProjectMetadataExists(benchContext.getProjectMetadata());
 
-            project.getLogger().lifecycle("Executing benchmarks...");
-
             analyzeBenchmarkClasses(benchContext);
-            buildOptions(benchContext, configuration);
+            Collection<RunResult> results;
+            if (shardResultFiles == null) {
+                logger.lifecycle("Executing benchmarks...");
 
-            Collection<RunResult> results = runBenchmarks(benchContext, buildPath, project);
+                buildOptions(benchContext, configuration);
 
-            project.getLogger().info("Benchmark finished, executed tests count: {}", results.size());
+                HostLock hostLock = acquireHostLock(logger, configuration);
+                try {
+                    results = runBenchmarks(benchContext, runContext, buildPath, benchmarkClasspath, classIndex,
+                            logger, configuration);
+                } finally {
+                    if (hostLock != null) {
+                        hostLock.close();
+                    }
+                }
+                if (runContext.getHostQuiescence() != null) {
+                    benchContext.getContextMetadata().put("hostNoise", runContext.getHostQuiescence().getNoise());
+                }
 
-            BenchmarkOverviewReport report = processResults(benchContext, benchmarkSettings, results, project,
-                    configuration);
-            sendReport(benchContext, report, project, configuration);
+                logger.info("Benchmark finished, executed tests count: {}", results.size());
+            } else {
+                results = loadShardResults(benchContext, shardResultFiles, logger);
+            }
+
+            Object deferredBenchmarks = benchContext.getContextMetadata("deferredBenchmarks");
+            if (deferredBenchmarks != null) {
+                benchmarkSettings.put("benchDeferred", deferredBenchmarks);
+            }
+
+            EnvironmentCache.Environment environment = runContext.awaitEnvironment();
+            if (environment != null) {
+                setEnvironment(benchContext, environment);
+            }
+
+            if (isShardRun(configuration, shardResultFiles)) {
+                storeShardResults(benchContext, results, logger, configuration);
+            } else {
+                benchContext.getContextMetadata().put("rawSamples",
+                        BenchmarkSamples.fromResults(getMeasuredResults(benchContext, results)));
+                BenchmarkOverviewReport report = processResults(benchContext, benchmarkSettings, results,
+                        classIndex, logger, configuration);
+                sendReport(benchContext, report, logger, configuration, loadedAutoConfiguration);
+            }
         } catch (TooManyAnomaliesException e) {
             throw new GradleException("Too many anomalies found during benchmarks run: " + e.getMessage());
+        } catch (ThresholdViolationException e) {
+            throw e;
         } catch (Throwable t) {
             if (t.getMessage() != null && t.getMessage().contains("/META-INF/BenchmarkList")) {
-                project.getLogger().warn("-------------------No benchmark tests found-------------------");
+                logger.warn("-------------------No benchmark tests found-------------------");
             } else {
                 throw new GradleException("Error during benchmarks run", t);
             }
         } finally {
-            DeliveryService.getInstance().close();
+            try {
+                classIndex.close();
+            } catch (IOException exc) {
+                logger.warn("Failed to close benchmark classes index", exc);
+            }
+            runContext.close();
 
-            project.getLogger().lifecycle(
+            logger.lifecycle(
                     "-----------------------------------------------------------------------------------------");
-            project.getLogger().lifecycle(
+            logger.lifecycle(
                     "                      Finished CyBench benchmarking ({})                                 ",
                     ComputationUtils.formatInterval(System.currentTimeMillis() - start));
-            project.getLogger().lifecycle(
+            logger.lifecycle(
                     "-----------------------------------------------------------------------------------------");
         }
         Boolean reportSentSuccessfully = (Boolean) benchContext.getContextMetadata("reportSentSuccessfully");
-        if (!BooleanUtils.toBoolean(reportSentSuccessfully) && configuration.isShouldSendReportToCyBench()
-                && configuration.isShouldFailBuildOnReportDeliveryFailure()) {
+        Boolean reportQueued = (Boolean) benchContext.getContextMetadata("reportQueued");
+        if (!BooleanUtils.toBoolean(reportSentSuccessfully) && !BooleanUtils.toBoolean(reportQueued)
+                && configuration.isShouldSendReportToCyBench()
+                && configuration.isShouldFailBuildOnReportDeliveryFailure()
+                && !isShardRun(configuration, shardResultFiles)) {
             throw new GradleException("Error during benchmarks run, report was not sent to CyBench as configured!");
         }
     }
 
-    public void initContext(BenchmarkingContext benchContext, Project project) {
-        project.getLogger().lifecycle("Collecting hardware, software information...");
-        benchContext.setHWProperties(CollectSystemInformation.getEnvironmentProperties());
-        project.getLogger().lifecycle("Collecting JVM properties...");
-        benchContext.setJVMProperties(CollectSystemInformation.getJavaVirtualMachineProperties());
+    private static HostLock acquireHostLock(Logger logger, LauncherConfiguration configuration) throws IOException {
+        if (!configuration.isHostLock() || StringUtils.isBlank(configuration.getHostLockFile())) {
+            return null;
+        }
+        // shards of a distributed run started on the same host share the folder their results are merged from
+        String group = configuration.getShardCount() > 1 && !isModuleRun(configuration, null)
+                ? configuration.getShardResultsFolder() + "#" + configuration.getShardCount() : null;
+        return HostLock.acquire(new File(configuration.getHostLockFile()), group, configuration.getHostLockTimeout(),
+                logger);
+    }
+
+    private static boolean isShardRun(LauncherConfiguration configuration, Collection<File> shardResultFiles) {
+        return shardResultFiles == null
+                && (configuration.getShardCount() > 1 || isModuleRun(configuration, shardResultFiles));
+    }
+
+    private static boolean isModuleRun(LauncherConfiguration configuration, Collection<File> shardResultFiles) {
+        return shardResultFiles == null && StringUtils.isNotBlank(configuration.getModuleName());
+    }
+
+    private void storeShardResults(BenchmarkingContext benchContext, Collection<RunResult> results, Logger logger,
+            LauncherConfiguration configuration) throws IOException {
+        ShardResult shardResult = new ShardResult();
+        shardResult.setShardIndex(configuration.getShardIndex());
+        shardResult.setShardCount(configuration.getShardCount());
+        shardResult.setStartTime(benchContext.getStartTime());
+        shardResult.getResults().addAll(results);
+        shardResult.getGeneratedFingerprints().putAll(benchContext.getGeneratedFingerprints());
+        shardResult.getManualFingerprints().putAll(benchContext.getManualFingerprints());
+        shardResult.getClassFingerprints().putAll(benchContext.getClassFingerprints());
+        @SuppressWarnings("unchecked")
+        Set<String> cachedBenchmarks = (Set<String>) benchContext.getContextMetadata("cachedBenchmarks");
+        @SuppressWarnings("unchecked")
+        Map<String, Set<String>> profilerArtifacts = (Map<String, Set<String>>) benchContext
+                .getContextMetadata("profilerArtifacts");
+        @SuppressWarnings("unchecked")
+        Map<String, String> adaptiveStatistics = (Map<String, String>) benchContext
+                .getContextMetadata("adaptiveStatistics");
+        if (cachedBenchmarks != null) {
+            shardResult.getCachedBenchmarks().addAll(cachedBenchmarks);
+        }
+        if (profilerArtifacts != null) {
+            profilerArtifacts.forEach((name, files) -> shardResult.getProfilerArtifacts().put(name,
+                    new TreeSet<>(files)));
+        }
+        if (adaptiveStatistics != null) {
+            shardResult.getAdaptiveStatistics().putAll(adaptiveStatistics);
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Object> hostNoise = (Map<String, Object>) benchContext.getContextMetadata("hostNoise");
+        if (hostNoise != null) {
+            shardResult.setHostNoise(new LinkedHashMap<>(hostNoise));
+        }
+
+        if (isModuleRun(configuration, null)) {
+            shardResult.setModule(configuration.getModuleName());
+            File moduleFile = new File(configuration.getModuleResultFile());
+            shardResult.write(moduleFile);
+            logger.lifecycle("Saved '{}' results to '{}'", configuration.getModuleName(), moduleFile);
+            return;
+        }
+        File shardFile = new File(configuration.getShardResultsFolder(),
+                ShardResult.getFileName(configuration.getShardIndex(), configuration.getShardCount()));
+        shardResult.write(shardFile);
+        logger.lifecycle("Saved shard {} of {} results to '{}'", configuration.getShardIndex(),
+                configuration.getShardCount(), shardFile);
+    }
+
+    Collection<RunResult> loadShardResults(BenchmarkingContext benchContext, Collection<File> shardResultFiles,
+            Logger logger) throws Exception {
+        Collection<RunResult> results = new ArrayList<>();
+        Set<String> cachedBenchmarks = new HashSet<>();
+        Map<String, Set<String>> profilerArtifacts = new HashMap<>();
+        Map<String, String> adaptiveStatistics = new HashMap<>();
+        Map<String, Object> hostNoise = new TreeMap<>();
+        Set<Integer> shardIndexes = new TreeSet<>();
+        Map<String, String> benchmarkModules = new HashMap<>();
+        Set<String> modules = new TreeSet<>();
+        int shardCount = -1;
+        long startTime = Long.MAX_VALUE;
+        for (File shardFile : shardResultFiles) {
+            ShardResult shardResult = ShardResult.read(shardFile);
+            if (shardResult.getModule() != null) {
+                if (!modules.add(shardResult.getModule())) {
+                    throw new GradleException("Duplicate results of project " + shardResult.getModule() + " found ("
+                            + shardFile + ")");
+                }
+                for (RunResult result : shardResult.getResults()) {
+                    benchmarkModules.put(result.getParams().getBenchmark(), shardResult.getModule());
+                }
+            } else {
+                if (shardCount != -1 && shardCount != shardResult.getShardCount()) {
+                    throw new GradleException("Shard result files belong to runs with different shard count: "
+                            + shardCount + " and " + shardResult.getShardCount() + " (" + shardFile + ")");
+                }
+                shardCount = shardResult.getShardCount();
+                if (!shardIndexes.add(shardResult.getShardIndex())) {
+                    throw new GradleException("Duplicate results of shard " + shardResult.getShardIndex()
+                            + " found (" + shardFile + ")");
+                }
+            }
+            startTime = Math.min(startTime, shardResult.getStartTime());
+            results.addAll(shardResult.getResults());
+            benchContext.getGeneratedFingerprints().putAll(shardResult.getGeneratedFingerprints());
+            benchContext.getManualFingerprints().putAll(shardResult.getManualFingerprints());
+            benchContext.getClassFingerprints().putAll(shardResult.getClassFingerprints());
+            cachedBenchmarks.addAll(shardResult.getCachedBenchmarks());
+            shardResult.getProfilerArtifacts().forEach(
+                    (name, files) -> profilerArtifacts.computeIfAbsent(name, k -> new TreeSet<>()).addAll(files));
+            adaptiveStatistics.putAll(shardResult.getAdaptiveStatistics());
+            if (shardResult.getHostNoise() != null) {
+                // noise is observed by each shard/project run separately, it is reported per run
+                hostNoise.put(shardResult.getModule() == null
+                        ? "shard-" + shardResult.getShardIndex() + "-of-" + shardResult.getShardCount()
+                        : shardResult.getModule(), shardResult.getHostNoise());
+            }
+        }
+        if (shardIndexes.isEmpty() && modules.isEmpty()) {
+            throw new GradleException("No shard result files found to merge");
+        }
+        if (!shardIndexes.isEmpty() && shardIndexes.size() != shardCount) {
+            logger.warn("Merging results of {} shard(s) {} out of {}, report will be incomplete", shardIndexes.size(),
+                    shardIndexes, shardCount);
+        }
+        if (modules.isEmpty()) {
+            logger.lifecycle("Merged {} benchmark result(s) from {} shard(s)", results.size(), shardIndexes.size());
+        } else {
+            logger.lifecycle("Aggregated {} benchmark result(s) from {} project(s): {}", results.size(),
+                    modules.size(), modules);
+            benchContext.getContextMetadata().put("benchmarkModules", benchmarkModules);
+        }
+
+        benchContext.setStartTime(startTime);
+        benchContext.getContextMetadata().put("cachedBenchmarks", cachedBenchmarks);
+        if (!profilerArtifacts.isEmpty()) {
+            benchContext.getContextMetadata().put("profilerArtifacts", profilerArtifacts);
+        }
+        if (!adaptiveStatistics.isEmpty()) {
+            benchContext.getContextMetadata().put("adaptiveStatistics", adaptiveStatistics);
+        }
+        if (!hostNoise.isEmpty()) {
+            benchContext.getContextMetadata().put("hostNoise", hostNoise);
+        }
+        benchContext.getResults().addAll(results);
+        return results;
+    }
+
+    public void initContext(BenchmarkingContext benchContext, BenchmarkRunContext runContext, Logger logger,
+            LauncherConfiguration configuration) {
+        if (!configuration.isEnvironmentCache()) {
+            logger.lifecycle("Collecting hardware, software information...");
+            benchContext.setHWProperties(CollectSystemInformation.getEnvironmentProperties());
+            logger.lifecycle("Collecting JVM properties...");
+            benchContext.setJVMProperties(CollectSystemInformation.getJavaVirtualMachineProperties());
+            return;
+        }
+
+        EnvironmentCache environmentCache = new EnvironmentCache(new File(configuration.getEnvironmentCacheFolder()),
+                logger);
+        EnvironmentCache.Environment environment = environmentCache.get();
+        if (environment != null) {
+            logger.lifecycle("Using cached hardware, software and JVM information");
+            setEnvironment(benchContext, environment);
+        } else if (configuration.isEnvironmentProbeAsync()) {
+            logger.lifecycle("Collecting hardware, software and JVM information in background...");
+            runContext.probeEnvironment(environmentCache);
+        } else {
+            logger.lifecycle("Collecting hardware, software and JVM information...");
+            environment = EnvironmentCache.collect();
+            environmentCache.put(environment);
+            setEnvironment(benchContext, environment);
+        }
+    }
+
+    private static void setEnvironment(BenchmarkingContext benchContext, EnvironmentCache.Environment environment) {
+        benchContext.setHWProperties(environment.getHWProperties());
+        benchContext.setJVMProperties(environment.getJVMProperties());
+        benchContext.getContextMetadata().put("unclassifiedProperties", environment.getUnclassifiedProperties());
     }
 
     public void buildOptions(BenchmarkingContext benchContext, LauncherConfiguration configuration) {
@@ -211,13 +638,18 @@ public class Launcher implements Plugin<Project> {
             ;
         }
 
-        Options opt = benchContext.getOptBuilder().shouldDoGC(true) //
-                .addProfiler(GCProfiler.class) //
-                // .addProfiler(HotspotThreadProfiler.class) // obsolete
-                // .addProfiler(HotspotRuntimeProfiler.class) // obsolete
-                .addProfiler(SafepointsProfiler.class) //
-                .detectJvmArgs() //
-                .build();
+        ChainedOptionsBuilder optBuilder = benchContext.getOptBuilder().shouldDoGC(configuration.isShouldDoGC());
+        if (configuration.isDefaultProfilers()) {
+            optBuilder.addProfiler(GCProfiler.class) //
+                    // .addProfiler(HotspotThreadProfiler.class) // obsolete
+                    // .addProfiler(HotspotRuntimeProfiler.class) // obsolete
+                    .addProfiler(SafepointsProfiler.class) //
+            ;
+        }
+        optBuilder.detectJvmArgs();
+        // applied after detected JVM arguments, so explicitly set ones take precedence
+        configuration.getJmh().applyTo(optBuilder);
+        Options opt = optBuilder.build();
 
         benchContext.setOptions(opt);
     }
@@ -226,51 +658,353 @@ public class Launcher implements Plugin<Project> {
         benchContext.setSecurityBuilder(new SecurityBuilder());
     }
 
-    public Collection<RunResult> runBenchmarks(BenchmarkingContext benchContext, String buildPath, Project project)
-            throws Exception {
-        Runner runner = new Runner(benchContext.getOptions());
-        BenchmarkList benchmarkList;
-        CompilerHints compilerHints;
-        File benchmarkListFile = new File(
-                buildPath + PluginConstants.TEST_SOURCE_ROOT + PluginConstants.BENCHMARK_LIST_FILE);
-        File compilerHintFile = new File(
-                buildPath + PluginConstants.TEST_SOURCE_ROOT + PluginConstants.COMPILER_HINT_FILE);
-        if (benchmarkListFile.exists() && compilerHintFile.exists()) {
-            benchmarkList = BenchmarkList
-                    .fromFile(buildPath + PluginConstants.TEST_SOURCE_ROOT + PluginConstants.BENCHMARK_LIST_FILE);
-            compilerHints = CompilerHints
-                    .fromFile(buildPath + PluginConstants.TEST_SOURCE_ROOT + PluginConstants.COMPILER_HINT_FILE);
-        } else {
-            benchmarkList = BenchmarkList
-                    .fromFile(buildPath + PluginConstants.MAIN_SOURCE_ROOT + PluginConstants.BENCHMARK_LIST_FILE);
-            compilerHints = CompilerHints
-                    .fromFile(buildPath + PluginConstants.MAIN_SOURCE_ROOT + PluginConstants.COMPILER_HINT_FILE);
-        }
+    public Collection<RunResult> runBenchmarks(BenchmarkingContext benchContext, BenchmarkRunContext runContext,
+            String buildPath, Collection<File> benchmarkClasspath, BenchmarkClassIndex classIndex, Logger logger,
+            LauncherConfiguration configuration) throws Exception {
+        runContext.startListeners(configuration, benchContext.getOptions());
+        Runner runner = runContext.createRunner(benchContext.getOptions());
+        // benchmarks of all benchmark source sets are run together
+        List<File> classDirs = PluginUtils.getBenchmarkClassDirs(buildPath, configuration);
+        File benchmarkListFile = new File(buildPath + PluginConstants.MERGED_BENCHMARK_LIST_FILE);
+        File compilerHintFile = new File(buildPath + PluginConstants.MERGED_COMPILER_HINT_FILE);
+        PluginUtils.mergeBenchmarkLists(classDirs, benchmarkListFile);
+        PluginUtils.mergeCompilerHints(classDirs, compilerHintFile);
+        BenchmarkList benchmarkList = BenchmarkList.fromFile(benchmarkListFile.getAbsolutePath());
+        CompilerHints compilerHints = CompilerHints.fromFile(compilerHintFile.getAbsolutePath());
         PluginUtils.updateFieldViaReflection(runner, "list", runner.getClass(), benchmarkList);
         PluginUtils.updateFieldViaReflection(compilerHints, "defaultList", CompilerHints.class, compilerHints);
 
         System.setProperty("checkScoreAnnotation", "false");
 
-        PluginUtils.fingerprintAndHashGeneration(project, benchmarkList, benchContext.getGeneratedFingerprints(),
-                benchContext.getManualFingerprints(), benchContext.getClassFingerprints());
+        Set<BenchmarkListEntry> all = benchmarkList.getAll(new JMHUtils.SilentOutputFormat(),
+                Collections.<String> emptyList());
+        Collection<BenchmarkListEntry> entries = all;
+        Options options = benchContext.getOptions();
+        if (!options.getIncludes().isEmpty() || !options.getExcludes().isEmpty()) {
+            List<String> includes = options.getIncludes().isEmpty() ? Collections.singletonList(".*")
+                    : options.getIncludes();
+            entries = benchmarkList.find(new JMHUtils.SilentOutputFormat(), includes, options.getExcludes());
+        }
+        if (configuration.getShardCount() > 1) {
+            int count = entries.size();
+            entries = selectShard(entries, configuration);
+            logger.lifecycle("Running shard {} of {}: {} of {} benchmark(s)", configuration.getShardIndex(),
+                    configuration.getShardCount(), entries.size(), count);
+        }
+
+        try (ClassFingerprinter fingerprinter = new ClassFingerprinter(benchmarkClasspath,
+                new File(buildPath + PluginConstants.FINGERPRINTS_CACHE_FILE), logger)) {
+            PluginUtils.fingerprintAndHashGeneration(fingerprinter, entries, benchContext.getGeneratedFingerprints(),
+                    benchContext.getManualFingerprints(), benchContext.getClassFingerprints());
+        }
+
+        BenchmarkScheduler scheduler = null;
+        if (configuration.getMaxDuration() > 0) {
+            scheduler = BenchmarkScheduler.load(new File(buildPath + PluginConstants.SCHEDULE_FILE), logger);
+            entries = scheduleBenchmarks(scheduler, entries, benchContext, buildPath, classIndex, logger,
+                    configuration);
+        }
 
-        Collection<RunResult> results = runner.run();
+        Collection<RunResult> results;
+        if (configuration.isIncremental()) {
+            results = runIncremental(runner, all, entries, benchContext, runContext, buildPath, benchmarkClasspath,
+                    logger, configuration);
+        } else {
+            results = executeBenchmarks(runner, entries, entries.size() != all.size(), benchContext, runContext,
+                    buildPath, benchmarkClasspath, logger, configuration);
+        }
+        if (scheduler != null) {
+            Set<String> runBenchmarks = new HashSet<>();
+            for (RunResult result : results) {
+                runBenchmarks.add(result.getParams().getBenchmark());
+            }
+            scheduler.update(runBenchmarks, benchContext.getClassFingerprints(), System.currentTimeMillis());
+            try {
+                scheduler.save();
+            } catch (IOException exc) {
+                logger.warn("Failed to save benchmarks schedule", exc);
+            }
+        }
         benchContext.getResults().addAll(results);
         return results;
     }
 
-    public BenchmarkOverviewReport processResults(BenchmarkingContext benchContext,
-            Map<String, Object> benchmarkSettings, Collection<RunResult> results, Project project,
+    private Collection<BenchmarkListEntry> scheduleBenchmarks(BenchmarkScheduler scheduler,
+            Collection<BenchmarkListEntry> entries, BenchmarkingContext benchContext, String buildPath,
+            BenchmarkClassIndex classIndex, Logger logger, LauncherConfiguration configuration) {
+        BenchmarkDurations durations = BenchmarkDurations
+                .load(new File(buildPath + PluginConstants.DURATIONS_FILE), logger);
+        long defaultDuration = BenchmarkSharding.estimateDuration(configuration);
+        Map<String, Integer> entriesCount = new HashMap<>();
+        Map<String, String> classNames = new HashMap<>();
+        for (BenchmarkListEntry entry : entries) {
+            entriesCount.merge(entry.getUsername(), 1, Integer::sum);
+            classNames.put(entry.getUsername(), entry.getUserClassQName());
+        }
+
+        Map<String, Double> volatility = Collections.emptyMap();
+        try {
+            volatility = BenchmarkScheduler.computeVolatility(openHistoryStore(logger, configuration)
+                    .getLatestScores(benchContext.getProjectMetadata(Constants.PROJECT_NAME), null, 10));
+        } catch (Exception exc) {
+            logger.warn("Failed to read benchmarks history, volatility is not used for scheduling", exc);
+        }
+
+        List<Pattern> criticalPatterns = new ArrayList<>();
+        for (String pattern : configuration.getCriticalBenchmarks()) {
+            criticalPatterns.add(Pattern.compile(pattern));
+        }
+        BenchmarkScheduler.Schedule schedule = scheduler.schedule(entries, configuration.getMaxDuration() * 1000L,
+                name -> {
+                    long duration = durations.getDuration(name);
+                    return duration > 0 ? duration : defaultDuration * entriesCount.get(name);
+                }, name -> isCriticalBenchmark(name, classNames.get(name), classIndex, criticalPatterns),
+                benchContext.getClassFingerprints(), volatility, System.currentTimeMillis());
+
+        logger.lifecycle("Scheduled {} of {} benchmark(s) within {}s budget (estimated {}s)",
+                entriesCount.size() - schedule.getDeferred().size(), entriesCount.size(),
+                configuration.getMaxDuration(), schedule.getEstimatedDuration() / 1000);
+        if (!schedule.getDeferred().isEmpty()) {
+            logger.lifecycle("Deferred benchmark(s): {}", schedule.getDeferred());
+            benchContext.getContextMetadata().put("deferredBenchmarks", schedule.getDeferred());
+        }
+        return schedule.getScheduled();
+    }
+
+    private static boolean isCriticalBenchmark(String name, String className, BenchmarkClassIndex classIndex,
+            List<Pattern> criticalPatterns) {
+        for (Pattern pattern : criticalPatterns) {
+            if (pattern.matcher(name).find()) {
+                return true;
+            }
+        }
+        try {
+            BenchmarkClassIndex.ClassEntry classEntry = classIndex.getClassEntry(className);
+            String priority = classEntry.getMethodMetadata(name.substring(className.length() + 1))
+                    .getOrDefault(PluginConstants.PRIORITY_METADATA, classEntry.getClassMetadata()
+                            .get(PluginConstants.PRIORITY_METADATA));
+            return PluginConstants.PRIORITY_CRITICAL.equalsIgnoreCase(priority);
+        } catch (ClassNotFoundException exc) {
+            return false;
+        }
+    }
+
+    private static List<BenchmarkListEntry> selectShard(Collection<BenchmarkListEntry> entries,
             LauncherConfiguration configuration) {
+        int shardIndex = configuration.getShardIndex();
+        int shardCount = configuration.getShardCount();
+        if (shardIndex < 0 || shardIndex >= shardCount) {
+            throw new GradleException("Invalid shard index " + shardIndex + ", expected value in range [0, "
+                    + (shardCount - 1) + "]");
+        }
+        // constant weights: selection has to be the same on every machine, regardless of local run history
+        long weight = BenchmarkSharding.estimateDuration(configuration);
+        return BenchmarkSharding.partition(entries, shardCount, entry -> weight).get(shardIndex);
+    }
+
+    private Collection<RunResult> executeBenchmarks(Runner runner, Collection<BenchmarkListEntry> entries,
+            boolean subset, BenchmarkingContext benchContext, BenchmarkRunContext runContext, String buildPath,
+            Collection<File> benchmarkClasspath, Logger logger, LauncherConfiguration configuration)
+            throws Exception {
+        runContext.runPlanned(entries);
+        BenchmarkDurations durations = BenchmarkDurations
+                .load(new File(buildPath + PluginConstants.DURATIONS_FILE), logger);
+        File profilesDir = new File(buildPath + PluginConstants.PROFILES_DIR);
+        if (!configuration.getProfilers().isEmpty()) {
+            ProfilerSupport.clean(profilesDir);
+        }
+        Map<ProfilerSettings, ProfilerConfig> profilers = ProfilerSupport.resolve(configuration.getProfilers(),
+                profilesDir, logger);
+        // benchmarks needing different JMH options (overrides, profilers) are run in separate runs
+        Collection<RunResult> results = new ArrayList<>();
+        for (Map.Entry<List<BenchmarkOverride>, List<BenchmarkListEntry>> overrideGroup : BenchmarkOverride
+                .group(entries, configuration.getOverrides()).entrySet()) {
+            Options overrideOptions = BenchmarkOverride.withOverrides(benchContext.getOptions(),
+                    overrideGroup.getKey());
+            if (!overrideGroup.getKey().isEmpty()) {
+                logger.lifecycle("Running {} benchmark(s) with settings overrides {}",
+                        overrideGroup.getValue().size(), overrideGroup.getKey());
+            }
+            for (Map.Entry<List<ProfilerConfig>, List<BenchmarkListEntry>> group : ProfilerSupport
+                    .group(overrideGroup.getValue(), profilers).entrySet()) {
+                Options options = ProfilerSupport.withProfilers(overrideOptions, group.getKey());
+                if (!group.getKey().isEmpty()) {
+                    logger.lifecycle("Running {} benchmark(s) with profilers {}", group.getValue().size(),
+                            group.getKey());
+                }
+                boolean baseOptions = options == benchContext.getOptions();
+                results.addAll(runEntries(baseOptions ? runner : runContext.createRunner(options), options,
+                        group.getValue(), subset || !baseOptions || group.getValue().size() != entries.size(),
+                        durations, benchContext, runContext, buildPath, benchmarkClasspath, logger, configuration));
+            }
+        }
+        if (!profilers.isEmpty()) {
+            benchContext.getContextMetadata().put("profilerArtifacts",
+                    ProfilerSupport.collectArtifacts(results, profilers, profilesDir, logger));
+        }
+
+        durations.update(results);
+        try {
+            durations.save();
+        } catch (IOException exc) {
+            logger.warn("Failed to save benchmark durations", exc);
+        }
+        if (configuration.isUpdateBaseline() && StringUtils.isNotBlank(configuration.getBaselineFile())) {
+            BenchmarkBaseline baseline = BenchmarkBaseline.load(new File(configuration.getBaselineFile()), logger);
+            baseline.update(results);
+            try {
+                baseline.save();
+                logger.lifecycle("** Benchmarks baseline updated: {}", configuration.getBaselineFile());
+            } catch (IOException exc) {
+                logger.warn("Failed to save benchmarks baseline", exc);
+            }
+        }
+        return results;
+    }
+
+    private Collection<RunResult> runEntries(Runner runner, Options options, Collection<BenchmarkListEntry> entries,
+            boolean subset, BenchmarkDurations durations, BenchmarkingContext benchContext,
+            BenchmarkRunContext runContext, String buildPath, Collection<File> benchmarkClasspath, Logger logger,
+            LauncherConfiguration configuration) throws Exception {
+        ScoreGate scoreGate = runContext.getScoreGate();
+        Collection<RunResult> results;
+        if (configuration.getParallelShards() > 1) {
+            if (configuration.isAdaptive()) {
+                logger.warn("Adaptive benchmarks run is not supported together with parallel shards, "
+                        + "benchmarks are run with fixed iterations");
+            }
+            long defaultDuration = BenchmarkSharding.estimateDuration(configuration);
+            boolean byDuration = BenchmarkSharding.PARTITION_BY_DURATION
+                    .equalsIgnoreCase(configuration.getParallelShardsPartitioning());
+            List<List<BenchmarkListEntry>> shards = BenchmarkSharding.partition(entries,
+                    configuration.getParallelShards(), entry -> {
+                        long duration = byDuration ? durations.getDuration(entry.getUsername()) : -1;
+                        return duration > 0 ? duration : defaultDuration;
+                    });
+            LocalShardRunner shardRunner = new LocalShardRunner(
+                    new File(buildPath + PluginConstants.LOCAL_SHARDS_DIR), benchmarkClasspath, logger);
+            results = shardRunner.run(shards, options, configuration.isParallelShardsCpuPinning());
+        } else if (configuration.isAdaptive()) {
+            AdaptiveRunner adaptiveRunner = new AdaptiveRunner(new File(buildPath + PluginConstants.SUBSET_LIST_FILE),
+                    configuration.getAdaptiveTargetError(), configuration.getAdaptiveConfidence(),
+                    configuration.getAdaptiveMaxRounds(), configuration.getAdaptiveMaxSeconds(),
+                    runContext::createRunner, logger);
+            if (scoreGate != null) {
+                // single round results are not final, adaptive results are checked once benchmarks complete
+                scoreGate.setDeferred(true);
+            }
+            try {
+                results = adaptiveRunner.run(entries, options);
+            } finally {
+                if (scoreGate != null) {
+                    scoreGate.setDeferred(false);
+                }
+            }
+            @SuppressWarnings("unchecked")
+            Map<String, String> adaptiveStatistics = (Map<String, String>) benchContext.getContextMetadata()
+                    .computeIfAbsent("adaptiveStatistics", k -> new HashMap<String, String>());
+            adaptiveStatistics.putAll(adaptiveRunner.getStatistics());
+        } else {
+            if (subset) {
+                File subsetListFile = new File(buildPath + PluginConstants.SUBSET_LIST_FILE);
+                PluginUtils.writeBenchmarkList(subsetListFile, entries);
+                PluginUtils.updateFieldViaReflection(runner, "list", runner.getClass(),
+                        BenchmarkList.fromFile(subsetListFile.getAbsolutePath()));
+            }
+            results = runner.run();
+        }
+        if (scoreGate != null) {
+            // checks results of shard processes and adaptive runs, streamed results are already checked
+            scoreGate.verify(results);
+        }
+        return results;
+    }
+
+    private Collection<RunResult> runIncremental(Runner runner, Collection<BenchmarkListEntry> all,
+            Collection<BenchmarkListEntry> entries, BenchmarkingContext benchContext, BenchmarkRunContext runContext,
+            String buildPath, Collection<File> benchmarkClasspath, Logger logger, LauncherConfiguration configuration)
+            throws Exception {
+        BenchmarkResultStore store = BenchmarkResultStore
+                .load(new File(buildPath + PluginConstants.INCREMENTAL_STORE_FILE), logger);
+        Map<String, String> fingerprints = PluginUtils.computeIncrementalFingerprints(logger, benchmarkClasspath,
+                PluginUtils.getBenchmarkClassDirs(buildPath, configuration), entries,
+                benchContext.getGeneratedFingerprints(),
+                getIncrementalSettingsKey(configuration));
+
+        Map<String, List<RunResult>> cachedResults = new TreeMap<>();
+        List<BenchmarkListEntry> changedEntries = new ArrayList<>();
+        for (BenchmarkListEntry entry : entries) {
+            String name = entry.getUsername();
+            List<RunResult> stored = store.getResults(name, fingerprints.get(name));
+            if (stored == null) {
+                changedEntries.add(entry);
+            } else {
+                cachedResults.put(name, stored);
+            }
+        }
+        logger.lifecycle("Incremental run: {} benchmark(s) to execute, {} benchmark(s) reused",
+                changedEntries.size(), cachedResults.size());
+
+        Collection<RunResult> results = new ArrayList<>();
+        for (List<RunResult> stored : cachedResults.values()) {
+            results.addAll(stored);
+        }
+        if (!changedEntries.isEmpty()) {
+            Collection<RunResult> runResults = executeBenchmarks(runner, changedEntries, true, benchContext,
+                    runContext, buildPath, benchmarkClasspath, logger, configuration);
+            Map<String, List<RunResult>> executedResults = new HashMap<>();
+            for (RunResult runResult : runResults) {
+                executedResults.computeIfAbsent(runResult.getParams().getBenchmark(), k -> new ArrayList<>())
+                        .add(runResult);
+            }
+            executedResults.forEach((name, runResult) -> store.putResults(name, fingerprints.get(name), runResult));
+            results.addAll(runResults);
+        }
+
+        Set<String> benchmarkNames = new HashSet<>();
+        for (BenchmarkListEntry entry : all) {
+            benchmarkNames.add(entry.getUsername());
+        }
+        store.retainAll(benchmarkNames);
+        try {
+            store.save();
+        } catch (IOException exc) {
+            logger.warn("Failed to save incremental results store", exc);
+        }
+        benchContext.getContextMetadata().put("cachedBenchmarks", cachedResults.keySet());
+        return results;
+    }
+
+    private static String getIncrementalSettingsKey(LauncherConfiguration configuration) {
+        return configuration.isUseCyBenchBenchmarkSettings() + ":" + configuration.getForks() + ":"
+                + configuration.getThreads() + ":" + configuration.getWarmUpIterations() + ":"
+                + configuration.getWarmUpSeconds() + ":" + configuration.getMeasurementIterations() + ":"
+                + configuration.getMeasurementSeconds() + ":" + configuration.isShouldDoGC() + ":"
+                + configuration.isDefaultProfilers() + ":" + configuration.getProfilers() + ":"
+                + configuration.getJmh().resultsKey() + ":" + configuration.getOverrides() + ":"
+                + configuration.isAdaptive() + ":" + configuration.getAdaptiveTargetError() + ":"
+                + configuration.getAdaptiveConfidence() + ":"
+                + System.getProperty("java.home") + ":"
+                + System.getProperty("java.version");
+    }
+
+    public BenchmarkOverviewReport processResults(BenchmarkingContext benchContext,
+            Map<String, Object> benchmarkSettings, Collection<RunResult> results, BenchmarkClassIndex classIndex,
+            Logger logger, LauncherConfiguration configuration) {
         BenchmarkOverviewReport report = ReportingService.getInstance().createBenchmarkReport(results,
                 benchContext.getDefaultBenchmarksMetadata());
 
         report.getEnvironmentSettings().put("environment", benchContext.getHWProperties());
         report.getEnvironmentSettings().put("jvmEnvironment", benchContext.getJVMProperties());
-        report.getEnvironmentSettings().put("unclassifiedProperties",
-                CollectSystemInformation.getUnclassifiedProperties());
+        Object unclassifiedProperties = benchContext.getContextMetadata("unclassifiedProperties");
+        report.getEnvironmentSettings().put("unclassifiedProperties", unclassifiedProperties == null
+                ? CollectSystemInformation.getUnclassifiedProperties() : unclassifiedProperties);
         report.getEnvironmentSettings().put("userDefinedProperties",
                 ComputationUtils.customUserDefinedProperties(configuration.getUserProperties()));
+        Object hostNoise = benchContext.getContextMetadata("hostNoise");
+        if (hostNoise != null) {
+            report.getEnvironmentSettings().put("hostNoise", hostNoise);
+        }
         report.setBenchmarkSettings(benchmarkSettings);
 
         ComparisonConfig automatedComparisonCfg = benchContext.getAutomatedComparisonCfg();
@@ -284,7 +1018,14 @@ public class Launcher implements Plugin<Project> {
             report.setAutomatedComparisonConfig(automatedComparisonCfg);
         }
 
-        URL[] urlsArray = PluginUtils.getUrlsArray(project);
+        @SuppressWarnings("unchecked")
+        Set<String> cachedBenchmarks = (Set<String>) benchContext.getContextMetadata("cachedBenchmarks");
+        @SuppressWarnings("unchecked")
+        Map<String, Set<String>> profilerArtifacts = (Map<String, Set<String>>) benchContext
+                .getContextMetadata("profilerArtifacts");
+        @SuppressWarnings("unchecked")
+        Map<String, String> adaptiveStatistics = (Map<String, String>) benchContext
+                .getContextMetadata("adaptiveStatistics");
         for (String s : report.getBenchmarks().keySet()) {
             List<BenchmarkReport> custom = new ArrayList<>(report.getBenchmarks().get(s));
             custom.forEach(benchmarkReport -> {
@@ -292,25 +1033,64 @@ public class Launcher implements Plugin<Project> {
                 benchmarkReport.setClassFingerprint(benchContext.getClassFingerprints().get(name));
                 benchmarkReport.setGeneratedFingerprint(benchContext.getGeneratedFingerprints().get(name));
                 benchmarkReport.setManualFingerprint(benchContext.getManualFingerprints().get(name));
-                try (URLClassLoader cl = new URLClassLoader(urlsArray)) {
+                if (cachedBenchmarks != null && cachedBenchmarks.contains(name)) {
+                    benchmarkReport.addMetadata(PluginConstants.CACHED_RESULT_METADATA, "true");
+                }
+                if (profilerArtifacts != null && profilerArtifacts.containsKey(name)) {
+                    benchmarkReport.addMetadata(PluginConstants.PROFILER_ARTIFACTS_METADATA,
+                            String.join(",", profilerArtifacts.get(name)));
+                }
+                if (adaptiveStatistics != null && adaptiveStatistics.containsKey(name)) {
+                    benchmarkReport.addMetadata(PluginConstants.ADAPTIVE_STATISTICS_METADATA,
+                            adaptiveStatistics.get(name));
+                }
+                try {
                     JMHUtils.ClassAndMethod classAndMethod = new JMHUtils.ClassAndMethod(name).invoke();
-                    String clazz = classAndMethod.getClazz();
-                    String method = classAndMethod.getMethod();
-                    Class<?> aClass = cl.loadClass(clazz);
-                    Optional<Method> benchmarkMethod = JMHUtils.getBenchmarkMethod(method, aClass);
-                    PluginUtils.appendMetadataFromAnnotated(benchmarkMethod, benchmarkReport, project, cl);
-                    PluginUtils.appendMetadataFromAnnotated(Optional.of(aClass), benchmarkReport, project, cl);
+                    BenchmarkClassIndex.ClassEntry classEntry = classIndex.getClassEntry(classAndMethod.getClazz());
+                    PluginUtils.appendMetadata(classEntry.getMethodMetadata(classAndMethod.getMethod()),
+                            benchmarkReport);
+                    PluginUtils.appendMetadata(classEntry.getClassMetadata(), benchmarkReport);
                     BenchmarkRunner.syncReportsMetadata(benchContext, report, benchmarkReport);
                 } catch (Exception exc) {
-                    project.getLogger().error("Class not found in the classpath for execution", exc);
+                    logger.error("Class not found in the classpath for execution", exc);
                 }
             });
         }
 
+        @SuppressWarnings("unchecked")
+        Map<String, String> benchmarkModules = (Map<String, String>) benchContext
+                .getContextMetadata("benchmarkModules");
+        if (benchmarkModules != null) {
+            groupByModule(report, benchmarkModules);
+        }
         return report;
     }
 
-    private void completeReport(BenchmarkingContext benchContext, BenchmarkOverviewReport report, Project project,
+    /**
+     * Regroups aggregated report benchmarks into categories named after projects benchmarks belong to.
+     *
+     * @param report
+     *            aggregated report
+     * @param benchmarkModules
+     *            map of benchmark name to project path
+     */
+    private static void groupByModule(BenchmarkOverviewReport report, Map<String, String> benchmarkModules) {
+        List<BenchmarkReport> benchmarks = new ArrayList<>();
+        for (List<BenchmarkReport> categoryBenchmarks : report.getBenchmarks().values()) {
+            benchmarks.addAll(categoryBenchmarks);
+        }
+        report.getBenchmarks().clear();
+        for (BenchmarkReport benchmark : benchmarks) {
+            String module = benchmarkModules.get(benchmark.getName());
+            if (module != null) {
+                benchmark.addMetadata(PluginConstants.MODULE_METADATA, module);
+                benchmark.setCategory(module);
+            }
+            report.addToBenchmarks(benchmark);
+        }
+    }
+
+    private void completeReport(BenchmarkingContext benchContext, BenchmarkOverviewReport report, Logger logger,
             LauncherConfiguration configuration) throws Exception {
         if (report.hasBenchmarks()) {
             List<BenchmarkReport> customBenchmarksCategoryCheck = report.getBenchmarks().get("CUSTOM");
@@ -324,11 +1104,9 @@ public class Launcher implements Plugin<Project> {
             report.updateUploadStatus(configuration.getReportUploadStatus());
         }
 
-        project.getLogger()
-                .lifecycle("-----------------------------------------------------------------------------------------");
-        project.getLogger().lifecycle(" Report score - {}", report.getTotalScore());
-        project.getLogger()
-                .lifecycle("-----------------------------------------------------------------------------------------");
+        logger.lifecycle("-----------------------------------------------------------------------------------------");
+        logger.lifecycle(" Report score - {}", report.getTotalScore());
+        logger.lifecycle("-----------------------------------------------------------------------------------------");
         if (configuration.getExpectedScore() > 0) {
             if (report.getTotalScore().doubleValue() < configuration.getExpectedScore()) {
                 throw new GradleException("CyBench score is less than expected:" + report.getTotalScore().doubleValue()
@@ -341,24 +1119,63 @@ public class Launcher implements Plugin<Project> {
     }
 
     @SuppressWarnings("unchecked")
-    private void sendReport(BenchmarkingContext benchContext, BenchmarkOverviewReport report, Project project,
-            LauncherConfiguration configuration) throws Exception {
-        completeReport(benchContext, report, project, configuration);
+    private void sendReport(BenchmarkingContext benchContext, BenchmarkOverviewReport report, Logger logger,
+            LauncherConfiguration configuration, AutomatedComparisonConfig automatedComparisonConfig)
+            throws Exception {
+        completeReport(benchContext, report, logger, configuration);
+
+        String project = benchContext.getProjectMetadata(Constants.PROJECT_NAME);
+        ReportHistoryStore historyStore = openHistoryStore(logger, configuration);
 
-        String reportEncrypted = ReportingService.getInstance()
-                .prepareReportForDelivery(benchContext.getSecurityBuilder(), report);
+        // previous runs have to be read before current run is stored
+        TooManyAnomaliesException localAnomalies = null;
+        ComparisonConfig automatedComparisonCfg = benchContext.getAutomatedComparisonCfg();
+        BenchmarkSamples samples = (BenchmarkSamples) benchContext.getContextMetadata("rawSamples");
+        if (automatedComparisonCfg != null && report.hasBenchmarks()
+                && isLocalComparison(configuration, automatedComparisonConfig)) {
+            try {
+                LocalReportComparator comparator = new LocalReportComparator(automatedComparisonCfg, historyStore,
+                        logger);
+                LocalReportComparator.SampleTest sampleTest = LocalReportComparator.SampleTest
+                        .forName(automatedComparisonConfig.getStatisticalTest());
+                if (sampleTest != null) {
+                    Double confidenceLevel = automatedComparisonConfig.getConfidenceLevel();
+                    comparator.setSampleComparison(sampleTest, confidenceLevel == null
+                            ? LocalReportComparator.DEFAULT_CONFIDENCE_LEVEL : confidenceLevel, samples);
+                }
+                comparator.verify(getHistoryScores(benchContext.getResults()), project);
+            } catch (TooManyAnomaliesException exc) {
+                localAnomalies = exc;
+            }
+        }
+
+        boolean sendToCyBench = report.isEligibleForStoringExternally() && configuration.isShouldSendReportToCyBench();
+        // encrypted report is needed only for delivery and .cyb file
+        String reportEncrypted = sendToCyBench || configuration.isShouldStoreReportToFileSystem()
+                ? ReportingService.getInstance().prepareReportForDelivery(benchContext.getSecurityBuilder(), report)
+                : null;
         String deviceReports = null;
         String resultURL = null;
         Map<?, ?> response = new HashMap<>();
         configuration.setReportsFolder(PluginUtils.checkReportSaveLocation(configuration.getReportsFolder()));
-        if (report.isEligibleForStoringExternally() && configuration.isShouldSendReportToCyBench()) {
+        if (sendToCyBench) {
             String tokenAndEmail = ComputationUtils.getRequestHeader(configuration.getBenchAccessToken(),
                     configuration.getEmail());
             String benchQueryToken = configuration.getBenchQueryToken();
-            String responseWithUrl = DeliveryService.getInstance().sendReportForStoring(reportEncrypted, tokenAndEmail,
-                    benchQueryToken);
-            if (StringUtils.isNotEmpty(responseWithUrl)) {
-                response = JSONUtils.parseJsonIntoMap(responseWithUrl);
+            ReportOutbox outbox = new ReportOutbox(new File(configuration.getOutboxFolder()));
+            File outboxEntry = outbox.enqueue(reportEncrypted, tokenAndEmail, benchQueryToken);
+            // anomalies found by server-side automated comparison can fail the build only if delivery is awaited
+            boolean serverComparison = automatedComparisonCfg != null
+                    && !isLocalComparison(configuration, automatedComparisonConfig);
+            if (serverComparison && !configuration.isWaitForReportDelivery()) {
+                logger.lifecycle("Waiting for report delivery, as it is verified by CyBench automated comparison");
+            }
+            if (configuration.isWaitForReportDelivery() || serverComparison) {
+                response = new ReportOutboxSender(outbox, ReportOutboxSender.CYBENCH_DELIVERY,
+                        configuration.getReportDeliveryRetries(), logger).send(outboxEntry);
+            } else {
+                benchContext.getContextMetadata().put("reportQueued", true);
+                logger.lifecycle("Report is queued for delivery to CyBench in background");
             }
             if (!response.isEmpty() && !BenchmarkRunner.isErrorResponse(response)) {
                 deviceReports = String.valueOf(response.get(Constants.REPORT_USER_URL));
@@ -368,43 +1185,58 @@ public class Launcher implements Plugin<Project> {
                 report.setReportURL(resultURL);
             }
         } else {
-            // project.getLogger().lifecycle("You may submit your report '"
+            // logger.lifecycle("You may submit your report '"
             // + IOUtils.getReportsPath(configuration.getReportsFolder(), Constants.CYB_REPORT_CYB_FILE)
             // + "' manually at " + Constants.CYB_UPLOAD_URL);
         }
-        String reportJSON = JSONUtils.marshalToPrettyJson(report);
-        // project.getLogger().lifecycle(reportJSON);
         String reportFilePath = IOUtils.getReportsPath(configuration.getReportsFolder(),
                 ComputationUtils.createFileNameForReport(configuration.getReportName(), benchContext.getStartTime(),
                         report.getTotalScore(), false));
         String reportCybFilePath = IOUtils.getReportsPath(configuration.getReportsFolder(),
                 ComputationUtils.createFileNameForReport(configuration.getReportName(), benchContext.getStartTime(),
                         report.getTotalScore(), true));
+        if (StringUtils.isNotBlank(configuration.getLastReportFile())) {
+            // fixed location copy of the report, declared as task output instead of whole reports folder
+            ReportFileWriter.writeJson(report, new File(configuration.getLastReportFile()), true, false);
+        }
         if (configuration.isShouldStoreReportToFileSystem()) {
-            if (reportFilePath.startsWith("/")) {
-                reportFilePath = PluginConstants.DEFAULT_FILE_SAVE_LOCATION + reportFilePath;
-                reportCybFilePath = PluginConstants.DEFAULT_FILE_SAVE_LOCATION + reportCybFilePath;
-            }
-            project.getLogger().lifecycle("Saving test results to '{}'", reportFilePath);
-            IOUtils.storeResultsToFile(reportFilePath, reportJSON);
-            project.getLogger().lifecycle("Saving encrypted test results to '{}'", reportCybFilePath);
+            File reportFile = new File(
+                    configuration.isCompressReport() ? reportFilePath + ReportFileWriter.GZIP_EXTENSION : reportFilePath);
+            logger.lifecycle("Saving test results to '{}'", reportFile);
+            ReportFileWriter.writeJson(report, reportFile, !LauncherConfiguration.REPORT_FORMAT_COMPACT
+                    .equalsIgnoreCase(configuration.getReportFormat()), configuration.isCompressReport());
+            logger.lifecycle("Saving encrypted test results to '{}'", reportCybFilePath);
             IOUtils.storeResultsToFile(reportCybFilePath, reportEncrypted);
+            if (samples != null && !samples.isEmpty()) {
+                File samplesFile = new File(StringUtils.removeEnd(reportFilePath, ".json")
+                        + BenchmarkSamples.FILE_EXTENSION);
+                try {
+                    samples.write(samplesFile);
+                } catch (IOException exc) {
+                    logger.warn("Failed to save benchmark samples to {}", samplesFile, exc);
+                }
+            }
+            if (report.hasBenchmarks()) {
+                appendHistory(historyStore, report.getTimestamp(),
+                        getMeasuredResults(benchContext, benchContext.getResults()), project,
+                        benchContext.getProjectMetadata(Constants.PROJECT_VERSION), samples, logger);
+            }
         }
         IOUtils.removeTestDataFiles();
-        project.getLogger().lifecycle("Removed all temporary auto-generated files!!!");
+        logger.lifecycle("Removed all temporary auto-generated files!!!");
 
         if (!response.isEmpty() && report.getUploadStatus().equals(Constants.REPORT_PRIVATE)) {
-            project.getLogger().error("*** Total Reports allowed in repository: {}",
+            logger.error("*** Total Reports allowed in repository: {}",
                     response.get(Constants.REPORTS_ALLOWED_FROM_SUB));
-            project.getLogger().error("*** Total Reports already in repository: {}",
+            logger.error("*** Total Reports already in repository: {}",
                     response.get(Constants.NUM_REPORTS_IN_REPO));
         }
 
         if (!response.isEmpty() && !BenchmarkRunner.isErrorResponse(response)) {
-            project.getLogger().lifecycle("Benchmark report submitted successfully to {}", Constants.REPORT_URL);
-            project.getLogger().lifecycle("You can find all device benchmarks on {}", deviceReports);
-            project.getLogger().lifecycle("Your report is available at {}", resultURL);
-            project.getLogger().lifecycle("NOTE: It may take a few minutes for your report to appear online");
+            logger.lifecycle("Benchmark report submitted successfully to {}", Constants.REPORT_URL);
+            logger.lifecycle("You can find all device benchmarks on {}", deviceReports);
+            logger.lifecycle("Your report is available at {}", resultURL);
+            logger.lifecycle("NOTE: It may take a few minutes for your report to appear online");
 
             if (response.containsKey("automatedComparisons")) {
                 List<Map<String, Object>> automatedComparisons = (List<Map<String, Object>>) response
@@ -414,19 +1246,85 @@ public class Launcher implements Plugin<Project> {
         } else {
             String errMsg = BenchmarkRunner.getErrorResponseMessage(response);
             if (errMsg != null) {
-                project.getLogger().error("CyBench backend service sent error response: {}", errMsg);
+                logger.error("CyBench backend service sent error response: {}", errMsg);
             }
             if (BenchmarkRunner.getAllowedToUploadBasedOnSubscription(response)) {
                 // user was allowed to upload report, and there was still an error
-                project.getLogger().lifecycle("You may submit your report '{}' manually at {}",
+                logger.lifecycle("You may submit your report '{}' manually at {}",
                         IOUtils.getReportsPath(configuration.getReportsFolder(), Constants.CYB_REPORT_CYB_FILE),
                         Constants.CYB_UPLOAD_URL);
             }
 
         }
+
+        if (localAnomalies != null) {
+            throw localAnomalies;
+        }
+    }
+
+    private static ReportHistoryStore openHistoryStore(Logger logger, LauncherConfiguration configuration) {
+        File reportsDir = new File(configuration.getReportsFolder());
+        ReportHistoryStore historyStore = ReportHistoryStore.open(new File(reportsDir, PluginConstants.HISTORY_DIR),
+                logger);
+        if (historyStore.isEmpty()) {
+            int imported = historyStore.importJsonReports(reportsDir);
+            if (imported > 0) {
+                logger.lifecycle("Imported {} stored report(s) into report history", imported);
+            }
+        }
+        return historyStore;
+    }
+
+    /**
+     * Returns results measured by this run: results of incremental run reused from results store are left out, so
+     * they are not stored to report history again as new measurements.
+     */
+    private static Collection<RunResult> getMeasuredResults(BenchmarkingContext benchContext,
+            Collection<RunResult> results) {
+        @SuppressWarnings("unchecked")
+        Set<String> cachedBenchmarks = (Set<String>) benchContext.getContextMetadata("cachedBenchmarks");
+        if (cachedBenchmarks == null || cachedBenchmarks.isEmpty()) {
+            return results;
+        }
+        List<RunResult> measured = new ArrayList<>();
+        for (RunResult result : results) {
+            if (!cachedBenchmarks.contains(result.getParams().getBenchmark())) {
+                measured.add(result);
+            }
+        }
+        return measured;
     }
 
-    public ComparisonConfig checkConfigValidity(Project project, AutomatedComparisonConfig automatedComparisonConfig)
+    private static Map<String, Double> getHistoryScores(Collection<RunResult> results) {
+        // keyed with benchmark parameters, so variants of parameterized benchmark are kept apart
+        Map<String, Double> scores = new HashMap<>();
+        for (RunResult result : results) {
+            if (result.getPrimaryResult() != null) {
+                scores.put(BenchmarkBaseline.getKey(result.getParams()), result.getPrimaryResult().getScore());
+            }
+        }
+        return scores;
+    }
+
+    private static void appendHistory(ReportHistoryStore historyStore, long timestamp, Collection<RunResult> results,
+            String project, String version, BenchmarkSamples samples, Logger logger) {
+        try {
+            historyStore.append(timestamp, project, version, getHistoryScores(results));
+            if (samples != null && !samples.isEmpty()) {
+                historyStore.storeSamples(timestamp, project, samples);
+            }
+        } catch (IOException exc) {
+            logger.warn("Failed to append run to report history store", exc);
+        }
+    }
+
+    static boolean isLocalComparison(LauncherConfiguration configuration,
+            AutomatedComparisonConfig automatedComparisonConfig) {
+        Boolean localComparison = automatedComparisonConfig.getLocalComparison();
+        return localComparison == null ? !configuration.isShouldSendReportToCyBench() : localComparison;
+    }
+
+    public ComparisonConfig checkConfigValidity(Logger logger, AutomatedComparisonConfig automatedComparisonConfig)
             throws Exception {
         ComparisonConfig verifiedComparisonConfig = new ComparisonConfig();
 
@@ -454,6 +1352,16 @@ public class Launcher implements Plugin<Project> {
         ComparisonConfig.Threshold THRESHOLD;
         Double PERCENT_CHANGE_ALLOWED = automatedComparisonConfig.getPercentChangeAllowed();
         Double DEVIATIONS_ALLOWED = automatedComparisonConfig.getDeviationsAllowed();
+        String STATISTICAL_TEST = automatedComparisonConfig.getStatisticalTest();
+        Double CONFIDENCE_LEVEL = automatedComparisonConfig.getConfidenceLevel();
+
+        if (StringUtils.isNotBlank(STATISTICAL_TEST)
+                && LocalReportComparator.SampleTest.forName(STATISTICAL_TEST) == null) {
+            throw new Exception("Statistical test is invalid!");
+        }
+        if (CONFIDENCE_LEVEL != null && (CONFIDENCE_LEVEL <= 0 || CONFIDENCE_LEVEL >= 1)) {
+            throw new Exception("Confidence level has to be between 0 and 1!");
+        }
 
         if (NUM_LATEST_REPORTS != null) {
             if (NUM_LATEST_REPORTS < 1) {
@@ -487,7 +1395,7 @@ public class Launcher implements Plugin<Project> {
 
         if (SCOPE.equals(ComparisonConfig.Scope.WITHIN) && StringUtils.isNotEmpty(COMPARE_VERSION)) {
             COMPARE_VERSION = "";
-            project.getLogger().warn(
+            logger.warn(
                     "Automated comparison config scoped specified as WITHIN but compare version was also specified, will compare WITHIN the currently tested version.");
         } else if (SCOPE.equals(ComparisonConfig.Scope.BETWEEN) && StringUtils.isBlank(COMPARE_VERSION)) {
             throw new Exception("Scope specified as BETWEEN but no compare version specified!");
@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench;
+
+import java.io.*;
+import java.util.*;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.logging.Logger;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.BenchmarkListEntry;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+
+import com.gocypher.cybench.utils.PluginUtils;
+
+/**
+ * Runs benchmark shards concurrently, each shard in a separate JVM process (see {@link ShardMain}), optionally pinned
+ * to a disjoint CPU set using {@code taskset}. JMH forked benchmark JVMs inherit shard process CPU affinity.
+ */
+public class LocalShardRunner {
+    private static final String[] TASKSET_LOCATIONS = { "/usr/bin/taskset", "/bin/taskset" };
+
+    private final File workDir;
+    private final Collection<File> benchmarkClasspath;
+    private final Logger logger;
+
+    public LocalShardRunner(File workDir, Collection<File> benchmarkClasspath, Logger logger) {
+        this.workDir = workDir;
+        this.benchmarkClasspath = benchmarkClasspath;
+        this.logger = logger;
+    }
+
+    /**
+     * Runs shards and merges their run results.
+     *
+     * @param shards
+     *            benchmark shards, empty shards are ignored
+     * @param options
+     *            JMH options to run shards with
+     * @param pinCpus
+     *            flag indicating whether shard processes shall be pinned to disjoint CPU sets
+     * @return merged run results of all shards
+     * @throws Exception
+     *             if any shard fails or shard process can't be started
+     */
+    public Collection<RunResult> run(List<List<BenchmarkListEntry>> shards, Options options, boolean pinCpus)
+            throws Exception {
+        PluginUtils.ensureDir(workDir);
+        File optionsFile = new File(workDir, "options.ser");
+        try (ObjectOutputStream out = new ObjectOutputStream(
+                new BufferedOutputStream(new FileOutputStream(optionsFile)))) {
+            out.writeObject(options);
+        }
+
+        List<List<BenchmarkListEntry>> runShards = new ArrayList<>();
+        for (List<BenchmarkListEntry> shard : shards) {
+            if (!shard.isEmpty()) {
+                runShards.add(shard);
+            }
+        }
+        List<String> cpuSets = pinCpus ? getCpuSets(runShards.size()) : null;
+
+        List<Process> processes = new ArrayList<>();
+        List<File> resultFiles = new ArrayList<>();
+        List<File> logFiles = new ArrayList<>();
+        try {
+            for (int i = 0; i < runShards.size(); i++) {
+                File listFile = new File(workDir, "BenchmarkList-" + i);
+                File resultFile = new File(workDir, "results-" + i + ".ser");
+                File logFile = new File(workDir, "shard-" + i + ".log");
+                PluginUtils.writeBenchmarkList(listFile, runShards.get(i));
+                if (resultFile.exists() && !resultFile.delete()) {
+                    throw new IOException("Failed to delete stale shard results file " + resultFile);
+                }
+
+                List<String> command = new ArrayList<>();
+                if (cpuSets != null) {
+                    command.add(getTaskset());
+                    command.add("-c");
+                    command.add(cpuSets.get(i));
+                }
+                command.add(new File(System.getProperty("java.home"), "bin/java").getAbsolutePath());
+                command.add("-Djmh.ignoreLock=true");
+                command.add("-cp");
+                command.add(getShardClasspath());
+                command.add(ShardMain.class.getName());
+                command.add(optionsFile.getAbsolutePath());
+                command.add(listFile.getAbsolutePath());
+                command.add(resultFile.getAbsolutePath());
+
+                logger.lifecycle("Starting benchmarks shard {} ({} benchmarks{}), output: {}", i,
+                        runShards.get(i).size(), cpuSets == null ? "" : ", CPUs " + cpuSets.get(i), logFile);
+                processes.add(new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(logFile).start());
+                resultFiles.add(resultFile);
+                logFiles.add(logFile);
+            }
+
+            List<String> failures = new ArrayList<>();
+            for (int i = 0; i < processes.size(); i++) {
+                int exitCode = processes.get(i).waitFor();
+                if (exitCode == 0) {
+                    logger.lifecycle("Benchmarks shard {} completed", i);
+                } else {
+                    failures.add("shard " + i + " exited with code " + exitCode + ", see " + logFiles.get(i));
+                }
+            }
+            if (!failures.isEmpty()) {
+                throw new GradleException("Benchmark shards failed: " + String.join("; ", failures));
+            }
+        } finally {
+            for (Process process : processes) {
+                if (process.isAlive()) {
+                    process.destroy();
+                }
+            }
+        }
+
+        return readResults(resultFiles);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<RunResult> readResults(List<File> resultFiles) throws Exception {
+        List<RunResult> results = new ArrayList<>();
+        for (File resultFile : resultFiles) {
+            try (ObjectInputStream in = new ObjectInputStream(
+                    new BufferedInputStream(new FileInputStream(resultFile)))) {
+                results.addAll((Collection<RunResult>) in.readObject());
+            }
+        }
+        return results;
+    }
+
+    private String getShardClasspath() {
+        Set<String> classpath = new LinkedHashSet<>();
+        for (File file : benchmarkClasspath) {
+            classpath.add(file.getAbsolutePath());
+        }
+        // plugin classes (ShardMain) and JMH in case benchmarks classpath does not have it
+        classpath.add(getCodeSourceLocation(ShardMain.class));
+        classpath.add(getCodeSourceLocation(Runner.class));
+        return String.join(File.pathSeparator, classpath);
+    }
+
+    private static String getCodeSourceLocation(Class<?> cls) {
+        try {
+            return new File(cls.getProtectionDomain().getCodeSource().getLocation().toURI()).getAbsolutePath();
+        } catch (Exception exc) {
+            throw new GradleException("Failed to resolve location of " + cls.getName(), exc);
+        }
+    }
+
+    private List<String> getCpuSets(int shardCount) {
+        if (getTaskset() == null) {
+            logger.warn("taskset is not available, benchmark shards will not be pinned to CPU sets");
+            return null;
+        }
+        int cpus = Runtime.getRuntime().availableProcessors();
+        int cpusPerShard = cpus / shardCount;
+        if (cpusPerShard < 1) {
+            logger.warn("Not enough CPUs ({}) to pin {} benchmark shards to disjoint CPU sets", cpus, shardCount);
+            return null;
+        }
+        List<String> cpuSets = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            int first = i * cpusPerShard;
+            cpuSets.add(first + "-" + (first + cpusPerShard - 1));
+        }
+        return cpuSets;
+    }
+
+    private static String getTaskset() {
+        for (String location : TASKSET_LOCATIONS) {
+            if (new File(location).canExecute()) {
+                return location;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench;
+
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.provider.Property;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+
+import com.gocypher.cybench.launcher.report.DeliveryService;
+import com.gocypher.cybench.utils.ReportOutbox;
+import com.gocypher.cybench.utils.ReportOutboxSender;
+
+/**
+ * Build service delivering reports from outboxes in background, while the build continues. Number of concurrent
+ * deliveries is bounded by {@code maxConcurrentUploads} parameter.
+ * <p>
+ * When the build finishes, deliveries in progress are given a short time to complete, reports not delivered by then
+ * stay in the outbox and are sent by the next build or {@code cybenchFlush} task.
+ */
+public abstract class ReportDeliveryService
+        implements BuildService<ReportDeliveryService.Parameters>, AutoCloseable {
+    public static final String NAME = "cybenchReportDelivery";
+
+    private static final Logger LOGGER = Logging.getLogger(ReportDeliveryService.class);
+    private static final long CLOSE_TIMEOUT_SECONDS = 30;
+
+    private final ExecutorService scheduler = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cybench-report-delivery-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService executor;
+
+    public interface Parameters extends BuildServiceParameters {
+        Property<Integer> getMaxConcurrentUploads();
+    }
+
+    public ReportDeliveryService() {
+        executor = Executors.newFixedThreadPool(Math.max(1, getParameters().getMaxConcurrentUploads().get()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "cybench-report-delivery");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Schedules delivery of pending outbox reports.
+     *
+     * @param outboxDir
+     *            outbox folder
+     * @param retries
+     *            number of delivery retries
+     */
+    public void deliverAsync(File outboxDir, int retries) {
+        ReportOutboxSender sender = new ReportOutboxSender(new ReportOutbox(outboxDir),
+                ReportOutboxSender.CYBENCH_DELIVERY, retries, LOGGER);
+        scheduler.submit(() -> {
+            int pending = sender.drain(executor, false);
+            if (pending > 0) {
+                LOGGER.lifecycle("{} report(s) waiting for delivery in {}, run 'cybenchFlush' task to send them",
+                        pending, outboxDir);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Delivers all pending outbox reports, including ones having their retry delay not yet elapsed, and waits for
+     * deliveries to complete.
+     *
+     * @param outboxDir
+     *            outbox folder
+     * @param retries
+     *            number of delivery retries
+     * @param logger
+     *            logger to log delivery progress to
+     * @return number of reports left in outbox
+     * @throws InterruptedException
+     *             if interrupted while waiting for deliveries
+     */
+    public int deliver(File outboxDir, int retries, Logger logger) throws InterruptedException {
+        ReportOutboxSender sender = new ReportOutboxSender(new ReportOutbox(outboxDir),
+                ReportOutboxSender.CYBENCH_DELIVERY, retries, logger);
+        return sender.drain(executor, true);
+    }
+
+    /**
+     * Waits for scheduled deliveries and closes CyBench delivery client. Service is the only owner of the
+     * process-wide {@link DeliveryService}, tasks running in the build daemon must not close it.
+     */
+    @Override
+    public void close() {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(CLOSE_TIMEOUT_SECONDS);
+        scheduler.shutdown();
+        boolean completed = false;
+        try {
+            // scheduled drains submit deliveries to the executor, it is shut down after they are done
+            completed = scheduler.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            executor.shutdown();
+            completed &= executor.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+        }
+        if (!completed) {
+            scheduler.shutdownNow();
+            LOGGER.lifecycle("Report delivery did not complete in {} seconds, pending reports are kept in outbox",
+                    CLOSE_TIMEOUT_SECONDS);
+            executor.shutdownNow();
+        }
+        DeliveryService.getInstance().close();
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench;
+
+import java.io.*;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.BenchmarkList;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+
+/**
+ * Entry point of a benchmarks shard JVM process. Runs benchmarks from provided list file with provided (serialized)
+ * JMH options and writes serialized run results to the result file.
+ * <p>
+ * Uses only JDK and JMH classes, since shard JVM classpath has no Gradle API.
+ * <p>
+ * Arguments: {@code <options file> <benchmark list file> <result file>}
+ */
+public final class ShardMain {
+    private ShardMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 3) {
+            throw new IllegalArgumentException("Usage: ShardMain <options file> <benchmark list file> <result file>");
+        }
+        Options options;
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(args[0])))) {
+            options = (Options) in.readObject();
+        }
+
+        Runner runner = new Runner(options);
+        Field listField = Runner.class.getDeclaredField("list");
+        listField.setAccessible(true);
+        listField.set(runner, BenchmarkList.fromFile(args[1]));
+
+        Collection<RunResult> results = runner.run();
+
+        try (ObjectOutputStream out = new ObjectOutputStream(
+                new BufferedOutputStream(new FileOutputStream(args[2])))) {
+            out.writeObject(new ArrayList<>(results));
+        }
+    }
+}
@@ -1,6 +1,13 @@
 package com.gocypher.cybench.utils;
 
-public class AutomatedComparisonConfig {
+import java.io.Serializable;
+
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Optional;
+
+public class AutomatedComparisonConfig implements Serializable {
+    private static final long serialVersionUID = 3470853384217718467L;
+
     private String scope;
     private String method;
     private String threshold;
@@ -9,11 +16,26 @@ public class AutomatedComparisonConfig {
     private Double deviationsAllowed;
     private Integer numLatestReports;
     private Integer anomaliesAllowed;
+    private Boolean localComparison;
+    private String statisticalTest;
+    private Double confidenceLevel;
+
+    /**
+     * Creates plain (not Gradle decorated) copy of this configuration, which can be passed to worker process.
+     *
+     * @return configuration copy
+     */
+    public AutomatedComparisonConfig copy() {
+        return PluginUtils.copyDeclaredFields(this, new AutomatedComparisonConfig(),
+                AutomatedComparisonConfig.class);
+    }
 
     public void setScope(String scope) {
         this.scope = scope;
     }
 
+    @Input
+    @Optional
     public String getScope() {
         return scope;
     }
@@ -22,6 +44,8 @@ public class AutomatedComparisonConfig {
         this.method = method;
     }
 
+    @Input
+    @Optional
     public String getMethod() {
         return method;
     }
@@ -30,6 +54,8 @@ public class AutomatedComparisonConfig {
         this.threshold = threshold;
     }
 
+    @Input
+    @Optional
     public String getThreshold() {
         return threshold;
     }
@@ -38,6 +64,8 @@ public class AutomatedComparisonConfig {
         this.compareVersion = compareVersion;
     }
 
+    @Input
+    @Optional
     public String getCompareVersion() {
         return compareVersion;
     }
@@ -46,6 +74,8 @@ public class AutomatedComparisonConfig {
         this.deviationsAllowed = deviationsAllowed;
     }
 
+    @Input
+    @Optional
     public Double getDeviationsAllowed() {
         return deviationsAllowed;
     }
@@ -54,6 +84,8 @@ public class AutomatedComparisonConfig {
         this.percentChangeAllowed = percentChangeAllowed;
     }
 
+    @Input
+    @Optional
     public Double getPercentChangeAllowed() {
         return percentChangeAllowed;
     }
@@ -62,6 +94,8 @@ public class AutomatedComparisonConfig {
         this.numLatestReports = numLatestReports;
     }
 
+    @Input
+    @Optional
     public Integer getNumLatestReports() {
         return numLatestReports;
     }
@@ -70,8 +104,40 @@ public class AutomatedComparisonConfig {
         this.anomaliesAllowed = anomaliesAllowed;
     }
 
+    @Input
+    @Optional
     public Integer getAnomaliesAllowed() {
         return anomaliesAllowed;
     }
 
+
+    public void setLocalComparison(Boolean localComparison) {
+        this.localComparison = localComparison;
+    }
+
+    @Input
+    @Optional
+    public Boolean getLocalComparison() {
+        return localComparison;
+    }
+
+    public void setStatisticalTest(String statisticalTest) {
+        this.statisticalTest = statisticalTest;
+    }
+
+    @Input
+    @Optional
+    public String getStatisticalTest() {
+        return statisticalTest;
+    }
+
+    public void setConfidenceLevel(Double confidenceLevel) {
+        this.confidenceLevel = confidenceLevel;
+    }
+
+    @Input
+    @Optional
+    public Double getConfidenceLevel() {
+        return confidenceLevel;
+    }
 }
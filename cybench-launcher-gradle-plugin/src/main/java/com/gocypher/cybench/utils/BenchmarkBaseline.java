@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.gocypher.cybench.utils;
+
+import java.io.*;
+import java.util.Collection;
+import java.util.Properties;
+import java.util.TreeSet;
+
+import org.gradle.api.logging.Logger;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.RunResult;
+
+/**
+ * Local baseline of benchmark scores, which score changes of running benchmarks are checked against (see
+ * {@link ScoreGate}). Scores are keyed by benchmark name, mode and parameters.
+ */
+public class BenchmarkBaseline {
+    private final File baselineFile;
+    private final Properties scores = new Properties();
+
+    private BenchmarkBaseline(File baselineFile) {
+        this.baselineFile = baselineFile;
+    }
+
+    public static BenchmarkBaseline load(File baselineFile, Logger logger) {
+        BenchmarkBaseline baseline = new BenchmarkBaseline(baselineFile);
+        if (baselineFile.isFile()) {
+            try (InputStream in = new BufferedInputStream(new FileInputStream(baselineFile))) {
+                baseline.scores.load(in);
+            } catch (IOException exc) {
+                logger.warn("Failed to read benchmarks baseline file {}", baselineFile, exc);
+            }
+        }
+        return baseline;
+    }
+
+    public static String getKey(BenchmarkParams params) {
+        StringBuilder key = new StringBuilder(
+                ReportHistoryStore.getKey(params.getBenchmark(), params.getMode().shortLabel()));
+        Collection<String> paramKeys = new TreeSet<>(params.getParamsKeys());
+        if (!paramKeys.isEmpty()) {
+            String separator = "{";
+            for (String paramKey : paramKeys) {
+                key.append(separator).append(paramKey).append('=').append(params.getParam(paramKey));
+                separator = ",";
+            }
+            key.append('}');
+        }
+        return key.toString();
+    }
+
+    public boolean isEmpty() {
+        return scores.isEmpty();
+    }
+
+    /**
+     * Returns baseline score of benchmark.
+     *
+     * @param params
+     *            benchmark parameters
+     * @return baseline score, or {@code null} if there is no baseline score for benchmark
+     */
+    public Double getScore(BenchmarkParams params) {
+        String score = scores.getProperty(getKey(params));
+        if (score == null) {
+            return null;
+        }
+        try {
+            return Double.valueOf(score);
+        } catch (NumberFormatException exc) {
+            return null;
+        }
+    }
+
+    /**
+     * Updates baseline scores from provided run results.
+     *
+     * @param results
+     *            benchmarks run results
+     */
+    public void update(Collection<RunResult> results) {
+        for (RunResult result : results) {
+            if (result.getPrimaryResult() != null) {
+                scores.setProperty(getKey(result.getParams()), String.valueOf(result.getPrimaryResult().getScore()));
+            }
+        }
+    }
+
+    public void save() throws IOException {
+        PluginUtils.ensureParentDir(baselineFile);
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(baselineFile))) {
+            scores.store(out, "CyBench benchmarks baseline scores");
+        }
+    }
+}
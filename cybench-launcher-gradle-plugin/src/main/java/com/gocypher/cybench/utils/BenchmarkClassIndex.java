@@ -0,0 +1,263 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.utils;
+
+import java.io.*;
+import java.util.*;
+
+import org.apache.bcel.classfile.*;
+import org.gradle.api.logging.Logger;
+
+/**
+ * Index of benchmark classes CyBench metadata, used by benchmarks scheduling and report metadata extraction.
+ * <p>
+ * Metadata ({@code @BenchmarkMetaData} and {@code @CyBenchMetadataList} annotation values) is read directly from
+ * annotation entries of class files found in benchmarks classpath, so benchmark classes are never loaded. Parsed
+ * metadata is kept in a persistent cache keyed by class file location, size and last modification time, so unchanged
+ * classes are never parsed again.
+ */
+public class BenchmarkClassIndex implements Closeable {
+    private static final int VERSION = 1;
+    private static final String BENCHMARK_ANNOTATION = "Lorg/openjdk/jmh/annotations/Benchmark;";
+    private static final String METADATA_LIST_TYPE = "L" + PluginConstants.METADATA_LIST.replace('.', '/') + ";";
+    private static final String METADATA_TYPE = "L" + PluginConstants.BENCHMARK_METADATA.replace('.', '/') + ";";
+    private static final String OBJECT_CLASS = "java.lang.Object";
+
+    private final ClasspathFiles classFiles;
+    private final File cacheFile;
+    private final Logger logger;
+    private final Map<String, ClassMetadata> cache;
+    private final Map<String, ClassEntry> classes = new HashMap<>();
+    private boolean cacheChanged;
+
+    /**
+     * Creates index and loads persistent metadata cache.
+     *
+     * @param benchmarkClasspath
+     *            benchmarks classpath
+     * @param cacheFile
+     *            persistent metadata cache file
+     * @param logger
+     *            logger to report failures
+     */
+    public BenchmarkClassIndex(Collection<File> benchmarkClasspath, File cacheFile, Logger logger) {
+        this.classFiles = new ClasspathFiles(benchmarkClasspath);
+        this.cacheFile = cacheFile;
+        this.logger = logger;
+        this.cache = new HashMap<>(loadCache(cacheFile, logger));
+    }
+
+    /**
+     * Returns indexed benchmark class, reading its metadata on first access.
+     *
+     * @param className
+     *            fully qualified benchmark class name
+     * @return indexed benchmark class
+     * @throws ClassNotFoundException
+     *             if class file is not found in benchmarks classpath or can't be parsed
+     */
+    public ClassEntry getClassEntry(String className) throws ClassNotFoundException {
+        ClassEntry entry = classes.get(className);
+        if (entry == null) {
+            entry = new ClassEntry(getClassMetadata(className));
+            classes.put(className, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Stores persistent metadata cache if it has changed.
+     */
+    public void saveCache() {
+        if (!cacheChanged) {
+            return;
+        }
+        try {
+            CacheFile.write(cacheFile, VERSION, new HashMap<>(cache));
+            cacheChanged = false;
+        } catch (IOException exc) {
+            logger.warn("Failed to write benchmark metadata cache {}", cacheFile, exc);
+        }
+    }
+
+    /**
+     * Stores persistent metadata cache and releases classpath jars.
+     */
+    @Override
+    public void close() throws IOException {
+        saveCache();
+        classes.clear();
+        classFiles.close();
+    }
+
+    private ClassMetadata getClassMetadata(String className) throws ClassNotFoundException {
+        ClasspathFiles.ClassFile classFile = classFiles.find(className);
+        if (classFile == null) {
+            throw new ClassNotFoundException(className);
+        }
+        ClassMetadata cached = cache.get(classFile.getLocation());
+        if (cached != null && cached.size == classFile.getSize()
+                && cached.lastModified == classFile.getLastModified()) {
+            return cached;
+        }
+
+        JavaClass javaClass;
+        try {
+            javaClass = new ClassParser(new ByteArrayInputStream(classFile.read()), classFile.getLocation()).parse();
+        } catch (IOException | ClassFormatException exc) {
+            throw new ClassNotFoundException("Failed to read class file " + classFile.getLocation(), exc);
+        }
+        ClassMetadata metadata = new ClassMetadata();
+        metadata.size = classFile.getSize();
+        metadata.lastModified = classFile.getLastModified();
+        metadata.superClassName = javaClass.getSuperclassName();
+        readMetadata(javaClass.getAnnotationEntries(), metadata.classMetadata);
+        for (Method method : javaClass.getMethods()) {
+            Map<String, String> methodMetadata = new LinkedHashMap<>();
+            readMetadata(method.getAnnotationEntries(), methodMetadata);
+            // benchmark method wins over its overloads, same as for JMH
+            if (isBenchmark(method) || !metadata.methodsMetadata.containsKey(method.getName())) {
+                metadata.methodsMetadata.put(method.getName(), methodMetadata);
+            }
+        }
+        cache.put(classFile.getLocation(), metadata);
+        cacheChanged = true;
+        return metadata;
+    }
+
+    private static void readMetadata(AnnotationEntry[] annotations, Map<String, String> metadata) {
+        for (AnnotationEntry annotation : annotations) {
+            if (METADATA_TYPE.equals(annotation.getAnnotationType())) {
+                readMetadataEntry(annotation, metadata);
+            } else if (METADATA_LIST_TYPE.equals(annotation.getAnnotationType())) {
+                for (ElementValuePair pair : annotation.getElementValuePairs()) {
+                    if ("value".equals(pair.getNameString()) && pair.getValue() instanceof ArrayElementValue) {
+                        for (ElementValue value : ((ArrayElementValue) pair.getValue()).getElementValuesArray()) {
+                            if (value instanceof AnnotationElementValue) {
+                                readMetadataEntry(((AnnotationElementValue) value).getAnnotationEntry(), metadata);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static void readMetadataEntry(AnnotationEntry annotation, Map<String, String> metadata) {
+        String key = null;
+        String value = null;
+        for (ElementValuePair pair : annotation.getElementValuePairs()) {
+            if ("key".equals(pair.getNameString())) {
+                key = pair.getValue().stringifyValue();
+            } else if ("value".equals(pair.getNameString())) {
+                value = pair.getValue().stringifyValue();
+            }
+        }
+        if (key != null && value != null) {
+            metadata.put(key, value);
+        }
+    }
+
+    private static boolean isBenchmark(Method method) {
+        for (AnnotationEntry annotation : method.getAnnotationEntries()) {
+            if (BENCHMARK_ANNOTATION.equals(annotation.getAnnotationType())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Map<String, ClassMetadata> loadCache(File cacheFile, Logger logger) {
+        try {
+            Map<String, ClassMetadata> cache = CacheFile.read(cacheFile, VERSION);
+            if (cache != null) {
+                return cache;
+            }
+        } catch (Exception exc) {
+            logger.warn("Failed to read benchmark metadata cache {}, all classes will be parsed", cacheFile, exc);
+        }
+        return Collections.emptyMap();
+    }
+
+    private static final class ClassMetadata implements Serializable {
+        private static final long serialVersionUID = 6803315406233412710L;
+
+        private long size;
+        private long lastModified;
+        private String superClassName;
+        private final Map<String, String> classMetadata = new LinkedHashMap<>();
+        private final Map<String, Map<String, String>> methodsMetadata = new HashMap<>();
+    }
+
+    /**
+     * Indexed benchmark class metadata.
+     */
+    public class ClassEntry {
+        private final ClassMetadata metadata;
+        private final Map<String, Map<String, String>> methodsMetadata = new HashMap<>();
+
+        ClassEntry(ClassMetadata metadata) {
+            this.metadata = metadata;
+        }
+
+        /**
+         * Returns CyBench metadata declared by class annotations.
+         *
+         * @return map of metadata key to value
+         */
+        public Map<String, String> getClassMetadata() {
+            return Collections.unmodifiableMap(metadata.classMetadata);
+        }
+
+        /**
+         * Returns CyBench metadata declared by benchmark method annotations. Methods inherited from superclasses are
+         * resolved the same way as public methods are by reflection: the most specific declaration wins.
+         *
+         * @param methodName
+         *            benchmark method name
+         * @return map of metadata key to value
+         */
+        public Map<String, String> getMethodMetadata(String methodName) {
+            return methodsMetadata.computeIfAbsent(methodName, name -> {
+                ClassMetadata current = metadata;
+                while (current != null) {
+                    Map<String, String> methodMetadata = current.methodsMetadata.get(name);
+                    if (methodMetadata != null) {
+                        return Collections.unmodifiableMap(methodMetadata);
+                    }
+                    current = getSuperClassMetadata(current);
+                }
+                return Collections.emptyMap();
+            });
+        }
+    }
+
+    private ClassMetadata getSuperClassMetadata(ClassMetadata metadata) {
+        if (metadata.superClassName == null || OBJECT_CLASS.equals(metadata.superClassName)) {
+            return null;
+        }
+        try {
+            return getClassMetadata(metadata.superClassName);
+        } catch (ClassNotFoundException exc) {
+            // superclass from JDK or not a part of benchmarks classpath has no CyBench metadata
+            return null;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.utils;
+
+import java.io.*;
+import java.util.Collection;
+import java.util.Properties;
+
+import org.gradle.api.logging.Logger;
+import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.BenchmarkResultMetaData;
+import org.openjdk.jmh.results.RunResult;
+
+/**
+ * Historical benchmarks wall clock durations, collected from previous runs results.
+ */
+public class BenchmarkDurations {
+    private final File durationsFile;
+    private final Properties durations = new Properties();
+
+    private BenchmarkDurations(File durationsFile) {
+        this.durationsFile = durationsFile;
+    }
+
+    public static BenchmarkDurations load(File durationsFile, Logger logger) {
+        BenchmarkDurations benchmarkDurations = new BenchmarkDurations(durationsFile);
+        if (durationsFile.isFile()) {
+            try (InputStream in = new BufferedInputStream(new FileInputStream(durationsFile))) {
+                benchmarkDurations.durations.load(in);
+            } catch (IOException exc) {
+                logger.warn("Failed to read benchmark durations file {}", durationsFile, exc);
+            }
+        }
+        return benchmarkDurations;
+    }
+
+    /**
+     * Returns last known benchmark duration.
+     *
+     * @param benchmark
+     *            benchmark name ({@code class.method})
+     * @return benchmark duration in milliseconds, or {@code -1} if benchmark duration is unknown
+     */
+    public long getDuration(String benchmark) {
+        String duration = durations.getProperty(benchmark);
+        if (duration == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(duration);
+        } catch (NumberFormatException exc) {
+            return -1;
+        }
+    }
+
+    /**
+     * Updates benchmark durations from provided run results. Durations of benchmarks having several run results (e.g.
+     * several modes or parameters) are summed.
+     *
+     * @param results
+     *            benchmarks run results
+     */
+    public void update(Collection<RunResult> results) {
+        Properties runDurations = new Properties();
+        for (RunResult result : results) {
+            long duration = getDuration(result);
+            if (duration > 0) {
+                String name = result.getParams().getBenchmark();
+                long total = Long.parseLong(runDurations.getProperty(name, "0")) + duration;
+                runDurations.setProperty(name, String.valueOf(total));
+            }
+        }
+        durations.putAll(runDurations);
+    }
+
+    public void save() throws IOException {
+        PluginUtils.ensureParentDir(durationsFile);
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(durationsFile))) {
+            durations.store(out, "CyBench benchmark durations, ms");
+        }
+    }
+
+    /**
+     * Computes wall clock duration of benchmark run, including all forks.
+     *
+     * @param result
+     *            benchmark run result
+     * @return benchmark run duration in milliseconds, or {@code -1} if run result has no timing metadata
+     */
+    public static long getDuration(RunResult result) {
+        long duration = 0;
+        for (BenchmarkResult benchmarkResult : result.getBenchmarkResults()) {
+            BenchmarkResultMetaData metadata = benchmarkResult.getMetadata();
+            if (metadata == null) {
+                return -1;
+            }
+            duration += metadata.getStopTime() - metadata.getStartTime();
+        }
+        return duration;
+    }
+}
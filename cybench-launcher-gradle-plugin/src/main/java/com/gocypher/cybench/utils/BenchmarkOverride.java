@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.utils;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.regex.Pattern;
+
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Optional;
+import org.openjdk.jmh.runner.BenchmarkListEntry;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Benchmark settings override for benchmarks matching name pattern, declared in
+ * {@code cybenchJMH { override('pattern') { ... } }} block or in benchmark profile.
+ */
+public class BenchmarkOverride implements Serializable {
+    private static final long serialVersionUID = 5209411926583950271L;
+
+    private String pattern;
+    private Integer forks;
+    private Integer threads;
+    private Integer measurementIterations;
+    private Integer measurementSeconds;
+    private Integer warmUpIterations;
+    private Integer warmUpSeconds;
+    // pattern compiled on first match, recompiled if pattern changes
+    private transient Pattern compiledPattern;
+
+    public BenchmarkOverride() {
+    }
+
+    public BenchmarkOverride(String pattern) {
+        this.pattern = pattern;
+    }
+
+    /**
+     * Checks if override shall be applied to provided benchmark.
+     *
+     * @param benchmark
+     *            benchmark name ({@code class.method})
+     * @return {@code true} if pattern matches benchmark name
+     */
+    public boolean matches(String benchmark) {
+        if (pattern == null) {
+            return false;
+        }
+        return getCompiledPattern().matcher(benchmark).find();
+    }
+
+    private synchronized Pattern getCompiledPattern() {
+        if (compiledPattern == null || !compiledPattern.pattern().equals(pattern)) {
+            compiledPattern = Pattern.compile(pattern);
+        }
+        return compiledPattern;
+    }
+
+    /**
+     * Applies set settings to JMH options builder.
+     *
+     * @param builder
+     *            JMH options builder
+     * @return provided options builder
+     */
+    public ChainedOptionsBuilder applyTo(ChainedOptionsBuilder builder) {
+        if (forks != null) {
+            builder.forks(forks);
+        }
+        if (threads != null) {
+            builder.threads(threads);
+        }
+        if (measurementIterations != null) {
+            builder.measurementIterations(measurementIterations);
+        }
+        if (measurementSeconds != null) {
+            builder.measurementTime(TimeValue.seconds(measurementSeconds));
+        }
+        if (warmUpIterations != null) {
+            builder.warmupIterations(warmUpIterations);
+        }
+        if (warmUpSeconds != null) {
+            builder.warmupTime(TimeValue.seconds(warmUpSeconds));
+        }
+        return builder;
+    }
+
+    /**
+     * Groups benchmarks by overrides matching them.
+     *
+     * @param entries
+     *            benchmarks to run
+     * @param overrides
+     *            configured overrides
+     * @return map of matching overrides (in declaration order) and benchmarks to run with them, in benchmarks order
+     */
+    public static Map<List<BenchmarkOverride>, List<BenchmarkListEntry>> group(Collection<BenchmarkListEntry> entries,
+            List<BenchmarkOverride> overrides) {
+        Map<List<BenchmarkOverride>, List<BenchmarkListEntry>> groups = new LinkedHashMap<>();
+        for (BenchmarkListEntry entry : new TreeSet<>(entries)) {
+            List<BenchmarkOverride> entryOverrides = new ArrayList<>();
+            for (BenchmarkOverride override : overrides) {
+                if (override.matches(entry.getUsername())) {
+                    entryOverrides.add(override);
+                }
+            }
+            groups.computeIfAbsent(entryOverrides, k -> new ArrayList<>()).add(entry);
+        }
+        return groups;
+    }
+
+    /**
+     * Creates JMH options having provided overrides applied to base options. Later overrides take precedence.
+     *
+     * @param options
+     *            base options
+     * @param overrides
+     *            overrides to apply
+     * @return JMH options with overrides, or base options if there are no overrides to apply
+     */
+    public static Options withOverrides(Options options, List<BenchmarkOverride> overrides) {
+        if (overrides.isEmpty()) {
+            return options;
+        }
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(options);
+        for (BenchmarkOverride override : overrides) {
+            override.applyTo(builder);
+        }
+        return builder.build();
+    }
+
+    @Input
+    public String getPattern() {
+        return pattern;
+    }
+
+    public void setPattern(String pattern) {
+        this.pattern = pattern;
+    }
+
+    @Input
+    @Optional
+    public Integer getForks() {
+        return forks;
+    }
+
+    public void setForks(Integer forks) {
+        this.forks = forks;
+    }
+
+    @Input
+    @Optional
+    public Integer getThreads() {
+        return threads;
+    }
+
+    public void setThreads(Integer threads) {
+        this.threads = threads;
+    }
+
+    @Input
+    @Optional
+    public Integer getMeasurementIterations() {
+        return measurementIterations;
+    }
+
+    public void setMeasurementIterations(Integer measurementIterations) {
+        this.measurementIterations = measurementIterations;
+    }
+
+    @Input
+    @Optional
+    public Integer getMeasurementSeconds() {
+        return measurementSeconds;
+    }
+
+    public void setMeasurementSeconds(Integer measurementSeconds) {
+        this.measurementSeconds = measurementSeconds;
+    }
+
+    @Input
+    @Optional
+    public Integer getWarmUpIterations() {
+        return warmUpIterations;
+    }
+
+    public void setWarmUpIterations(Integer warmUpIterations) {
+        this.warmUpIterations = warmUpIterations;
+    }
+
+    @Input
+    @Optional
+    public Integer getWarmUpSeconds() {
+        return warmUpSeconds;
+    }
+
+    public void setWarmUpSeconds(Integer warmUpSeconds) {
+        this.warmUpSeconds = warmUpSeconds;
+    }
+
+    @Override
+    public String toString() {
+        return pattern + "{forks=" + forks + ", threads=" + threads + ", measurementIterations="
+                + measurementIterations + ", measurementSeconds=" + measurementSeconds + ", warmUpIterations="
+                + warmUpIterations + ", warmUpSeconds=" + warmUpSeconds + "}";
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.utils;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.inject.Inject;
+
+import org.gradle.api.Action;
+import org.gradle.api.Named;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Nested;
+import org.gradle.api.tasks.Optional;
+
+/**
+ * Named benchmarks profile (e.g. {@code smoke}, {@code nightly}), declared in
+ * {@code cybenchJMH { profiles { ... } }} block and selected using {@code profile} property or
+ * {@code -Pcybench.profile=<name>} command line option. Settings set in profile override ones of {@code cybenchJMH}.
+ */
+public class BenchmarkProfile implements Named, Serializable {
+    private static final long serialVersionUID = -1736420658093385462L;
+
+    private final String name;
+    private Boolean useCyBenchBenchmarkSettings;
+    private Integer forks;
+    private Integer threads;
+    private Integer measurementIterations;
+    private Integer measurementSeconds;
+    private Integer warmUpIterations;
+    private Integer warmUpSeconds;
+    private JmhOptions jmh = new JmhOptions();
+    private List<BenchmarkOverride> overrides = new ArrayList<>();
+
+    @Inject
+    public BenchmarkProfile(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Applies profile settings to provided configuration.
+     *
+     * @param configuration
+     *            configuration to apply profile settings to
+     * @return provided configuration
+     */
+    public LauncherConfiguration applyTo(LauncherConfiguration configuration) {
+        if (useCyBenchBenchmarkSettings != null) {
+            configuration.setUseCyBenchBenchmarkSettings(useCyBenchBenchmarkSettings);
+        }
+        if (forks != null) {
+            configuration.setForks(forks);
+        }
+        if (threads != null) {
+            configuration.setThreads(threads);
+        }
+        if (measurementIterations != null) {
+            configuration.setMeasurementIterations(measurementIterations);
+        }
+        if (measurementSeconds != null) {
+            configuration.setMeasurementSeconds(measurementSeconds);
+        }
+        if (warmUpIterations != null) {
+            configuration.setWarmUpIterations(warmUpIterations);
+        }
+        if (warmUpSeconds != null) {
+            configuration.setWarmUpSeconds(warmUpSeconds);
+        }
+        configuration.setJmh(configuration.getJmh().merge(jmh));
+        List<BenchmarkOverride> benchmarkOverrides = new ArrayList<>(configuration.getOverrides());
+        benchmarkOverrides.addAll(overrides);
+        configuration.setOverrides(benchmarkOverrides);
+        return configuration;
+    }
+
+    @Input
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Input
+    @Optional
+    public Boolean getUseCyBenchBenchmarkSettings() {
+        return useCyBenchBenchmarkSettings;
+    }
+
+    public void setUseCyBenchBenchmarkSettings(Boolean useCyBenchBenchmarkSettings) {
+        this.useCyBenchBenchmarkSettings = useCyBenchBenchmarkSettings;
+    }
+
+    @Input
+    @Optional
+    public Integer getForks() {
+        return forks;
+    }
+
+    public void setForks(Integer forks) {
+        this.forks = forks;
+    }
+
+    @Input
+    @Optional
+    public Integer getThreads() {
+        return threads;
+    }
+
+    public void setThreads(Integer threads) {
+        this.threads = threads;
+    }
+
+    @Input
+    @Optional
+    public Integer getMeasurementIterations() {
+        return measurementIterations;
+    }
+
+    public void setMeasurementIterations(Integer measurementIterations) {
+        this.measurementIterations = measurementIterations;
+    }
+
+    @Input
+    @Optional
+    public Integer getMeasurementSeconds() {
+        return measurementSeconds;
+    }
+
+    public void setMeasurementSeconds(Integer measurementSeconds) {
+        this.measurementSeconds = measurementSeconds;
+    }
+
+    @Input
+    @Optional
+    public Integer getWarmUpIterations() {
+        return warmUpIterations;
+    }
+
+    public void setWarmUpIterations(Integer warmUpIterations) {
+        this.warmUpIterations = warmUpIterations;
+    }
+
+    @Input
+    @Optional
+    public Integer getWarmUpSeconds() {
+        return warmUpSeconds;
+    }
+
+    public void setWarmUpSeconds(Integer warmUpSeconds) {
+        this.warmUpSeconds = warmUpSeconds;
+    }
+
+    @Nested
+    public JmhOptions getJmh() {
+        return jmh;
+    }
+
+    public void setJmh(JmhOptions jmh) {
+        this.jmh = jmh;
+    }
+
+    public void jmh(Action<? super JmhOptions> action) {
+        action.execute(jmh);
+    }
+
+    @Nested
+    public List<BenchmarkOverride> getOverrides() {
+        return overrides;
+    }
+
+    public void setOverrides(List<BenchmarkOverride> overrides) {
+        this.overrides = overrides;
+    }
+
+    public void override(String pattern, Action<? super BenchmarkOverride> action) {
+        BenchmarkOverride override = new BenchmarkOverride(pattern);
+        action.execute(override);
+        overrides.add(override);
+    }
+}
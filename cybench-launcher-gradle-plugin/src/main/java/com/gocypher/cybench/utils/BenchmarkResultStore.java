@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.utils;
+
+import java.io.*;
+import java.util.*;
+
+import org.gradle.api.logging.Logger;
+import org.openjdk.jmh.results.RunResult;
+
+/**
+ * Local benchmark fingerprint to run result store used by incremental benchmarks execution.
+ */
+public class BenchmarkResultStore {
+    private static final int VERSION = 1;
+
+    private final File storeFile;
+    private final HashMap<String, StoredResult> results;
+
+    private BenchmarkResultStore(File storeFile, HashMap<String, StoredResult> results) {
+        this.storeFile = storeFile;
+        this.results = results;
+    }
+
+    /**
+     * Loads store from provided file. If file does not exist or can't be read, empty store is returned.
+     *
+     * @param storeFile
+     *            store file
+     * @param logger
+     *            logger to report store read failures
+     * @return loaded store
+     */
+    public static BenchmarkResultStore load(File storeFile, Logger logger) {
+        HashMap<String, StoredResult> results = null;
+        try {
+            results = CacheFile.read(storeFile, VERSION);
+            if (results == null && storeFile.isFile()) {
+                logger.lifecycle("Incremental results store version mismatch, all benchmarks will be executed");
+            }
+        } catch (Exception exc) {
+            logger.warn("Failed to read incremental results store {}, all benchmarks will be executed", storeFile,
+                    exc);
+        }
+        return new BenchmarkResultStore(storeFile, results == null ? new HashMap<>() : results);
+    }
+
+    /**
+     * Returns stored run results for benchmark if stored fingerprint matches provided one.
+     *
+     * @param benchmark
+     *            benchmark name ({@code class.method})
+     * @param fingerprint
+     *            current benchmark fingerprint
+     * @return stored benchmark run results, or {@code null} if benchmark has no results stored or fingerprint has
+     *         changed
+     */
+    public List<RunResult> getResults(String benchmark, String fingerprint) {
+        StoredResult stored = results.get(benchmark);
+        if (stored == null || fingerprint == null || !fingerprint.equals(stored.fingerprint)) {
+            return null;
+        }
+        return stored.results;
+    }
+
+    public void putResults(String benchmark, String fingerprint, List<RunResult> runResults) {
+        results.put(benchmark, new StoredResult(fingerprint, runResults));
+    }
+
+    /**
+     * Removes results of benchmarks no longer present in benchmarks list.
+     *
+     * @param benchmarks
+     *            currently available benchmark names
+     */
+    public void retainAll(Collection<String> benchmarks) {
+        results.keySet().retainAll(benchmarks);
+    }
+
+    public void save() throws IOException {
+        CacheFile.write(storeFile, VERSION, results);
+    }
+
+    private static class StoredResult implements Serializable {
+        private static final long serialVersionUID = 8391827646912741953L;
+
+        private final String fingerprint;
+        private final List<RunResult> results;
+
+        StoredResult(String fingerprint, List<RunResult> results) {
+            this.fingerprint = fingerprint;
+            this.results = new ArrayList<>(results);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.utils;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.RunResult;
+
+/**
+ * Raw per-iteration scores of benchmarks run, kept alongside the report for statistical comparison of runs.
+ * <p>
+ * Samples are keyed the same way as {@link BenchmarkBaseline} scores: {@code name:mode} followed by benchmark
+ * parameters, if any. Samples file is gzip compressed binary: {@code int magic, int version, int count} followed by
+ * {@code count} records of {@code UTF key, int size} and {@code size} doubles.
+ */
+public class BenchmarkSamples {
+    public static final String FILE_EXTENSION = ".samples";
+
+    private static final int MAGIC = 0x43595253;
+    private static final int VERSION = 1;
+
+    private final Map<String, double[]> samples = new LinkedHashMap<>();
+
+    /**
+     * Collects measurement iteration scores of all forks from run results.
+     *
+     * @param results
+     *            benchmarks run results
+     * @return benchmark samples
+     */
+    public static BenchmarkSamples fromResults(Collection<RunResult> results) {
+        BenchmarkSamples benchmarkSamples = new BenchmarkSamples();
+        for (RunResult result : results) {
+            List<Double> scores = new ArrayList<>();
+            for (BenchmarkResult benchmarkResult : result.getBenchmarkResults()) {
+                for (IterationResult iterationResult : benchmarkResult.getIterationResults()) {
+                    scores.add(iterationResult.getPrimaryResult().getScore());
+                }
+            }
+            benchmarkSamples.add(BenchmarkBaseline.getKey(result.getParams()), toArray(scores));
+        }
+        return benchmarkSamples;
+    }
+
+    /**
+     * Reads samples file.
+     *
+     * @param file
+     *            samples file
+     * @return benchmark samples
+     * @throws IOException
+     *             if file can't be read or has unsupported format
+     */
+    public static BenchmarkSamples read(File file) throws IOException {
+        BenchmarkSamples benchmarkSamples = new BenchmarkSamples();
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unsupported benchmark samples file format " + file);
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String key = in.readUTF();
+                double[] values = new double[in.readInt()];
+                for (int j = 0; j < values.length; j++) {
+                    values[j] = in.readDouble();
+                }
+                benchmarkSamples.add(key, values);
+            }
+        }
+        return benchmarkSamples;
+    }
+
+    /**
+     * Returns report history key ({@code name:mode}) of samples key, i.e. key without benchmark parameters.
+     *
+     * @param key
+     *            samples key
+     * @return report history key
+     */
+    public static String getHistoryKey(String key) {
+        int paramsStart = key.indexOf('{');
+        return paramsStart < 0 ? key : key.substring(0, paramsStart);
+    }
+
+    public void write(File file) throws IOException {
+        PluginUtils.ensureParentDir(file);
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(file))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(samples.size());
+            for (Map.Entry<String, double[]> entry : samples.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().length);
+                for (double value : entry.getValue()) {
+                    out.writeDouble(value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds samples of benchmark, appending them to already present ones.
+     *
+     * @param key
+     *            samples key
+     * @param values
+     *            samples to add
+     */
+    public void add(String key, double[] values) {
+        double[] present = samples.get(key);
+        if (present == null) {
+            samples.put(key, values.clone());
+        } else {
+            double[] merged = Arrays.copyOf(present, present.length + values.length);
+            System.arraycopy(values, 0, merged, present.length, values.length);
+            samples.put(key, merged);
+        }
+    }
+
+    /**
+     * Adds all samples of other benchmark samples.
+     *
+     * @param other
+     *            samples to add
+     */
+    public void addAll(BenchmarkSamples other) {
+        for (Map.Entry<String, double[]> entry : other.samples.entrySet()) {
+            add(entry.getKey(), entry.getValue());
+        }
+    }
+
+    public Set<String> getKeys() {
+        return Collections.unmodifiableSet(samples.keySet());
+    }
+
+    /**
+     * Returns samples of benchmark.
+     *
+     * @param key
+     *            samples key
+     * @return samples, or {@code null} if there are no samples for this key
+     */
+    public double[] get(String key) {
+        return samples.get(key);
+    }
+
+    public boolean isEmpty() {
+        return samples.isEmpty();
+    }
+
+    private static double[] toArray(List<Double> values) {
+        double[] array = new double[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        return array;
+    }
+}
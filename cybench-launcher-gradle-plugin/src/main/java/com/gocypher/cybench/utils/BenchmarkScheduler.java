@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.utils;
+
+import java.io.*;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+import org.gradle.api.logging.Logger;
+import org.openjdk.jmh.runner.BenchmarkListEntry;
+
+/**
+ * Selects benchmarks fitting into run time budget. Benchmarks are prioritized in this order:
+ * <ol>
+ * <li>critical benchmarks, which are always run</li>
+ * <li>benchmarks whose fingerprint changed since their last run, or which were never run</li>
+ * <li>remaining benchmarks, by time since their last run weighted by their historical score volatility, so deferred
+ * benchmarks rotate across runs and volatile ones are run more often</li>
+ * </ol>
+ * Benchmarks are taken in priority order while they fit into the budget, skipped ones are deferred.
+ */
+public class BenchmarkScheduler {
+    private static final String LAST_RUN_SUFFIX = ".lastRun";
+    private static final String FINGERPRINT_SUFFIX = ".fingerprint";
+    private static final double VOLATILITY_WEIGHT = 10.0;
+
+    private final File stateFile;
+    private final Properties state = new Properties();
+
+    private BenchmarkScheduler(File stateFile) {
+        this.stateFile = stateFile;
+    }
+
+    public static BenchmarkScheduler load(File stateFile, Logger logger) {
+        BenchmarkScheduler scheduler = new BenchmarkScheduler(stateFile);
+        if (stateFile.isFile()) {
+            try (InputStream in = new BufferedInputStream(new FileInputStream(stateFile))) {
+                scheduler.state.load(in);
+            } catch (IOException exc) {
+                logger.warn("Failed to read benchmarks schedule file {}", stateFile, exc);
+            }
+        }
+        return scheduler;
+    }
+
+    /**
+     * Selects benchmarks to run within time budget.
+     *
+     * @param entries
+     *            benchmarks to select from
+     * @param budget
+     *            run time budget in milliseconds
+     * @param durationFunction
+     *            benchmark (all entries of the same benchmark name) duration estimate function, in milliseconds
+     * @param critical
+     *            predicate telling if benchmark (by name) is critical
+     * @param fingerprints
+     *            current benchmark fingerprints
+     * @param volatility
+     *            historical benchmark score volatility (coefficient of variation)
+     * @param now
+     *            current time in milliseconds
+     * @return benchmarks schedule
+     */
+    public Schedule schedule(Collection<BenchmarkListEntry> entries, long budget,
+            ToLongFunction<String> durationFunction, Predicate<String> critical, Map<String, String> fingerprints,
+            Map<String, Double> volatility, long now) {
+        Map<String, List<BenchmarkListEntry>> benchmarks = new TreeMap<>();
+        for (BenchmarkListEntry entry : new TreeSet<>(entries)) {
+            benchmarks.computeIfAbsent(entry.getUsername(), k -> new ArrayList<>()).add(entry);
+        }
+
+        List<String> names = new ArrayList<>(benchmarks.keySet());
+        Map<String, Integer> tiers = new HashMap<>();
+        Map<String, Double> priorities = new HashMap<>();
+        for (String name : names) {
+            String lastRun = state.getProperty(name + LAST_RUN_SUFFIX);
+            String fingerprint = state.getProperty(name + FINGERPRINT_SUFFIX);
+            if (critical.test(name)) {
+                tiers.put(name, 0);
+            } else if (lastRun == null || !Objects.equals(fingerprint, fingerprints.get(name))) {
+                tiers.put(name, 1);
+            } else {
+                tiers.put(name, 2);
+            }
+            double ageHours = lastRun == null ? 0 : Math.max(0, now - Long.parseLong(lastRun)) / 3_600_000.0;
+            priorities.put(name, (ageHours + 1) * (1 + VOLATILITY_WEIGHT * volatility.getOrDefault(name, 0.0)));
+        }
+        names.sort(Comparator.comparing((String name) -> tiers.get(name))
+                .thenComparing(Comparator.comparing((String name) -> priorities.get(name)).reversed())
+                .thenComparing(Comparator.naturalOrder()));
+
+        Schedule schedule = new Schedule();
+        for (String name : names) {
+            long duration = durationFunction.applyAsLong(name);
+            if (tiers.get(name) == 0 || schedule.estimatedDuration + duration <= budget) {
+                schedule.scheduled.addAll(benchmarks.get(name));
+                schedule.estimatedDuration += duration;
+            } else {
+                schedule.deferred.add(name);
+            }
+        }
+        return schedule;
+    }
+
+    /**
+     * Records run benchmarks, so they get lower priority in following runs.
+     *
+     * @param benchmarks
+     *            names of run benchmarks
+     * @param fingerprints
+     *            benchmark fingerprints
+     * @param now
+     *            current time in milliseconds
+     */
+    public void update(Collection<String> benchmarks, Map<String, String> fingerprints, long now) {
+        for (String name : benchmarks) {
+            state.setProperty(name + LAST_RUN_SUFFIX, String.valueOf(now));
+            String fingerprint = fingerprints.get(name);
+            if (fingerprint == null) {
+                state.remove(name + FINGERPRINT_SUFFIX);
+            } else {
+                state.setProperty(name + FINGERPRINT_SUFFIX, fingerprint);
+            }
+        }
+    }
+
+    public void save() throws IOException {
+        PluginUtils.ensureParentDir(stateFile);
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(stateFile))) {
+            state.store(out, "CyBench benchmarks schedule");
+        }
+    }
+
+    /**
+     * Computes benchmark scores volatility (coefficient of variation) from historical scores. Volatility of benchmark
+     * having several modes or parameter sets is the highest volatility of its variants.
+     *
+     * @param scores
+     *            map of benchmark key (see {@link BenchmarkBaseline#getKey(org.openjdk.jmh.infra.BenchmarkParams)}) to
+     *            historical scores
+     * @return map of benchmark name to its score volatility
+     */
+    public static Map<String, Double> computeVolatility(Map<String, List<Double>> scores) {
+        Map<String, Double> volatility = new HashMap<>();
+        scores.forEach((key, values) -> {
+            if (values.size() < 2) {
+                return;
+            }
+            double mean = 0;
+            for (double value : values) {
+                mean += value;
+            }
+            mean /= values.size();
+            double variance = 0;
+            for (double value : values) {
+                variance += (value - mean) * (value - mean);
+            }
+            variance /= values.size() - 1;
+            double cv = mean == 0 ? 0 : Math.sqrt(variance) / Math.abs(mean);
+            String historyKey = BenchmarkSamples.getHistoryKey(key);
+            int modeSeparator = historyKey.lastIndexOf(':');
+            volatility.merge(modeSeparator < 0 ? historyKey : historyKey.substring(0, modeSeparator), cv,
+                    Math::max);
+        });
+        return volatility;
+    }
+
+    /**
+     * Benchmarks schedule.
+     */
+    public static class Schedule {
+        private final List<BenchmarkListEntry> scheduled = new ArrayList<>();
+        private final List<String> deferred = new ArrayList<>();
+        private long estimatedDuration;
+
+        public List<BenchmarkListEntry> getScheduled() {
+            return scheduled;
+        }
+
+        public List<String> getDeferred() {
+            return deferred;
+        }
+
+        public long getEstimatedDuration() {
+            return estimatedDuration;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.utils;
+
+import java.util.*;
+import java.util.function.ToLongFunction;
+
+import org.openjdk.jmh.runner.BenchmarkListEntry;
+
+/**
+ * Splits benchmarks list into shards which can be run independently.
+ */
+public final class BenchmarkSharding {
+    public static final String PARTITION_BY_CLASS = "class";
+    public static final String PARTITION_BY_DURATION = "duration";
+
+    private BenchmarkSharding() {
+    }
+
+    /**
+     * Partitions benchmarks into shards. Benchmarks of the same class always end up in the same shard. Classes are
+     * assigned to shards in descending weight order, each class to the currently least loaded shard, so for the same
+     * entries and weights partitioning is always the same.
+     *
+     * @param entries
+     *            benchmarks to partition
+     * @param shardCount
+     *            number of shards
+     * @param weightFunction
+     *            benchmark entry weight (e.g. expected duration) function
+     * @return list of shards, some of them may be empty if there are less benchmark classes than shards
+     */
+    public static List<List<BenchmarkListEntry>> partition(Collection<BenchmarkListEntry> entries, int shardCount,
+            ToLongFunction<BenchmarkListEntry> weightFunction) {
+        Map<String, List<BenchmarkListEntry>> classEntries = new TreeMap<>();
+        Map<String, Long> classWeights = new HashMap<>();
+        for (BenchmarkListEntry entry : new TreeSet<>(entries)) {
+            String className = entry.getUserClassQName();
+            classEntries.computeIfAbsent(className, k -> new ArrayList<>()).add(entry);
+            classWeights.merge(className, Math.max(1, weightFunction.applyAsLong(entry)), Long::sum);
+        }
+
+        List<String> classes = new ArrayList<>(classEntries.keySet());
+        classes.sort(Comparator.comparing((String className) -> classWeights.get(className)).reversed()
+                .thenComparing(Comparator.naturalOrder()));
+
+        List<List<BenchmarkListEntry>> shards = new ArrayList<>(shardCount);
+        long[] shardWeights = new long[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new ArrayList<>());
+        }
+        for (String className : classes) {
+            int shard = 0;
+            for (int i = 1; i < shardCount; i++) {
+                if (shardWeights[i] < shardWeights[shard]) {
+                    shard = i;
+                }
+            }
+            shards.get(shard).addAll(classEntries.get(className));
+            shardWeights[shard] += classWeights.get(className);
+        }
+        return shards;
+    }
+
+    /**
+     * Estimates benchmark duration from configured iterations count and times, when there is no historical duration
+     * for it.
+     *
+     * @param configuration
+     *            plugin configuration
+     * @return estimated single benchmark entry duration in milliseconds
+     */
+    public static long estimateDuration(LauncherConfiguration configuration) {
+        long iterationsTime = (long) configuration.getWarmUpIterations() * configuration.getWarmUpSeconds()
+                + (long) configuration.getMeasurementIterations() * configuration.getMeasurementSeconds();
+        return Math.max(1, configuration.getForks()) * iterationsTime * 1000L;
+    }
+}
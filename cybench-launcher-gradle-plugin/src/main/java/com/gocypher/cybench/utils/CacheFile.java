@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.gocypher.cybench.utils;
+
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Reads and writes versioned persistent caches of serialized objects. Cache is written to a temporary file and moved
+ * in place of the cache file, so readers never see partially written cache.
+ */
+public final class CacheFile {
+    private CacheFile() {
+    }
+
+    /**
+     * Reads cached object.
+     *
+     * @param file
+     *            cache file
+     * @param version
+     *            expected cache format version
+     * @param <T>
+     *            cached object type
+     * @return cached object, or {@code null} if cache file does not exist or was written with other format version
+     * @throws IOException
+     *             if cache file can't be read
+     * @throws ClassNotFoundException
+     *             if class of cached object is not found
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T read(File file, int version) throws IOException, ClassNotFoundException {
+        if (file == null || !file.isFile()) {
+            return null;
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            return in.readInt() == version ? (T) in.readObject() : null;
+        }
+    }
+
+    /**
+     * Writes object to cache file, replacing previous cache.
+     *
+     * @param file
+     *            cache file
+     * @param version
+     *            cache format version
+     * @param value
+     *            object to cache
+     * @throws IOException
+     *             if cache file can't be written
+     */
+    public static void write(File file, int version, Serializable value) throws IOException {
+        PluginUtils.ensureParentDir(file);
+        File tmpFile = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+        try {
+            try (ObjectOutputStream out = new ObjectOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+                out.writeInt(version);
+                out.writeObject(value);
+            }
+            replace(tmpFile, file);
+        } finally {
+            Files.deleteIfExists(tmpFile.toPath());
+        }
+    }
+
+    /**
+     * Moves file in place of target file atomically, if file system supports it.
+     *
+     * @param source
+     *            file to move
+     * @param target
+     *            file to replace
+     * @throws IOException
+     *             if file can't be moved
+     */
+    public static void replace(File source, File target) throws IOException {
+        try {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException exc) {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+import org.apache.bcel.Const;
+import org.apache.bcel.classfile.ClassParser;
+import org.apache.bcel.classfile.Constant;
+import org.apache.bcel.classfile.ConstantClass;
+import org.apache.bcel.classfile.ConstantPool;
+import org.apache.bcel.classfile.JavaClass;
+
+/**
+ * Computes a fingerprint of a benchmark class together with all project classes it (transitively) references.
+ * <p>
+ * Only classes found in the given class directories are followed, classes coming from jars are covered by
+ * {@link #computeJarsHash(Collection)}.
+ */
+public class ClassDependencyHasher {
+    private static final String HASH_ALGORITHM = "SHA-256";
+
+    private final List<File> classDirs;
+    private final Map<String, Set<String>> referencesCache = new HashMap<>();
+    private final Map<String, byte[]> bytesCache = new HashMap<>();
+
+    public ClassDependencyHasher(List<File> classDirs) {
+        this.classDirs = classDirs;
+    }
+
+    /**
+     * Computes hash of class and all project classes reachable from its constant pool.
+     *
+     * @param className
+     *            fully qualified class name
+     * @return class dependencies hash, or {@code null} if class file is not found in class directories
+     * @throws IOException
+     *             if class file can't be read or parsed
+     */
+    public String computeHash(String className) throws IOException {
+        if (findClassBytes(className) == null) {
+            return null;
+        }
+        MessageDigest digest = newDigest();
+        Set<String> visited = new TreeSet<>();
+        Deque<String> queue = new ArrayDeque<>();
+        queue.add(className);
+        while (!queue.isEmpty()) {
+            String name = queue.poll();
+            if (!visited.add(name)) {
+                continue;
+            }
+            byte[] bytes = findClassBytes(name);
+            if (bytes == null) {
+                continue;
+            }
+            queue.addAll(getReferences(name, bytes));
+        }
+        for (String name : visited) {
+            byte[] bytes = findClassBytes(name);
+            if (bytes != null) {
+                digest.update(name.getBytes(StandardCharsets.UTF_8));
+                digest.update(bytes);
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Computes hash of classpath jar files identity: path, size and last modification time.
+     *
+     * @param classpath
+     *            classpath entries
+     * @return jars hash
+     */
+    public static String computeJarsHash(Collection<File> classpath) {
+        MessageDigest digest = newDigest();
+        for (File file : classpath) {
+            if (file.isFile()) {
+                digest.update((file.getAbsolutePath() + ":" + file.length() + ":" + file.lastModified())
+                        .getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    public static String computeStringHash(String value) {
+        MessageDigest digest = newDigest();
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        return toHex(digest.digest());
+    }
+
+    private Set<String> getReferences(String className, byte[] bytes) throws IOException {
+        Set<String> references = referencesCache.get(className);
+        if (references == null) {
+            references = new LinkedHashSet<>();
+            JavaClass javaClass = new ClassParser(new ByteArrayInputStream(bytes), className).parse();
+            ConstantPool constantPool = javaClass.getConstantPool();
+            Constant[] constants = constantPool.getConstantPool();
+            for (int i = 0; i < constants.length; i++) {
+                if (constants[i] instanceof ConstantClass) {
+                    String refName = constantPool.getConstantString(i, Const.CONSTANT_Class);
+                    refName = toClassName(refName);
+                    if (refName != null) {
+                        references.add(refName);
+                    }
+                }
+            }
+            referencesCache.put(className, references);
+        }
+        return references;
+    }
+
+    private byte[] findClassBytes(String className) throws IOException {
+        if (bytesCache.containsKey(className)) {
+            return bytesCache.get(className);
+        }
+        byte[] bytes = null;
+        String path = className.replace('.', '/') + ".class";
+        for (File dir : classDirs) {
+            File classFile = new File(dir, path);
+            if (classFile.isFile()) {
+                bytes = Files.readAllBytes(classFile.toPath());
+                break;
+            }
+        }
+        bytesCache.put(className, bytes);
+        return bytes;
+    }
+
+    private static String toClassName(String internalName) {
+        String name = internalName;
+        while (name.startsWith("[")) {
+            name = name.substring(1);
+        }
+        if (name.startsWith("L") && name.endsWith(";")) {
+            name = name.substring(1, name.length() - 1);
+        } else if (name.length() == 1) {
+            // primitive array component type
+            return null;
+        }
+        return name.replace('/', '.');
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.utils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import org.apache.bcel.classfile.*;
+import org.gradle.api.logging.Logger;
+
+import com.gocypher.cybench.core.utils.SecurityUtils;
+
+/**
+ * Computes benchmark fingerprints directly from class files found in benchmarks classpath, without loading benchmark
+ * classes.
+ * <p>
+ * Class files are parsed and hashed in parallel. Hashes are kept in a persistent cache keyed by class file location,
+ * size and last modification time, so unchanged classes are never parsed again.
+ */
+public class ClassFingerprinter implements Closeable {
+    private static final int VERSION = 1;
+    private static final String HASH_ALGORITHM = "MD5";
+    private static final String BENCHMARK_ANNOTATION = "Lorg/openjdk/jmh/annotations/Benchmark;";
+    private static final String OBJECT_CLASS = "java.lang.Object";
+
+    private final ClasspathFiles classFiles;
+    private final File cacheFile;
+    private final Logger logger;
+    private final Map<String, ClassFingerprint> cache;
+    private final String benchmarkTagType;
+    private volatile boolean cacheChanged;
+
+    /**
+     * Creates fingerprinter and loads persistent hash cache.
+     *
+     * @param benchmarkClasspath
+     *            benchmarks classpath
+     * @param cacheFile
+     *            persistent hash cache file
+     * @param logger
+     *            logger to report failures
+     */
+    public ClassFingerprinter(Collection<File> benchmarkClasspath, File cacheFile, Logger logger) {
+        this.classFiles = new ClasspathFiles(benchmarkClasspath);
+        this.cacheFile = cacheFile;
+        this.logger = logger;
+        this.cache = new ConcurrentHashMap<>(loadCache(cacheFile, logger));
+        this.benchmarkTagType = classFiles.find(PluginConstants.BENCHMARK_TAG) == null ? null
+                : "L" + PluginConstants.BENCHMARK_TAG.replace('.', '/') + ";";
+    }
+
+    /**
+     * Computes fingerprints of provided benchmark classes in parallel.
+     *
+     * @param classNames
+     *            fully qualified benchmark class names
+     * @return map of class name to class fingerprints, classes which class files can't be found or parsed are omitted
+     */
+    public Map<String, BenchmarkClassFingerprints> fingerprint(Collection<String> classNames) {
+        Set<String> names = new LinkedHashSet<>(classNames);
+        try {
+            return ForkJoinPool.commonPool().submit(() -> names.parallelStream() //
+                    .map(this::fingerprintClass) //
+                    .filter(Objects::nonNull) //
+                    .collect(Collectors.toMap(BenchmarkClassFingerprints::getClassName, fp -> fp))).get();
+        } catch (Exception exc) {
+            throw new IllegalStateException("Failed to compute benchmark classes fingerprints", exc);
+        }
+    }
+
+    /**
+     * Stores persistent hash cache if it has changed.
+     */
+    public void saveCache() {
+        if (!cacheChanged) {
+            return;
+        }
+        try {
+            CacheFile.write(cacheFile, VERSION, new HashMap<>(cache));
+            cacheChanged = false;
+        } catch (IOException exc) {
+            logger.warn("Failed to write class fingerprints cache {}", cacheFile, exc);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        classFiles.close();
+    }
+
+    private BenchmarkClassFingerprints fingerprintClass(String className) {
+        try {
+            ClassFingerprint classFingerprint = getClassFingerprint(className);
+            if (classFingerprint == null) {
+                logger.warn("Class file of benchmark class {} not found in the classpath", className);
+                return null;
+            }
+            BenchmarkClassFingerprints fingerprints = new BenchmarkClassFingerprints(className,
+                    classFingerprint.classHash);
+            // benchmark methods declared by superclasses are also run as benchmarks of this class
+            Set<String> declaredMethods = new HashSet<>();
+            for (ClassFingerprint current = classFingerprint; current != null; current = getSuperClassFingerprint(
+                    current)) {
+                for (Map.Entry<String, MethodFingerprint> method : current.benchmarkMethods.entrySet()) {
+                    if (!declaredMethods.contains(method.getKey())) {
+                        String name = className + "." + method.getKey();
+                        fingerprints.generatedFingerprints.put(name, method.getValue().generated);
+                        if (benchmarkTagType != null) {
+                            String manual = method.getValue().tag != null ? method.getValue().tag
+                                    : SecurityUtils.computeStringHash(
+                                            className + "." + method.getKey() + method.getValue().genericSignature);
+                            fingerprints.manualFingerprints.put(name, manual);
+                        }
+                    }
+                }
+                declaredMethods.addAll(current.methods);
+            }
+            return fingerprints;
+        } catch (Exception exc) {
+            logger.error("Failed to compute fingerprints of class {}", className, exc);
+            return null;
+        }
+    }
+
+    private ClassFingerprint getSuperClassFingerprint(ClassFingerprint classFingerprint) throws IOException {
+        String superClassName = classFingerprint.superClassName;
+        if (superClassName == null || OBJECT_CLASS.equals(superClassName)) {
+            return null;
+        }
+        return getClassFingerprint(superClassName);
+    }
+
+    private ClassFingerprint getClassFingerprint(String className) throws IOException {
+        ClasspathFiles.ClassFile classFile = classFiles.find(className);
+        if (classFile == null) {
+            return null;
+        }
+        ClassFingerprint cached = cache.get(classFile.getLocation());
+        if (cached != null && cached.size == classFile.getSize()
+                && cached.lastModified == classFile.getLastModified()) {
+            return cached;
+        }
+
+        byte[] bytes = classFile.read();
+        JavaClass javaClass = new ClassParser(new ByteArrayInputStream(bytes), classFile.getLocation()).parse();
+        ClassFingerprint fingerprint = new ClassFingerprint();
+        fingerprint.size = classFile.getSize();
+        fingerprint.lastModified = classFile.getLastModified();
+        fingerprint.superClassName = javaClass.getSuperclassName();
+        fingerprint.classHash = hash(bytes);
+        for (Method method : javaClass.getMethods()) {
+            fingerprint.methods.add(method.getName());
+            if (!isAnnotatedWith(method, BENCHMARK_ANNOTATION)) {
+                continue;
+            }
+            MethodFingerprint methodFingerprint = new MethodFingerprint();
+            methodFingerprint.generated = hashMethod(method);
+            methodFingerprint.genericSignature = method.getGenericSignature();
+            methodFingerprint.tag = getTag(method);
+            fingerprint.benchmarkMethods.putIfAbsent(method.getName(), methodFingerprint);
+        }
+        cache.put(classFile.getLocation(), fingerprint);
+        cacheChanged = true;
+        return fingerprint;
+    }
+
+    private String getTag(Method method) {
+        if (benchmarkTagType == null) {
+            return null;
+        }
+        for (AnnotationEntry annotation : method.getAnnotationEntries()) {
+            if (benchmarkTagType.equals(annotation.getAnnotationType())) {
+                for (ElementValuePair pair : annotation.getElementValuePairs()) {
+                    if ("tag".equals(pair.getNameString())) {
+                        return pair.getValue().stringifyValue();
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean isAnnotatedWith(Method method, String annotationType) {
+        for (AnnotationEntry annotation : method.getAnnotationEntries()) {
+            if (annotationType.equals(annotation.getAnnotationType())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String hashMethod(Method method) {
+        MessageDigest digest = newDigest();
+        digest.update(method.getName().getBytes(StandardCharsets.UTF_8));
+        digest.update(method.getSignature().getBytes(StandardCharsets.UTF_8));
+        Code code = method.getCode();
+        if (code != null) {
+            digest.update(code.getCode());
+        }
+        return ClassDependencyHasher.toHex(digest.digest());
+    }
+
+    private static String hash(byte[] bytes) {
+        MessageDigest digest = newDigest();
+        digest.update(bytes);
+        return ClassDependencyHasher.toHex(digest.digest());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException exc) {
+            throw new IllegalStateException(HASH_ALGORITHM + " digest is not available", exc);
+        }
+    }
+
+    private static Map<String, ClassFingerprint> loadCache(File cacheFile, Logger logger) {
+        try {
+            Map<String, ClassFingerprint> cache = CacheFile.read(cacheFile, VERSION);
+            if (cache != null) {
+                return cache;
+            }
+        } catch (Exception exc) {
+            logger.warn("Failed to read class fingerprints cache {}, all classes will be hashed", cacheFile, exc);
+        }
+        return Collections.emptyMap();
+    }
+
+    private static final class ClassFingerprint implements Serializable {
+        private static final long serialVersionUID = 4209174413690528105L;
+
+        private long size;
+        private long lastModified;
+        private String superClassName;
+        private String classHash;
+        private final Set<String> methods = new HashSet<>();
+        private final Map<String, MethodFingerprint> benchmarkMethods = new LinkedHashMap<>();
+    }
+
+    private static final class MethodFingerprint implements Serializable {
+        private static final long serialVersionUID = -3392619874043417652L;
+
+        private String generated;
+        private String genericSignature;
+        private String tag;
+    }
+
+    /**
+     * Fingerprints of a single benchmark class and its benchmark methods.
+     */
+    public static final class BenchmarkClassFingerprints {
+        private final String className;
+        private final String classHash;
+        private final Map<String, String> generatedFingerprints = new HashMap<>();
+        private final Map<String, String> manualFingerprints = new HashMap<>();
+
+        private BenchmarkClassFingerprints(String className, String classHash) {
+            this.className = className;
+            this.classHash = classHash;
+        }
+
+        public String getClassName() {
+            return className;
+        }
+
+        public String getClassHash() {
+            return classHash;
+        }
+
+        /**
+         * Returns benchmark method bytecode fingerprints.
+         *
+         * @return map of benchmark name ({@code class.method}) to benchmark method bytecode fingerprint
+         */
+        public Map<String, String> getGeneratedFingerprints() {
+            return generatedFingerprints;
+        }
+
+        /**
+         * Returns benchmark manual fingerprints, computed only if benchmarks classpath has CyBench benchmark tag
+         * annotation.
+         *
+         * @return map of benchmark name ({@code class.method}) to benchmark tag or method signature fingerprint
+         */
+        public Map<String, String> getManualFingerprints() {
+            return manualFingerprints;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.utils;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+
+/**
+ * Locates class files in benchmarks classpath directories and jars. Jars are opened once and kept open until closed.
+ */
+class ClasspathFiles implements Closeable {
+    private final List<File> classpath;
+    private final Map<File, JarFile> jars = new ConcurrentHashMap<>();
+
+    ClasspathFiles(Collection<File> classpath) {
+        this.classpath = new ArrayList<>(classpath);
+    }
+
+    /**
+     * Finds class file in the classpath.
+     *
+     * @param className
+     *            fully qualified class name
+     * @return first found class file, or {@code null} if classpath does not have it
+     */
+    ClassFile find(String className) {
+        String path = className.replace('.', '/') + ".class";
+        for (File entry : classpath) {
+            if (entry.isDirectory()) {
+                File file = new File(entry, path);
+                if (file.isFile()) {
+                    return new ClassFile(file.getAbsolutePath(), file.length(), file.lastModified(), file, null, null);
+                }
+            } else if (entry.isFile()) {
+                JarFile jar = getJar(entry);
+                ZipEntry zipEntry = jar == null ? null : jar.getEntry(path);
+                if (zipEntry != null) {
+                    return new ClassFile(entry.getAbsolutePath() + "!/" + path, entry.length(), entry.lastModified(),
+                            null, jar, zipEntry);
+                }
+            }
+        }
+        return null;
+    }
+
+    private JarFile getJar(File file) {
+        return jars.computeIfAbsent(file, f -> {
+            try {
+                return new JarFile(f);
+            } catch (IOException exc) {
+                return null;
+            }
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (JarFile jar : jars.values()) {
+            jar.close();
+        }
+        jars.clear();
+    }
+
+    /**
+     * Class file found in the classpath. Size and last modification time are ones of the jar for classes in jars.
+     */
+    static final class ClassFile {
+        private final String location;
+        private final long size;
+        private final long lastModified;
+        private final File file;
+        private final JarFile jar;
+        private final ZipEntry jarEntry;
+
+        private ClassFile(String location, long size, long lastModified, File file, JarFile jar, ZipEntry jarEntry) {
+            this.location = location;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.file = file;
+            this.jar = jar;
+            this.jarEntry = jarEntry;
+        }
+
+        String getLocation() {
+            return location;
+        }
+
+        long getSize() {
+            return size;
+        }
+
+        long getLastModified() {
+            return lastModified;
+        }
+
+        byte[] read() throws IOException {
+            if (file != null) {
+                return Files.readAllBytes(file.toPath());
+            }
+            try (InputStream in = jar.getInputStream(jarEntry)) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream((int) Math.max(jarEntry.getSize(), 1024));
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+                return out.toByteArray();
+            }
+        }
+    }
+}
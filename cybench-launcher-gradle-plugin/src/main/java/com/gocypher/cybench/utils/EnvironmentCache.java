@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.gradle.api.logging.Logger;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.gocypher.cybench.launcher.environment.model.HardwareProperties;
+import com.gocypher.cybench.launcher.environment.model.JVMProperties;
+import com.gocypher.cybench.launcher.environment.services.CollectSystemInformation;
+
+/**
+ * Persistent cache of collected hardware, software and JVM environment properties.
+ * <p>
+ * Cache entry is keyed by host name, OS boot id and JVM (installation path, version and input arguments), so it gets
+ * invalidated by host reboot (hardware changes) or JVM change. If OS does not provide boot id, cache entry expires
+ * after 24 hours.
+ */
+public class EnvironmentCache {
+    private static final int VERSION = 1;
+    private static final long NO_BOOT_ID_TTL_HOURS = 24;
+    private static final String BOOT_ID_FILE = "/proc/sys/kernel/random/boot_id";
+
+    private final File cacheFile;
+    private final String key;
+    private final boolean hasBootId;
+    private final Logger logger;
+    private final ObjectMapper mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    public EnvironmentCache(File cacheDir, Logger logger) {
+        String bootId = getBootId();
+        this.hasBootId = bootId != null;
+        this.key = getHostName() + ":" + bootId + ":" + System.getProperty("java.home") + ":"
+                + System.getProperty("java.vm.version") + ":"
+                + ManagementFactory.getRuntimeMXBean().getInputArguments();
+        this.cacheFile = new File(cacheDir, ClassDependencyHasher.computeStringHash(key) + ".json");
+        this.logger = logger;
+    }
+
+    /**
+     * Returns cached environment properties.
+     *
+     * @return cached environment properties, or {@code null} if there is no valid cache entry for current host and JVM
+     */
+    public Environment get() {
+        if (!cacheFile.isFile()) {
+            return null;
+        }
+        try {
+            JsonNode node = mapper.readTree(cacheFile);
+            if (node.path("version").asInt() != VERSION || !key.equals(node.path("key").asText())) {
+                return null;
+            }
+            if (!hasBootId && System.currentTimeMillis() - node.path("created").asLong() > TimeUnit.HOURS
+                    .toMillis(NO_BOOT_ID_TTL_HOURS)) {
+                return null;
+            }
+            Environment environment = new Environment();
+            environment.setHWProperties(mapper.treeToValue(node.get("environment"), HardwareProperties.class));
+            environment.setJVMProperties(mapper.treeToValue(node.get("jvmEnvironment"), JVMProperties.class));
+            environment.setUnclassifiedProperties(mapper.convertValue(node.get("unclassifiedProperties"),
+                    new TypeReference<Map<String, Object>>() {
+                    }));
+            return environment;
+        } catch (Exception exc) {
+            logger.warn("Failed to read environment cache {}, environment properties will be collected", cacheFile,
+                    exc);
+            return null;
+        }
+    }
+
+    /**
+     * Stores environment properties for current host and JVM.
+     *
+     * @param environment
+     *            collected environment properties
+     */
+    public void put(Environment environment) {
+        ObjectNode node = mapper.createObjectNode();
+        node.put("version", VERSION);
+        node.put("key", key);
+        node.put("created", System.currentTimeMillis());
+        node.set("environment", mapper.valueToTree(environment.getHWProperties()));
+        node.set("jvmEnvironment", mapper.valueToTree(environment.getJVMProperties()));
+        node.set("unclassifiedProperties", mapper.valueToTree(environment.getUnclassifiedProperties()));
+        try {
+            PluginUtils.ensureParentDir(cacheFile);
+            File tmpFile = File.createTempFile(cacheFile.getName(), ".tmp",
+                    cacheFile.getAbsoluteFile().getParentFile());
+            mapper.writeValue(tmpFile, node);
+            CacheFile.replace(tmpFile, cacheFile);
+        } catch (Exception exc) {
+            logger.warn("Failed to write environment cache {}", cacheFile, exc);
+        }
+    }
+
+    /**
+     * Collects environment properties by probing hardware, software and JVM.
+     *
+     * @return collected environment properties
+     */
+    public static Environment collect() {
+        Environment environment = new Environment();
+        environment.setHWProperties(CollectSystemInformation.getEnvironmentProperties());
+        environment.setJVMProperties(CollectSystemInformation.getJavaVirtualMachineProperties());
+        environment.setUnclassifiedProperties(CollectSystemInformation.getUnclassifiedProperties());
+        return environment;
+    }
+
+    private static String getBootId() {
+        File bootIdFile = new File(BOOT_ID_FILE);
+        if (bootIdFile.isFile()) {
+            try {
+                return new String(Files.readAllBytes(bootIdFile.toPath()), StandardCharsets.UTF_8).trim();
+            } catch (IOException exc) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static String getHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (IOException exc) {
+            return String.valueOf(System.getenv("HOSTNAME"));
+        }
+    }
+
+    /**
+     * Collected environment properties.
+     */
+    public static class Environment {
+        private HardwareProperties hwProperties;
+        private JVMProperties jvmProperties;
+        private Map<String, Object> unclassifiedProperties;
+
+        public HardwareProperties getHWProperties() {
+            return hwProperties;
+        }
+
+        public void setHWProperties(HardwareProperties hwProperties) {
+            this.hwProperties = hwProperties;
+        }
+
+        public JVMProperties getJVMProperties() {
+            return jvmProperties;
+        }
+
+        public void setJVMProperties(JVMProperties jvmProperties) {
+            this.jvmProperties = jvmProperties;
+        }
+
+        public Map<String, Object> getUnclassifiedProperties() {
+            return unclassifiedProperties;
+        }
+
+        public void setUnclassifiedProperties(Map<String, Object> unclassifiedProperties) {
+            this.unclassifiedProperties = unclassifiedProperties;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.gocypher.cybench.utils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.logging.Logger;
+
+/**
+ * Host-wide benchmarks session lock, backed by a file lock in Gradle user home, so benchmarks of concurrent builds on
+ * the same machine are run one session after another.
+ * <p>
+ * Sessions of the same group (shards of the same distributed run) do not wait for each other, since they are meant to
+ * run concurrently: they hold a shared lock, with the group recorded in a sidecar owner file, while sessions having no
+ * group hold an exclusive lock. Owner file is removed by the last group member releasing the lock. Lock state changes
+ * are made under a short exclusive lock of a sidecar guard file, so group members joining and leaving don't race.
+ */
+public final class HostLock implements Closeable {
+    private static final long POLL_MILLIS = 1000;
+    private static final String OWNER_EXTENSION = ".owner";
+    private static final String GUARD_EXTENSION = ".guard";
+
+    private final RandomAccessFile file;
+    private final FileLock lock;
+    private final File ownerFile;
+    private final File guardFile;
+
+    private HostLock(RandomAccessFile file, FileLock lock, File ownerFile, File guardFile) {
+        this.file = file;
+        this.lock = lock;
+        this.ownerFile = ownerFile;
+        this.guardFile = guardFile;
+    }
+
+    /**
+     * Acquires host lock, waiting for other benchmarks session to release it.
+     *
+     * @param lockFile
+     *            lock file
+     * @param group
+     *            session group, lock held by sessions of the same group is shared, {@code null} if session has no
+     *            group
+     * @param timeoutSeconds
+     *            maximum time to wait for the lock in seconds, not limited if {@code 0} or less
+     * @param logger
+     *            logger to report waiting
+     * @return acquired host lock
+     * @throws IOException
+     *             if lock file can't be created
+     * @throws GradleException
+     *             if lock was not acquired in time
+     */
+    public static HostLock acquire(File lockFile, String group, int timeoutSeconds, Logger logger)
+            throws IOException {
+        PluginUtils.ensureParentDir(lockFile);
+        long deadline = timeoutSeconds > 0 ? System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds)
+                : Long.MAX_VALUE;
+        long waitStart = System.currentTimeMillis();
+        boolean waiting = false;
+        RandomAccessFile file = new RandomAccessFile(lockFile, "rw");
+        try {
+            while (true) {
+                HostLock hostLock = tryAcquire(file, lockFile, group, logger);
+                if (hostLock != null) {
+                    if (waiting) {
+                        logger.lifecycle("Acquired benchmarks host lock after {} ms",
+                                System.currentTimeMillis() - waitStart);
+                    }
+                    return hostLock;
+                }
+                if (!waiting) {
+                    logger.lifecycle("Another benchmarks session is running on this host, waiting for it to complete"
+                            + " (lock file {})", lockFile);
+                    waiting = true;
+                }
+                if (timeoutSeconds > 0 && System.nanoTime() - deadline >= 0) {
+                    throw new GradleException("Timed out after " + timeoutSeconds
+                            + " seconds waiting for another benchmarks session on this host to complete (lock file "
+                            + lockFile + ")");
+                }
+                Thread.sleep(POLL_MILLIS);
+            }
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            file.close();
+            throw new GradleException("Interrupted while waiting for benchmarks host lock", exc);
+        } catch (IOException | RuntimeException exc) {
+            file.close();
+            throw exc;
+        }
+    }
+
+    private static HostLock tryAcquire(RandomAccessFile file, File lockFile, String group, Logger logger)
+            throws IOException {
+        File ownerFile = new File(lockFile.getPath() + OWNER_EXTENSION);
+        File guardFile = new File(lockFile.getPath() + GUARD_EXTENSION);
+        // guard file lock is held by JVM, so sessions of this JVM take turns
+        synchronized (HostLock.class) {
+            try (RandomAccessFile guard = new RandomAccessFile(guardFile, "rw")) {
+                // released when guard file is closed
+                guard.getChannel().lock();
+                FileLock lock = tryLock(file, false);
+                if (lock != null) {
+                    // no session holds the lock, previous owner (if any) is gone
+                    file.setLength(0);
+                    file.write(ManagementFactory.getRuntimeMXBean().getName().getBytes(StandardCharsets.UTF_8));
+                    writeOwner(ownerFile, group);
+                    if (group == null) {
+                        return new HostLock(file, lock, ownerFile, guardFile);
+                    }
+                    lock.release();
+                    // can't be taken by others meanwhile, as guard is held
+                    return new HostLock(file, file.getChannel().lock(0, Long.MAX_VALUE, true), ownerFile, guardFile);
+                }
+                if (group != null && group.equals(readOwner(ownerFile))) {
+                    lock = tryLock(file, true);
+                    if (lock != null) {
+                        logger.lifecycle("Benchmarks host lock is held by a sibling shard of the same run, running"
+                                + " concurrently with it (lock file {})", lockFile);
+                        return new HostLock(file, lock, ownerFile, guardFile);
+                    }
+                }
+                return null;
+            }
+        }
+    }
+
+    private static void writeOwner(File ownerFile, String group) throws IOException {
+        Files.write(ownerFile.toPath(), (group == null ? "" : group).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String readOwner(File ownerFile) {
+        try {
+            return new String(Files.readAllBytes(ownerFile.toPath()), StandardCharsets.UTF_8);
+        } catch (IOException exc) {
+            // removed by the last lock holder
+            return null;
+        }
+    }
+
+    private static FileLock tryLock(RandomAccessFile file, boolean shared) throws IOException {
+        try {
+            return file.getChannel().tryLock(0, Long.MAX_VALUE, shared);
+        } catch (OverlappingFileLockException exc) {
+            // held by another session in the same JVM
+            return null;
+        }
+    }
+
+    /**
+     * Checks if lock is shared with other sessions of the same group.
+     *
+     * @return {@code true} if lock is shared, {@code false} if lock is exclusive
+     */
+    public boolean isShared() {
+        return lock.isShared();
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (HostLock.class) {
+            try (RandomAccessFile guard = new RandomAccessFile(guardFile, "rw")) {
+                guard.getChannel().lock();
+                lock.release();
+                // other group members may still run, owner is kept until the last of them releases the lock
+                FileLock lastLock = tryLock(file, false);
+                if (lastLock != null) {
+                    Files.deleteIfExists(ownerFile.toPath());
+                    lastLock.release();
+                }
+            } finally {
+                file.close();
+            }
+        }
+    }
+}
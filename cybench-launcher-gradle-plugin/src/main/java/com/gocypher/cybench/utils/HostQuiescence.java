@@ -0,0 +1,233 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.gocypher.cybench.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.gradle.api.logging.Logger;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import oshi.SystemInfo;
+import oshi.hardware.CentralProcessor;
+import oshi.hardware.HardwareAbstractionLayer;
+import oshi.hardware.Sensors;
+
+/**
+ * Host noise pre-flight check, run before each benchmark: samples host CPU load, load average, CPU frequency and
+ * temperature, and warns or waits until host is quiet. Observed noise summary is added to report environment
+ * settings.
+ */
+public class HostQuiescence implements RunListener {
+    public static final String CHECK_OFF = "off";
+    public static final String CHECK_WARN = "warn";
+    public static final String CHECK_WAIT = "wait";
+
+    private static final long MIN_SAMPLE_MILLIS = 100;
+    private static final String GOVERNOR_FILE = "/sys/devices/system/cpu/cpu0/cpufreq/scaling_governor";
+    private static final String PERFORMANCE_GOVERNOR = "performance";
+
+    private final boolean wait;
+    private final double quietCpuLoad;
+    private final double maxCpuTemperature;
+    private final long timeoutMillis;
+    private final long sampleMillis;
+    private final Logger logger;
+    private final CentralProcessor processor;
+    private final Sensors sensors;
+    private final String governor;
+
+    private int samples;
+    private int noisySamples;
+    private double cpuLoadSum;
+    private double maxCpuLoad;
+    private double maxLoadAverage;
+    private double maxCpuTemperatureObserved;
+    private double minFrequencyRatio = Double.NaN;
+    private long waitedMillis;
+
+    public HostQuiescence(String check, double quietCpuLoad, double maxCpuTemperature, int timeoutSeconds,
+            int sampleMillis, Logger logger) {
+        this.wait = CHECK_WAIT.equalsIgnoreCase(check);
+        this.quietCpuLoad = quietCpuLoad;
+        this.maxCpuTemperature = maxCpuTemperature;
+        this.timeoutMillis = timeoutSeconds > 0 ? timeoutSeconds * 1000L : Long.MAX_VALUE;
+        // CPU load is measured between two samples of CPU ticks, which are not updated more often
+        this.sampleMillis = Math.max(sampleMillis, MIN_SAMPLE_MILLIS);
+        this.logger = logger;
+        HardwareAbstractionLayer hardware = new SystemInfo().getHardware();
+        this.processor = hardware.getProcessor();
+        this.sensors = hardware.getSensors();
+        this.governor = readGovernor();
+        if (governor != null && !PERFORMANCE_GOVERNOR.equals(governor)) {
+            logger.warn("CPU frequency scaling governor is '{}', benchmark results may be affected by frequency scaling"
+                    + " (use '{}' governor for stable results)", governor, PERFORMANCE_GOVERNOR);
+        }
+    }
+
+    public static boolean isEnabled(String check) {
+        return CHECK_WARN.equalsIgnoreCase(check) || CHECK_WAIT.equalsIgnoreCase(check);
+    }
+
+    @Override
+    public void benchmarkStarted(BenchmarkParams params) {
+        awaitQuiet(params.getBenchmark());
+    }
+
+    /**
+     * Samples host state and, if host is not quiet, warns or waits until it becomes quiet (or wait times out).
+     *
+     * @param benchmark
+     *            benchmark about to be run
+     */
+    public void awaitQuiet(String benchmark) {
+        long start = System.currentTimeMillis();
+        Sample sample = sample();
+        if (sample == null || sample.isQuiet()) {
+            return;
+        }
+        noisySamples++;
+        if (wait) {
+            logger.lifecycle("Host is not quiet ({}), waiting before running {}", sample, benchmark);
+            while (sample != null && !sample.isQuiet()) {
+                if (System.currentTimeMillis() - start >= timeoutMillis) {
+                    logger.warn("Host did not become quiet in {} ms ({}), running {} anyway", timeoutMillis, sample,
+                            benchmark);
+                    break;
+                }
+                sample = sample();
+            }
+            waitedMillis += System.currentTimeMillis() - start;
+        } else {
+            logger.warn("Host is not quiet ({}), results of {} may be affected", sample, benchmark);
+        }
+    }
+
+    private Sample sample() {
+        try {
+            long[] ticks = processor.getSystemCpuLoadTicks();
+            Thread.sleep(sampleMillis);
+            Sample sample = new Sample();
+            sample.cpuLoad = processor.getSystemCpuLoadBetweenTicks(ticks);
+            double loadAverage = processor.getSystemLoadAverage(1)[0];
+            sample.loadAverage = loadAverage < 0 ? Double.NaN : loadAverage / processor.getLogicalProcessorCount();
+            sample.cpuTemperature = sensors.getCpuTemperature();
+            sample.frequencyRatio = getFrequencyRatio();
+            record(sample);
+            return sample;
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (RuntimeException exc) {
+            logger.warn("Failed to sample host state", exc);
+            return null;
+        }
+    }
+
+    private double getFrequencyRatio() {
+        long maxFrequency = processor.getMaxFreq();
+        long[] frequencies = processor.getCurrentFreq();
+        if (maxFrequency <= 0 || frequencies.length == 0) {
+            return Double.NaN;
+        }
+        double sum = 0;
+        for (long frequency : frequencies) {
+            sum += frequency;
+        }
+        return sum / frequencies.length / maxFrequency;
+    }
+
+    private void record(Sample sample) {
+        samples++;
+        cpuLoadSum += sample.cpuLoad;
+        maxCpuLoad = Math.max(maxCpuLoad, sample.cpuLoad);
+        if (!Double.isNaN(sample.loadAverage)) {
+            maxLoadAverage = Math.max(maxLoadAverage, sample.loadAverage);
+        }
+        maxCpuTemperatureObserved = Math.max(maxCpuTemperatureObserved, sample.cpuTemperature);
+        if (!Double.isNaN(sample.frequencyRatio)) {
+            minFrequencyRatio = Double.isNaN(minFrequencyRatio) ? sample.frequencyRatio
+                    : Math.min(minFrequencyRatio, sample.frequencyRatio);
+        }
+    }
+
+    /**
+     * Returns summary of observed host noise, to be stored in report environment settings.
+     *
+     * @return host noise summary
+     */
+    public Map<String, Object> getNoise() {
+        Map<String, Object> noise = new LinkedHashMap<>();
+        noise.put("samples", samples);
+        noise.put("noisySamples", noisySamples);
+        noise.put("avgCpuLoad", samples == 0 ? 0 : round(cpuLoadSum / samples));
+        noise.put("maxCpuLoad", round(maxCpuLoad));
+        noise.put("maxLoadAveragePerCpu", round(maxLoadAverage));
+        if (maxCpuTemperatureObserved > 0) {
+            noise.put("maxCpuTemperature", round(maxCpuTemperatureObserved));
+        }
+        if (!Double.isNaN(minFrequencyRatio)) {
+            noise.put("minCpuFrequencyRatio", round(minFrequencyRatio));
+        }
+        if (governor != null) {
+            noise.put("scalingGovernor", governor);
+        }
+        noise.put("waitedMillis", waitedMillis);
+        return noise;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    private static String readGovernor() {
+        File file = new File(GOVERNOR_FILE);
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8).trim();
+        } catch (IOException exc) {
+            return null;
+        }
+    }
+
+    private class Sample {
+        private double cpuLoad;
+        private double loadAverage;
+        private double cpuTemperature;
+        private double frequencyRatio;
+
+        boolean isQuiet() {
+            // sensors report 0 when temperature is not available
+            return cpuLoad <= quietCpuLoad && (cpuTemperature <= 0 || cpuTemperature < maxCpuTemperature);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "CPU load %.1f%%, load average per CPU %.2f, CPU temperature %.1f",
+                    cpuLoad * 100, loadAverage, cpuTemperature);
+        }
+    }
+}
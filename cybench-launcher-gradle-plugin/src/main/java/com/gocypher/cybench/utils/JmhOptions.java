@@ -0,0 +1,272 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.utils;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Optional;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * JMH options, declared in {@code cybenchJMH { jmh { ... } }} block. Options which are not set do not override
+ * benchmark annotations or JMH defaults.
+ */
+public class JmhOptions implements Serializable {
+    private static final long serialVersionUID = -4187337620924164387L;
+
+    private List<String> modes = new ArrayList<>();
+    private String timeUnit;
+    private Map<String, List<String>> params = new LinkedHashMap<>();
+    private List<String> jvmArgs = new ArrayList<>();
+    private List<String> jvmArgsAppend = new ArrayList<>();
+    private List<String> jvmArgsPrepend = new ArrayList<>();
+    private List<String> includes = new ArrayList<>();
+    private List<String> excludes = new ArrayList<>();
+    private Integer operationsPerInvocation;
+    private Integer timeout;
+    private Boolean syncIterations;
+
+    /**
+     * Applies set options to JMH options builder.
+     *
+     * @param builder
+     *            JMH options builder
+     * @return provided options builder
+     */
+    public ChainedOptionsBuilder applyTo(ChainedOptionsBuilder builder) {
+        for (String mode : modes) {
+            builder.mode(parseMode(mode));
+        }
+        if (timeUnit != null && !timeUnit.isEmpty()) {
+            builder.timeUnit(parseTimeUnit(timeUnit));
+        }
+        params.forEach((name, values) -> builder.param(name, values.toArray(new String[0])));
+        if (!jvmArgs.isEmpty()) {
+            builder.jvmArgs(jvmArgs.toArray(new String[0]));
+        }
+        if (!jvmArgsAppend.isEmpty()) {
+            builder.jvmArgsAppend(jvmArgsAppend.toArray(new String[0]));
+        }
+        if (!jvmArgsPrepend.isEmpty()) {
+            builder.jvmArgsPrepend(jvmArgsPrepend.toArray(new String[0]));
+        }
+        for (String include : includes) {
+            builder.include(include);
+        }
+        for (String exclude : excludes) {
+            builder.exclude(exclude);
+        }
+        if (operationsPerInvocation != null) {
+            builder.operationsPerInvocation(operationsPerInvocation);
+        }
+        if (timeout != null) {
+            builder.timeout(TimeValue.seconds(timeout));
+        }
+        if (syncIterations != null) {
+            builder.syncIterations(syncIterations);
+        }
+        return builder;
+    }
+
+    /**
+     * Creates options having options set in provided overrides replacing ones of these options.
+     *
+     * @param overrides
+     *            overriding options
+     * @return merged options
+     */
+    public JmhOptions merge(JmhOptions overrides) {
+        JmhOptions merged = new JmhOptions();
+        merged.modes = overrides.modes.isEmpty() ? modes : overrides.modes;
+        merged.timeUnit = overrides.timeUnit == null ? timeUnit : overrides.timeUnit;
+        merged.params = new LinkedHashMap<>(params);
+        merged.params.putAll(overrides.params);
+        merged.jvmArgs = overrides.jvmArgs.isEmpty() ? jvmArgs : overrides.jvmArgs;
+        merged.jvmArgsAppend = overrides.jvmArgsAppend.isEmpty() ? jvmArgsAppend : overrides.jvmArgsAppend;
+        merged.jvmArgsPrepend = overrides.jvmArgsPrepend.isEmpty() ? jvmArgsPrepend : overrides.jvmArgsPrepend;
+        merged.includes = overrides.includes.isEmpty() ? includes : overrides.includes;
+        merged.excludes = overrides.excludes.isEmpty() ? excludes : overrides.excludes;
+        merged.operationsPerInvocation = overrides.operationsPerInvocation == null ? operationsPerInvocation
+                : overrides.operationsPerInvocation;
+        merged.timeout = overrides.timeout == null ? timeout : overrides.timeout;
+        merged.syncIterations = overrides.syncIterations == null ? syncIterations : overrides.syncIterations;
+        return merged;
+    }
+
+    private static Mode parseMode(String mode) {
+        try {
+            return Mode.deepValueOf(mode);
+        } catch (IllegalArgumentException | IllegalStateException exc) {
+            throw new GradleException("Unknown benchmark mode '" + mode + "', expected one of " + Mode.getKnown());
+        }
+    }
+
+    private static TimeUnit parseTimeUnit(String timeUnit) {
+        switch (timeUnit.toLowerCase(Locale.ROOT)) {
+        case "ns":
+            return TimeUnit.NANOSECONDS;
+        case "us":
+            return TimeUnit.MICROSECONDS;
+        case "ms":
+            return TimeUnit.MILLISECONDS;
+        case "s":
+            return TimeUnit.SECONDS;
+        case "m":
+            return TimeUnit.MINUTES;
+        case "h":
+            return TimeUnit.HOURS;
+        default:
+            try {
+                return TimeUnit.valueOf(timeUnit.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException exc) {
+                throw new GradleException("Unknown time unit '" + timeUnit + "', expected one of ns, us, ms, s, m, h");
+            }
+        }
+    }
+
+    @Input
+    public List<String> getModes() {
+        return modes;
+    }
+
+    public void setModes(List<String> modes) {
+        this.modes = modes;
+    }
+
+    @Input
+    @Optional
+    public String getTimeUnit() {
+        return timeUnit;
+    }
+
+    public void setTimeUnit(String timeUnit) {
+        this.timeUnit = timeUnit;
+    }
+
+    @Input
+    public Map<String, List<String>> getParams() {
+        return params;
+    }
+
+    public void setParams(Map<String, List<String>> params) {
+        this.params = params;
+    }
+
+    public void param(String name, Object... values) {
+        List<String> paramValues = new ArrayList<>(values.length);
+        for (Object value : values) {
+            paramValues.add(String.valueOf(value));
+        }
+        params.put(name, paramValues);
+    }
+
+    @Input
+    public List<String> getJvmArgs() {
+        return jvmArgs;
+    }
+
+    public void setJvmArgs(List<String> jvmArgs) {
+        this.jvmArgs = jvmArgs;
+    }
+
+    @Input
+    public List<String> getJvmArgsAppend() {
+        return jvmArgsAppend;
+    }
+
+    public void setJvmArgsAppend(List<String> jvmArgsAppend) {
+        this.jvmArgsAppend = jvmArgsAppend;
+    }
+
+    @Input
+    public List<String> getJvmArgsPrepend() {
+        return jvmArgsPrepend;
+    }
+
+    public void setJvmArgsPrepend(List<String> jvmArgsPrepend) {
+        this.jvmArgsPrepend = jvmArgsPrepend;
+    }
+
+    @Input
+    public List<String> getIncludes() {
+        return includes;
+    }
+
+    public void setIncludes(List<String> includes) {
+        this.includes = includes;
+    }
+
+    @Input
+    public List<String> getExcludes() {
+        return excludes;
+    }
+
+    public void setExcludes(List<String> excludes) {
+        this.excludes = excludes;
+    }
+
+    @Input
+    @Optional
+    public Integer getOperationsPerInvocation() {
+        return operationsPerInvocation;
+    }
+
+    public void setOperationsPerInvocation(Integer operationsPerInvocation) {
+        this.operationsPerInvocation = operationsPerInvocation;
+    }
+
+    @Input
+    @Optional
+    public Integer getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(Integer timeout) {
+        this.timeout = timeout;
+    }
+
+    @Input
+    @Optional
+    public Boolean getSyncIterations() {
+        return syncIterations;
+    }
+
+    public void setSyncIterations(Boolean syncIterations) {
+        this.syncIterations = syncIterations;
+    }
+
+    /**
+     * Returns key of options affecting benchmark results, i.e. all options except benchmark selection ones.
+     *
+     * @return options key
+     */
+    public String resultsKey() {
+        return "modes=" + modes + ", timeUnit=" + timeUnit + ", params=" + params + ", jvmArgs=" + jvmArgs
+                + ", jvmArgsAppend=" + jvmArgsAppend + ", jvmArgsPrepend=" + jvmArgsPrepend
+                + ", operationsPerInvocation=" + operationsPerInvocation + ", timeout=" + timeout
+                + ", syncIterations=" + syncIterations;
+    }
+}
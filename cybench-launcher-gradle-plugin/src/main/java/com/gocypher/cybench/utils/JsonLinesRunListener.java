@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.gocypher.cybench.utils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.gradle.api.logging.Logger;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.runner.IterationType;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Streams benchmark iteration and benchmark results to a JSON lines file, one JSON object per event, as they happen.
+ */
+public class JsonLinesRunListener implements RunListener {
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final File file;
+    private final Writer writer;
+    private final Logger logger;
+    private boolean failed;
+
+    public JsonLinesRunListener(File file, Logger logger) throws IOException {
+        this.file = file;
+        this.logger = logger;
+        PluginUtils.ensureParentDir(file);
+        writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void benchmarkStarted(BenchmarkParams params) {
+        Map<String, Object> event = createEvent("benchmarkStarted", params);
+        write(event);
+    }
+
+    @Override
+    public void iterationCompleted(BenchmarkParams params, IterationParams iterationParams, int iteration,
+            IterationResult result) {
+        Map<String, Object> event = createEvent("iteration", params);
+        event.put("warmup", iterationParams.getType() == IterationType.WARMUP);
+        event.put("iteration", iteration);
+        putResults(event, result.getPrimaryResult(), result.getSecondaryResults());
+        write(event);
+    }
+
+    @Override
+    public void benchmarkCompleted(BenchmarkResult result) {
+        Map<String, Object> event = createEvent("benchmarkCompleted", result.getParams());
+        putResults(event, result.getPrimaryResult(), result.getSecondaryResults());
+        event.put("scoreError", result.getPrimaryResult().getScoreError());
+        write(event);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+
+    private static Map<String, Object> createEvent(String type, BenchmarkParams params) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("event", type);
+        event.put("timestamp", System.currentTimeMillis());
+        event.put("benchmark", params.getBenchmark());
+        event.put("mode", params.getMode().shortLabel());
+        Map<String, String> benchmarkParams = new LinkedHashMap<>();
+        for (String key : params.getParamsKeys()) {
+            benchmarkParams.put(key, params.getParam(key));
+        }
+        event.put("params", benchmarkParams);
+        return event;
+    }
+
+    private static void putResults(Map<String, Object> event, Result<?> primary, Map<String, ?> secondary) {
+        event.put("score", primary.getScore());
+        event.put("unit", primary.getScoreUnit());
+        Map<String, Double> secondaryScores = new LinkedHashMap<>();
+        secondary.forEach((label, result) -> secondaryScores.put(label, ((Result<?>) result).getScore()));
+        event.put("secondary", secondaryScores);
+    }
+
+    private synchronized void write(Map<String, Object> event) {
+        if (failed) {
+            return;
+        }
+        try {
+            writer.write(mapper.writeValueAsString(event));
+            writer.write('\n');
+            // flushed per event, so the file can be followed while benchmarks are running
+            writer.flush();
+        } catch (IOException exc) {
+            // monitoring failure shall not break benchmarks run
+            failed = true;
+            logger.warn("Failed to write benchmarks progress to {}, progress file is no longer updated", file, exc);
+        }
+    }
+}
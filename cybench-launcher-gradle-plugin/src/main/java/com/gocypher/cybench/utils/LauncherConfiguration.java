@@ -19,8 +19,26 @@
 
 package com.gocypher.cybench.utils;
 
-public class LauncherConfiguration {
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.gradle.api.Action;
+import org.gradle.api.GradleException;
+import org.gradle.api.NamedDomainObjectContainer;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.Nested;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.SourceSet;
+
+public class LauncherConfiguration implements Serializable {
+    private static final long serialVersionUID = -2475618215347561390L;
+
     public static final String DEFAULT_NAME = "CyBench Report";
+    public static final String REPORT_FORMAT_PRETTY = "pretty";
+    public static final String REPORT_FORMAT_COMPACT = "compact";
     private int forks = 1;
     private int threads = 1;
     private int measurementIterations = 1;
@@ -45,6 +63,84 @@ public class LauncherConfiguration {
 
     private boolean skip = false;
 
+    private boolean incremental = false;
+
+    private boolean processIsolation = true;
+    private String workerMaxHeapSize = "";
+    private List<String> workerJvmArgs = new ArrayList<>();
+
+    private int parallelShards = 1;
+    private String parallelShardsPartitioning = BenchmarkSharding.PARTITION_BY_DURATION;
+    private boolean parallelShardsCpuPinning = false;
+
+    private int shardIndex = 0;
+    private int shardCount = 1;
+    private String shardResultsFolder = "";
+
+    private boolean environmentCache = true;
+    private String environmentCacheFolder = "";
+    private boolean environmentProbeAsync = true;
+
+    private String outboxFolder = "";
+    private boolean waitForReportDelivery = false;
+    private int reportDeliveryRetries = 3;
+    private int reportDeliveryThreads = 2;
+    private String reportFormat = REPORT_FORMAT_PRETTY;
+    private boolean compressReport = false;
+    private boolean shouldDoGC = true;
+    private boolean defaultProfilers = true;
+    private List<ProfilerSettings> profilers = new ArrayList<>();
+    private JmhOptions jmh = new JmhOptions();
+    private List<BenchmarkOverride> overrides = new ArrayList<>();
+    private String profile;
+    private BenchmarkProfile activeProfile;
+    private transient NamedDomainObjectContainer<BenchmarkProfile> profiles;
+    private boolean adaptive = false;
+    private double adaptiveTargetError = 0.02d;
+    private double adaptiveConfidence = 0.99d;
+    private int adaptiveMaxRounds = 10;
+    private int adaptiveMaxSeconds = 0;
+    private int maxDuration = 0;
+    private List<String> criticalBenchmarks = new ArrayList<>();
+    private boolean progressLogging = true;
+    private String progressFile = "";
+    private int metricsPort = 0;
+    private List<ScoreThreshold> thresholds = new ArrayList<>();
+    private int thresholdViolationsAllowed = 0;
+    private String baselineFile = "";
+    private boolean updateBaseline = false;
+    private List<String> benchmarkSourceSets = new ArrayList<>(Arrays.asList(SourceSet.MAIN_SOURCE_SET_NAME,
+            SourceSet.TEST_SOURCE_SET_NAME, PluginConstants.JMH_SOURCE_SET));
+    private List<String> benchmarkClassDirs = new ArrayList<>();
+    private boolean runAfterTestClasses = false;
+    private boolean aggregate = false;
+    private String moduleName = "";
+    private String moduleResultFile = "";
+    private String lastReportFile = "";
+    private boolean hostLock = true;
+    private int hostLockTimeout = 0;
+    private String hostLockFile = "";
+    private String quiescenceCheck = HostQuiescence.CHECK_OFF;
+    private double quietCpuLoad = 0.2;
+    private double maxCpuTemperature = 85;
+    private int quiescenceTimeout = 300;
+    private int quiescenceSampleInterval = 1000;
+
+    /**
+     * Creates plain (not Gradle decorated) copy of this configuration, which can be passed to worker process.
+     *
+     * @return configuration copy
+     */
+    public LauncherConfiguration copy() {
+        LauncherConfiguration copy = PluginUtils.copyDeclaredFields(this, new LauncherConfiguration(),
+                LauncherConfiguration.class);
+        // profiles container can't be passed to worker process, so selected profile is resolved beforehand
+        copy.activeProfile = getActiveProfile();
+        copy.profiles = null;
+        return copy;
+    }
+
+    @Input
     public String getUserProperties() {
         return userProperties;
     }
@@ -53,6 +149,7 @@ public class LauncherConfiguration {
         this.userProperties = userProperties;
     }
 
+    @Input
     public int getForks() {
         return forks;
     }
@@ -61,6 +158,7 @@ public class LauncherConfiguration {
         this.forks = forks;
     }
 
+    @Input
     public int getThreads() {
         return threads;
     }
@@ -69,6 +167,7 @@ public class LauncherConfiguration {
         this.threads = threads;
     }
 
+    @Input
     public int getMeasurementIterations() {
         return measurementIterations;
     }
@@ -77,6 +176,7 @@ public class LauncherConfiguration {
         this.measurementIterations = measurementIterations;
     }
 
+    @Input
     public int getWarmUpIterations() {
         return warmUpIterations;
     }
@@ -85,6 +185,7 @@ public class LauncherConfiguration {
         this.warmUpIterations = warmUpIterations;
     }
 
+    @Input
     public int getWarmUpSeconds() {
         return warmUpSeconds;
     }
@@ -93,6 +194,7 @@ public class LauncherConfiguration {
         this.warmUpSeconds = warmUpSeconds;
     }
 
+    @Input
     public double getExpectedScore() {
         return expectedScore;
     }
@@ -101,6 +203,7 @@ public class LauncherConfiguration {
         this.expectedScore = expectedScore;
     }
 
+    @Input
     public boolean isShouldSendReportToCyBench() {
         return shouldSendReportToCyBench;
     }
@@ -109,6 +212,7 @@ public class LauncherConfiguration {
         this.shouldSendReportToCyBench = shouldSendReportToCyBench;
     }
 
+    @Input
     public boolean isShouldStoreReportToFileSystem() {
         return shouldStoreReportToFileSystem;
     }
@@ -117,6 +221,7 @@ public class LauncherConfiguration {
         this.shouldStoreReportToFileSystem = shouldStoreReportToFileSystem;
     }
 
+    @Input
     public String getReportUploadStatus() {
         return reportUploadStatus;
     }
@@ -125,6 +230,7 @@ public class LauncherConfiguration {
         this.reportUploadStatus = reportUploadStatus;
     }
 
+    @Internal
     public String getReportsFolder() {
         return reportsFolder;
     }
@@ -133,6 +239,7 @@ public class LauncherConfiguration {
         this.reportsFolder = reportsFolder;
     }
 
+    @Input
     public String getReportName() {
         return reportName;
     }
@@ -141,6 +248,7 @@ public class LauncherConfiguration {
         this.reportName = reportName;
     }
 
+    @Input
     public String getUserBenchmarkMetadata() {
         return userBenchmarkMetadata;
     }
@@ -149,6 +257,7 @@ public class LauncherConfiguration {
         this.userBenchmarkMetadata = userBenchmarkMetadata;
     }
 
+    @Internal
     public boolean isSkip() {
         return skip;
     }
@@ -157,6 +266,7 @@ public class LauncherConfiguration {
         this.skip = skip;
     }
 
+    @Input
     public int getMeasurementSeconds() {
         return measurementSeconds;
     }
@@ -165,6 +275,7 @@ public class LauncherConfiguration {
         this.measurementSeconds = measurementSeconds;
     }
 
+    @Internal
     public boolean isShouldFailBuildOnReportDeliveryFailure() {
         return shouldFailBuildOnReportDeliveryFailure;
     }
@@ -173,6 +284,7 @@ public class LauncherConfiguration {
         this.shouldFailBuildOnReportDeliveryFailure = shouldFailBuildOnReportDeliveryFailure;
     }
 
+    @Input
     public boolean isUseCyBenchBenchmarkSettings() {
         return useCyBenchBenchmarkSettings;
     }
@@ -181,6 +293,7 @@ public class LauncherConfiguration {
         this.useCyBenchBenchmarkSettings = useCyBenchBenchmarkSettings;
     }
 
+    @Internal
     public String getBenchAccessToken() {
         return benchAccessToken;
     }
@@ -189,6 +302,7 @@ public class LauncherConfiguration {
         this.benchAccessToken = benchAccessToken;
     }
 
+    @Internal
     public String getBenchQueryToken() {
         return benchQueryToken;
     }
@@ -197,6 +311,7 @@ public class LauncherConfiguration {
         this.benchQueryToken = benchQueryToken;
     }
 
+    @Internal
     public String getEmail() {
         return email;
     }
@@ -204,4 +319,549 @@ public class LauncherConfiguration {
     public void setEmail(String email) {
         this.email = email;
     }
+
+    @Input
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    @Internal
+    public boolean isProcessIsolation() {
+        return processIsolation;
+    }
+
+    public void setProcessIsolation(boolean processIsolation) {
+        this.processIsolation = processIsolation;
+    }
+
+    @Internal
+    public String getWorkerMaxHeapSize() {
+        return workerMaxHeapSize;
+    }
+
+    public void setWorkerMaxHeapSize(String workerMaxHeapSize) {
+        this.workerMaxHeapSize = workerMaxHeapSize;
+    }
+
+    @Internal
+    public List<String> getWorkerJvmArgs() {
+        return workerJvmArgs;
+    }
+
+    public void setWorkerJvmArgs(List<String> workerJvmArgs) {
+        this.workerJvmArgs = workerJvmArgs;
+    }
+
+    @Internal
+    public int getParallelShards() {
+        return parallelShards;
+    }
+
+    public void setParallelShards(int parallelShards) {
+        this.parallelShards = parallelShards;
+    }
+
+    @Internal
+    public String getParallelShardsPartitioning() {
+        return parallelShardsPartitioning;
+    }
+
+    public void setParallelShardsPartitioning(String parallelShardsPartitioning) {
+        this.parallelShardsPartitioning = parallelShardsPartitioning;
+    }
+
+    @Internal
+    public boolean isParallelShardsCpuPinning() {
+        return parallelShardsCpuPinning;
+    }
+
+    public void setParallelShardsCpuPinning(boolean parallelShardsCpuPinning) {
+        this.parallelShardsCpuPinning = parallelShardsCpuPinning;
+    }
+
+    @Input
+    public int getShardIndex() {
+        return shardIndex;
+    }
+
+    public void setShardIndex(int shardIndex) {
+        this.shardIndex = shardIndex;
+    }
+
+    @Input
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public void setShardCount(int shardCount) {
+        this.shardCount = shardCount;
+    }
+
+    @Internal
+    public String getShardResultsFolder() {
+        return shardResultsFolder;
+    }
+
+    public void setShardResultsFolder(String shardResultsFolder) {
+        this.shardResultsFolder = shardResultsFolder;
+    }
+
+    @Internal
+    public boolean isEnvironmentCache() {
+        return environmentCache;
+    }
+
+    public void setEnvironmentCache(boolean environmentCache) {
+        this.environmentCache = environmentCache;
+    }
+
+    @Internal
+    public String getEnvironmentCacheFolder() {
+        return environmentCacheFolder;
+    }
+
+    public void setEnvironmentCacheFolder(String environmentCacheFolder) {
+        this.environmentCacheFolder = environmentCacheFolder;
+    }
+
+    @Internal
+    public boolean isEnvironmentProbeAsync() {
+        return environmentProbeAsync;
+    }
+
+    public void setEnvironmentProbeAsync(boolean environmentProbeAsync) {
+        this.environmentProbeAsync = environmentProbeAsync;
+    }
+
+    @Internal
+    public String getOutboxFolder() {
+        return outboxFolder;
+    }
+
+    public void setOutboxFolder(String outboxFolder) {
+        this.outboxFolder = outboxFolder;
+    }
+
+    @Internal
+    public boolean isWaitForReportDelivery() {
+        return waitForReportDelivery;
+    }
+
+    public void setWaitForReportDelivery(boolean waitForReportDelivery) {
+        this.waitForReportDelivery = waitForReportDelivery;
+    }
+
+    @Internal
+    public int getReportDeliveryRetries() {
+        return reportDeliveryRetries;
+    }
+
+    public void setReportDeliveryRetries(int reportDeliveryRetries) {
+        this.reportDeliveryRetries = reportDeliveryRetries;
+    }
+
+    @Internal
+    public int getReportDeliveryThreads() {
+        return reportDeliveryThreads;
+    }
+
+    public void setReportDeliveryThreads(int reportDeliveryThreads) {
+        this.reportDeliveryThreads = reportDeliveryThreads;
+    }
+
+    @Input
+    public String getReportFormat() {
+        return reportFormat;
+    }
+
+    public void setReportFormat(String reportFormat) {
+        this.reportFormat = reportFormat;
+    }
+
+    @Input
+    public boolean isCompressReport() {
+        return compressReport;
+    }
+
+    public void setCompressReport(boolean compressReport) {
+        this.compressReport = compressReport;
+    }
+
+    @Input
+    public boolean isShouldDoGC() {
+        return shouldDoGC;
+    }
+
+    public void setShouldDoGC(boolean shouldDoGC) {
+        this.shouldDoGC = shouldDoGC;
+    }
+
+    @Input
+    public boolean isDefaultProfilers() {
+        return defaultProfilers;
+    }
+
+    public void setDefaultProfilers(boolean defaultProfilers) {
+        this.defaultProfilers = defaultProfilers;
+    }
+
+    @Nested
+    public List<ProfilerSettings> getProfilers() {
+        return profilers;
+    }
+
+    public void setProfilers(List<ProfilerSettings> profilers) {
+        this.profilers = profilers;
+    }
+
+    public void profiler(Action<? super ProfilerSettings> action) {
+        ProfilerSettings profiler = new ProfilerSettings();
+        action.execute(profiler);
+        profilers.add(profiler);
+    }
+
+    @Nested
+    public JmhOptions getJmh() {
+        return jmh;
+    }
+
+    public void setJmh(JmhOptions jmh) {
+        this.jmh = jmh;
+    }
+
+    public void jmh(Action<? super JmhOptions> action) {
+        action.execute(jmh);
+    }
+
+    @Nested
+    public List<BenchmarkOverride> getOverrides() {
+        return overrides;
+    }
+
+    public void setOverrides(List<BenchmarkOverride> overrides) {
+        this.overrides = overrides;
+    }
+
+    public void override(String pattern, Action<? super BenchmarkOverride> action) {
+        BenchmarkOverride override = new BenchmarkOverride(pattern);
+        action.execute(override);
+        overrides.add(override);
+    }
+
+    @Internal
+    public String getProfile() {
+        return profile;
+    }
+
+    public void setProfile(String profile) {
+        this.profile = profile;
+    }
+
+    @Internal
+    public NamedDomainObjectContainer<BenchmarkProfile> getProfiles() {
+        return profiles;
+    }
+
+    public void setProfiles(NamedDomainObjectContainer<BenchmarkProfile> profiles) {
+        this.profiles = profiles;
+    }
+
+    public void profiles(Action<? super NamedDomainObjectContainer<BenchmarkProfile>> action) {
+        action.execute(profiles);
+    }
+
+    /**
+     * Returns selected benchmarks profile.
+     *
+     * @return selected benchmarks profile, or {@code null} if no profile is selected
+     * @throws GradleException
+     *             if there is no profile with selected name
+     */
+    @Nested
+    @Optional
+    public BenchmarkProfile getActiveProfile() {
+        if (profile == null || profile.isEmpty()) {
+            return null;
+        }
+        if (profiles == null) {
+            return activeProfile;
+        }
+        BenchmarkProfile selected = profiles.findByName(profile);
+        if (selected == null) {
+            throw new GradleException(
+                    "Unknown benchmarks profile '" + profile + "', available profiles: " + profiles.getNames());
+        }
+        return selected;
+    }
+
+    @Input
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    public void setAdaptive(boolean adaptive) {
+        this.adaptive = adaptive;
+    }
+
+    @Input
+    public double getAdaptiveTargetError() {
+        return adaptiveTargetError;
+    }
+
+    public void setAdaptiveTargetError(double adaptiveTargetError) {
+        this.adaptiveTargetError = adaptiveTargetError;
+    }
+
+    @Input
+    public double getAdaptiveConfidence() {
+        return adaptiveConfidence;
+    }
+
+    public void setAdaptiveConfidence(double adaptiveConfidence) {
+        this.adaptiveConfidence = adaptiveConfidence;
+    }
+
+    @Input
+    public int getAdaptiveMaxRounds() {
+        return adaptiveMaxRounds;
+    }
+
+    public void setAdaptiveMaxRounds(int adaptiveMaxRounds) {
+        this.adaptiveMaxRounds = adaptiveMaxRounds;
+    }
+
+    @Input
+    public int getAdaptiveMaxSeconds() {
+        return adaptiveMaxSeconds;
+    }
+
+    public void setAdaptiveMaxSeconds(int adaptiveMaxSeconds) {
+        this.adaptiveMaxSeconds = adaptiveMaxSeconds;
+    }
+
+    @Input
+    public int getMaxDuration() {
+        return maxDuration;
+    }
+
+    public void setMaxDuration(int maxDuration) {
+        this.maxDuration = maxDuration;
+    }
+
+    @Input
+    public List<String> getCriticalBenchmarks() {
+        return criticalBenchmarks;
+    }
+
+    public void setCriticalBenchmarks(List<String> criticalBenchmarks) {
+        this.criticalBenchmarks = criticalBenchmarks;
+    }
+
+    @Internal
+    public boolean isProgressLogging() {
+        return progressLogging;
+    }
+
+    public void setProgressLogging(boolean progressLogging) {
+        this.progressLogging = progressLogging;
+    }
+
+    @Internal
+    public String getProgressFile() {
+        return progressFile;
+    }
+
+    public void setProgressFile(String progressFile) {
+        this.progressFile = progressFile;
+    }
+
+    @Internal
+    public int getMetricsPort() {
+        return metricsPort;
+    }
+
+    public void setMetricsPort(int metricsPort) {
+        this.metricsPort = metricsPort;
+    }
+
+    @Nested
+    public List<ScoreThreshold> getThresholds() {
+        return thresholds;
+    }
+
+    public void setThresholds(List<ScoreThreshold> thresholds) {
+        this.thresholds = thresholds;
+    }
+
+    public void threshold(String pattern, Action<? super ScoreThreshold> action) {
+        ScoreThreshold threshold = new ScoreThreshold(pattern);
+        action.execute(threshold);
+        thresholds.add(threshold);
+    }
+
+    @Input
+    public int getThresholdViolationsAllowed() {
+        return thresholdViolationsAllowed;
+    }
+
+    public void setThresholdViolationsAllowed(int thresholdViolationsAllowed) {
+        this.thresholdViolationsAllowed = thresholdViolationsAllowed;
+    }
+
+    @Internal
+    public String getBaselineFile() {
+        return baselineFile;
+    }
+
+    public void setBaselineFile(String baselineFile) {
+        this.baselineFile = baselineFile;
+    }
+
+    @Internal
+    public boolean isUpdateBaseline() {
+        return updateBaseline;
+    }
+
+    public void setUpdateBaseline(boolean updateBaseline) {
+        this.updateBaseline = updateBaseline;
+    }
+
+    @Input
+    public List<String> getBenchmarkSourceSets() {
+        return benchmarkSourceSets;
+    }
+
+    public void setBenchmarkSourceSets(List<String> benchmarkSourceSets) {
+        this.benchmarkSourceSets = benchmarkSourceSets;
+    }
+
+    @Internal
+    public List<String> getBenchmarkClassDirs() {
+        return benchmarkClassDirs;
+    }
+
+    public void setBenchmarkClassDirs(List<String> benchmarkClassDirs) {
+        this.benchmarkClassDirs = benchmarkClassDirs;
+    }
+
+    @Internal
+    public boolean isRunAfterTestClasses() {
+        return runAfterTestClasses;
+    }
+
+    public void setRunAfterTestClasses(boolean runAfterTestClasses) {
+        this.runAfterTestClasses = runAfterTestClasses;
+    }
+
+    @Internal
+    public boolean isAggregate() {
+        return aggregate;
+    }
+
+    public void setAggregate(boolean aggregate) {
+        this.aggregate = aggregate;
+    }
+
+    @Internal
+    public String getModuleName() {
+        return moduleName;
+    }
+
+    public void setModuleName(String moduleName) {
+        this.moduleName = moduleName;
+    }
+
+    @Internal
+    public String getModuleResultFile() {
+        return moduleResultFile;
+    }
+
+    public void setModuleResultFile(String moduleResultFile) {
+        this.moduleResultFile = moduleResultFile;
+    }
+
+    @Internal
+    public String getLastReportFile() {
+        return lastReportFile;
+    }
+
+    public void setLastReportFile(String lastReportFile) {
+        this.lastReportFile = lastReportFile;
+    }
+
+    @Internal
+    public boolean isHostLock() {
+        return hostLock;
+    }
+
+    public void setHostLock(boolean hostLock) {
+        this.hostLock = hostLock;
+    }
+
+    @Internal
+    public int getHostLockTimeout() {
+        return hostLockTimeout;
+    }
+
+    public void setHostLockTimeout(int hostLockTimeout) {
+        this.hostLockTimeout = hostLockTimeout;
+    }
+
+    @Internal
+    public String getHostLockFile() {
+        return hostLockFile;
+    }
+
+    public void setHostLockFile(String hostLockFile) {
+        this.hostLockFile = hostLockFile;
+    }
+
+    @Internal
+    public String getQuiescenceCheck() {
+        return quiescenceCheck;
+    }
+
+    public void setQuiescenceCheck(String quiescenceCheck) {
+        this.quiescenceCheck = quiescenceCheck;
+    }
+
+    @Internal
+    public double getQuietCpuLoad() {
+        return quietCpuLoad;
+    }
+
+    public void setQuietCpuLoad(double quietCpuLoad) {
+        this.quietCpuLoad = quietCpuLoad;
+    }
+
+    @Internal
+    public double getMaxCpuTemperature() {
+        return maxCpuTemperature;
+    }
+
+    public void setMaxCpuTemperature(double maxCpuTemperature) {
+        this.maxCpuTemperature = maxCpuTemperature;
+    }
+
+    @Internal
+    public int getQuiescenceTimeout() {
+        return quiescenceTimeout;
+    }
+
+    public void setQuiescenceTimeout(int quiescenceTimeout) {
+        this.quiescenceTimeout = quiescenceTimeout;
+    }
+
+    @Internal
+    public int getQuiescenceSampleInterval() {
+        return quiescenceSampleInterval;
+    }
+
+    public void setQuiescenceSampleInterval(int quiescenceSampleInterval) {
+        this.quiescenceSampleInterval = quiescenceSampleInterval;
+    }
 }
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.gocypher.cybench.utils;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.format.OutputFormat;
+
+/**
+ * JMH output format, printing JMH output using delegate output format and notifying run listeners about benchmarks
+ * run progress. Can be used by several consecutive JMH runs: closing it does not close listeners.
+ */
+public class ListeningOutputFormat implements OutputFormat {
+    private final OutputFormat delegate;
+    private final List<RunListener> listeners;
+
+    public ListeningOutputFormat(OutputFormat delegate, List<RunListener> listeners) {
+        this.delegate = delegate;
+        this.listeners = listeners;
+    }
+
+    @Override
+    public void iteration(BenchmarkParams benchParams, IterationParams params, int iteration) {
+        delegate.iteration(benchParams, params, iteration);
+    }
+
+    @Override
+    public void iterationResult(BenchmarkParams benchParams, IterationParams params, int iteration,
+            IterationResult data) {
+        delegate.iterationResult(benchParams, params, iteration, data);
+        for (RunListener listener : listeners) {
+            listener.iterationCompleted(benchParams, params, iteration, data);
+        }
+    }
+
+    @Override
+    public void startBenchmark(BenchmarkParams benchParams) {
+        delegate.startBenchmark(benchParams);
+        for (RunListener listener : listeners) {
+            listener.benchmarkStarted(benchParams);
+        }
+    }
+
+    @Override
+    public void endBenchmark(BenchmarkResult result) {
+        delegate.endBenchmark(result);
+        if (result == null) {
+            // benchmark failed
+            return;
+        }
+        for (RunListener listener : listeners) {
+            listener.benchmarkCompleted(result);
+        }
+    }
+
+    @Override
+    public void startRun() {
+        delegate.startRun();
+    }
+
+    @Override
+    public void endRun(Collection<RunResult> result) {
+        delegate.endRun(result);
+    }
+
+    @Override
+    public void print(String s) {
+        delegate.print(s);
+    }
+
+    @Override
+    public void println(String s) {
+        delegate.println(s);
+    }
+
+    @Override
+    public void flush() {
+        delegate.flush();
+    }
+
+    @Override
+    public void close() {
+        // output format is shared by several runs, delegate prints to the standard output
+        delegate.flush();
+    }
+
+    @Override
+    public void verbosePrintln(String s) {
+        delegate.verbosePrintln(s);
+    }
+
+    @Override
+    public void write(int b) {
+        delegate.write(b);
+    }
+
+    @Override
+    public void write(byte[] b) throws IOException {
+        delegate.write(b);
+    }
+}
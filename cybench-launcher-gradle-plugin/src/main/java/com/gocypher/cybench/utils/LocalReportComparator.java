@@ -0,0 +1,323 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.utils;
+
+import java.util.*;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.math3.stat.StatUtils;
+import org.apache.commons.math3.stat.inference.MannWhitneyUTest;
+import org.apache.commons.math3.stat.ranking.NaNStrategy;
+import org.apache.commons.math3.stat.ranking.NaturalRanking;
+import org.apache.commons.math3.stat.ranking.TiesStrategy;
+import org.gradle.api.logging.Logger;
+
+import com.gocypher.cybench.launcher.model.TooManyAnomaliesException;
+import com.gocypher.cybench.model.ComparisonConfig;
+
+/**
+ * Compares benchmark report scores against previous runs kept in local {@link ReportHistoryStore}, without CyBench
+ * backend.
+ * <p>
+ * Applies the same settings as CyBench automated comparison: reports of compared version (scope), number of latest
+ * reports to compare against, comparison method and threshold. Only regressions are counted as anomalies: score
+ * decrease for throughput mode, score increase for time based modes.
+ * <p>
+ * When statistical test is set, benchmarks having raw samples in both current run and compared runs are compared by
+ * their sample distributions instead: bootstrap confidence interval of mean change, or Mann-Whitney U test. Score
+ * change has to be statistically significant at configured confidence level (and exceed allowed percent change, if
+ * set) to be counted as anomaly. Other benchmarks are compared by scores as above.
+ */
+public class LocalReportComparator {
+    public static final double DEFAULT_CONFIDENCE_LEVEL = 0.95;
+
+    private static final String THROUGHPUT_MODE = "thrpt";
+    private static final int MIN_SAMPLES = 3;
+    private static final int BOOTSTRAP_RESAMPLES = 10000;
+
+    private final ComparisonConfig comparisonConfig;
+    private final ReportHistoryStore historyStore;
+    private final Logger logger;
+    private SampleTest sampleTest;
+    private double confidenceLevel = DEFAULT_CONFIDENCE_LEVEL;
+    private BenchmarkSamples samples;
+
+    /**
+     * Statistical test comparing raw samples of benchmarks.
+     */
+    public enum SampleTest {
+        BOOTSTRAP, MANN_WHITNEY;
+
+        /**
+         * Resolves test by name, ignoring case and word separators, e.g. {@code mannWhitney} or {@code mann-whitney}.
+         *
+         * @param name
+         *            test name
+         * @return statistical test, or {@code null} if name is blank or unknown
+         */
+        public static SampleTest forName(String name) {
+            String normalized = StringUtils.remove(StringUtils.remove(StringUtils.trimToEmpty(name), '-'), '_');
+            for (SampleTest test : values()) {
+                if (test.name().replace("_", "").equalsIgnoreCase(normalized)) {
+                    return test;
+                }
+            }
+            return null;
+        }
+    }
+
+    public LocalReportComparator(ComparisonConfig comparisonConfig, ReportHistoryStore historyStore, Logger logger) {
+        this.comparisonConfig = comparisonConfig;
+        this.historyStore = historyStore;
+        this.logger = logger;
+    }
+
+    /**
+     * Enables comparison of benchmarks raw samples.
+     *
+     * @param sampleTest
+     *            statistical test to compare samples with
+     * @param confidenceLevel
+     *            confidence level of the test, e.g. {@code 0.95}
+     * @param samples
+     *            raw samples of current run
+     */
+    public void setSampleComparison(SampleTest sampleTest, double confidenceLevel, BenchmarkSamples samples) {
+        this.sampleTest = sampleTest;
+        this.confidenceLevel = confidenceLevel;
+        this.samples = samples;
+    }
+
+    /**
+     * Compares report against previous reports and fails if too many anomalies are found.
+     *
+     * @param scores
+     *            map of benchmark key (see {@link BenchmarkBaseline#getKey(org.openjdk.jmh.infra.BenchmarkParams)})
+     *            to score of current run
+     * @param project
+     *            project name
+     * @throws TooManyAnomaliesException
+     *             if number of anomalies exceeds allowed number
+     */
+    public void verify(Map<String, Double> scores, String project) throws TooManyAnomaliesException {
+        String compareVersion = StringUtils.trimToNull(comparisonConfig.getCompareVersion());
+        Map<String, List<Double>> history = historyStore.getLatestScores(project, compareVersion,
+                comparisonConfig.getCompareLatestReports());
+        List<String> anomalies = new ArrayList<>();
+        int compared = 0;
+        int samplesCompared = 0;
+        int tooFewSamples = 0;
+        Set<String> comparedSamples = new HashSet<>();
+        if (sampleTest != null && samples != null && !samples.isEmpty()) {
+            BenchmarkSamples previousSamples = historyStore.getLatestSamples(project, compareVersion,
+                    comparisonConfig.getCompareLatestReports());
+            for (String key : samples.getKeys()) {
+                double[] currentSamples = samples.get(key);
+                double[] baselineSamples = previousSamples.get(key);
+                if (baselineSamples == null) {
+                    continue;
+                }
+                if (baselineSamples.length < MIN_SAMPLES || currentSamples.length < MIN_SAMPLES) {
+                    logger.info("{}: {} current and {} previous sample(s), at least {} needed for {} test", key,
+                            currentSamples.length, baselineSamples.length, MIN_SAMPLES, sampleTest);
+                    tooFewSamples++;
+                    continue;
+                }
+                comparedSamples.add(key);
+                samplesCompared++;
+                compared++;
+                String anomaly = compareSamples(key, currentSamples, baselineSamples,
+                        BenchmarkSamples.getHistoryKey(key).endsWith(":" + THROUGHPUT_MODE));
+                if (anomaly != null) {
+                    anomalies.add(key + ": " + anomaly);
+                }
+            }
+        }
+        // scores imported from reports stored before report history was introduced are keyed without parameters, they
+        // are compared with parameterized benchmark only if it has a single variant
+        Map<String, Integer> variants = new HashMap<>();
+        for (String key : scores.keySet()) {
+            variants.merge(BenchmarkSamples.getHistoryKey(key), 1, Integer::sum);
+        }
+        for (Map.Entry<String, Double> score : scores.entrySet()) {
+            if (comparedSamples.contains(score.getKey())) {
+                continue;
+            }
+            List<Double> previousScores = history.get(score.getKey());
+            String historyKey = BenchmarkSamples.getHistoryKey(score.getKey());
+            if (previousScores == null && variants.get(historyKey) == 1) {
+                previousScores = history.get(historyKey);
+            }
+            if (previousScores == null || previousScores.isEmpty()) {
+                continue;
+            }
+            compared++;
+            String anomaly = compare(score.getValue(), previousScores,
+                    BenchmarkSamples.getHistoryKey(score.getKey()).endsWith(":" + THROUGHPUT_MODE));
+            if (anomaly != null) {
+                anomalies.add(score.getKey() + ": " + anomaly);
+            }
+        }
+
+        logger.lifecycle("Local automated comparison: {} benchmark(s) compared, {} anomalies found", compared,
+                anomalies.size());
+        if (samplesCompared > 0) {
+            logger.lifecycle("  {} benchmark(s) compared by {} test of raw samples", samplesCompared, sampleTest);
+        }
+        if (tooFewSamples > 0) {
+            logger.lifecycle(
+                    "  {} benchmark(s) have less than {} samples (measurement iterations x forks) and are compared by"
+                            + " score using {} method instead of {} test",
+                    tooFewSamples, MIN_SAMPLES, comparisonConfig.getMethod(), sampleTest);
+        }
+        for (String anomaly : anomalies) {
+            logger.warn("  Anomaly: {}", anomaly);
+        }
+        if (anomalies.size() > comparisonConfig.getAnomaliesAllowed()) {
+            throw new TooManyAnomaliesException(anomalies.size() + " anomalies found, "
+                    + comparisonConfig.getAnomaliesAllowed() + " allowed");
+        }
+    }
+
+    /**
+     * Compares score against previous scores.
+     *
+     * @param score
+     *            current score
+     * @param previousScores
+     *            previous scores, most recent first
+     * @param higherIsBetter
+     *            flag indicating whether higher score is better (throughput mode)
+     * @return anomaly description, or {@code null} if score is not a regression
+     */
+    String compare(double score, List<Double> previousScores, boolean higherIsBetter) {
+        double mean = 0;
+        for (double previousScore : previousScores) {
+            mean += previousScore;
+        }
+        mean /= previousScores.size();
+        // positive regression means score got worse
+        double regression = higherIsBetter ? mean - score : score - mean;
+
+        if (comparisonConfig.getMethod() == ComparisonConfig.Method.SD) {
+            if (previousScores.size() < 2) {
+                return null;
+            }
+            double variance = 0;
+            for (double previousScore : previousScores) {
+                variance += (previousScore - mean) * (previousScore - mean);
+            }
+            double sd = Math.sqrt(variance / (previousScores.size() - 1));
+            double allowed = comparisonConfig.getDeviationsAllowed() * sd;
+            return regression > allowed ? String.format(Locale.ROOT,
+                    "score %.4f deviates from mean %.4f by %.2f SD (%.2f allowed)", score, mean,
+                    sd == 0 ? Double.POSITIVE_INFINITY : regression / sd, comparisonConfig.getDeviationsAllowed())
+                    : null;
+        }
+        if (comparisonConfig.getThreshold() == ComparisonConfig.Threshold.PERCENT_CHANGE) {
+            double percentChange = mean == 0 ? 0 : regression / Math.abs(mean) * 100;
+            return percentChange > comparisonConfig.getPercentChangeAllowed()
+                    ? String.format(Locale.ROOT, "score %.4f changed by %.2f%% from %.4f (%.2f%% allowed)", score,
+                            percentChange, mean, comparisonConfig.getPercentChangeAllowed())
+                    : null;
+        }
+        return regression > 0 ? String.format(Locale.ROOT, "score %.4f is worse than %.4f", score, mean) : null;
+    }
+
+    /**
+     * Compares raw samples of benchmark against samples of previous runs using configured statistical test.
+     *
+     * @param key
+     *            benchmark samples key
+     * @param current
+     *            current run samples
+     * @param previous
+     *            previous runs samples
+     * @param higherIsBetter
+     *            flag indicating whether higher score is better (throughput mode)
+     * @return anomaly description, or {@code null} if score change is not a significant regression
+     */
+    String compareSamples(String key, double[] current, double[] previous, boolean higherIsBetter) {
+        double alpha = 1 - confidenceLevel;
+        double allowedChange = comparisonConfig.getThreshold() == ComparisonConfig.Threshold.PERCENT_CHANGE
+                && comparisonConfig.getPercentChangeAllowed() != null ? comparisonConfig.getPercentChangeAllowed()
+                        : 0;
+        if (sampleTest == SampleTest.MANN_WHITNEY) {
+            // one-sided test: only regression is an anomaly, two-sided p-value is halved in direction of regression
+            double pValue = new MannWhitneyUTest().mannWhitneyUTest(previous, current) / 2;
+            if (!isRankedWorse(current, previous, higherIsBetter)) {
+                pValue = 1 - pValue;
+            }
+            double change = getRegressionPercent(StatUtils.percentile(current, 50),
+                    StatUtils.percentile(previous, 50), higherIsBetter);
+            return pValue < alpha && change > allowedChange ? String.format(Locale.ROOT,
+                    "median score changed by %.2f%% (%.2f%% allowed), one-sided Mann-Whitney p-value %.4f < %.4f",
+                    change, allowedChange, pValue, alpha) : null;
+        }
+
+        // seeded by benchmark, so the same samples always give the same interval
+        Random random = new Random(key.hashCode());
+        double[] changes = new double[BOOTSTRAP_RESAMPLES];
+        for (int i = 0; i < changes.length; i++) {
+            changes[i] = getRegressionPercent(resampleMean(current, random), resampleMean(previous, random),
+                    higherIsBetter);
+        }
+        double lower = StatUtils.percentile(changes, alpha / 2 * 100);
+        double upper = StatUtils.percentile(changes, (1 - alpha / 2) * 100);
+        return lower > allowedChange ? String.format(Locale.ROOT,
+                "mean score changed by %.2f%% (%.0f%% bootstrap confidence interval %.2f%%..%.2f%%, %.2f%% allowed)",
+                getRegressionPercent(StatUtils.mean(current), StatUtils.mean(previous), higherIsBetter),
+                confidenceLevel * 100, lower, upper, allowedChange) : null;
+    }
+
+    /**
+     * Checks whether current samples rank worse than previous ones, i.e. Mann-Whitney U statistic of current samples
+     * is on the regression side of its expected value.
+     */
+    private static boolean isRankedWorse(double[] current, double[] previous, boolean higherIsBetter) {
+        double[] all = new double[current.length + previous.length];
+        System.arraycopy(current, 0, all, 0, current.length);
+        System.arraycopy(previous, 0, all, current.length, previous.length);
+        double[] ranks = new NaturalRanking(NaNStrategy.FIXED, TiesStrategy.AVERAGE).rank(all);
+        double rankSum = 0;
+        for (int i = 0; i < current.length; i++) {
+            rankSum += ranks[i];
+        }
+        double u = rankSum - current.length * (current.length + 1) / 2.0;
+        double expected = current.length * (double) previous.length / 2;
+        return higherIsBetter ? u < expected : u > expected;
+    }
+
+    /**
+     * Returns score change in percent, positive if score got worse.
+     */
+    private static double getRegressionPercent(double score, double previousScore, boolean higherIsBetter) {
+        double regression = higherIsBetter ? previousScore - score : score - previousScore;
+        return previousScore == 0 ? 0 : regression / Math.abs(previousScore) * 100;
+    }
+
+    private static double resampleMean(double[] values, Random random) {
+        double sum = 0;
+        for (int i = 0; i < values.length; i++) {
+            sum += values[random.nextInt(values.length)];
+        }
+        return sum / values.length;
+    }
+}
@@ -26,8 +26,34 @@ public class PluginConstants {
     public static final String TEST_SOURCE_ROOT = "/classes/java/test";
     public static final String BENCH_SOURCE = "Gradle plugin";
     public static final String DEFAULT_FILE_SAVE_LOCATION = "./report";
+    public static final String INCREMENTAL_STORE_FILE = "/cybench/incremental/results.ser";
+    public static final String SUBSET_LIST_FILE = "/cybench/BenchmarkList";
+    public static final String DURATIONS_FILE = "/cybench/durations.properties";
+    public static final String LOCAL_SHARDS_DIR = "/cybench/local-shards";
+    public static final String SHARD_RESULTS_DIR = "/cybench/shards";
+    public static final String FINGERPRINTS_CACHE_FILE = "/cybench/fingerprints.ser";
+    public static final String METADATA_CACHE_FILE = "/cybench/metadata.ser";
+    public static final String ENVIRONMENT_CACHE_DIR = "caches/cybench/environment";
+    public static final String HOST_LOCK_FILE = "caches/cybench/host.lock";
+    public static final String HISTORY_DIR = "history";
+    public static final String OUTBOX_DIR = "/cybench/outbox";
+    public static final String PROFILES_DIR = "/cybench/profiles";
+    public static final String PROFILE_PROPERTY = "cybench.profile";
+    public static final String SCHEDULE_FILE = "/cybench/schedule.properties";
+    public static final String MERGED_BENCHMARK_LIST_FILE = "/cybench/benchmarks/BenchmarkList";
+    public static final String MERGED_COMPILER_HINT_FILE = "/cybench/benchmarks/CompilerHints";
+    public static final String JMH_SOURCE_SET = "jmh";
+    public static final String LAST_REPORT_DIR = "/cybench/report";
+    public static final String MODULE_RESULT_FILE = "/cybench/module" + ShardResult.FILE_EXTENSION;
+    public static final String MODULE_METADATA = "module";
+    public static final String JMH_CORE_DEPENDENCY = "org.openjdk.jmh:jmh-core:";
+    public static final String JMH_ANNOTATION_PROCESSOR_DEPENDENCY = "org.openjdk.jmh:jmh-generator-annprocess:";
+    public static final String CACHED_RESULT_METADATA = "cachedResult";
+    public static final String PROFILER_ARTIFACTS_METADATA = "profilerArtifacts";
+    public static final String ADAPTIVE_STATISTICS_METADATA = "adaptiveStatistics";
+    public static final String PRIORITY_METADATA = "priority";
+    public static final String PRIORITY_CRITICAL = "critical";
 
-    public static final String BENCHMARK_METADATA_NAME = "@com.gocypher.cybench.core.annotation.BenchmarkMetaData";
     public static final String METADATA_LIST = "com.gocypher.cybench.core.annotation.CyBenchMetadataList";
     public static final String BENCHMARK_METADATA = "com.gocypher.cybench.core.annotation.BenchmarkMetaData";
     public static final String BENCHMARK_TAG = "com.gocypher.cybench.core.annotation.BenchmarkTag";
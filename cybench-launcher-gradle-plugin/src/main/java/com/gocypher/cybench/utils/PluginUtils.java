@@ -20,30 +20,22 @@
 package com.gocypher.cybench.utils;
 
 import java.io.File;
-import java.lang.annotation.Annotation;
-import java.lang.reflect.AnnotatedElement;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.*;
-import java.util.stream.Collectors;
 
-import org.apache.bcel.Repository;
-import org.apache.bcel.classfile.JavaClass;
-import org.apache.bcel.classfile.Method;
-import org.apache.commons.lang3.StringUtils;
 import org.gradle.api.GradleException;
-import org.gradle.api.Project;
-import org.gradle.api.file.FileCollection;
-import org.gradle.api.plugins.JavaPluginConvention;
-import org.gradle.api.tasks.SourceSet;
+import org.gradle.api.logging.Logger;
 import org.openjdk.jmh.runner.BenchmarkList;
 import org.openjdk.jmh.runner.BenchmarkListEntry;
 
 import com.gocypher.cybench.core.utils.JMHUtils;
-import com.gocypher.cybench.core.utils.SecurityUtils;
 import com.gocypher.cybench.launcher.BenchmarkRunner;
 import com.gocypher.cybench.launcher.model.BenchmarkReport;
 
@@ -51,6 +43,36 @@ public final class PluginUtils {
     private PluginUtils() {
     }
 
+    /**
+     * Creates directory, including missing parent directories, if it does not exist.
+     *
+     * @param dir
+     *            directory to create
+     * @throws IOException
+     *             if directory can't be created
+     */
+    public static void ensureDir(File dir) throws IOException {
+        // directory may be created concurrently by other build, so it is checked again when mkdirs fails
+        if (!dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory()) {
+            throw new IOException("Failed to create directory " + dir);
+        }
+    }
+
+    /**
+     * Creates parent directory of file, if it does not exist.
+     *
+     * @param file
+     *            file to create parent directory for
+     * @throws IOException
+     *             if directory can't be created
+     */
+    public static void ensureParentDir(File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            ensureDir(parent);
+        }
+    }
+
     public static String checkReportSaveLocation(String fileName) {
         if (!fileName.endsWith("/")) {
             fileName = fileName + "/";
@@ -58,117 +80,164 @@ public final class PluginUtils {
         return fileName;
     }
 
-    @SuppressWarnings({ "unchecked", "rawtypes" })
-    public static void fingerprintAndHashGeneration(Project project, BenchmarkList benchmarkList,
-            Map<String, String> generatedFingerprints, Map<String, String> manualFingerprints,
-            Map<String, String> classFingerprints) {
-        Set<BenchmarkListEntry> all = benchmarkList.getAll(new JMHUtils.SilentOutputFormat(),
-                Collections.<String> emptyList());
-        List<String> benchmarkNames = all.stream().map(BenchmarkListEntry::getUserClassQName)
-                .collect(Collectors.toList());
-        URL[] urlsArray = getUrlsArray(project);
-        try (URLClassLoader cl = new URLClassLoader(urlsArray)) {
-            for (String benchmarkClass : benchmarkNames) {
-                Class<?> cls = cl.loadClass(benchmarkClass);
-                JavaClass javaClass = Repository.lookupClass(cls);
-                Class benchmarkAnnotationClass = cl.loadClass("org.openjdk.jmh.annotations.Benchmark");
-                List<String> benchmarkMethods = new ArrayList<>();
-                for (java.lang.reflect.Method method1 : cls.getMethods()) {
-                    if (method1.getAnnotation(benchmarkAnnotationClass) != null) {
-                        String name = method1.getName();
-                        benchmarkMethods.add(name);
-                    }
-                }
-                for (Method method : javaClass.getMethods()) {
-                    String fKey = cls.getName() + "." + method.getName();
-                    try {
-                        if (benchmarkMethods.contains(method.getName())) {
-                            String hash = SecurityUtils.hashByteArray(concatArrays(method.getName().getBytes(),
-                                    method.getSignature().getBytes(), method.getCode().getCode()));
-                            generatedFingerprints.put(fKey, hash);
-                        }
-                    } catch (Exception e) {
-                        project.getLogger().error("Failed to compute hash for method {} in class {}", method.getName(),
-                                cls, e);
-                    }
-                }
-                String classHash = computeClassHash(cls, project);
-                java.lang.reflect.Method[] methods = cls.getMethods();
-                for (java.lang.reflect.Method method : methods) {
-                    String fKey = cls.getName() + "." + method.getName();
-                    if (method.getAnnotation(benchmarkAnnotationClass) != null) {
-                        if (cl.findResource(PluginConstants.BENCHMARK_TAG) != null) {
-                            Class benchmarkAnnotationTagClass = cl.loadClass(PluginConstants.BENCHMARK_TAG);
-                            Annotation annotation = method.getAnnotation(benchmarkAnnotationTagClass);
-                            if (annotation != null) {
-                                String tag = null;
-                                if (annotation.toString().contains(PluginConstants.BENCHMARK_TAG)) {
-                                    String result = StringUtils.substringBetween(annotation.toString(), "(", ")");
-                                    tag = result.replace("tag=", "");
-                                }
-                                manualFingerprints.put(fKey, tag);
-                            } else {
-                                Method javaMethod = javaClass.getMethod(method);
-                                if (javaMethod != null) {
-                                    String methodSignature = javaClass.getClassName() + "." + javaMethod.getName()
-                                            + javaMethod.getGenericSignature();
-                                    String hash = SecurityUtils.computeStringHash(methodSignature);
-                                    project.getLogger().info("Computed method {} hash {}", methodSignature, hash);
-                                    manualFingerprints.put(fKey, hash);
-                                }
-                            }
-                        }
-                    }
-                    classFingerprints.put(fKey, classHash);
-                }
+    /**
+     * Computes benchmark method code (generated), manual (tag or signature) and class fingerprints.
+     *
+     * @param fingerprinter
+     *            benchmark class files fingerprinter
+     * @param entries
+     *            benchmarks to compute fingerprints for
+     * @param generatedFingerprints
+     *            map to put benchmark method code fingerprints to
+     * @param manualFingerprints
+     *            map to put benchmark manual fingerprints to
+     * @param classFingerprints
+     *            map to put benchmark class fingerprints to
+     */
+    public static void fingerprintAndHashGeneration(ClassFingerprinter fingerprinter,
+            Collection<BenchmarkListEntry> entries, Map<String, String> generatedFingerprints,
+            Map<String, String> manualFingerprints, Map<String, String> classFingerprints) {
+        Set<String> benchmarkClasses = new LinkedHashSet<>();
+        for (BenchmarkListEntry entry : entries) {
+            benchmarkClasses.add(entry.getUserClassQName());
+        }
+        for (ClassFingerprinter.BenchmarkClassFingerprints fingerprints : fingerprinter.fingerprint(benchmarkClasses)
+                .values()) {
+            generatedFingerprints.putAll(fingerprints.getGeneratedFingerprints());
+            manualFingerprints.putAll(fingerprints.getManualFingerprints());
+            for (String name : fingerprints.getGeneratedFingerprints().keySet()) {
+                classFingerprints.put(name, fingerprints.getClassHash());
             }
-        } catch (Exception exc) {
-            project.getLogger().error("Class not found in the classpath for execution", exc);
         }
+        fingerprinter.saveCache();
     }
 
-    public static URL[] getUrlsArray(Project project) {
-        SourceSet sourceSets = project.getConvention().getPlugin(JavaPluginConvention.class).getSourceSets()
-                .getAt("main");
-        FileCollection test = sourceSets.getRuntimeClasspath();
-        List<URL> urls = new ArrayList<>();
-        for (File name : test) {
-            try {
-                URL url = name.toURI().toURL();
-                urls.add(url);
-            } catch (MalformedURLException ex) {
-                project.getLogger().error("Class not found in the classpath for execution", ex);
+    /**
+     * Computes fingerprints used to decide if benchmark shall be executed again in incremental mode. Fingerprint
+     * covers benchmark method code, benchmark class and project classes it depends on, classpath jars and benchmark
+     * settings.
+     *
+     * @param logger
+     *            logger to report failures
+     * @param benchmarkClasspath
+     *            benchmarks classpath
+     * @param classDirs
+     *            benchmark class directories
+     * @param entries
+     *            benchmarks to compute fingerprints for
+     * @param generatedFingerprints
+     *            benchmark method code fingerprints
+     * @param settingsKey
+     *            benchmark execution settings string
+     * @return map of benchmark name to incremental fingerprint
+     */
+    public static Map<String, String> computeIncrementalFingerprints(Logger logger,
+            Collection<File> benchmarkClasspath, List<File> classDirs, Collection<BenchmarkListEntry> entries,
+            Map<String, String> generatedFingerprints, String settingsKey) {
+        ClassDependencyHasher dependencyHasher = new ClassDependencyHasher(classDirs);
+        String jarsHash = ClassDependencyHasher.computeJarsHash(benchmarkClasspath);
+
+        Map<String, String> classHashes = new HashMap<>();
+        Map<String, String> fingerprints = new HashMap<>();
+        for (BenchmarkListEntry entry : entries) {
+            String className = entry.getUserClassQName();
+            String classHash;
+            if (classHashes.containsKey(className)) {
+                classHash = classHashes.get(className);
+            } else {
+                try {
+                    classHash = dependencyHasher.computeHash(className);
+                } catch (Exception exc) {
+                    logger.warn("Failed to compute dependencies hash for class {}", className, exc);
+                    classHash = null;
+                }
+                classHashes.put(className, classHash);
+            }
+            if (classHash != null) {
+                String name = entry.getUsername();
+                fingerprints.put(name, ClassDependencyHasher.computeStringHash(settingsKey + ":" + jarsHash + ":"
+                        + classHash + ":" + generatedFingerprints.get(name)));
             }
         }
-        try {
-            File testSourceRoot = new File(project.getBuildDir() + PluginConstants.TEST_SOURCE_ROOT);
-            URL url = testSourceRoot.toURI().toURL();
-            urls.add(url);
-        } catch (MalformedURLException ex) {
-            project.getLogger().error("Class not found in the classpath for execution {} - {}",
-                    project.getBuildDir() + PluginConstants.TEST_SOURCE_ROOT, ex);
-        }
-        project.getLogger()
-                .lifecycle("------------------------------------------------------------------------------------");
-        return urls.toArray(new URL[0]);
+        return fingerprints;
     }
 
-    public static byte[] concatArrays(byte[]... bytes) {
-        String collect = Arrays.stream(bytes).map(String::new).collect(Collectors.joining());
-        return collect.getBytes();
+    public static void writeBenchmarkList(File listFile, Collection<BenchmarkListEntry> entries) throws IOException {
+        ensureParentDir(listFile);
+        try (OutputStream out = new FileOutputStream(listFile)) {
+            BenchmarkList.writeBenchmarkList(out, entries);
+        }
     }
 
-    public static String computeClassHash(Class<?> clazz, Project project) {
-        if (clazz != null) {
-            try {
-                byte[] classBytes = SecurityUtils.getObjectBytes(clazz);
-                String classMD5Hash = SecurityUtils.hashByteArray(classBytes);
-                return classMD5Hash;
-            } catch (Exception e) {
-                project.getLogger().lifecycle("Failed to compute hash for class {}", clazz, e);
+    /**
+     * Returns class output directories of benchmark source sets, or default test and main class directories if
+     * benchmark source sets are not resolved (e.g. when run without Gradle task).
+     *
+     * @param buildPath
+     *            project build directory path
+     * @param configuration
+     *            plugin configuration
+     * @return benchmark class directories
+     */
+    public static List<File> getBenchmarkClassDirs(String buildPath, LauncherConfiguration configuration) {
+        List<File> classDirs = new ArrayList<>();
+        for (String classDir : configuration.getBenchmarkClassDirs()) {
+            classDirs.add(new File(classDir));
+        }
+        if (classDirs.isEmpty()) {
+            classDirs.add(new File(buildPath + PluginConstants.TEST_SOURCE_ROOT));
+            classDirs.add(new File(buildPath + PluginConstants.MAIN_SOURCE_ROOT));
+        }
+        return classDirs;
+    }
+
+    /**
+     * Merges JMH generated benchmark lists of all benchmark class directories into a single list file.
+     *
+     * @param classDirs
+     *            benchmark class directories
+     * @param listFile
+     *            merged benchmark list file
+     * @throws IOException
+     *             if none of class directories has benchmark list or merged list can't be written
+     */
+    public static void mergeBenchmarkLists(List<File> classDirs, File listFile) throws IOException {
+        Set<BenchmarkListEntry> entries = new TreeSet<>();
+        boolean found = false;
+        for (File classDir : classDirs) {
+            File file = new File(classDir, PluginConstants.BENCHMARK_LIST_FILE);
+            if (file.isFile()) {
+                found = true;
+                entries.addAll(BenchmarkList.fromFile(file.getAbsolutePath()).getAll(new JMHUtils.SilentOutputFormat(),
+                        Collections.<String> emptyList()));
+            }
+        }
+        if (!found) {
+            throw new FileNotFoundException("No " + PluginConstants.BENCHMARK_LIST_FILE + " found in " + classDirs);
+        }
+        writeBenchmarkList(listFile, entries);
+    }
+
+    /**
+     * Merges JMH generated compiler hints of all benchmark class directories into a single hints file.
+     *
+     * @param classDirs
+     *            benchmark class directories
+     * @param hintsFile
+     *            merged compiler hints file
+     * @throws IOException
+     *             if compiler hints can't be read or written
+     */
+    public static void mergeCompilerHints(List<File> classDirs, File hintsFile) throws IOException {
+        Set<String> hints = new LinkedHashSet<>();
+        for (File classDir : classDirs) {
+            File file = new File(classDir, PluginConstants.COMPILER_HINT_FILE);
+            if (file.isFile()) {
+                hints.addAll(Files.readAllLines(file.toPath(), StandardCharsets.UTF_8));
             }
         }
-        return null;
+        ensureParentDir(hintsFile);
+        Files.write(hintsFile.toPath(), hints, StandardCharsets.UTF_8);
     }
 
     public static void updateFieldViaReflection(Object target, String fieldName, Class<?> classObject, Object value) {
@@ -183,49 +252,57 @@ public final class PluginUtils {
 
     public static void updateFileAccess(Field listField) throws NoSuchFieldException, IllegalAccessException {
         listField.setAccessible(true);
-        Field modifiersField = Field.class.getDeclaredField("modifiers");
-        modifiersField.setAccessible(true);
-        modifiersField.setInt(listField, listField.getModifiers() & ~Modifier.FINAL);
+        // accessible final instance fields can be set directly, modifiers hack is required (and possible on Java 8-11)
+        // only for static final fields
+        if (Modifier.isStatic(listField.getModifiers()) && Modifier.isFinal(listField.getModifiers())) {
+            Field modifiersField = Field.class.getDeclaredField("modifiers");
+            modifiersField.setAccessible(true);
+            modifiersField.setInt(listField, listField.getModifiers() & ~Modifier.FINAL);
+        }
     }
 
-    public static void appendMetadataFromAnnotated(Optional<? extends AnnotatedElement> annotated,
-            BenchmarkReport benchmarkReport, Project project, URLClassLoader cl) {
-        try {
-            if (cl.findResource(PluginConstants.METADATA_LIST) != null) {
-                Class<?> cyBenchMetadataList = cl.loadClass(PluginConstants.METADATA_LIST);
-                Class<?> benchmarkMetaData = cl.loadClass(PluginConstants.BENCHMARK_METADATA);
-                if (annotated.isPresent()) {
-                    Annotation[] annotation = annotated.get().getDeclaredAnnotations();
-                    for (Annotation ann : annotation) {
-                        if (cyBenchMetadataList.equals(ann.annotationType())) {
-                            parseCyBenchArrayMetadata(ann.toString(), project, benchmarkReport);
-                        }
-                        if (benchmarkMetaData.equals(ann.annotationType())) {
-                            parseCyBenchMetadata(ann.toString().split(PluginConstants.BENCHMARK_METADATA_NAME, -1),
-                                    project, benchmarkReport);
-                        }
-                    }
-                }
+    /**
+     * Copies values of all non static fields declared by provided type from source to target object. Used to detach
+     * configuration values from Gradle decorated extension instances.
+     *
+     * @param source
+     *            source object
+     * @param target
+     *            target object
+     * @param type
+     *            type declaring copied fields
+     * @param <T>
+     *            copied object type
+     * @return target object
+     */
+    public static <T> T copyDeclaredFields(T source, T target, Class<T> type) {
+        for (Field field : type.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers())) {
+                continue;
+            }
+            try {
+                field.setAccessible(true);
+                field.set(target, field.get(source));
+            } catch (IllegalAccessException e) {
+                throw new GradleException("Error : unable to copy '" + field.getName() + "' of " + type.getSimpleName(),
+                        e);
             }
-        } catch (ClassNotFoundException e) {
-            e.printStackTrace();
         }
+        return target;
     }
 
-    private static void parseCyBenchArrayMetadata(String annotation, Project project, BenchmarkReport benchmarkReport) {
-        String result = StringUtils.substringBetween(annotation, "[", "]");
-        String[] metadataProps = result.split(PluginConstants.BENCHMARK_METADATA_NAME, -1);
-        parseCyBenchMetadata(metadataProps, project, benchmarkReport);
-    }
-
-    private static void parseCyBenchMetadata(String[] metadataProps, Project project, BenchmarkReport benchmarkReport) {
-        for (String prop : metadataProps) {
-            String key = StringUtils.substringBetween(prop, "key=", ",");
-            String value = StringUtils.substringBetween(prop, "value=", ")");
-            if (key != null && value != null) {
-                BenchmarkRunner.checkSetOldMetadataProps(key, value, benchmarkReport);
-                benchmarkReport.addMetadata(key, value);
-            }
+    /**
+     * Appends CyBench metadata, read from benchmark class or method annotations, to benchmark report.
+     *
+     * @param metadata
+     *            map of metadata key to value
+     * @param benchmarkReport
+     *            benchmark report to append metadata to
+     */
+    public static void appendMetadata(Map<String, String> metadata, BenchmarkReport benchmarkReport) {
+        for (Map.Entry<String, String> entry : metadata.entrySet()) {
+            BenchmarkRunner.checkSetOldMetadataProps(entry.getKey(), entry.getValue(), benchmarkReport);
+            benchmarkReport.addMetadata(entry.getKey(), entry.getValue());
         }
     }
 }
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.utils;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Optional;
+
+/**
+ * JMH profiler configuration, declared in {@code cybenchJMH { profiler { ... } }} block.
+ */
+public class ProfilerSettings implements Serializable {
+    private static final long serialVersionUID = 3720174391637092855L;
+
+    private String name;
+    private String options;
+    private List<String> includes = new ArrayList<>();
+    private boolean required = false;
+    // includes compiled on first match, recompiled if includes change
+    private transient List<String> compiledIncludes;
+    private transient List<Pattern> includePatterns;
+
+    /**
+     * Checks if profiler shall be used for provided benchmark.
+     *
+     * @param benchmark
+     *            benchmark name ({@code class.method})
+     * @return {@code true} if there are no include patterns or any of them matches benchmark name
+     */
+    public boolean matches(String benchmark) {
+        if (includes == null || includes.isEmpty()) {
+            return true;
+        }
+        for (Pattern pattern : getIncludePatterns()) {
+            if (pattern.matcher(benchmark).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized List<Pattern> getIncludePatterns() {
+        if (includePatterns == null || !includes.equals(compiledIncludes)) {
+            List<Pattern> patterns = new ArrayList<>(includes.size());
+            for (String include : includes) {
+                patterns.add(Pattern.compile(include));
+            }
+            compiledIncludes = new ArrayList<>(includes);
+            includePatterns = patterns;
+        }
+        return includePatterns;
+    }
+
+    @Input
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    @Input
+    @Optional
+    public String getOptions() {
+        return options;
+    }
+
+    public void setOptions(String options) {
+        this.options = options;
+    }
+
+    @Input
+    public List<String> getIncludes() {
+        return includes;
+    }
+
+    public void setIncludes(List<String> includes) {
+        this.includes = includes;
+    }
+
+    public void include(String... patterns) {
+        for (String pattern : patterns) {
+            includes.add(pattern);
+        }
+    }
+
+    @Input
+    public boolean isRequired() {
+        return required;
+    }
+
+    public void setRequired(boolean required) {
+        this.required = required;
+    }
+
+    @Override
+    public String toString() {
+        return name + (options == null || options.isEmpty() ? "" : ":" + options);
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.utils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.logging.Logger;
+import org.openjdk.jmh.profile.ProfilerException;
+import org.openjdk.jmh.profile.ProfilerFactory;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.TextResult;
+import org.openjdk.jmh.runner.BenchmarkListEntry;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.ProfilerConfig;
+
+/**
+ * Resolves configured JMH profilers, groups benchmarks by profilers they shall be run with and collects profiler
+ * artifacts (flame graphs, collapsed stacks, textual profiler outputs) produced by benchmarks run.
+ */
+public final class ProfilerSupport {
+    private static final Set<String> ASYNC_PROFILER_NAMES = new HashSet<>(
+            Arrays.asList("async", "org.openjdk.jmh.profile.AsyncProfiler"));
+
+    private ProfilerSupport() {
+    }
+
+    /**
+     * Resolves configured profilers to JMH profiler configurations. Profilers not supported on this system (e.g.
+     * {@code perf} based profilers on non Linux hosts, or async-profiler when its agent library is not found) are
+     * skipped, unless they are marked as required.
+     *
+     * @param profilers
+     *            configured profilers
+     * @param profilesDir
+     *            directory where profilers shall write their output files
+     * @param logger
+     *            logger
+     * @return map of available profilers and their JMH configurations
+     */
+    public static Map<ProfilerSettings, ProfilerConfig> resolve(List<ProfilerSettings> profilers, File profilesDir,
+            Logger logger) {
+        Map<ProfilerSettings, ProfilerConfig> resolved = new LinkedHashMap<>();
+        if (profilers == null) {
+            return resolved;
+        }
+        for (ProfilerSettings profiler : profilers) {
+            if (profiler.getName() == null || profiler.getName().trim().isEmpty()) {
+                throw new GradleException("Profiler name is not set for profiler " + profiler);
+            }
+            String options = profiler.getOptions();
+            if (ASYNC_PROFILER_NAMES.contains(profiler.getName()) && (options == null || !options.contains("dir="))) {
+                String dir = "dir=" + getOutputDir(profilesDir, profiler).getAbsolutePath();
+                options = options == null || options.trim().isEmpty() ? dir : options + ";" + dir;
+            }
+            ProfilerConfig config = options == null || options.trim().isEmpty()
+                    ? new ProfilerConfig(profiler.getName()) : new ProfilerConfig(profiler.getName(), options);
+            try {
+                ProfilerFactory.getProfilerOrException(config);
+            } catch (ProfilerException exc) {
+                if (profiler.isRequired()) {
+                    throw new GradleException("Profiler '" + profiler.getName() + "' is not available", exc);
+                }
+                logger.warn("Profiler '{}' is not available on this system, skipping it: {}", profiler.getName(),
+                        exc.getMessage());
+                continue;
+            }
+            resolved.put(profiler, config);
+        }
+        return resolved;
+    }
+
+    /**
+     * Removes profiler output files of previous runs.
+     *
+     * @param profilesDir
+     *            directory where profilers write their output files
+     * @throws IOException
+     *             if some file can't be removed
+     */
+    public static void clean(File profilesDir) throws IOException {
+        if (!profilesDir.exists()) {
+            return;
+        }
+        List<Path> paths = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(profilesDir.toPath())) {
+            walk.forEach(paths::add);
+        }
+        Collections.reverse(paths);
+        for (Path path : paths) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    /**
+     * Groups benchmarks by profilers they shall be run with, so every benchmark is run once, with all profilers
+     * matching it.
+     *
+     * @param entries
+     *            benchmarks to run
+     * @param profilers
+     *            resolved profilers
+     * @return map of profilers set and benchmarks to run with it, in benchmarks order
+     */
+    public static Map<List<ProfilerConfig>, List<BenchmarkListEntry>> group(Collection<BenchmarkListEntry> entries,
+            Map<ProfilerSettings, ProfilerConfig> profilers) {
+        Map<List<ProfilerConfig>, List<BenchmarkListEntry>> groups = new LinkedHashMap<>();
+        for (BenchmarkListEntry entry : new TreeSet<>(entries)) {
+            List<ProfilerConfig> entryProfilers = new ArrayList<>();
+            profilers.forEach((settings, config) -> {
+                if (settings.matches(entry.getUsername())) {
+                    entryProfilers.add(config);
+                }
+            });
+            groups.computeIfAbsent(entryProfilers, k -> new ArrayList<>()).add(entry);
+        }
+        return groups;
+    }
+
+    /**
+     * Creates JMH options having provided profilers added to base options.
+     *
+     * @param options
+     *            base options
+     * @param profilers
+     *            profilers to add
+     * @return JMH options with profilers, or base options if there are no profilers to add
+     */
+    public static Options withProfilers(Options options, List<ProfilerConfig> profilers) {
+        if (profilers.isEmpty()) {
+            return options;
+        }
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(options);
+        for (ProfilerConfig profiler : profilers) {
+            if (profiler.getOpts() == null || profiler.getOpts().isEmpty()) {
+                builder.addProfiler(profiler.getKlass());
+            } else {
+                builder.addProfiler(profiler.getKlass(), profiler.getOpts());
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Collects profiler artifacts of run benchmarks: files written by profilers into their output directories and
+     * textual profiler outputs (e.g. {@code stack}, {@code perfasm}), which are stored to files as well.
+     *
+     * @param results
+     *            benchmarks run results
+     * @param profilers
+     *            resolved profilers
+     * @param profilesDir
+     *            directory where profilers write their output files
+     * @param logger
+     *            logger
+     * @return map of benchmark name and paths of its profiler artifacts
+     */
+    public static Map<String, Set<String>> collectArtifacts(Collection<RunResult> results,
+            Map<ProfilerSettings, ProfilerConfig> profilers, File profilesDir, Logger logger) {
+        Map<String, Set<String>> artifacts = new HashMap<>();
+        for (RunResult result : results) {
+            String benchmark = result.getParams().getBenchmark();
+            String id = result.getParams().id();
+            Set<String> benchmarkArtifacts = artifacts.computeIfAbsent(benchmark, k -> new TreeSet<>());
+            for (Map.Entry<String, ?> secondary : result.getAggregatedResult().getSecondaryResults().entrySet()) {
+                if (secondary.getValue() instanceof TextResult) {
+                    TextResult textResult = (TextResult) secondary.getValue();
+                    File file = new File(new File(new File(profilesDir, "text"), toFileName(id)),
+                            toFileName(secondary.getKey()) + ".txt");
+                    try {
+                        Files.createDirectories(file.getParentFile().toPath());
+                        Files.write(file.toPath(), textResult.extendedInfo().getBytes(StandardCharsets.UTF_8));
+                        benchmarkArtifacts.add(file.getAbsolutePath());
+                    } catch (IOException exc) {
+                        logger.warn("Failed to store profiler output {}", file, exc);
+                    }
+                }
+            }
+            for (ProfilerSettings profiler : profilers.keySet()) {
+                File[] dirs = getOutputDir(profilesDir, profiler).listFiles(
+                        (dir, name) -> name.equals(benchmark) || name.startsWith(benchmark + "-"));
+                if (dirs != null) {
+                    for (File dir : dirs) {
+                        collectFiles(dir, benchmarkArtifacts);
+                    }
+                }
+            }
+        }
+        artifacts.values().removeIf(Set::isEmpty);
+        return artifacts;
+    }
+
+    private static void collectFiles(File file, Set<String> paths) {
+        if (file.isDirectory()) {
+            File[] files = file.listFiles();
+            if (files != null) {
+                for (File child : files) {
+                    collectFiles(child, paths);
+                }
+            }
+        } else if (file.isFile()) {
+            paths.add(file.getAbsolutePath());
+        }
+    }
+
+    private static File getOutputDir(File profilesDir, ProfilerSettings profiler) {
+        return new File(profilesDir, toFileName(profiler.getName()));
+    }
+
+    private static String toFileName(String name) {
+        return name.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.gocypher.cybench.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.gradle.api.logging.Logger;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.runner.IterationType;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves benchmarks run progress and latest iteration results in Prometheus text exposition format on
+ * {@code http://localhost:<port>/metrics}.
+ */
+public class PrometheusRunListener implements RunListener {
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final RunProgress progress;
+    private final HttpServer server;
+    private final Map<String, Double> iterationScores = new ConcurrentSkipListMap<>();
+    private final Map<String, Double> secondaryScores = new ConcurrentSkipListMap<>();
+    private final Map<String, Double> benchmarkScores = new ConcurrentSkipListMap<>();
+
+    public PrometheusRunListener(int port, RunProgress progress, Logger logger) throws IOException {
+        this.progress = progress;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", exchange -> {
+            byte[] body = render().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        logger.lifecycle("CyBench metrics are served on http://localhost:{}/metrics", port);
+    }
+
+    @Override
+    public void iterationCompleted(BenchmarkParams params, IterationParams iterationParams, int iteration,
+            IterationResult result) {
+        String labels = getLabels(params);
+        String phase = iterationParams.getType() == IterationType.WARMUP ? "warmup" : "measurement";
+        iterationScores.put(labels + ",phase=\"" + phase + "\"", result.getPrimaryResult().getScore());
+        result.getSecondaryResults().forEach((label, secondary) -> secondaryScores
+                .put(labels + ",label=\"" + escape(label) + "\"", secondary.getScore()));
+    }
+
+    @Override
+    public void benchmarkCompleted(BenchmarkResult result) {
+        benchmarkScores.put(getLabels(result.getParams()), result.getPrimaryResult().getScore());
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private String render() {
+        StringBuilder out = new StringBuilder();
+        appendGauge(out, "cybench_benchmarks_planned", "Number of benchmarks planned to run", progress.getPlanned());
+        appendGauge(out, "cybench_benchmarks_completed", "Number of completed benchmarks", progress.getCompleted());
+        appendGauge(out, "cybench_elapsed_seconds", "Benchmarks run elapsed time", progress.getElapsed() / 1000.0);
+        long eta = progress.getEta();
+        if (eta >= 0) {
+            appendGauge(out, "cybench_eta_seconds", "Estimated remaining benchmarks run time", eta / 1000.0);
+        }
+        appendGauges(out, "cybench_iteration_score", "Score of the latest benchmark iteration", iterationScores);
+        appendGauges(out, "cybench_iteration_secondary_score",
+                "Secondary (e.g. GC, safepoints) result of the latest benchmark iteration", secondaryScores);
+        appendGauges(out, "cybench_benchmark_score", "Score of completed benchmark", benchmarkScores);
+        return out.toString();
+    }
+
+    private static void appendGauge(StringBuilder out, String name, String help, double value) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" gauge\n");
+        out.append(name).append(' ').append(format(value)).append('\n');
+    }
+
+    private static void appendGauges(StringBuilder out, String name, String help, Map<String, Double> values) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" gauge\n");
+        values.forEach((labels, value) -> out.append(name).append('{').append(labels).append("} ")
+                .append(format(value)).append('\n'));
+    }
+
+    private static String getLabels(BenchmarkParams params) {
+        StringBuilder labels = new StringBuilder();
+        labels.append("benchmark=\"").append(escape(params.getBenchmark())).append("\",mode=\"")
+                .append(params.getMode().shortLabel()).append('"');
+        for (String key : params.getParamsKeys()) {
+            labels.append(",param_").append(key.replaceAll("[^A-Za-z0-9_]", "_")).append("=\"")
+                    .append(escape(params.getParam(key))).append('"');
+        }
+        return labels.toString();
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String format(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        return Double.toString(value);
+    }
+}
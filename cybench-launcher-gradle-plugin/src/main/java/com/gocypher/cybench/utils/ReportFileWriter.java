@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.zip.GZIPOutputStream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.gocypher.cybench.core.utils.JSONUtils;
+
+/**
+ * Writes reports to files by streaming JSON directly to the file (optionally compressed), without building report JSON
+ * string in memory.
+ * <p>
+ * Reports are serialized the same way as by {@link JSONUtils}, which was used to store reports before, so stored
+ * report content does not change.
+ */
+public final class ReportFileWriter {
+    public static final String GZIP_EXTENSION = ".gz";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // same as JSONUtils mapper, which has default configuration
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private ReportFileWriter() {
+    }
+
+    /**
+     * Writes report as JSON to file.
+     *
+     * @param report
+     *            report to write
+     * @param file
+     *            target file
+     * @param pretty
+     *            flag indicating whether JSON shall be pretty printed
+     * @param gzip
+     *            flag indicating whether file content shall be gzip compressed
+     * @throws IOException
+     *             if file can't be written
+     */
+    public static void writeJson(Object report, File file, boolean pretty, boolean gzip) throws IOException {
+        PluginUtils.ensureParentDir(file);
+        ObjectWriter writer = pretty ? MAPPER.writerWithDefaultPrettyPrinter() : MAPPER.writer();
+        try (OutputStream out = openStream(file, gzip)) {
+            writer.writeValue(out, report);
+        }
+    }
+
+    private static OutputStream openStream(File file, boolean gzip) throws IOException {
+        OutputStream out = Files.newOutputStream(file.toPath());
+        return gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : new BufferedOutputStream(out, BUFFER_SIZE);
+    }
+}
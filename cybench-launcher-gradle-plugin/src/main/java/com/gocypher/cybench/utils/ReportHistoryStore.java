@@ -0,0 +1,597 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.utils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+
+import org.gradle.api.logging.Logger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compact local history of benchmark report scores, kept alongside stored reports.
+ * <p>
+ * Store consists of two append-only files:
+ * <ul>
+ * <li>{@value #NAMES_FILE} - dictionary of strings (project names, versions, benchmark keys), string id is its ordinal
+ * number</li>
+ * <li>{@value #RUNS_FILE} - run records: {@code long timestamp, int projectId, int versionId, int count} followed by
+ * {@code count} pairs of {@code int benchmarkKeyId, double score}, sorted by benchmark key id</li>
+ * </ul>
+ * Runs file is memory-mapped for reads. Runs are indexed in memory by project, version, benchmark key and timestamp
+ * when store is opened, records appended later are indexed incrementally.
+ * <p>
+ * Raw benchmark samples of runs (see {@link BenchmarkSamples}) are kept in {@value #SAMPLES_DIR} folder, one file per
+ * run named by run project id and timestamp.
+ */
+public class ReportHistoryStore {
+    public static final String NAMES_FILE = "history.names";
+    public static final String RUNS_FILE = "history.runs";
+    public static final String SAMPLES_DIR = "samples";
+
+    private static final int MAGIC = 0x43594248;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int RUN_HEADER_SIZE = 20;
+    private static final int ENTRY_SIZE = 12;
+
+    private final File namesFile;
+    private final File runsFile;
+    private final File samplesDir;
+    private final Logger logger;
+
+    private final List<String> names = new ArrayList<>();
+    private final Map<String, Integer> nameIds = new HashMap<>();
+    private long namesLength;
+    private final List<Run> runs = new ArrayList<>();
+    private final Map<String, Map<String, List<Run>>> runsIndex = new HashMap<>();
+    private final Map<Integer, List<Run>> benchmarksIndex = new HashMap<>();
+    private long runsLength;
+    private MappedByteBuffer runsBuffer;
+
+    private ReportHistoryStore(File dir, Logger logger) {
+        this.namesFile = new File(dir, NAMES_FILE);
+        this.runsFile = new File(dir, RUNS_FILE);
+        this.samplesDir = new File(dir, SAMPLES_DIR);
+        this.logger = logger;
+    }
+
+    /**
+     * Opens history store located in provided folder. Missing or unreadable store is treated as empty.
+     *
+     * @param dir
+     *            store folder
+     * @param logger
+     *            logger to report store read failures
+     * @return opened history store
+     */
+    public static ReportHistoryStore open(File dir, Logger logger) {
+        ReportHistoryStore store = new ReportHistoryStore(dir, logger);
+        try {
+            store.reload();
+        } catch (IOException exc) {
+            logger.warn("Failed to read report history store in {}", dir, exc);
+            store.clear();
+        }
+        return store;
+    }
+
+    /**
+     * Returns key of benchmark without parameters. Benchmarks having parameters are keyed by
+     * {@link BenchmarkBaseline#getKey(org.openjdk.jmh.infra.BenchmarkParams)}, which starts with this key.
+     *
+     * @param benchmarkName
+     *            benchmark name
+     * @param mode
+     *            benchmark mode short label
+     * @return benchmark key
+     */
+    public static String getKey(String benchmarkName, String mode) {
+        return benchmarkName + ":" + mode;
+    }
+
+    public synchronized boolean isEmpty() {
+        return runs.isEmpty();
+    }
+
+    /**
+     * Appends run scores to the store.
+     *
+     * @param timestamp
+     *            run timestamp
+     * @param project
+     *            project name
+     * @param version
+     *            project version
+     * @param scores
+     *            map of benchmark key (see {@link BenchmarkBaseline#getKey(org.openjdk.jmh.infra.BenchmarkParams)})
+     *            to score
+     * @throws IOException
+     *             if store can't be written
+     */
+    public synchronized void append(long timestamp, String project, String version, Map<String, Double> scores)
+            throws IOException {
+        append(Collections.singletonList(new RunScores(timestamp, project, version, scores)));
+    }
+
+    private void append(List<RunScores> newRuns) throws IOException {
+        PluginUtils.ensureParentDir(runsFile);
+        try (FileChannel namesChannel = FileChannel.open(namesFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+                FileChannel runsChannel = FileChannel.open(runsFile.toPath(), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE)) {
+            // lock is released when channel is closed
+            runsChannel.lock();
+            // other builds may have appended to the store since it was opened
+            reload();
+
+            ByteArrayOutputStream namesBytes = new ByteArrayOutputStream();
+            DataOutputStream namesOut = new DataOutputStream(namesBytes);
+            ByteArrayOutputStream recordsBytes = new ByteArrayOutputStream();
+            DataOutputStream recordsOut = new DataOutputStream(recordsBytes);
+            if (runsLength == 0) {
+                recordsOut.writeInt(MAGIC);
+                recordsOut.writeInt(VERSION);
+            }
+            for (RunScores run : newRuns) {
+                int projectId = getOrAddName(String.valueOf(run.project), namesOut);
+                int versionId = getOrAddName(String.valueOf(run.version), namesOut);
+                TreeMap<Integer, Double> entries = new TreeMap<>();
+                for (Map.Entry<String, Double> score : run.scores.entrySet()) {
+                    if (score.getValue() != null) {
+                        entries.put(getOrAddName(score.getKey(), namesOut), score.getValue());
+                    }
+                }
+                recordsOut.writeLong(run.timestamp);
+                recordsOut.writeInt(projectId);
+                recordsOut.writeInt(versionId);
+                recordsOut.writeInt(entries.size());
+                for (Map.Entry<Integer, Double> entry : entries.entrySet()) {
+                    recordsOut.writeInt(entry.getKey());
+                    recordsOut.writeDouble(entry.getValue());
+                }
+            }
+            namesOut.flush();
+            if (namesBytes.size() > 0) {
+                namesChannel.truncate(namesLength);
+                writeFully(namesChannel, ByteBuffer.wrap(namesBytes.toByteArray()), namesLength);
+                namesChannel.force(false);
+                // written names are already in the dictionary
+                namesLength += namesBytes.size();
+            }
+            recordsOut.flush();
+            runsChannel.truncate(runsLength);
+            writeFully(runsChannel, ByteBuffer.wrap(recordsBytes.toByteArray()), runsLength);
+            runsChannel.force(false);
+        } catch (IOException exc) {
+            // names added to the dictionary in memory may have not been written, store is read again
+            clear();
+            try {
+                reload();
+            } catch (IOException reloadExc) {
+                exc.addSuppressed(reloadExc);
+            }
+            throw exc;
+        }
+        reload();
+    }
+
+    /**
+     * Returns runs of project version, most recent first.
+     *
+     * @param project
+     *            project name
+     * @param version
+     *            project version, or {@code null} for runs of all project versions
+     * @return list of runs
+     */
+    public synchronized List<Run> getRuns(String project, String version) {
+        Map<String, List<Run>> versions = runsIndex.get(String.valueOf(project));
+        if (versions == null) {
+            return Collections.emptyList();
+        }
+        List<Run> result = new ArrayList<>();
+        if (version == null) {
+            for (List<Run> versionRuns : versions.values()) {
+                result.addAll(versionRuns);
+            }
+        } else if (versions.containsKey(version)) {
+            result.addAll(versions.get(version));
+        }
+        result.sort(Comparator.comparingLong(Run::getTimestamp).reversed());
+        return result;
+    }
+
+    /**
+     * Returns benchmark scores of latest project version runs.
+     *
+     * @param project
+     *            project name
+     * @param version
+     *            project version, or {@code null} for runs of all project versions
+     * @param latestRuns
+     *            number of latest runs to take scores from
+     * @return map of benchmark key to scores, most recent first
+     */
+    public synchronized Map<String, List<Double>> getLatestScores(String project, String version, int latestRuns) {
+        Map<String, List<Double>> scores = new HashMap<>();
+        List<Run> projectRuns = getRuns(project, version);
+        for (Run run : projectRuns.subList(0, Math.min(latestRuns, projectRuns.size()))) {
+            for (int i = 0; i < run.count; i++) {
+                int entryOffset = run.entriesOffset + i * ENTRY_SIZE;
+                scores.computeIfAbsent(names.get(runsBuffer.getInt(entryOffset)), k -> new ArrayList<>())
+                        .add(runsBuffer.getDouble(entryOffset + 4));
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Returns scores of a single benchmark in latest project version runs. Runs are looked up by benchmark key index,
+     * so runs not having the benchmark are not scanned.
+     *
+     * @param project
+     *            project name
+     * @param version
+     *            project version, or {@code null} for runs of all project versions
+     * @param benchmarkKey
+     *            benchmark key (see {@link BenchmarkBaseline#getKey(org.openjdk.jmh.infra.BenchmarkParams)})
+     * @param latestRuns
+     *            number of latest runs having the benchmark to take scores from
+     * @return benchmark scores, most recent first
+     */
+    public synchronized List<Double> getLatestScores(String project, String version, String benchmarkKey,
+            int latestRuns) {
+        Integer keyId = nameIds.get(benchmarkKey);
+        List<Run> benchmarkRuns = keyId == null ? null : benchmarksIndex.get(keyId);
+        if (benchmarkRuns == null) {
+            return Collections.emptyList();
+        }
+        List<Run> matchingRuns = new ArrayList<>();
+        for (Run run : benchmarkRuns) {
+            if (run.project.equals(String.valueOf(project)) && (version == null || run.version.equals(version))) {
+                matchingRuns.add(run);
+            }
+        }
+        matchingRuns.sort(Comparator.comparingLong(Run::getTimestamp).reversed());
+        List<Double> scores = new ArrayList<>();
+        for (Run run : matchingRuns.subList(0, Math.min(latestRuns, matchingRuns.size()))) {
+            int entryOffset = findEntry(run, keyId);
+            if (entryOffset >= 0) {
+                scores.add(runsBuffer.getDouble(entryOffset + 4));
+            }
+        }
+        return scores;
+    }
+
+    private int findEntry(Run run, int keyId) {
+        // run entries are sorted by benchmark key id
+        int low = 0;
+        int high = run.count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int entryOffset = run.entriesOffset + middle * ENTRY_SIZE;
+            int middleId = runsBuffer.getInt(entryOffset);
+            if (middleId < keyId) {
+                low = middle + 1;
+            } else if (middleId > keyId) {
+                high = middle - 1;
+            } else {
+                return entryOffset;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Stores raw benchmark samples of a run, which has to be already appended to the store.
+     *
+     * @param timestamp
+     *            run timestamp
+     * @param project
+     *            project name
+     * @param samples
+     *            run benchmark samples
+     * @throws IOException
+     *             if samples file can't be written
+     */
+    public synchronized void storeSamples(long timestamp, String project, BenchmarkSamples samples)
+            throws IOException {
+        File samplesFile = getSamplesFile(timestamp, project);
+        if (samplesFile == null) {
+            throw new IOException("Run of project " + project + " is not stored in report history");
+        }
+        samples.write(samplesFile);
+    }
+
+    /**
+     * Returns raw benchmark samples of latest project version runs, merged.
+     *
+     * @param project
+     *            project name
+     * @param version
+     *            project version, or {@code null} for runs of all project versions
+     * @param latestRuns
+     *            number of latest runs to take samples from
+     * @return merged benchmark samples, runs stored without samples are skipped
+     */
+    public synchronized BenchmarkSamples getLatestSamples(String project, String version, int latestRuns) {
+        BenchmarkSamples samples = new BenchmarkSamples();
+        List<Run> projectRuns = getRuns(project, version);
+        for (Run run : projectRuns.subList(0, Math.min(latestRuns, projectRuns.size()))) {
+            File samplesFile = getSamplesFile(run.timestamp, run.project);
+            if (samplesFile != null && samplesFile.isFile()) {
+                try {
+                    samples.addAll(BenchmarkSamples.read(samplesFile));
+                } catch (IOException exc) {
+                    logger.warn("Failed to read benchmark samples file {}", samplesFile, exc);
+                }
+            }
+        }
+        return samples;
+    }
+
+    private File getSamplesFile(long timestamp, String project) {
+        Integer projectId = nameIds.get(String.valueOf(project));
+        return projectId == null ? null
+                : new File(samplesDir, projectId + "-" + timestamp + BenchmarkSamples.FILE_EXTENSION);
+    }
+
+    /**
+     * Imports scores of JSON reports found in provided folder. Used to fill empty store from reports stored before
+     * history store was introduced. All reports are written to the store in a single batch.
+     * <p>
+     * Reports have no benchmark parameters, so scores are keyed by benchmark name and mode only. Benchmarks reported
+     * more than once with the same mode are variants of parameterized benchmark, which can't be told apart, so they are
+     * not imported.
+     *
+     * @param reportsDir
+     *            folder with JSON reports
+     * @return number of imported reports
+     */
+    public synchronized int importJsonReports(File reportsDir) {
+        File[] files = reportsDir.listFiles((dir, name) -> name.endsWith(".json")
+                || name.endsWith(".json" + ReportFileWriter.GZIP_EXTENSION));
+        if (files == null) {
+            return 0;
+        }
+        ObjectMapper mapper = new ObjectMapper();
+        List<RunScores> reports = new ArrayList<>();
+        for (File file : files) {
+            try {
+                JsonNode node;
+                try (InputStream in = openReport(file)) {
+                    node = mapper.readTree(in);
+                }
+                if (node.path("benchmarks").isObject()) {
+                    reports.add(new RunScores(node.path("timestamp").asLong(), getReportProperty(node, "project"),
+                            getReportProperty(node, "projectVersion"), getReportScores(node)));
+                }
+            } catch (Exception exc) {
+                logger.info("Skipping unreadable report file {}: {}", file, exc.getMessage());
+            }
+        }
+        if (reports.isEmpty()) {
+            return 0;
+        }
+        reports.sort(Comparator.comparingLong(run -> run.timestamp));
+        try {
+            append(reports);
+            return reports.size();
+        } catch (IOException exc) {
+            logger.warn("Failed to import reports into report history store", exc);
+            return 0;
+        }
+    }
+
+    private static Map<String, Double> getReportScores(JsonNode report) {
+        Map<String, Double> scores = new HashMap<>();
+        Set<String> parameterized = new HashSet<>();
+        for (JsonNode category : report.path("benchmarks")) {
+            for (JsonNode benchmark : category) {
+                if (benchmark.path("score").isNumber()) {
+                    String key = getKey(benchmark.path("name").asText(), benchmark.path("mode").asText());
+                    if (scores.put(key, benchmark.path("score").asDouble()) != null) {
+                        parameterized.add(key);
+                    }
+                }
+            }
+        }
+        scores.keySet().removeAll(parameterized);
+        return scores;
+    }
+
+    private static InputStream openReport(File file) throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(file));
+        return file.getName().endsWith(ReportFileWriter.GZIP_EXTENSION) ? new GZIPInputStream(in) : in;
+    }
+
+    private static String getReportProperty(JsonNode report, String property) {
+        if (report.path(property).isTextual()) {
+            return report.path(property).asText();
+        }
+        for (JsonNode category : report.path("benchmarks")) {
+            for (JsonNode benchmark : category) {
+                if (benchmark.path(property).isTextual()) {
+                    return benchmark.path(property).asText();
+                }
+            }
+        }
+        return null;
+    }
+
+    private int getOrAddName(String name, DataOutputStream namesOut) throws IOException {
+        Integer id = nameIds.get(name);
+        if (id == null) {
+            id = names.size();
+            names.add(name);
+            nameIds.put(name, id);
+            namesOut.writeUTF(name);
+        }
+        return id;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private void clear() {
+        names.clear();
+        nameIds.clear();
+        namesLength = 0;
+        runs.clear();
+        runsIndex.clear();
+        benchmarksIndex.clear();
+        runsLength = 0;
+        runsBuffer = null;
+    }
+
+    private void reload() throws IOException {
+        // store files are append-only, only records appended since last reload are read unless files were replaced
+        if (!namesFile.isFile() || namesFile.length() < namesLength || !runsFile.isFile()
+                || runsFile.length() < runsLength) {
+            clear();
+        }
+        if (namesFile.isFile()) {
+            try (FileChannel namesChannel = FileChannel.open(namesFile.toPath(), StandardOpenOption.READ);
+                    DataInputStream in = new DataInputStream(
+                            new BufferedInputStream(Channels.newInputStream(namesChannel.position(namesLength))))) {
+                long length = namesFile.length();
+                long position = namesLength;
+                while (position < length) {
+                    String name;
+                    try {
+                        name = in.readUTF();
+                    } catch (EOFException exc) {
+                        // incomplete tail, left by interrupted append
+                        break;
+                    }
+                    nameIds.put(name, names.size());
+                    names.add(name);
+                    position += 2 + getUtfLength(name);
+                }
+                namesLength = position;
+            }
+        }
+        if (!runsFile.isFile() || runsFile.length() < HEADER_SIZE) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(runsFile.toPath(), StandardOpenOption.READ)) {
+            runsBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (runsBuffer.getInt(0) != MAGIC || runsBuffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported report history store format " + runsFile);
+        }
+        int position = Math.max(HEADER_SIZE, (int) runsLength);
+        int limit = runsBuffer.limit();
+        while (position + RUN_HEADER_SIZE <= limit) {
+            long timestamp = runsBuffer.getLong(position);
+            int projectId = runsBuffer.getInt(position + 8);
+            int versionId = runsBuffer.getInt(position + 12);
+            int count = runsBuffer.getInt(position + 16);
+            int entriesOffset = position + RUN_HEADER_SIZE;
+            if (count < 0 || projectId >= names.size() || versionId >= names.size()
+                    || (long) entriesOffset + (long) count * ENTRY_SIZE > limit) {
+                logger.info("Ignoring incomplete report history record at {} of {}", position, runsFile);
+                break;
+            }
+            Run run = new Run(timestamp, names.get(projectId), names.get(versionId), entriesOffset, count);
+            runs.add(run);
+            runsIndex.computeIfAbsent(run.project, k -> new HashMap<>())
+                    .computeIfAbsent(run.version, k -> new ArrayList<>()).add(run);
+            for (int i = 0; i < count; i++) {
+                benchmarksIndex.computeIfAbsent(runsBuffer.getInt(entriesOffset + i * ENTRY_SIZE),
+                        k -> new ArrayList<>()).add(run);
+            }
+            position = entriesOffset + count * ENTRY_SIZE;
+        }
+        runsLength = position;
+    }
+
+    private static int getUtfLength(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x0001 && c <= 0x007F) {
+                length++;
+            } else if (c > 0x07FF) {
+                length += 3;
+            } else {
+                length += 2;
+            }
+        }
+        return length;
+    }
+
+    private static final class RunScores {
+        private final long timestamp;
+        private final String project;
+        private final String version;
+        private final Map<String, Double> scores;
+
+        private RunScores(long timestamp, String project, String version, Map<String, Double> scores) {
+            this.timestamp = timestamp;
+            this.project = project;
+            this.version = version;
+            this.scores = scores;
+        }
+    }
+
+    /**
+     * Single benchmarks run stored in the history.
+     */
+    public static final class Run {
+        private final long timestamp;
+        private final String project;
+        private final String version;
+        private final int entriesOffset;
+        private final int count;
+
+        private Run(long timestamp, String project, String version, int entriesOffset, int count) {
+            this.timestamp = timestamp;
+            this.project = project;
+            this.version = version;
+            this.entriesOffset = entriesOffset;
+            this.count = count;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public String getProject() {
+            return project;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+    }
+}
@@ -0,0 +1,338 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Persistent outbox of reports waiting for delivery to CyBench. Each report is kept in a separate JSON file until it
+ * is delivered, or moved to {@code failed} folder if CyBench rejects it.
+ * <p>
+ * Entry is claimed for sending by renaming its file, so the same report is not sent concurrently by several senders
+ * (or builds) sharing the outbox. Claimed entry modification time is the claim time, entries claimed for too long are
+ * considered left by a dead sender and are returned to the outbox.
+ * <p>
+ * Entry file is named {@code <created>-<id>[.<nextAttempt>].json}, so pending entries are listed in creation order and
+ * their delivery schedule is known without reading them.
+ */
+public class ReportOutbox {
+    private static final String ENTRY_EXTENSION = ".json";
+    private static final String SENDING_EXTENSION = ".sending";
+    private static final String DELIVERED_EXTENSION = ".delivered";
+    private static final String FAILED_DIR = "failed";
+    private static final long STALE_SENDING_MILLIS = TimeUnit.MINUTES.toMillis(30);
+    private static final long MAX_RETRY_DELAY_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final File dir;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public ReportOutbox(File dir) {
+        this.dir = dir;
+    }
+
+    public File getDir() {
+        return dir;
+    }
+
+    /**
+     * Stores report for delivery.
+     *
+     * @param reportEncrypted
+     *            encrypted report
+     * @param tokenAndEmail
+     *            request header value having bench access token and email
+     * @param benchQueryToken
+     *            bench query token
+     * @return outbox entry file
+     * @throws IOException
+     *             if entry can't be stored
+     */
+    public File enqueue(String reportEncrypted, String tokenAndEmail, String benchQueryToken) throws IOException {
+        Entry entry = new Entry();
+        entry.setCreated(System.currentTimeMillis());
+        entry.setReport(reportEncrypted);
+        entry.setTokenAndEmail(tokenAndEmail);
+        entry.setBenchQueryToken(benchQueryToken);
+        File file = new File(dir, entry.getCreated() + "-" + UUID.randomUUID() + ENTRY_EXTENSION);
+        write(file, entry);
+        return file;
+    }
+
+    /**
+     * Lists outbox entries waiting for delivery.
+     *
+     * @param includeDelayed
+     *            flag indicating whether entries with retry delay not yet elapsed shall be included
+     * @return entry files, oldest first
+     */
+    public List<File> getPending(boolean includeDelayed) {
+        recoverStale();
+        File[] files = dir.listFiles((d, name) -> name.endsWith(ENTRY_EXTENSION));
+        if (files == null) {
+            return Collections.emptyList();
+        }
+        Arrays.sort(files);
+        List<File> pending = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (File file : files) {
+            if (includeDelayed || getNextAttempt(file) <= now) {
+                pending.add(file);
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Claims entry for sending. Rename keeps entry modification time, so it is set to the claim time, otherwise entry
+     * created long ago would be taken for stale claim and sent again by other sender.
+     *
+     * @param file
+     *            entry file
+     * @return claimed entry file, or {@code null} if entry is already claimed or delivered by other sender
+     */
+    public File claim(File file) {
+        File claimed = new File(dir, file.getName() + SENDING_EXTENSION);
+        if (!file.renameTo(claimed)) {
+            return null;
+        }
+        if (!claimed.setLastModified(System.currentTimeMillis())) {
+            claimed.renameTo(file);
+            return null;
+        }
+        return claimed;
+    }
+
+    /**
+     * Refreshes claim time of entry, so the claim of a long running delivery is not taken for stale.
+     *
+     * @param claimed
+     *            claimed entry file
+     */
+    public void keepClaimed(File claimed) {
+        claimed.setLastModified(System.currentTimeMillis());
+    }
+
+    public Entry read(File file) throws IOException {
+        return mapper.readValue(file, Entry.class);
+    }
+
+    /**
+     * Removes delivered entry. If entry file can't be deleted, it is renamed to be excluded from pending entries, so
+     * delivered report is not sent again.
+     *
+     * @param claimed
+     *            claimed entry file
+     * @throws IOException
+     *             if entry can neither be deleted nor renamed
+     */
+    public void remove(File claimed) throws IOException {
+        if (claimed.delete() || !claimed.exists()) {
+            return;
+        }
+        File delivered = new File(dir, getEntryId(claimed) + DELIVERED_EXTENSION);
+        if (!claimed.renameTo(delivered)) {
+            throw new IOException("Failed to remove delivered report outbox entry " + claimed);
+        }
+    }
+
+    /**
+     * Returns claimed entry to outbox after failed delivery, scheduling next delivery attempt with exponential delay.
+     *
+     * @param claimed
+     *            claimed entry file
+     * @param entry
+     *            entry
+     * @param error
+     *            delivery error description
+     * @throws IOException
+     *             if entry can't be stored
+     */
+    public void release(File claimed, Entry entry, String error) throws IOException {
+        entry.setAttempts(entry.getAttempts() + 1);
+        entry.setLastError(error);
+        long delay = TimeUnit.MINUTES.toMillis(1) << Math.min(entry.getAttempts() - 1, 10);
+        entry.setNextAttempt(System.currentTimeMillis() + Math.min(delay, MAX_RETRY_DELAY_MILLIS));
+        write(claimed, entry);
+        Files.move(claimed.toPath(),
+                new File(dir, getEntryId(claimed) + "." + entry.getNextAttempt() + ENTRY_EXTENSION).toPath(),
+                StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Moves claimed entry, rejected by CyBench, to {@code failed} folder.
+     *
+     * @param claimed
+     *            claimed entry file
+     * @param entry
+     *            entry
+     * @param error
+     *            rejection reason
+     * @return failed entry file
+     * @throws IOException
+     *             if entry can't be moved
+     */
+    public File fail(File claimed, Entry entry, String error) throws IOException {
+        entry.setAttempts(entry.getAttempts() + 1);
+        entry.setLastError(error);
+        write(claimed, entry);
+        File failedDir = new File(dir, FAILED_DIR);
+        PluginUtils.ensureDir(failedDir);
+        File failed = new File(failedDir, getEntryId(claimed) + ENTRY_EXTENSION);
+        Files.move(claimed.toPath(), failed.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        return failed;
+    }
+
+    private void recoverStale() {
+        File[] delivered = dir.listFiles((d, name) -> name.endsWith(DELIVERED_EXTENSION));
+        if (delivered != null) {
+            for (File file : delivered) {
+                // retry removal of delivered entries, failure is harmless as they are never sent again
+                file.delete();
+            }
+        }
+        File[] files = dir.listFiles((d, name) -> name.endsWith(SENDING_EXTENSION));
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            // sender which claimed the entry has died
+            if (System.currentTimeMillis() - file.lastModified() > STALE_SENDING_MILLIS) {
+                file.renameTo(new File(dir, getEntryName(file)));
+            }
+        }
+    }
+
+    private static String getEntryName(File claimed) {
+        String name = claimed.getName();
+        return name.endsWith(SENDING_EXTENSION) ? name.substring(0, name.length() - SENDING_EXTENSION.length())
+                : name;
+    }
+
+    private static String getEntryId(File file) {
+        String name = file.getName();
+        return name.substring(0, name.indexOf('.'));
+    }
+
+    private static long getNextAttempt(File file) {
+        String name = file.getName();
+        int scheduleStart = name.indexOf('.') + 1;
+        int scheduleEnd = name.length() - ENTRY_EXTENSION.length();
+        if (scheduleStart >= scheduleEnd) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(name.substring(scheduleStart, scheduleEnd));
+        } catch (NumberFormatException exc) {
+            return 0;
+        }
+    }
+
+    private void write(File file, Entry entry) throws IOException {
+        PluginUtils.ensureDir(dir);
+        File tmpFile = new File(dir, file.getName() + ".tmp");
+        Files.deleteIfExists(tmpFile.toPath());
+        Files.createFile(tmpFile.toPath());
+        try {
+            // entry has access token, keep it readable by owner only
+            Files.setPosixFilePermissions(tmpFile.toPath(), PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException exc) {
+            // not a POSIX file system
+        }
+        mapper.writeValue(tmpFile, entry);
+        Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Report waiting for delivery.
+     */
+    public static class Entry {
+        private long created;
+        private int attempts;
+        private long nextAttempt;
+        private String lastError;
+        private String report;
+        private String tokenAndEmail;
+        private String benchQueryToken;
+
+        public long getCreated() {
+            return created;
+        }
+
+        public void setCreated(long created) {
+            this.created = created;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+
+        public void setAttempts(int attempts) {
+            this.attempts = attempts;
+        }
+
+        public long getNextAttempt() {
+            return nextAttempt;
+        }
+
+        public void setNextAttempt(long nextAttempt) {
+            this.nextAttempt = nextAttempt;
+        }
+
+        public String getLastError() {
+            return lastError;
+        }
+
+        public void setLastError(String lastError) {
+            this.lastError = lastError;
+        }
+
+        public String getReport() {
+            return report;
+        }
+
+        public void setReport(String report) {
+            this.report = report;
+        }
+
+        public String getTokenAndEmail() {
+            return tokenAndEmail;
+        }
+
+        public void setTokenAndEmail(String tokenAndEmail) {
+            this.tokenAndEmail = tokenAndEmail;
+        }
+
+        public String getBenchQueryToken() {
+            return benchQueryToken;
+        }
+
+        public void setBenchQueryToken(String benchQueryToken) {
+            this.benchQueryToken = benchQueryToken;
+        }
+    }
+}
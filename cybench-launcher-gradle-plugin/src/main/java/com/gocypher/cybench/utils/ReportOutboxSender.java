@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.apache.commons.lang3.StringUtils;
+import org.gradle.api.logging.Logger;
+
+import com.gocypher.cybench.core.utils.JSONUtils;
+import com.gocypher.cybench.launcher.BenchmarkRunner;
+import com.gocypher.cybench.launcher.model.TooManyAnomaliesException;
+import com.gocypher.cybench.launcher.report.DeliveryService;
+import com.gocypher.cybench.launcher.utils.Constants;
+
+/**
+ * Delivers reports from {@link ReportOutbox} to CyBench, retrying failed deliveries with exponential backoff.
+ * <p>
+ * Delivery is considered failed (and retried) when there is no response from CyBench. Reports rejected by CyBench
+ * (error response) are not retried and are moved to outbox {@code failed} folder.
+ */
+public class ReportOutboxSender {
+    private static final long INITIAL_BACKOFF_MILLIS = 1000;
+    private static final long MAX_BACKOFF_MILLIS = 30000;
+
+    /**
+     * Report delivery endpoint.
+     */
+    public interface ReportDelivery {
+        /**
+         * Sends report.
+         *
+         * @param reportEncrypted
+         *            encrypted report
+         * @param tokenAndEmail
+         *            request header value having bench access token and email
+         * @param benchQueryToken
+         *            bench query token
+         * @return response JSON, or empty string if report was not delivered
+         * @throws Exception
+         *             if report can't be sent
+         */
+        String send(String reportEncrypted, String tokenAndEmail, String benchQueryToken) throws Exception;
+    }
+
+    /**
+     * Delivery to CyBench using {@link DeliveryService}.
+     */
+    public static final ReportDelivery CYBENCH_DELIVERY = (reportEncrypted, tokenAndEmail,
+            benchQueryToken) -> DeliveryService.getInstance().sendReportForStoring(reportEncrypted, tokenAndEmail,
+                    benchQueryToken);
+
+    private final ReportOutbox outbox;
+    private final ReportDelivery delivery;
+    private final int retries;
+    private final Logger logger;
+
+    public ReportOutboxSender(ReportOutbox outbox, ReportDelivery delivery, int retries, Logger logger) {
+        this.outbox = outbox;
+        this.delivery = delivery;
+        this.retries = retries;
+        this.logger = logger;
+    }
+
+    /**
+     * Sends outbox entry, retrying failed attempts.
+     *
+     * @param file
+     *            outbox entry file
+     * @return CyBench response, empty if report was not delivered or entry is already being sent by other sender
+     * @throws InterruptedException
+     *             if interrupted while waiting for next attempt
+     */
+    public Map<?, ?> send(File file) throws InterruptedException {
+        File claimed = outbox.claim(file);
+        if (claimed == null) {
+            return Collections.emptyMap();
+        }
+        ReportOutbox.Entry entry;
+        try {
+            entry = outbox.read(claimed);
+        } catch (Exception exc) {
+            logger.warn("Failed to read report outbox entry {}", claimed, exc);
+            return Collections.emptyMap();
+        }
+
+        String error = null;
+        Map<?, ?> response = Collections.emptyMap();
+        long backoff = INITIAL_BACKOFF_MILLIS;
+        for (int attempt = 0; attempt <= retries && response.isEmpty(); attempt++) {
+            if (attempt > 0) {
+                logger.info("Retrying report delivery in {} ms: {}", backoff, error);
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException exc) {
+                    release(claimed, entry, error);
+                    throw exc;
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+                outbox.keepClaimed(claimed);
+            }
+            try {
+                String responseWithUrl = delivery.send(entry.getReport(), entry.getTokenAndEmail(),
+                        entry.getBenchQueryToken());
+                if (StringUtils.isNotEmpty(responseWithUrl)) {
+                    response = JSONUtils.parseJsonIntoMap(responseWithUrl);
+                }
+                if (response.isEmpty()) {
+                    error = "no response from CyBench";
+                }
+            } catch (Exception exc) {
+                error = String.valueOf(exc.getMessage());
+            }
+        }
+        if (!response.isEmpty()) {
+            // report is delivered, failure to clean up its entry must not cause it to be sent again
+            complete(claimed, entry, response);
+            return response;
+        }
+
+        logger.warn("Report delivery failed after {} attempt(s), report is kept in outbox {}: {}", retries + 1,
+                outbox.getDir(), error);
+        release(claimed, entry, error);
+        return Collections.emptyMap();
+    }
+
+    private void release(File claimed, ReportOutbox.Entry entry, String error) {
+        try {
+            outbox.release(claimed, entry, error);
+        } catch (Exception exc) {
+            logger.warn("Failed to return report to outbox {}", outbox.getDir(), exc);
+        }
+    }
+
+    /**
+     * Sends all pending outbox entries, using provided executor, and waits for deliveries to complete.
+     *
+     * @param executor
+     *            executor to send reports on
+     * @param includeDelayed
+     *            flag indicating whether entries with retry delay not yet elapsed shall be sent too
+     * @return number of reports left in outbox
+     * @throws InterruptedException
+     *             if interrupted while waiting for deliveries
+     */
+    public int drain(ExecutorService executor, boolean includeDelayed) throws InterruptedException {
+        List<Future<?>> futures = new ArrayList<>();
+        for (File file : outbox.getPending(includeDelayed)) {
+            futures.add(executor.submit(() -> {
+                Map<?, ?> response = send(file);
+                if (!response.isEmpty()) {
+                    logResponse(response);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException exc) {
+                logger.warn("Report delivery failed", exc.getCause());
+            }
+        }
+        return outbox.getPending(true).size();
+    }
+
+    private void complete(File claimed, ReportOutbox.Entry entry, Map<?, ?> response) {
+        try {
+            if (BenchmarkRunner.isErrorResponse(response)) {
+                File failed = outbox.fail(claimed, entry, BenchmarkRunner.getErrorResponseMessage(response));
+                logger.error("CyBench backend service sent error response: {}, report moved to {}",
+                        BenchmarkRunner.getErrorResponseMessage(response), failed);
+            } else {
+                outbox.remove(claimed);
+            }
+        } catch (IOException exc) {
+            logger.error("Failed to remove delivered report from outbox, delete {} to prevent sending it again",
+                    claimed, exc);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void logResponse(Map<?, ?> response) {
+        if (BenchmarkRunner.isErrorResponse(response)) {
+            return;
+        }
+        logger.lifecycle("Benchmark report submitted successfully to {}", Constants.REPORT_URL);
+        logger.lifecycle("You can find all device benchmarks on {}", response.get(Constants.REPORT_USER_URL));
+        logger.lifecycle("Your report is available at {}", response.get(Constants.REPORT_URL));
+        if (response.containsKey("automatedComparisons")) {
+            try {
+                BenchmarkRunner.verifyAnomalies((List<Map<String, Object>>) response.get("automatedComparisons"));
+            } catch (TooManyAnomaliesException exc) {
+                logger.error("CyBench automated comparison found too many anomalies: {}", exc.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.gocypher.cybench.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.runner.BenchmarkListEntry;
+
+/**
+ * Listener of benchmarks run events, notified by {@link ListeningOutputFormat} as JMH runner reports them.
+ */
+public interface RunListener extends Closeable {
+    /**
+     * Called before benchmarks are run, with all benchmarks planned to be run (possibly in several JMH runs).
+     *
+     * @param entries
+     *            planned benchmarks
+     */
+    default void runPlanned(Collection<BenchmarkListEntry> entries) {
+    }
+
+    default void benchmarkStarted(BenchmarkParams params) {
+    }
+
+    default void iterationCompleted(BenchmarkParams params, IterationParams iterationParams, int iteration,
+            IterationResult result) {
+    }
+
+    default void benchmarkCompleted(BenchmarkResult result) {
+    }
+
+    @Override
+    default void close() throws IOException {
+    }
+}
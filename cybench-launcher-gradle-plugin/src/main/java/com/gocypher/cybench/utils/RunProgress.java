@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.gocypher.cybench.utils;
+
+import java.util.Collection;
+import java.util.Map;
+
+import org.gradle.api.logging.Logger;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.runner.BenchmarkListEntry;
+
+import com.gocypher.cybench.launcher.utils.ComputationUtils;
+
+/**
+ * Tracks benchmarks run progress and estimates remaining run time from average duration of completed benchmarks.
+ */
+public class RunProgress implements RunListener {
+    private final Logger logger;
+    private final boolean logProgress;
+    private long startTime = System.currentTimeMillis();
+    private volatile int planned;
+    private volatile int completed;
+    private volatile String currentBenchmark;
+
+    public RunProgress(Logger logger, boolean logProgress) {
+        this.logger = logger;
+        this.logProgress = logProgress;
+    }
+
+    @Override
+    public void runPlanned(Collection<BenchmarkListEntry> entries) {
+        int count = 0;
+        for (BenchmarkListEntry entry : entries) {
+            int combinations = 1;
+            if (entry.getParams().hasValue()) {
+                for (Map.Entry<String, String[]> param : entry.getParams().get().entrySet()) {
+                    combinations *= Math.max(1, param.getValue().length);
+                }
+            }
+            count += combinations;
+        }
+        planned = count;
+        completed = 0;
+        startTime = System.currentTimeMillis();
+    }
+
+    @Override
+    public void benchmarkStarted(BenchmarkParams params) {
+        currentBenchmark = params.id();
+    }
+
+    @Override
+    public void benchmarkCompleted(BenchmarkResult result) {
+        completed++;
+        if (logProgress) {
+            long eta = getEta();
+            logger.lifecycle("CyBench progress: {}/{} benchmark(s) completed, elapsed {}{}", completed,
+                    Math.max(planned, completed), ComputationUtils.formatInterval(getElapsed()),
+                    eta < 0 ? "" : ", ETA " + ComputationUtils.formatInterval(eta));
+        }
+    }
+
+    public int getPlanned() {
+        return Math.max(planned, completed);
+    }
+
+    public int getCompleted() {
+        return completed;
+    }
+
+    public String getCurrentBenchmark() {
+        return currentBenchmark;
+    }
+
+    public long getElapsed() {
+        return System.currentTimeMillis() - startTime;
+    }
+
+    /**
+     * Estimates remaining run time.
+     *
+     * @return estimated remaining run time in milliseconds, or {@code -1} if no benchmark is completed yet
+     */
+    public long getEta() {
+        int done = completed;
+        if (done == 0) {
+            return -1;
+        }
+        return getElapsed() / done * Math.max(0, planned - done);
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.gocypher.cybench.utils;
+
+import java.util.*;
+
+import org.gradle.api.logging.Logger;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+
+/**
+ * Checks benchmark scores against configured thresholds as soon as benchmarks complete, and aborts benchmarks run by
+ * throwing {@link ThresholdViolationException} once number of violations exceeds allowed number.
+ * <p>
+ * Score change is checked against {@link BenchmarkBaseline} score and only regressions are counted as violations:
+ * score decrease for throughput mode, score increase for time based modes.
+ */
+public class ScoreGate implements RunListener {
+    private final List<ScoreThreshold> thresholds;
+    private final BenchmarkBaseline baseline;
+    private final int violationsAllowed;
+    private final Logger logger;
+    private final List<String> violations = new ArrayList<>();
+    private final Set<String> checked = new HashSet<>();
+    private boolean deferred;
+
+    public ScoreGate(List<ScoreThreshold> thresholds, BenchmarkBaseline baseline, int violationsAllowed,
+            Logger logger) {
+        this.thresholds = thresholds;
+        this.baseline = baseline;
+        this.violationsAllowed = violationsAllowed;
+        this.logger = logger;
+    }
+
+    /**
+     * Sets whether completed benchmarks shall not be checked until {@link #verify(Collection)} is called, e.g. when
+     * benchmark is run in several rounds and single round result is not final.
+     *
+     * @param deferred
+     *            flag indicating whether checks are deferred
+     */
+    public void setDeferred(boolean deferred) {
+        this.deferred = deferred;
+    }
+
+    @Override
+    public void benchmarkCompleted(BenchmarkResult result) {
+        if (!deferred) {
+            check(result.getParams(), result.getPrimaryResult());
+        }
+    }
+
+    /**
+     * Checks run results which were not checked yet while benchmarks were running.
+     *
+     * @param results
+     *            benchmarks run results
+     * @throws ThresholdViolationException
+     *             if number of violations exceeds allowed number
+     */
+    public void verify(Collection<RunResult> results) {
+        for (RunResult result : results) {
+            check(result.getParams(), result.getPrimaryResult());
+        }
+    }
+
+    public List<String> getViolations() {
+        return Collections.unmodifiableList(violations);
+    }
+
+    private void check(BenchmarkParams params, Result<?> primaryResult) {
+        if (primaryResult == null || !checked.add(BenchmarkBaseline.getKey(params))) {
+            return;
+        }
+        String name = params.getBenchmark();
+        double score = primaryResult.getScore();
+        boolean higherIsBetter = params.getMode() == Mode.Throughput;
+        Double baselineScore = baseline == null ? null : baseline.getScore(params);
+        for (ScoreThreshold threshold : thresholds) {
+            if (!threshold.matches(name)) {
+                continue;
+            }
+            if (threshold.getMinScore() != null && score < threshold.getMinScore()) {
+                addViolation(params, String.format(Locale.ROOT, "score %.6f is less than minimum %.6f %s", score,
+                        threshold.getMinScore(), primaryResult.getScoreUnit()));
+            }
+            if (threshold.getMaxScore() != null && score > threshold.getMaxScore()) {
+                addViolation(params, String.format(Locale.ROOT, "score %.6f is greater than maximum %.6f %s", score,
+                        threshold.getMaxScore(), primaryResult.getScoreUnit()));
+            }
+            if (threshold.getMaxChangePercent() != null && baselineScore != null && baselineScore != 0) {
+                double change = (score - baselineScore) / Math.abs(baselineScore) * 100;
+                double regression = higherIsBetter ? -change : change;
+                if (regression > threshold.getMaxChangePercent()) {
+                    addViolation(params, String.format(Locale.ROOT,
+                            "score %.6f changed by %+.2f%% from baseline %.6f %s, allowed %.2f%%", score, change,
+                            baselineScore, primaryResult.getScoreUnit(), threshold.getMaxChangePercent()));
+                }
+            }
+        }
+        if (violations.size() > violationsAllowed) {
+            throw new ThresholdViolationException(new ArrayList<>(violations), violationsAllowed);
+        }
+    }
+
+    private void addViolation(BenchmarkParams params, String violation) {
+        String message = BenchmarkBaseline.getKey(params) + ": " + violation;
+        logger.warn("Benchmark score threshold violated: {}", message);
+        violations.add(message);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.gocypher.cybench.utils;
+
+import java.io.Serializable;
+import java.util.regex.Pattern;
+
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Optional;
+
+/**
+ * Score threshold of benchmarks matching name pattern, declared in {@code cybenchJMH { threshold('pattern') { ... } }}
+ * block. Checked as soon as benchmark completes, see {@link ScoreGate}.
+ */
+public class ScoreThreshold implements Serializable {
+    private static final long serialVersionUID = -2780393315460127513L;
+
+    private String pattern;
+    private Double minScore;
+    private Double maxScore;
+    private Double maxChangePercent;
+    // pattern compiled on first match, recompiled if pattern changes
+    private transient Pattern compiledPattern;
+
+    public ScoreThreshold() {
+    }
+
+    public ScoreThreshold(String pattern) {
+        this.pattern = pattern;
+    }
+
+    /**
+     * Checks if threshold shall be applied to provided benchmark.
+     *
+     * @param benchmark
+     *            benchmark name ({@code class.method})
+     * @return {@code true} if pattern matches benchmark name
+     */
+    public boolean matches(String benchmark) {
+        if (pattern == null) {
+            return false;
+        }
+        return getCompiledPattern().matcher(benchmark).find();
+    }
+
+    private synchronized Pattern getCompiledPattern() {
+        if (compiledPattern == null || !compiledPattern.pattern().equals(pattern)) {
+            compiledPattern = Pattern.compile(pattern);
+        }
+        return compiledPattern;
+    }
+
+    @Input
+    public String getPattern() {
+        return pattern;
+    }
+
+    public void setPattern(String pattern) {
+        this.pattern = pattern;
+    }
+
+    @Input
+    @Optional
+    public Double getMinScore() {
+        return minScore;
+    }
+
+    public void setMinScore(Double minScore) {
+        this.minScore = minScore;
+    }
+
+    @Input
+    @Optional
+    public Double getMaxScore() {
+        return maxScore;
+    }
+
+    public void setMaxScore(Double maxScore) {
+        this.maxScore = maxScore;
+    }
+
+    @Input
+    @Optional
+    public Double getMaxChangePercent() {
+        return maxChangePercent;
+    }
+
+    public void setMaxChangePercent(Double maxChangePercent) {
+        this.maxChangePercent = maxChangePercent;
+    }
+
+    @Override
+    public String toString() {
+        return pattern + "{minScore=" + minScore + ", maxScore=" + maxScore + ", maxChangePercent="
+                + maxChangePercent + "}";
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.utils;
+
+import java.io.*;
+import java.util.*;
+
+import org.openjdk.jmh.results.RunResult;
+
+/**
+ * Partial benchmarks run result of a single shard, merged into a complete report by {@code cybenchMerge} task.
+ */
+public class ShardResult implements Serializable {
+    private static final long serialVersionUID = -6318727021452379027L;
+
+    public static final String FILE_EXTENSION = ".shard";
+
+    private String module;
+    private int shardIndex;
+    private int shardCount;
+    private long startTime;
+    private List<RunResult> results = new ArrayList<>();
+    private Map<String, String> generatedFingerprints = new HashMap<>();
+    private Map<String, String> manualFingerprints = new HashMap<>();
+    private Map<String, String> classFingerprints = new HashMap<>();
+    private Set<String> cachedBenchmarks = new HashSet<>();
+    private Map<String, Set<String>> profilerArtifacts = new HashMap<>();
+    private Map<String, String> adaptiveStatistics = new HashMap<>();
+    private Map<String, Object> hostNoise;
+
+    public static String getFileName(int shardIndex, int shardCount) {
+        return "shard-" + shardIndex + "-of-" + shardCount + FILE_EXTENSION;
+    }
+
+    public static ShardResult read(File file) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            return (ShardResult) in.readObject();
+        }
+    }
+
+    public void write(File file) throws IOException {
+        PluginUtils.ensureParentDir(file);
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeObject(this);
+        }
+    }
+
+    /**
+     * Returns path of the project which benchmarks results belong to, when results are aggregated across projects.
+     *
+     * @return project path, or {@code null} for results of a benchmarks shard
+     */
+    public String getModule() {
+        return module;
+    }
+
+    public void setModule(String module) {
+        this.module = module;
+    }
+
+    public int getShardIndex() {
+        return shardIndex;
+    }
+
+    public void setShardIndex(int shardIndex) {
+        this.shardIndex = shardIndex;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public void setShardCount(int shardCount) {
+        this.shardCount = shardCount;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(long startTime) {
+        this.startTime = startTime;
+    }
+
+    public List<RunResult> getResults() {
+        return results;
+    }
+
+    public Map<String, String> getGeneratedFingerprints() {
+        return generatedFingerprints;
+    }
+
+    public Map<String, String> getManualFingerprints() {
+        return manualFingerprints;
+    }
+
+    public Map<String, String> getClassFingerprints() {
+        return classFingerprints;
+    }
+
+    public Set<String> getCachedBenchmarks() {
+        return cachedBenchmarks;
+    }
+
+    /**
+     * Returns files written by JMH profilers, keyed by benchmark name.
+     *
+     * @return profiler artifacts of benchmarks
+     */
+    public Map<String, Set<String>> getProfilerArtifacts() {
+        return profilerArtifacts;
+    }
+
+    /**
+     * Returns adaptive measurement statistics (iterations run, reached error), keyed by benchmark name.
+     *
+     * @return adaptive statistics of benchmarks
+     */
+    public Map<String, String> getAdaptiveStatistics() {
+        return adaptiveStatistics;
+    }
+
+    /**
+     * Returns host noise observed while benchmarks were run.
+     *
+     * @return host noise, or {@code null} when host noise check was disabled
+     */
+    public Map<String, Object> getHostNoise() {
+        return hostNoise;
+    }
+
+    public void setHostNoise(Map<String, Object> hostNoise) {
+        this.hostNoise = hostNoise;
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.gocypher.cybench.utils;
+
+import java.util.List;
+
+import org.gradle.api.GradleException;
+
+/**
+ * Thrown when number of benchmark score threshold violations found during benchmarks run exceeds allowed number.
+ */
+public class ThresholdViolationException extends GradleException {
+    private static final long serialVersionUID = 3870532157620418764L;
+
+    private final List<String> violations;
+
+    public ThresholdViolationException(List<String> violations, int allowed) {
+        super("Benchmark score thresholds violated " + violations.size() + " time(s), allowed " + allowed
+                + ", benchmarks run aborted:\n  " + String.join("\n  ", violations));
+        this.violations = violations;
+    }
+
+    public List<String> getViolations() {
+        return violations;
+    }
+}
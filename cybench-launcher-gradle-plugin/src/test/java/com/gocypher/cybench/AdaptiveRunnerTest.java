@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.gocypher.cybench;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.util.*;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.BenchmarkListEntry;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.util.Optional;
+
+import com.gocypher.cybench.utils.TestResults;
+
+public class AdaptiveRunnerTest {
+    private static final Logger LOGGER = Logging.getLogger(AdaptiveRunnerTest.class);
+
+    @TempDir
+    File dir;
+
+    @Test
+    public void firstRoundHasConfiguredForks() throws Exception {
+        TestRunner runner = new TestRunner(10, new double[] { 10, 10.01, 10 });
+
+        runner.run(Collections.singletonList(entry("a.A", "x")), options(3, 1));
+
+        assertEquals(1, runner.rounds.size());
+        assertEquals(3, (int) runner.rounds.get(0).getForkCount().get());
+        assertEquals(1, (int) runner.rounds.get(0).getMeasurementIterations().get());
+        assertEquals("error=0.003307;confidence=0.99;rounds=1", runner.getStatistics().get("a.A.x"));
+    }
+
+    @Test
+    public void errorIsEstimatedAfterFirstRound() throws Exception {
+        TestRunner runner = new TestRunner(10, new double[] { 10, 10, 10 });
+
+        runner.run(Collections.singletonList(entry("a.A", "x")), options(1, 1));
+
+        assertEquals(1, runner.rounds.size());
+        assertEquals(1, (int) runner.rounds.get(0).getForkCount().get());
+        assertEquals(3, (int) runner.rounds.get(0).getMeasurementIterations().get());
+    }
+
+    @Test
+    public void roundsAreRunUntilTargetError() throws Exception {
+        TestRunner runner = new TestRunner(10, new double[] { 10, 20 },
+                new double[] { 15, 15, 15, 15, 15, 15, 15, 15 });
+
+        Collection<RunResult> results = runner.run(Collections.singletonList(entry("a.A", "x")), options(2, 5));
+
+        assertEquals(2, runner.rounds.size());
+        assertEquals(2, (int) runner.rounds.get(0).getForkCount().get());
+        assertEquals(5, (int) runner.rounds.get(0).getMeasurementIterations().get());
+        assertEquals(1, (int) runner.rounds.get(1).getForkCount().get());
+        assertEquals(5, (int) runner.rounds.get(1).getMeasurementIterations().get());
+        assertEquals(1, results.size());
+        RunResult result = results.iterator().next();
+        assertEquals(2, result.getBenchmarkResults().size());
+        assertEquals(15, result.getPrimaryResult().getScore(), 1e-9);
+        assertTrue(runner.getStatistics().get("a.A.x").endsWith(";rounds=2"));
+    }
+
+    @Test
+    public void roundsAreLimited() throws Exception {
+        TestRunner runner = new TestRunner(3, new double[] { 10, 20 });
+
+        runner.run(Arrays.asList(entry("b.B", "x"), entry("a.A", "x")), options(0, 1));
+
+        assertEquals(6, runner.rounds.size());
+        for (int i = 0; i < runner.rounds.size(); i++) {
+            assertEquals(0, (int) runner.rounds.get(i).getForkCount().get());
+            assertEquals(i % 3 == 0 ? 3 : 1, (int) runner.rounds.get(i).getMeasurementIterations().get());
+        }
+        assertEquals(Arrays.asList("a.A.x", "a.A.x", "a.A.x", "b.B.x", "b.B.x", "b.B.x"), runner.benchmarks);
+        assertTrue(runner.getStatistics().get("b.B.x").endsWith(";rounds=3"));
+    }
+
+    private static Options options(int forks, int iterations) {
+        return new OptionsBuilder().forks(forks).measurementIterations(iterations).build();
+    }
+
+    private static BenchmarkListEntry entry(String className, String method) {
+        return new BenchmarkListEntry(className, className + "_jmhType", method, Mode.Throughput, Optional.none(),
+                new int[] { 1 }, Optional.none(), Optional.none(), Optional.none(), Optional.none(),
+                Optional.none(), Optional.none(), Optional.none(), Optional.none(), Optional.none(),
+                Optional.none(), Optional.none(), Optional.none(), Optional.none(), Optional.none(),
+                Optional.none(), Optional.none(), Optional.none());
+    }
+
+    /**
+     * Adaptive runner returning provided scores for rounds instead of running benchmarks, last scores are repeated.
+     */
+    private class TestRunner extends AdaptiveRunner {
+        private final double[][] roundScores;
+        private final List<Options> rounds = new ArrayList<>();
+        private final List<String> benchmarks = new ArrayList<>();
+
+        TestRunner(int maxRounds, double[]... roundScores) {
+            super(new File(dir, "list"), 0.2, 0.99, maxRounds, 0, null, LOGGER);
+            this.roundScores = roundScores;
+        }
+
+        @Override
+        Collection<RunResult> runRound(BenchmarkListEntry entry, Options options) {
+            int round = Collections.frequency(benchmarks, entry.getUsername());
+            rounds.add(options);
+            benchmarks.add(entry.getUsername());
+            return Collections.singletonList(TestResults.runResult(entry.getUsername(),
+                    roundScores[Math.min(round, roundScores.length - 1)]));
+        }
+    }
+}
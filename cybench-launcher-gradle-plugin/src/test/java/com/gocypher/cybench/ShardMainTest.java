@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.gocypher.cybench;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.gocypher.cybench.utils.PluginUtils;
+
+public class ShardMainTest {
+    @TempDir
+    File dir;
+
+    @Test
+    public void argumentsAreChecked() {
+        assertThrows(IllegalArgumentException.class, () -> ShardMain.main(new String[0]));
+        assertThrows(IllegalArgumentException.class, () -> ShardMain.main(new String[] { "a", "b" }));
+    }
+
+    @Test
+    public void resultsAreNotWrittenWhenShardRunFails() throws Exception {
+        Options options = new OptionsBuilder().forks(0).build();
+        File optionsFile = new File(dir, "options.ser");
+        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(optionsFile))) {
+            out.writeObject(options);
+        }
+        File listFile = new File(dir, "BenchmarkList");
+        PluginUtils.writeBenchmarkList(listFile, Collections.emptyList());
+        File resultFile = new File(dir, "results.ser");
+
+        assertThrows(Exception.class, () -> ShardMain
+                .main(new String[] { optionsFile.getPath(), listFile.getPath(), resultFile.getPath() }));
+        assertFalse(resultFile.exists());
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.gocypher.cybench;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.util.*;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openjdk.jmh.results.RunResult;
+
+import com.gocypher.cybench.launcher.model.BenchmarkingContext;
+import com.gocypher.cybench.utils.ShardResult;
+import com.gocypher.cybench.utils.TestResults;
+
+public class ShardMergeTest {
+    private static final Logger LOGGER = Logging.getLogger(ShardMergeTest.class);
+
+    @TempDir
+    File dir;
+
+    @Test
+    public void shardResultIsWrittenAndRead() throws Exception {
+        ShardResult shardResult = shard(1, 2, 2000L, "a.Bench.first", 10.0, 12.0);
+        shardResult.getCachedBenchmarks().add("a.Bench.first");
+        shardResult.getClassFingerprints().put("a.Bench", "f1");
+        File file = write(shardResult);
+        assertEquals("shard-1-of-2.shard", file.getName());
+
+        ShardResult read = ShardResult.read(file);
+        assertEquals(1, read.getShardIndex());
+        assertEquals(2, read.getShardCount());
+        assertEquals(2000L, read.getStartTime());
+        assertEquals(1, read.getResults().size());
+        assertEquals("a.Bench.first", read.getResults().get(0).getParams().getBenchmark());
+        assertEquals(11.0, read.getResults().get(0).getPrimaryResult().getScore(), 1e-9);
+        assertEquals(Collections.singleton("a.Bench.first"), read.getCachedBenchmarks());
+        assertEquals("f1", read.getClassFingerprints().get("a.Bench"));
+    }
+
+    @Test
+    public void shardsAreMerged() throws Exception {
+        ShardResult first = shard(0, 2, 3000L, "a.Bench.first", 10.0);
+        first.getClassFingerprints().put("a.Bench", "f1");
+        first.getCachedBenchmarks().add("a.Bench.first");
+        ShardResult second = shard(1, 2, 2000L, "b.Bench.second", 20.0);
+        second.getClassFingerprints().put("b.Bench", "f2");
+        BenchmarkingContext benchContext = new BenchmarkingContext();
+
+        Collection<RunResult> results = new Launcher().loadShardResults(benchContext,
+                Arrays.asList(write(first), write(second)), LOGGER);
+
+        assertEquals(2, results.size());
+        assertEquals(2, benchContext.getResults().size());
+        assertEquals(2000L, benchContext.getStartTime());
+        assertEquals("f1", benchContext.getClassFingerprints().get("a.Bench"));
+        assertEquals("f2", benchContext.getClassFingerprints().get("b.Bench"));
+        assertEquals(Collections.singleton("a.Bench.first"), benchContext.getContextMetadata("cachedBenchmarks"));
+    }
+
+    @Test
+    public void duplicateShardIsRejected() throws Exception {
+        File first = write(shard(0, 2, 1000L, "a.Bench.first", 10.0));
+        File copy = new File(dir, "copy" + ShardResult.FILE_EXTENSION);
+        ShardResult.read(first).write(copy);
+
+        assertThrows(GradleException.class, () -> new Launcher().loadShardResults(new BenchmarkingContext(),
+                Arrays.asList(first, copy), LOGGER));
+    }
+
+    @Test
+    public void shardsOfDifferentRunsAreRejected() throws Exception {
+        File first = write(shard(0, 2, 1000L, "a.Bench.first", 10.0));
+        File second = write(shard(1, 3, 1000L, "b.Bench.second", 20.0));
+
+        assertThrows(GradleException.class, () -> new Launcher().loadShardResults(new BenchmarkingContext(),
+                Arrays.asList(first, second), LOGGER));
+    }
+
+    @Test
+    public void noShardsIsRejected() {
+        assertThrows(GradleException.class, () -> new Launcher().loadShardResults(new BenchmarkingContext(),
+                Collections.emptyList(), LOGGER));
+    }
+
+    private static ShardResult shard(int shardIndex, int shardCount, long startTime, String benchmark,
+            double... scores) {
+        ShardResult shardResult = new ShardResult();
+        shardResult.setShardIndex(shardIndex);
+        shardResult.setShardCount(shardCount);
+        shardResult.setStartTime(startTime);
+        shardResult.getResults().add(TestResults.runResult(benchmark, scores));
+        return shardResult;
+    }
+
+    private File write(ShardResult shardResult) throws Exception {
+        File file = new File(dir, ShardResult.getFileName(shardResult.getShardIndex(), shardResult.getShardCount()));
+        shardResult.write(file);
+        return file;
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.gocypher.cybench.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openjdk.jmh.annotations.Benchmark;
+
+import com.gocypher.cybench.core.annotation.BenchmarkMetaData;
+
+public class BenchmarkClassIndexTest {
+    private static final Logger LOGGER = Logging.getLogger(BenchmarkClassIndexTest.class);
+
+    @TempDir
+    File dir;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        copyClass(BaseBenchmark.class);
+        copyClass(ChildBenchmark.class);
+        copyClass(RepeatedMetadataBenchmark.class);
+    }
+
+    @Test
+    public void classEntryIsShared() throws Exception {
+        try (BenchmarkClassIndex index = index()) {
+            assertSame(index.getClassEntry(ChildBenchmark.class.getName()),
+                    index.getClassEntry(ChildBenchmark.class.getName()));
+        }
+    }
+
+    @Test
+    public void metadataIsRead() throws Exception {
+        try (BenchmarkClassIndex index = index()) {
+            BenchmarkClassIndex.ClassEntry entry = index.getClassEntry(ChildBenchmark.class.getName());
+
+            assertEquals(Collections.singletonMap("domain", "child"), entry.getClassMetadata());
+            assertEquals(Collections.singletonMap("api", "measure"), entry.getMethodMetadata("measure"));
+            assertTrue(entry.getMethodMetadata("missing").isEmpty());
+        }
+    }
+
+    @Test
+    public void inheritedMethodMetadataIsResolved() throws Exception {
+        try (BenchmarkClassIndex index = index()) {
+            BenchmarkClassIndex.ClassEntry entry = index.getClassEntry(ChildBenchmark.class.getName());
+
+            assertEquals(Collections.singletonMap("api", "inherited"), entry.getMethodMetadata("inherited"));
+            assertEquals(Collections.singletonMap("api", "overridden"), entry.getMethodMetadata("overridden"));
+        }
+    }
+
+    @Test
+    public void repeatedMetadataIsRead() throws Exception {
+        try (BenchmarkClassIndex index = index()) {
+            BenchmarkClassIndex.ClassEntry entry = index.getClassEntry(RepeatedMetadataBenchmark.class.getName());
+
+            Map<String, String> classMetadata = new LinkedHashMap<>();
+            classMetadata.put("domain", "repeated");
+            classMetadata.put("context", "list");
+            assertEquals(classMetadata, entry.getClassMetadata());
+            Map<String, String> methodMetadata = new LinkedHashMap<>();
+            methodMetadata.put("api", "measure");
+            methodMetadata.put("version", "1.0");
+            assertEquals(methodMetadata, entry.getMethodMetadata("measure"));
+        }
+    }
+
+    @Test
+    public void unchangedClassFilesAreNotParsedAgain() throws Exception {
+        try (BenchmarkClassIndex index = index()) {
+            index.getClassEntry(ChildBenchmark.class.getName());
+        }
+        assertTrue(new File(dir, "metadata.ser").isFile());
+
+        // broken class file of the same size and modification time is taken from the cache
+        File classFile = new File(dir, ChildBenchmark.class.getName().replace('.', '/') + ".class");
+        long lastModified = classFile.lastModified();
+        Files.write(classFile.toPath(), new byte[(int) classFile.length()]);
+        assertTrue(classFile.setLastModified(lastModified));
+        try (BenchmarkClassIndex index = index()) {
+            BenchmarkClassIndex.ClassEntry entry = index.getClassEntry(ChildBenchmark.class.getName());
+
+            assertEquals(Collections.singletonMap("domain", "child"), entry.getClassMetadata());
+            assertEquals(Collections.singletonMap("api", "inherited"), entry.getMethodMetadata("inherited"));
+        }
+
+        // changed class file is parsed again
+        assertTrue(classFile.setLastModified(lastModified - 10000));
+        try (BenchmarkClassIndex index = index()) {
+            assertThrows(ClassNotFoundException.class, () -> index.getClassEntry(ChildBenchmark.class.getName()));
+        }
+    }
+
+    @Test
+    public void missingClassIsNotFound() throws Exception {
+        try (BenchmarkClassIndex index = index()) {
+            assertThrows(ClassNotFoundException.class, () -> index.getClassEntry("com.example.Missing"));
+        }
+    }
+
+    private BenchmarkClassIndex index() {
+        return new BenchmarkClassIndex(Collections.singletonList(dir), new File(dir, "metadata.ser"), LOGGER);
+    }
+
+    private void copyClass(Class<?> clazz) throws IOException {
+        String path = clazz.getName().replace('.', '/') + ".class";
+        File targetFile = new File(dir, path);
+        Files.createDirectories(targetFile.getParentFile().toPath());
+        try (InputStream in = clazz.getResourceAsStream("/" + path)) {
+            Files.copy(in, targetFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    public static class BaseBenchmark {
+        @Benchmark
+        @BenchmarkMetaData(key = "api", value = "inherited")
+        public void inherited() {
+        }
+
+        @Benchmark
+        @BenchmarkMetaData(key = "api", value = "base")
+        public void overridden() {
+        }
+    }
+
+    @BenchmarkMetaData(key = "domain", value = "child")
+    public static class ChildBenchmark extends BaseBenchmark {
+        @Benchmark
+        @BenchmarkMetaData(key = "api", value = "measure")
+        public void measure() {
+        }
+
+        @Override
+        @Benchmark
+        @BenchmarkMetaData(key = "api", value = "overridden")
+        public void overridden() {
+        }
+    }
+
+    @BenchmarkMetaData(key = "domain", value = "repeated")
+    @BenchmarkMetaData(key = "context", value = "list")
+    public static class RepeatedMetadataBenchmark {
+        @Benchmark
+        @BenchmarkMetaData(key = "api", value = "measure")
+        @BenchmarkMetaData(key = "version", value = "1.0")
+        public void measure() {
+        }
+    }
+}
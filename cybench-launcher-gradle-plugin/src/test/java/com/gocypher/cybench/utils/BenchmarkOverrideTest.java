@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.gocypher.cybench.utils;
+
+import static com.gocypher.cybench.utils.BenchmarkShardingTest.entry;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.runner.BenchmarkListEntry;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+public class BenchmarkOverrideTest {
+    @Test
+    public void patternIsMatched() {
+        BenchmarkOverride override = new BenchmarkOverride("\\.A\\.");
+
+        assertTrue(override.matches("a.A.x"));
+        assertFalse(override.matches("b.B.x"));
+        assertFalse(new BenchmarkOverride().matches("a.A.x"));
+    }
+
+    @Test
+    public void changedPatternIsMatched() {
+        BenchmarkOverride override = new BenchmarkOverride("\\.A\\.");
+        assertFalse(override.matches("b.B.x"));
+
+        override.setPattern("\\.B\\.");
+        assertTrue(override.matches("b.B.x"));
+        assertFalse(override.matches("a.A.x"));
+        override.setPattern(null);
+        assertFalse(override.matches("b.B.x"));
+    }
+
+    @Test
+    public void benchmarksAreGroupedByMatchingOverrides() {
+        BenchmarkOverride allOverride = new BenchmarkOverride("x$");
+        BenchmarkOverride aOverride = new BenchmarkOverride("\\.A\\.");
+        BenchmarkListEntry ax = entry("a.A", "x");
+        BenchmarkListEntry ay = entry("a.A", "y");
+        BenchmarkListEntry bx = entry("b.B", "x");
+        BenchmarkListEntry by = entry("b.B", "y");
+
+        Map<List<BenchmarkOverride>, List<BenchmarkListEntry>> groups = BenchmarkOverride
+                .group(Arrays.asList(by, bx, ay, ax), Arrays.asList(allOverride, aOverride));
+
+        assertEquals(Arrays.asList(Arrays.asList(allOverride, aOverride), Collections.singletonList(aOverride),
+                Collections.singletonList(allOverride), Collections.emptyList()), new ArrayList<>(groups.keySet()));
+        assertEquals(Collections.singletonList(ax), groups.get(Arrays.asList(allOverride, aOverride)));
+        assertEquals(Collections.singletonList(ay), groups.get(Collections.singletonList(aOverride)));
+        assertEquals(Collections.singletonList(bx), groups.get(Collections.singletonList(allOverride)));
+        assertEquals(Collections.singletonList(by), groups.get(Collections.emptyList()));
+    }
+
+    @Test
+    public void laterOverridesTakePrecedence() {
+        Options options = new OptionsBuilder().forks(1).threads(1).measurementIterations(5).build();
+        BenchmarkOverride first = new BenchmarkOverride("x$");
+        first.setForks(2);
+        first.setThreads(4);
+        BenchmarkOverride second = new BenchmarkOverride("x$");
+        second.setForks(3);
+
+        Options overridden = BenchmarkOverride.withOverrides(options, Arrays.asList(first, second));
+
+        assertEquals(3, (int) overridden.getForkCount().get());
+        assertEquals(4, (int) overridden.getThreads().get());
+        assertEquals(5, (int) overridden.getMeasurementIterations().get());
+        assertSame(options, BenchmarkOverride.withOverrides(options, Collections.emptyList()));
+    }
+
+    @Test
+    public void profileIsAppliedToConfiguration() {
+        LauncherConfiguration configuration = new LauncherConfiguration();
+        configuration.setThreads(2);
+        configuration.getJmh().param("size", 1, 2);
+        configuration.getJmh().param("type", "a");
+        configuration.override("\\.A\\.", override -> override.setForks(2));
+        BenchmarkProfile profile = new BenchmarkProfile("smoke");
+        profile.setForks(3);
+        profile.getJmh().param("size", 10);
+        profile.override("\\.B\\.", override -> override.setThreads(4));
+
+        assertSame(configuration, profile.applyTo(configuration));
+
+        assertEquals(3, configuration.getForks());
+        assertEquals(2, configuration.getThreads());
+        assertEquals(Collections.singletonList("10"), configuration.getJmh().getParams().get("size"));
+        assertEquals(Collections.singletonList("a"), configuration.getJmh().getParams().get("type"));
+        List<BenchmarkOverride> overrides = configuration.getOverrides();
+        assertEquals(2, overrides.size());
+        assertEquals("\\.A\\.", overrides.get(0).getPattern());
+        assertEquals("\\.B\\.", overrides.get(1).getPattern());
+        assertEquals(1, profile.getOverrides().size());
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.gocypher.cybench.utils;
+
+import static com.gocypher.cybench.utils.TestResults.runResult;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openjdk.jmh.results.RunResult;
+
+public class BenchmarkResultStoreTest {
+    private static final Logger LOGGER = Logging.getLogger(BenchmarkResultStoreTest.class);
+
+    @TempDir
+    File dir;
+
+    @Test
+    public void resultsAreReusedForSameFingerprint() {
+        BenchmarkResultStore store = BenchmarkResultStore.load(new File(dir, "results.bin"), LOGGER);
+        store.putResults("a.A.x", "1", Collections.singletonList(runResult("a.A.x", 10)));
+
+        assertEquals(1, store.getResults("a.A.x", "1").size());
+        assertNull(store.getResults("a.A.x", "2"));
+        assertNull(store.getResults("a.A.x", null));
+        assertNull(store.getResults("b.B.x", "1"));
+    }
+
+    @Test
+    public void storeIsSavedAndLoaded() throws IOException {
+        File storeFile = new File(dir, "incremental/results.bin");
+        BenchmarkResultStore store = BenchmarkResultStore.load(storeFile, LOGGER);
+        store.putResults("a.A.x", "1", Collections.singletonList(runResult("a.A.x", 10, 20)));
+        store.putResults("b.B.x", "1", Collections.singletonList(runResult("b.B.x", 5)));
+        store.retainAll(Arrays.asList("a.A.x", "c.C.x"));
+        store.save();
+
+        BenchmarkResultStore loaded = BenchmarkResultStore.load(storeFile, LOGGER);
+        List<RunResult> results = loaded.getResults("a.A.x", "1");
+        assertEquals(1, results.size());
+        assertEquals(15, results.get(0).getPrimaryResult().getScore(), 1e-9);
+        assertNull(loaded.getResults("b.B.x", "1"));
+    }
+
+    @Test
+    public void unreadableStoreIsEmpty() throws IOException {
+        File storeFile = new File(dir, "results.bin");
+        Files.write(storeFile.toPath(), "broken".getBytes(StandardCharsets.UTF_8));
+
+        assertNull(BenchmarkResultStore.load(storeFile, LOGGER).getResults("a.A.x", "1"));
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.gocypher.cybench.utils;
+
+import static com.gocypher.cybench.utils.BenchmarkShardingTest.entry;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openjdk.jmh.runner.BenchmarkListEntry;
+
+public class BenchmarkSchedulerTest {
+    private static final Logger LOGGER = Logging.getLogger(BenchmarkSchedulerTest.class);
+    private static final long NOW = TimeUnit.DAYS.toMillis(100);
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+    @TempDir
+    File dir;
+
+    private final List<BenchmarkListEntry> entries = Arrays.asList(entry("a.A", "x"), entry("a.A", "y"),
+            entry("b.B", "x"));
+    private final Map<String, String> fingerprints = new HashMap<>();
+
+    @Test
+    public void benchmarksNeverRunAreScheduledFirst() {
+        BenchmarkScheduler scheduler = load();
+        scheduler.update(Arrays.asList("a.A.x", "a.A.y"), fingerprints, NOW - HOUR);
+
+        BenchmarkScheduler.Schedule schedule = scheduler.schedule(entries, 10, name -> 5, name -> false,
+                fingerprints, Collections.emptyMap(), NOW);
+
+        assertEquals(Arrays.asList("b.B.x", "a.A.x"), names(schedule.getScheduled()));
+        assertEquals(Collections.singletonList("a.A.y"), schedule.getDeferred());
+        assertEquals(10, schedule.getEstimatedDuration());
+    }
+
+    @Test
+    public void changedBenchmarksAreScheduledFirst() {
+        fingerprints.put("a.A.x", "1");
+        fingerprints.put("a.A.y", "1");
+        fingerprints.put("b.B.x", "1");
+        BenchmarkScheduler scheduler = load();
+        scheduler.update(Arrays.asList("a.A.x", "a.A.y", "b.B.x"), fingerprints, NOW - HOUR);
+        fingerprints.put("a.A.y", "2");
+
+        BenchmarkScheduler.Schedule schedule = scheduler.schedule(entries, 5, name -> 5, name -> false,
+                fingerprints, Collections.emptyMap(), NOW);
+
+        assertEquals(Collections.singletonList("a.A.y"), names(schedule.getScheduled()));
+        assertEquals(Arrays.asList("a.A.x", "b.B.x"), schedule.getDeferred());
+    }
+
+    @Test
+    public void criticalBenchmarksIgnoreBudget() {
+        BenchmarkScheduler.Schedule schedule = load().schedule(entries, 0, name -> 5, "b.B.x"::equals,
+                fingerprints, Collections.emptyMap(), NOW);
+
+        assertEquals(Collections.singletonList("b.B.x"), names(schedule.getScheduled()));
+        assertEquals(Arrays.asList("a.A.x", "a.A.y"), schedule.getDeferred());
+        assertEquals(5, schedule.getEstimatedDuration());
+    }
+
+    @Test
+    public void oldAndVolatileBenchmarksAreScheduledFirst() {
+        BenchmarkScheduler scheduler = load();
+        scheduler.update(Collections.singletonList("a.A.x"), fingerprints, NOW - 10 * HOUR);
+        scheduler.update(Arrays.asList("a.A.y", "b.B.x"), fingerprints, NOW - HOUR);
+        Map<String, Double> volatility = Collections.singletonMap("b.B.x", 1.0);
+
+        BenchmarkScheduler.Schedule schedule = scheduler.schedule(entries, 15, name -> 5, name -> false,
+                fingerprints, volatility, NOW);
+
+        assertEquals(Arrays.asList("b.B.x", "a.A.x", "a.A.y"), names(schedule.getScheduled()));
+    }
+
+    @Test
+    public void stateIsSavedAndLoaded() throws IOException {
+        BenchmarkScheduler scheduler = load();
+        scheduler.update(Collections.singletonList("a.A.x"), fingerprints, NOW);
+        scheduler.save();
+
+        BenchmarkScheduler.Schedule schedule = load().schedule(entries, 10, name -> 5, name -> false, fingerprints,
+                Collections.emptyMap(), NOW);
+
+        assertEquals(Collections.singletonList("a.A.x"), schedule.getDeferred());
+    }
+
+    @Test
+    public void volatilityIsHighestOfBenchmarkVariants() {
+        Map<String, List<Double>> scores = new HashMap<>();
+        scores.put("a.A.x:thrpt{size=1}", Arrays.asList(10.0, 10.0, 10.0));
+        scores.put("a.A.x:thrpt{size=2}", Arrays.asList(8.0, 12.0));
+        scores.put("a.A.x:avgt", Arrays.asList(1.0, 1.0));
+        scores.put("b.B.x:thrpt", Collections.singletonList(5.0));
+
+        Map<String, Double> volatility = BenchmarkScheduler.computeVolatility(scores);
+
+        assertEquals(Collections.singleton("a.A.x"), volatility.keySet());
+        assertEquals(Math.sqrt(8) / 10, volatility.get("a.A.x"), 1e-9);
+    }
+
+    private BenchmarkScheduler load() {
+        return BenchmarkScheduler.load(new File(dir, "schedule.properties"), LOGGER);
+    }
+
+    private static List<String> names(List<BenchmarkListEntry> entries) {
+        List<String> names = new ArrayList<>();
+        for (BenchmarkListEntry entry : entries) {
+            names.add(entry.getUsername());
+        }
+        return names;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.gocypher.cybench.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.runner.BenchmarkListEntry;
+import org.openjdk.jmh.util.Optional;
+
+public class BenchmarkShardingTest {
+
+    @Test
+    public void classBenchmarksAreKeptInOneShard() {
+        List<BenchmarkListEntry> entries = Arrays.asList(entry("a.A", "x"), entry("a.A", "y"), entry("b.B", "x"),
+                entry("c.C", "x"), entry("c.C", "y"), entry("c.C", "z"));
+
+        List<List<BenchmarkListEntry>> shards = BenchmarkSharding.partition(entries, 2, entry -> 1);
+
+        assertEquals(2, shards.size());
+        Map<String, Integer> classShards = new HashMap<>();
+        int count = 0;
+        for (int i = 0; i < shards.size(); i++) {
+            for (BenchmarkListEntry entry : shards.get(i)) {
+                Integer shard = classShards.putIfAbsent(entry.getUserClassQName(), i);
+                assertTrue(shard == null || shard == i, entry.getUsername());
+                count++;
+            }
+        }
+        assertEquals(entries.size(), count);
+    }
+
+    @Test
+    public void shardsAreBalancedByWeight() {
+        Map<String, Long> weights = new HashMap<>();
+        weights.put("a.A", 50L);
+        weights.put("b.B", 30L);
+        weights.put("c.C", 20L);
+        weights.put("d.D", 10L);
+        List<BenchmarkListEntry> entries = new ArrayList<>();
+        for (String className : weights.keySet()) {
+            entries.add(entry(className, "x"));
+        }
+
+        List<List<BenchmarkListEntry>> shards = BenchmarkSharding.partition(entries, 2,
+                entry -> weights.get(entry.getUserClassQName()));
+
+        assertEquals(Arrays.asList("a.A", "d.D"), classNames(shards.get(0)));
+        assertEquals(Arrays.asList("b.B", "c.C"), classNames(shards.get(1)));
+    }
+
+    @Test
+    public void partitionDoesNotDependOnEntriesOrder() {
+        List<BenchmarkListEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            entries.add(entry("p.C" + i, "x"));
+            entries.add(entry("p.C" + i, "y"));
+        }
+        List<List<BenchmarkListEntry>> shards = BenchmarkSharding.partition(entries, 3, entry -> 1);
+
+        List<BenchmarkListEntry> shuffled = new ArrayList<>(entries);
+        Collections.shuffle(shuffled, new Random(42));
+        assertEquals(names(shards), names(BenchmarkSharding.partition(shuffled, 3, entry -> 1)));
+    }
+
+    @Test
+    public void extraShardsAreEmpty() {
+        List<List<BenchmarkListEntry>> shards = BenchmarkSharding.partition(
+                Arrays.asList(entry("a.A", "x"), entry("a.A", "y")), 3, entry -> 1);
+
+        assertEquals(3, shards.size());
+        assertEquals(2, shards.get(0).size());
+        assertTrue(shards.get(1).isEmpty());
+        assertTrue(shards.get(2).isEmpty());
+    }
+
+    @Test
+    public void durationIsEstimatedFromIterations() {
+        LauncherConfiguration configuration = new LauncherConfiguration();
+        configuration.setForks(2);
+        configuration.setWarmUpIterations(3);
+        configuration.setWarmUpSeconds(5);
+        configuration.setMeasurementIterations(4);
+        configuration.setMeasurementSeconds(10);
+
+        assertEquals(2 * (3 * 5 + 4 * 10) * 1000L, BenchmarkSharding.estimateDuration(configuration));
+    }
+
+    private static List<String> classNames(List<BenchmarkListEntry> shard) {
+        Set<String> classNames = new TreeSet<>();
+        for (BenchmarkListEntry entry : shard) {
+            classNames.add(entry.getUserClassQName());
+        }
+        return new ArrayList<>(classNames);
+    }
+
+    private static List<List<String>> names(List<List<BenchmarkListEntry>> shards) {
+        List<List<String>> names = new ArrayList<>();
+        for (List<BenchmarkListEntry> shard : shards) {
+            List<String> shardNames = new ArrayList<>();
+            for (BenchmarkListEntry entry : shard) {
+                shardNames.add(entry.getUsername());
+            }
+            names.add(shardNames);
+        }
+        return names;
+    }
+
+    static BenchmarkListEntry entry(String className, String method) {
+        return new BenchmarkListEntry(className, className + "_jmhType", method, Mode.Throughput, Optional.none(),
+                new int[] { 1 }, Optional.none(), Optional.none(), Optional.none(), Optional.none(),
+                Optional.none(), Optional.none(), Optional.none(), Optional.none(), Optional.none(),
+                Optional.none(), Optional.none(), Optional.none(), Optional.none(), Optional.none(),
+                Optional.none(), Optional.none(), Optional.none());
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.gocypher.cybench.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ClassDependencyHasherTest {
+    @TempDir
+    File dir;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        copyClass(Caller.class, Caller.class);
+        copyClass(Callee.class, Callee.class);
+        copyClass(Unrelated.class, Unrelated.class);
+    }
+
+    @Test
+    public void hashIsStable() throws IOException {
+        String hash = hasher().computeHash(Caller.class.getName());
+
+        assertNotNull(hash);
+        assertEquals(64, hash.length());
+        assertEquals(hash, hasher().computeHash(Caller.class.getName()));
+        assertNotEquals(hash, hasher().computeHash(Unrelated.class.getName()));
+    }
+
+    @Test
+    public void missingClassHasNoHash() throws IOException {
+        assertNull(hasher().computeHash("com.example.Missing"));
+    }
+
+    @Test
+    public void hashChangesWithDependency() throws IOException {
+        String callerHash = hasher().computeHash(Caller.class.getName());
+        String calleeHash = hasher().computeHash(Callee.class.getName());
+        String unrelatedHash = hasher().computeHash(Unrelated.class.getName());
+
+        copyClass(Unrelated.class, Callee.class);
+
+        assertNotEquals(callerHash, hasher().computeHash(Caller.class.getName()));
+        assertNotEquals(calleeHash, hasher().computeHash(Callee.class.getName()));
+        assertEquals(unrelatedHash, hasher().computeHash(Unrelated.class.getName()));
+    }
+
+    @Test
+    public void hashDoesNotChangeWithDependent() throws IOException {
+        String calleeHash = hasher().computeHash(Callee.class.getName());
+
+        copyClass(Unrelated.class, Caller.class);
+
+        assertEquals(calleeHash, hasher().computeHash(Callee.class.getName()));
+    }
+
+    @Test
+    public void jarsHashChangesWithJar() throws IOException {
+        File jar = new File(dir, "lib.jar");
+        Files.write(jar.toPath(), new byte[] { 1 });
+        String hash = ClassDependencyHasher.computeJarsHash(Collections.singletonList(jar));
+
+        Files.write(jar.toPath(), new byte[] { 1, 2 });
+        assertNotEquals(hash, ClassDependencyHasher.computeJarsHash(Collections.singletonList(jar)));
+        assertEquals(ClassDependencyHasher.computeStringHash("value"),
+                ClassDependencyHasher.computeStringHash("value"));
+    }
+
+    private ClassDependencyHasher hasher() {
+        return new ClassDependencyHasher(Collections.singletonList(dir));
+    }
+
+    private void copyClass(Class<?> source, Class<?> target) throws IOException {
+        File targetFile = new File(dir, target.getName().replace('.', '/') + ".class");
+        Files.createDirectories(targetFile.getParentFile().toPath());
+        try (InputStream in = source.getResourceAsStream("/" + source.getName().replace('.', '/') + ".class")) {
+            Files.copy(in, targetFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    static class Caller {
+        int call() {
+            return new Callee().value();
+        }
+    }
+
+    static class Callee {
+        int value() {
+            return 1;
+        }
+    }
+
+    static class Unrelated {
+        String name() {
+            return "unrelated";
+        }
+    }
+}
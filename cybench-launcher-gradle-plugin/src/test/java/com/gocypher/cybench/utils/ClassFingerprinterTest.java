@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.gocypher.cybench.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openjdk.jmh.annotations.Benchmark;
+
+public class ClassFingerprinterTest {
+    private static final Logger LOGGER = Logging.getLogger(ClassFingerprinterTest.class);
+
+    @TempDir
+    File dir;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        copyClass(BaseBenchmark.class, BaseBenchmark.class);
+        copyClass(ChildBenchmark.class, ChildBenchmark.class);
+    }
+
+    @Test
+    public void benchmarkMethodsAreFingerprinted() throws IOException {
+        Map<String, ClassFingerprinter.BenchmarkClassFingerprints> fingerprints = fingerprint();
+
+        assertEquals(2, fingerprints.size());
+        ClassFingerprinter.BenchmarkClassFingerprints child = fingerprints.get(ChildBenchmark.class.getName());
+        assertNotNull(child.getClassHash());
+        assertEquals(2, child.getGeneratedFingerprints().size());
+        assertNotNull(child.getGeneratedFingerprints().get(ChildBenchmark.class.getName() + ".measure"));
+        assertTrue(child.getManualFingerprints().isEmpty());
+    }
+
+    @Test
+    public void inheritedBenchmarkMethodsAreFingerprinted() throws IOException {
+        Map<String, ClassFingerprinter.BenchmarkClassFingerprints> fingerprints = fingerprint();
+
+        String inherited = fingerprints.get(BaseBenchmark.class.getName()).getGeneratedFingerprints()
+                .get(BaseBenchmark.class.getName() + ".inherited");
+        assertNotNull(inherited);
+        assertEquals(inherited, fingerprints.get(ChildBenchmark.class.getName()).getGeneratedFingerprints()
+                .get(ChildBenchmark.class.getName() + ".inherited"));
+    }
+
+    @Test
+    public void fingerprintChangesWithMethodCode() throws IOException {
+        String measure = ChildBenchmark.class.getName() + ".measure";
+        String fingerprint = fingerprint().get(ChildBenchmark.class.getName()).getGeneratedFingerprints()
+                .get(measure);
+        assertEquals(fingerprint, fingerprint().get(ChildBenchmark.class.getName()).getGeneratedFingerprints()
+                .get(measure));
+
+        copyClass(ChangedBenchmark.class, ChildBenchmark.class);
+
+        assertNotEquals(fingerprint, fingerprint().get(ChildBenchmark.class.getName()).getGeneratedFingerprints()
+                .get(measure));
+    }
+
+    @Test
+    public void unchangedClassFilesAreNotParsedAgain() throws IOException {
+        Map<String, ClassFingerprinter.BenchmarkClassFingerprints> fingerprints = fingerprint();
+
+        // broken class file of the same size and modification time is taken from the cache
+        File classFile = classFile(ChildBenchmark.class);
+        long lastModified = classFile.lastModified();
+        Files.write(classFile.toPath(), new byte[(int) classFile.length()]);
+        assertTrue(classFile.setLastModified(lastModified));
+
+        assertEquals(fingerprints.get(ChildBenchmark.class.getName()).getGeneratedFingerprints(),
+                fingerprint().get(ChildBenchmark.class.getName()).getGeneratedFingerprints());
+    }
+
+    @Test
+    public void missingClassIsOmitted() throws IOException {
+        try (ClassFingerprinter fingerprinter = fingerprinter()) {
+            assertTrue(fingerprinter.fingerprint(Collections.singletonList("com.example.Missing")).isEmpty());
+        }
+    }
+
+    private Map<String, ClassFingerprinter.BenchmarkClassFingerprints> fingerprint() throws IOException {
+        try (ClassFingerprinter fingerprinter = fingerprinter()) {
+            Map<String, ClassFingerprinter.BenchmarkClassFingerprints> fingerprints = fingerprinter
+                    .fingerprint(Arrays.asList(BaseBenchmark.class.getName(), ChildBenchmark.class.getName()));
+            fingerprinter.saveCache();
+            return fingerprints;
+        }
+    }
+
+    private ClassFingerprinter fingerprinter() {
+        return new ClassFingerprinter(Collections.singletonList(dir), new File(dir, "fingerprints.ser"), LOGGER);
+    }
+
+    private File classFile(Class<?> clazz) {
+        return new File(dir, clazz.getName().replace('.', '/') + ".class");
+    }
+
+    private void copyClass(Class<?> source, Class<?> target) throws IOException {
+        File targetFile = classFile(target);
+        Files.createDirectories(targetFile.getParentFile().toPath());
+        try (InputStream in = source.getResourceAsStream("/" + source.getName().replace('.', '/') + ".class")) {
+            Files.copy(in, targetFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    public static class BaseBenchmark {
+        @Benchmark
+        public int inherited() {
+            return 1;
+        }
+    }
+
+    public static class ChildBenchmark extends BaseBenchmark {
+        @Benchmark
+        public int measure() {
+            return 2;
+        }
+    }
+
+    public static class ChangedBenchmark extends BaseBenchmark {
+        @Benchmark
+        public int measure() {
+            return 3;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.gocypher.cybench.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class HostLockTest {
+    private static final Logger LOGGER = Logging.getLogger(HostLockTest.class);
+
+    @TempDir
+    File dir;
+
+    @Test
+    public void lockIsReleasedOnClose() throws IOException {
+        File lockFile = new File(dir, "cybench/host.lock");
+        HostLock lock = HostLock.acquire(lockFile, null, 1, LOGGER);
+        assertFalse(lock.isShared());
+        lock.close();
+
+        lock = HostLock.acquire(lockFile, "group", 1, LOGGER);
+        assertTrue(lock.isShared());
+        assertTrue(ownerFile(lockFile).isFile());
+        lock.close();
+        assertFalse(ownerFile(lockFile).exists());
+    }
+
+    @Test
+    public void lockOfOtherSessionIsWaitedFor() throws Exception {
+        File lockFile = new File(dir, "host.lock");
+        LockHolder holder = new LockHolder(lockFile, null);
+        try {
+            assertThrows(GradleException.class, () -> HostLock.acquire(lockFile, null, 1, LOGGER));
+            assertThrows(GradleException.class, () -> HostLock.acquire(lockFile, "group", 1, LOGGER));
+        } finally {
+            holder.close();
+        }
+        HostLock.acquire(lockFile, null, 1, LOGGER).close();
+    }
+
+    @Test
+    public void lockIsSharedByGroupMembers() throws Exception {
+        File lockFile = new File(dir, "host.lock");
+        LockHolder holder = new LockHolder(lockFile, "group");
+        try {
+            HostLock lock = HostLock.acquire(lockFile, "group", 1, LOGGER);
+            assertTrue(lock.isShared());
+            lock.close();
+            // sibling is still running
+            assertTrue(ownerFile(lockFile).isFile());
+            assertThrows(GradleException.class, () -> HostLock.acquire(lockFile, null, 1, LOGGER));
+            assertThrows(GradleException.class, () -> HostLock.acquire(lockFile, "other", 1, LOGGER));
+        } finally {
+            holder.close();
+        }
+        assertFalse(ownerFile(lockFile).exists());
+        HostLock.acquire(lockFile, "other", 1, LOGGER).close();
+    }
+
+    private static File ownerFile(File lockFile) {
+        return new File(lockFile.getPath() + ".owner");
+    }
+
+    /**
+     * Holds host lock in a separate JVM, as file locks are held by process.
+     */
+    private static class LockHolder implements Closeable {
+        private final Process process;
+        private final BufferedReader out;
+
+        LockHolder(File lockFile, String group) throws IOException {
+            List<String> command = new ArrayList<>();
+            command.add(new File(System.getProperty("java.home"), "bin/java").getAbsolutePath());
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(LockHolder.class.getName());
+            command.add(lockFile.getAbsolutePath());
+            if (group != null) {
+                command.add(group);
+            }
+            process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+            out = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+            String line;
+            while ((line = out.readLine()) != null && !"locked".equals(line)) {
+                // skip logging output
+            }
+            assertEquals("locked", line);
+        }
+
+        @Override
+        public void close() throws IOException {
+            process.getOutputStream().close();
+            try {
+                assertEquals(0, process.waitFor());
+            } catch (InterruptedException exc) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+        }
+
+        public static void main(String[] args) throws IOException {
+            HostLock lock = HostLock.acquire(new File(args[0]), args.length > 1 ? args[1] : null, 10, LOGGER);
+            System.out.println("locked");
+            System.out.flush();
+            // released once the test closes input
+            while (System.in.read() >= 0) {
+                // wait
+            }
+            lock.close();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.gocypher.cybench.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Map;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.junit.jupiter.api.Test;
+
+public class HostQuiescenceTest {
+    private static final Logger LOGGER = Logging.getLogger(HostQuiescenceTest.class);
+
+    @Test
+    public void checkIsOffByDefault() {
+        assertFalse(HostQuiescence.isEnabled(new LauncherConfiguration().getQuiescenceCheck()));
+        assertFalse(HostQuiescence.isEnabled(HostQuiescence.CHECK_OFF));
+        assertTrue(HostQuiescence.isEnabled("WARN"));
+        assertTrue(HostQuiescence.isEnabled(HostQuiescence.CHECK_WAIT));
+    }
+
+    @Test
+    public void quietHostIsNotWaitedFor() {
+        HostQuiescence quiescence = new HostQuiescence(HostQuiescence.CHECK_WAIT, 1.0, Double.MAX_VALUE, 0, 100,
+                LOGGER);
+
+        quiescence.awaitQuiet("a.A.x");
+        quiescence.awaitQuiet("a.A.y");
+
+        Map<String, Object> noise = quiescence.getNoise();
+        assertEquals(2, noise.get("samples"));
+        assertEquals(0, noise.get("noisySamples"));
+        assertEquals(0L, noise.get("waitedMillis"));
+    }
+
+    @Test
+    public void noisyHostIsReported() {
+        HostQuiescence quiescence = new HostQuiescence(HostQuiescence.CHECK_WARN, -1.0, Double.MAX_VALUE, 0, 100,
+                LOGGER);
+
+        quiescence.awaitQuiet("a.A.x");
+
+        Map<String, Object> noise = quiescence.getNoise();
+        assertEquals(1, noise.get("samples"));
+        assertEquals(1, noise.get("noisySamples"));
+        assertEquals(0L, noise.get("waitedMillis"));
+    }
+
+    @Test
+    public void noisyHostIsWaitedForUntilTimeout() {
+        HostQuiescence quiescence = new HostQuiescence(HostQuiescence.CHECK_WAIT, -1.0, Double.MAX_VALUE, 1, 100,
+                LOGGER);
+
+        quiescence.awaitQuiet("a.A.x");
+
+        Map<String, Object> noise = quiescence.getNoise();
+        assertEquals(1, noise.get("noisySamples"));
+        assertTrue((Integer) noise.get("samples") > 1);
+        assertTrue((Long) noise.get("waitedMillis") >= 1000);
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.gocypher.cybench.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.gradle.api.GradleException;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+public class JmhOptionsTest {
+    @Test
+    public void unsetOptionsAreNotApplied() {
+        Options options = new JmhOptions().applyTo(new OptionsBuilder()).build();
+
+        assertTrue(options.getBenchModes().isEmpty());
+        assertFalse(options.getTimeUnit().hasValue());
+        assertFalse(options.getParameter("size").hasValue());
+        assertFalse(options.getJvmArgs().hasValue());
+        assertFalse(options.getOperationsPerInvocation().hasValue());
+        assertFalse(options.getTimeout().hasValue());
+        assertFalse(options.shouldSyncIterations().hasValue());
+        assertTrue(options.getIncludes().isEmpty());
+    }
+
+    @Test
+    public void setOptionsAreApplied() {
+        JmhOptions jmhOptions = new JmhOptions();
+        jmhOptions.setModes(Arrays.asList("avgt", "Throughput"));
+        jmhOptions.setTimeUnit("us");
+        jmhOptions.param("size", 1, 10);
+        jmhOptions.setJvmArgsAppend(Collections.singletonList("-Xmx1g"));
+        jmhOptions.setIncludes(Collections.singletonList("a\\.A"));
+        jmhOptions.setExcludes(Collections.singletonList("slow"));
+        jmhOptions.setOperationsPerInvocation(5);
+        jmhOptions.setTimeout(30);
+        jmhOptions.setSyncIterations(false);
+
+        Options options = jmhOptions.applyTo(new OptionsBuilder()).build();
+
+        assertEquals(2, options.getBenchModes().size());
+        assertTrue(options.getBenchModes().contains(Mode.AverageTime));
+        assertTrue(options.getBenchModes().contains(Mode.Throughput));
+        assertEquals(TimeUnit.MICROSECONDS, options.getTimeUnit().get());
+        assertEquals(Arrays.asList("1", "10"), new ArrayList<>(options.getParameter("size").get()));
+        assertEquals(Collections.singletonList("-Xmx1g"), options.getJvmArgsAppend().get());
+        assertEquals(Collections.singletonList("a\\.A"), options.getIncludes());
+        assertEquals(Collections.singletonList("slow"), options.getExcludes());
+        assertEquals(5, (int) options.getOperationsPerInvocation().get());
+        assertEquals(TimeValue.seconds(30), options.getTimeout().get());
+        assertFalse(options.shouldSyncIterations().get());
+    }
+
+    @Test
+    public void timeUnitIsParsed() {
+        assertEquals(TimeUnit.MILLISECONDS, timeUnit("ms"));
+        assertEquals(TimeUnit.NANOSECONDS, timeUnit("NS"));
+        assertEquals(TimeUnit.SECONDS, timeUnit("seconds"));
+        assertThrows(GradleException.class, () -> timeUnit("days of week"));
+    }
+
+    @Test
+    public void unknownModeIsRejected() {
+        JmhOptions jmhOptions = new JmhOptions();
+        jmhOptions.setModes(Collections.singletonList("fastest"));
+
+        assertThrows(GradleException.class, () -> jmhOptions.applyTo(new OptionsBuilder()));
+    }
+
+    @Test
+    public void overridesReplaceSetOptions() {
+        JmhOptions base = new JmhOptions();
+        base.setModes(Collections.singletonList("thrpt"));
+        base.setTimeUnit("s");
+        base.param("size", 1);
+        base.param("type", "a");
+        base.setTimeout(10);
+        JmhOptions overrides = new JmhOptions();
+        overrides.setTimeUnit("ms");
+        overrides.param("size", 2);
+
+        JmhOptions merged = base.merge(overrides);
+
+        assertEquals(Collections.singletonList("thrpt"), merged.getModes());
+        assertEquals("ms", merged.getTimeUnit());
+        assertEquals(Collections.singletonList("2"), merged.getParams().get("size"));
+        assertEquals(Collections.singletonList("a"), merged.getParams().get("type"));
+        assertEquals(10, (int) merged.getTimeout());
+        assertEquals(Collections.singletonList("1"), base.getParams().get("size"));
+    }
+
+    @Test
+    public void resultsKeyIgnoresBenchmarkSelection() {
+        JmhOptions jmhOptions = new JmhOptions();
+        jmhOptions.param("size", 1);
+        String key = jmhOptions.resultsKey();
+
+        jmhOptions.setIncludes(Collections.singletonList("a\\.A"));
+        assertEquals(key, jmhOptions.resultsKey());
+        jmhOptions.param("size", 2);
+        assertNotEquals(key, jmhOptions.resultsKey());
+    }
+
+    private static TimeUnit timeUnit(String timeUnit) {
+        JmhOptions jmhOptions = new JmhOptions();
+        jmhOptions.setTimeUnit(timeUnit);
+        return jmhOptions.applyTo(new OptionsBuilder()).build().getTimeUnit().get();
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.gocypher.cybench.utils;
+
+import static com.gocypher.cybench.utils.TestResults.scores;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.gocypher.cybench.launcher.model.TooManyAnomaliesException;
+import com.gocypher.cybench.model.ComparisonConfig;
+
+public class LocalReportComparatorTest {
+    private static final Logger LOGGER = Logging.getLogger(LocalReportComparatorTest.class);
+    private static final double[] PREVIOUS = { 100, 101, 99, 100, 102, 98, 100, 101 };
+    private static final double[] LOWER = { 90, 91, 89, 90, 92, 88, 90, 91 };
+    private static final double[] HIGHER = { 110, 111, 109, 110, 112, 108, 110, 111 };
+
+    @TempDir
+    File dir;
+
+    private ComparisonConfig config;
+    private ReportHistoryStore historyStore;
+
+    @BeforeEach
+    public void setUp() {
+        config = new ComparisonConfig();
+        config.setMethod(ComparisonConfig.Method.DELTA);
+        config.setThreshold(ComparisonConfig.Threshold.GREATER);
+        config.setCompareLatestReports(5);
+        config.setAnomaliesAllowed(0);
+        historyStore = ReportHistoryStore.open(dir, LOGGER);
+    }
+
+    @Test
+    public void onlyRegressionIsAnomaly() {
+        LocalReportComparator comparator = new LocalReportComparator(config, historyStore, LOGGER);
+
+        assertNotNull(comparator.compare(90, Arrays.asList(100.0, 100.0), true));
+        assertNull(comparator.compare(110, Arrays.asList(100.0, 100.0), true));
+        assertNotNull(comparator.compare(110, Arrays.asList(100.0, 100.0), false));
+        assertNull(comparator.compare(90, Arrays.asList(100.0, 100.0), false));
+    }
+
+    @Test
+    public void percentChangeIsAllowed() {
+        config.setThreshold(ComparisonConfig.Threshold.PERCENT_CHANGE);
+        config.setPercentChangeAllowed(5.0);
+        LocalReportComparator comparator = new LocalReportComparator(config, historyStore, LOGGER);
+
+        assertNull(comparator.compare(96, Arrays.asList(100.0), true));
+        assertNotNull(comparator.compare(94, Arrays.asList(100.0), true));
+        assertNotNull(comparator.compare(106, Arrays.asList(100.0), false));
+    }
+
+    @Test
+    public void deviationsAreAllowed() {
+        config.setMethod(ComparisonConfig.Method.SD);
+        config.setDeviationsAllowed(2.0);
+        LocalReportComparator comparator = new LocalReportComparator(config, historyStore, LOGGER);
+
+        // mean 100, SD 2
+        assertNull(comparator.compare(97, Arrays.asList(98.0, 102.0, 98.0, 102.0), true));
+        assertNotNull(comparator.compare(95, Arrays.asList(98.0, 102.0, 98.0, 102.0), true));
+        assertNull(comparator.compare(95, Arrays.asList(100.0), true));
+    }
+
+    @Test
+    public void mannWhitneyTestIsOneSided() {
+        LocalReportComparator comparator = new LocalReportComparator(config, historyStore, LOGGER);
+        comparator.setSampleComparison(LocalReportComparator.SampleTest.MANN_WHITNEY,
+                LocalReportComparator.DEFAULT_CONFIDENCE_LEVEL, new BenchmarkSamples());
+
+        assertNotNull(comparator.compareSamples("a.A.x:thrpt", LOWER, PREVIOUS, true));
+        assertNull(comparator.compareSamples("a.A.x:thrpt", HIGHER, PREVIOUS, true));
+        assertNotNull(comparator.compareSamples("a.A.x:avgt", HIGHER, PREVIOUS, false));
+        assertNull(comparator.compareSamples("a.A.x:avgt", LOWER, PREVIOUS, false));
+        assertNull(comparator.compareSamples("a.A.x:thrpt", PREVIOUS, PREVIOUS, true));
+    }
+
+    @Test
+    public void bootstrapDetectsRegression() {
+        LocalReportComparator comparator = new LocalReportComparator(config, historyStore, LOGGER);
+        comparator.setSampleComparison(LocalReportComparator.SampleTest.BOOTSTRAP,
+                LocalReportComparator.DEFAULT_CONFIDENCE_LEVEL, new BenchmarkSamples());
+
+        assertNotNull(comparator.compareSamples("a.A.x:thrpt", LOWER, PREVIOUS, true));
+        assertNull(comparator.compareSamples("a.A.x:thrpt", HIGHER, PREVIOUS, true));
+        assertNull(comparator.compareSamples("a.A.x:thrpt", PREVIOUS, PREVIOUS, true));
+    }
+
+    @Test
+    public void sampleTestIsResolvedByName() {
+        assertEquals(LocalReportComparator.SampleTest.MANN_WHITNEY,
+                LocalReportComparator.SampleTest.forName("mannWhitney"));
+        assertEquals(LocalReportComparator.SampleTest.MANN_WHITNEY,
+                LocalReportComparator.SampleTest.forName("mann-whitney"));
+        assertEquals(LocalReportComparator.SampleTest.BOOTSTRAP, LocalReportComparator.SampleTest.forName("Bootstrap"));
+        assertNull(LocalReportComparator.SampleTest.forName(""));
+        assertNull(LocalReportComparator.SampleTest.forName("t-test"));
+    }
+
+    @Test
+    public void tooManyAnomaliesFailVerification() throws IOException {
+        historyStore.append(1000, "project", "1.0", scores("a.A.x:thrpt", 100.0, "b.B.x:avgt", 10.0));
+        LocalReportComparator comparator = new LocalReportComparator(config, historyStore, LOGGER);
+
+        assertThrows(TooManyAnomaliesException.class,
+                () -> comparator.verify(scores("a.A.x:thrpt", 90.0, "b.B.x:avgt", 9.0), "project"));
+        config.setAnomaliesAllowed(1);
+        assertDoesNotThrow(() -> comparator.verify(scores("a.A.x:thrpt", 90.0, "b.B.x:avgt", 9.0), "project"));
+    }
+
+    @Test
+    public void benchmarkParametersAreComparedSeparately() throws IOException {
+        historyStore.append(1000, "project", "1.0",
+                scores("a.A.x:thrpt{size=1}", 100.0, "a.A.x:thrpt{size=2}", 10.0));
+        LocalReportComparator comparator = new LocalReportComparator(config, historyStore, LOGGER);
+
+        assertDoesNotThrow(() -> comparator.verify(
+                scores("a.A.x:thrpt{size=1}", 100.0, "a.A.x:thrpt{size=2}", 10.0, "a.A.x:thrpt{size=3}", 1.0),
+                "project"));
+        assertThrows(TooManyAnomaliesException.class,
+                () -> comparator.verify(scores("a.A.x:thrpt{size=2}", 9.0), "project"));
+    }
+
+    @Test
+    public void importedScoresAreComparedWithSingleBenchmarkVariant() throws IOException {
+        // scores imported from stored JSON reports have no benchmark parameters
+        historyStore.append(1000, "project", "1.0", scores("a.A.x:thrpt", 100.0, "b.B.x:thrpt", 100.0));
+        LocalReportComparator comparator = new LocalReportComparator(config, historyStore, LOGGER);
+
+        assertThrows(TooManyAnomaliesException.class,
+                () -> comparator.verify(scores("a.A.x:thrpt{size=1}", 90.0), "project"));
+        assertDoesNotThrow(() -> comparator.verify(
+                scores("b.B.x:thrpt{size=1}", 90.0, "b.B.x:thrpt{size=2}", 90.0), "project"));
+    }
+
+    @Test
+    public void samplesAreComparedInsteadOfScores() throws IOException {
+        historyStore.append(1000, "project", "1.0", scores("a.A.x:thrpt", 100.0, "b.B.x:thrpt", 100.0));
+        BenchmarkSamples previous = new BenchmarkSamples();
+        previous.add("a.A.x:thrpt", PREVIOUS);
+        previous.add("b.B.x:thrpt", new double[] { 100 });
+        historyStore.storeSamples(1000, "project", previous);
+        BenchmarkSamples current = new BenchmarkSamples();
+        // score is lower, but samples are not significantly different
+        current.add("a.A.x:thrpt", new double[] { 101, 98, 100, 99, 102, 97, 100, 99 });
+        current.add("b.B.x:thrpt", new double[] { 99 });
+        LocalReportComparator comparator = new LocalReportComparator(config, historyStore, LOGGER);
+        comparator.setSampleComparison(LocalReportComparator.SampleTest.MANN_WHITNEY,
+                LocalReportComparator.DEFAULT_CONFIDENCE_LEVEL, current);
+
+        config.setAnomaliesAllowed(1);
+        assertDoesNotThrow(() -> comparator.verify(scores("a.A.x:thrpt", 99.5, "b.B.x:thrpt", 99.0), "project"));
+        config.setAnomaliesAllowed(0);
+        // too few samples of b.B.x, its score is compared
+        assertThrows(TooManyAnomaliesException.class,
+                () -> comparator.verify(scores("a.A.x:thrpt", 99.5, "b.B.x:thrpt", 99.0), "project"));
+    }
+}
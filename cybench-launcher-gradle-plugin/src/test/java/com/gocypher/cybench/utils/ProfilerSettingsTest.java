@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.gocypher.cybench.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+public class ProfilerSettingsTest {
+    @Test
+    public void profilerWithoutIncludesMatchesAll() {
+        ProfilerSettings settings = new ProfilerSettings();
+
+        assertTrue(settings.matches("a.A.x"));
+    }
+
+    @Test
+    public void includesAreMatched() {
+        ProfilerSettings settings = new ProfilerSettings();
+        settings.include("\\.A\\.", "y$");
+
+        assertTrue(settings.matches("a.A.x"));
+        assertTrue(settings.matches("b.B.y"));
+        assertFalse(settings.matches("b.B.x"));
+    }
+
+    @Test
+    public void changedIncludesAreMatched() {
+        ProfilerSettings settings = new ProfilerSettings();
+        settings.include("\\.A\\.");
+        assertFalse(settings.matches("b.B.x"));
+
+        settings.include("\\.B\\.");
+        assertTrue(settings.matches("b.B.x"));
+        settings.setIncludes(new ArrayList<>(Collections.singletonList("\\.C\\.")));
+        assertFalse(settings.matches("b.B.x"));
+        settings.getIncludes().add("x$");
+        assertTrue(settings.matches("b.B.x"));
+    }
+}
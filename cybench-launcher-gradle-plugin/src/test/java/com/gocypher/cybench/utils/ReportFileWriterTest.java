@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.gocypher.cybench.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.gocypher.cybench.core.utils.JSONUtils;
+import com.gocypher.cybench.launcher.model.BenchmarkOverviewReport;
+import com.gocypher.cybench.launcher.model.BenchmarkReport;
+
+public class ReportFileWriterTest {
+    @TempDir
+    File dir;
+
+    private BenchmarkOverviewReport report;
+
+    @BeforeEach
+    public void setUp() {
+        report = new BenchmarkOverviewReport();
+        report.setTimestamp(1000L);
+        report.setTimestampUTC(2000L);
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("benchForkCount", 1);
+        settings.put("benchThreadCount", 2);
+        report.setBenchmarkSettings(settings);
+        report.addToBenchmarks(benchmark("a.A.x", "10.5"));
+        report.addToBenchmarks(benchmark("b.B.y", "0.001"));
+    }
+
+    @Test
+    public void prettyReportIsSameAsMarshalled() throws IOException {
+        File file = new File(dir, "report.json");
+
+        ReportFileWriter.writeJson(report, file, true, false);
+
+        assertEquals(JSONUtils.marshalToPrettyJson(report),
+                new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void compactReportIsSameAsMarshalled() throws IOException {
+        File file = new File(dir, "report.json");
+
+        ReportFileWriter.writeJson(report, file, false, false);
+
+        assertEquals(JSONUtils.marshalToJson(report),
+                new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void compressedReportIsSameAsMarshalled() throws IOException {
+        File file = new File(dir, "reports/report.json" + ReportFileWriter.GZIP_EXTENSION);
+
+        ReportFileWriter.writeJson(report, file, true, true);
+
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        try (InputStream in = new GZIPInputStream(new FileInputStream(file))) {
+            byte[] buffer = new byte[4096];
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                content.write(buffer, 0, read);
+            }
+        }
+        assertEquals(JSONUtils.marshalToPrettyJson(report), new String(content.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    private static BenchmarkReport benchmark(String name, String score) {
+        BenchmarkReport benchmark = new BenchmarkReport();
+        benchmark.setName(name);
+        benchmark.setCategory("CUSTOM");
+        benchmark.setScore(new BigDecimal(score));
+        benchmark.addMetadata("api", "x");
+        return benchmark;
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.gocypher.cybench.utils;
+
+import static com.gocypher.cybench.utils.TestResults.scores;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ReportHistoryStoreTest {
+    private static final Logger LOGGER = Logging.getLogger(ReportHistoryStoreTest.class);
+
+    @TempDir
+    File dir;
+
+    @Test
+    public void missingStoreIsEmpty() {
+        ReportHistoryStore store = ReportHistoryStore.open(dir, LOGGER);
+
+        assertTrue(store.isEmpty());
+        assertTrue(store.getRuns("project", null).isEmpty());
+        assertTrue(store.getLatestScores("project", null, 10).isEmpty());
+    }
+
+    @Test
+    public void appendedRunsAreReadMostRecentFirst() throws IOException {
+        ReportHistoryStore store = ReportHistoryStore.open(dir, LOGGER);
+        store.append(1000, "project", "1.0", scores("a.A.x:thrpt", 10.0, "a.A.x:thrpt{size=1}", 1.0));
+        store.append(3000, "project", "1.1", scores("a.A.x:thrpt", 30.0));
+        store.append(2000, "project", "1.0", scores("a.A.x:thrpt", 20.0));
+        store.append(4000, "other", "1.0", scores("a.A.x:thrpt", 40.0));
+
+        List<ReportHistoryStore.Run> runs = store.getRuns("project", null);
+        assertEquals(3, runs.size());
+        assertEquals(3000, runs.get(0).getTimestamp());
+        assertEquals("1.1", runs.get(0).getVersion());
+        assertEquals("project", runs.get(0).getProject());
+        assertEquals(2, store.getRuns("project", "1.0").size());
+
+        Map<String, List<Double>> scores = store.getLatestScores("project", null, 2);
+        assertEquals(Arrays.asList(30.0, 20.0), scores.get("a.A.x:thrpt"));
+        assertFalse(scores.containsKey("a.A.x:thrpt{size=1}"));
+        scores = store.getLatestScores("project", "1.0", 5);
+        assertEquals(Arrays.asList(20.0, 10.0), scores.get("a.A.x:thrpt"));
+        assertEquals(Collections.singletonList(1.0), scores.get("a.A.x:thrpt{size=1}"));
+    }
+
+    @Test
+    public void benchmarkScoresAreLookedUp() throws IOException {
+        ReportHistoryStore store = ReportHistoryStore.open(dir, LOGGER);
+        store.append(1000, "project", "1.0", scores("a.A.x:thrpt", 10.0, "b.B.x:thrpt", 1.0));
+        store.append(3000, "project", "1.1", scores("b.B.x:thrpt", 3.0));
+        store.append(2000, "project", "1.0", scores("a.A.x:thrpt", 20.0, "b.B.x:thrpt", 2.0));
+        store.append(4000, "other", "1.0", scores("a.A.x:thrpt", 40.0));
+
+        assertEquals(Arrays.asList(20.0, 10.0), store.getLatestScores("project", null, "a.A.x:thrpt", 5));
+        assertEquals(Arrays.asList(3.0, 2.0), store.getLatestScores("project", null, "b.B.x:thrpt", 2));
+        assertEquals(Arrays.asList(2.0, 1.0), store.getLatestScores("project", "1.0", "b.B.x:thrpt", 5));
+        assertEquals(Collections.singletonList(40.0),
+                ReportHistoryStore.open(dir, LOGGER).getLatestScores("other", null, "a.A.x:thrpt", 5));
+        assertTrue(store.getLatestScores("project", null, "c.C.x:thrpt", 5).isEmpty());
+    }
+
+    @Test
+    public void storeIsSharedByInstances() throws IOException {
+        ReportHistoryStore store = ReportHistoryStore.open(dir, LOGGER);
+        ReportHistoryStore otherStore = ReportHistoryStore.open(dir, LOGGER);
+        store.append(1000, "project", "1.0", scores("a.A.x:thrpt", 10.0));
+        otherStore.append(2000, "project", "1.0", scores("b.B.x:avgt", 20.0));
+
+        ReportHistoryStore reopened = ReportHistoryStore.open(dir, LOGGER);
+        assertEquals(2, reopened.getRuns("project", "1.0").size());
+        Map<String, List<Double>> scores = reopened.getLatestScores("project", "1.0", 2);
+        assertEquals(Collections.singletonList(10.0), scores.get("a.A.x:thrpt"));
+        assertEquals(Collections.singletonList(20.0), scores.get("b.B.x:avgt"));
+    }
+
+    @Test
+    public void samplesAreStoredWithRun() throws IOException {
+        ReportHistoryStore store = ReportHistoryStore.open(dir, LOGGER);
+        store.append(1000, "project", "1.0", scores("a.A.x:thrpt", 10.0));
+        store.append(2000, "project", "1.0", scores("a.A.x:thrpt", 20.0));
+        BenchmarkSamples samples = new BenchmarkSamples();
+        samples.add("a.A.x:thrpt", new double[] { 1, 2 });
+        store.storeSamples(1000, "project", samples);
+        samples = new BenchmarkSamples();
+        samples.add("a.A.x:thrpt", new double[] { 3 });
+        store.storeSamples(2000, "project", samples);
+
+        BenchmarkSamples latest = ReportHistoryStore.open(dir, LOGGER).getLatestSamples("project", null, 2);
+        assertArrayEquals(new double[] { 3, 1, 2 }, latest.get("a.A.x:thrpt"));
+        assertThrows(IOException.class, () -> store.storeSamples(1000, "other", new BenchmarkSamples()));
+    }
+
+    @Test
+    public void jsonReportsAreImported() throws IOException {
+        File reportsDir = new File(dir, "reports");
+        Files.createDirectories(reportsDir.toPath());
+        writeReport(new File(reportsDir, "report-2.json"), 2000, benchmark("a.A.x", 20.0));
+        writeReport(new File(reportsDir, "report-1.json"), 1000, benchmark("a.A.x", 10.0));
+        Files.write(new File(reportsDir, "broken.json").toPath(), "{".getBytes(StandardCharsets.UTF_8));
+
+        ReportHistoryStore store = ReportHistoryStore.open(new File(dir, "history"), LOGGER);
+        assertEquals(2, store.importJsonReports(reportsDir));
+
+        assertEquals(Arrays.asList(20.0, 10.0),
+                store.getLatestScores("project", "1.0", 5).get(ReportHistoryStore.getKey("a.A.x", "thrpt")));
+        assertEquals(1000, store.getRuns("project", null).get(1).getTimestamp());
+        assertEquals(2, ReportHistoryStore.open(new File(dir, "history"), LOGGER).getRuns("project", null).size());
+    }
+
+    @Test
+    public void parameterizedBenchmarksAreNotImported() throws IOException {
+        File reportsDir = new File(dir, "reports");
+        Files.createDirectories(reportsDir.toPath());
+        writeReport(new File(reportsDir, "report.json"), 1000,
+                benchmark("a.A.x", 10.0) + "," + benchmark("a.A.x", 20.0) + "," + benchmark("b.B.x", 30.0));
+
+        ReportHistoryStore store = ReportHistoryStore.open(new File(dir, "history"), LOGGER);
+        assertEquals(1, store.importJsonReports(reportsDir));
+
+        Map<String, List<Double>> scores = store.getLatestScores("project", "1.0", 5);
+        assertEquals(Collections.singleton(ReportHistoryStore.getKey("b.B.x", "thrpt")), scores.keySet());
+    }
+
+    private static String benchmark(String name, double score) {
+        return "{\"name\":\"" + name + "\",\"mode\":\"thrpt\",\"score\":" + score
+                + ",\"project\":\"project\",\"projectVersion\":\"1.0\"}";
+    }
+
+    private static void writeReport(File file, long timestamp, String benchmarks) throws IOException {
+        String report = "{\"timestamp\":" + timestamp + ",\"benchmarks\":{\"CUSTOM\":[" + benchmarks + "]}}";
+        Files.write(file.toPath(), report.getBytes(StandardCharsets.UTF_8));
+    }
+}
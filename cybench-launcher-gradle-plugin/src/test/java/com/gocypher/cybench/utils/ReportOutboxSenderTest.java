@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.gocypher.cybench.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ReportOutboxSenderTest {
+    private static final Logger LOGGER = Logging.getLogger(ReportOutboxSenderTest.class);
+    private static final String RESPONSE = "{\"reportUrl\":\"https://app.cybench.io/report\"}";
+
+    @TempDir
+    File dir;
+
+    @Test
+    public void deliveredEntryIsRemoved() throws Exception {
+        ReportOutbox outbox = new ReportOutbox(dir);
+        File file = outbox.enqueue("report", "token", "query");
+        StubDelivery delivery = new StubDelivery(RESPONSE);
+
+        Map<?, ?> response = new ReportOutboxSender(outbox, delivery, 2, LOGGER).send(file);
+
+        assertEquals("https://app.cybench.io/report", response.get("reportUrl"));
+        assertEquals(1, delivery.reports.size());
+        assertEquals("report", delivery.reports.get(0));
+        assertTrue(outbox.getPending(true).isEmpty());
+    }
+
+    @Test
+    public void failedAttemptIsRetried() throws Exception {
+        ReportOutbox outbox = new ReportOutbox(dir);
+        File file = outbox.enqueue("report", "token", "query");
+        StubDelivery delivery = new StubDelivery(null, "", RESPONSE);
+
+        Map<?, ?> response = new ReportOutboxSender(outbox, delivery, 2, LOGGER).send(file);
+
+        assertFalse(response.isEmpty());
+        assertEquals(3, delivery.reports.size());
+        assertTrue(outbox.getPending(true).isEmpty());
+    }
+
+    @Test
+    public void undeliveredEntryIsKeptAfterRetries() throws Exception {
+        ReportOutbox outbox = new ReportOutbox(dir);
+        File file = outbox.enqueue("report", "token", "query");
+        StubDelivery delivery = new StubDelivery(null, null, RESPONSE);
+
+        Map<?, ?> response = new ReportOutboxSender(outbox, delivery, 1, LOGGER).send(file);
+
+        assertTrue(response.isEmpty());
+        assertEquals(2, delivery.reports.size());
+        assertTrue(outbox.getPending(false).isEmpty());
+        assertEquals(1, outbox.getPending(true).size());
+        ReportOutbox.Entry entry = outbox.read(outbox.getPending(true).get(0));
+        assertEquals(1, entry.getAttempts());
+        assertEquals("connection refused", entry.getLastError());
+    }
+
+    @Test
+    public void claimedEntryIsNotSent() throws Exception {
+        ReportOutbox outbox = new ReportOutbox(dir);
+        File file = outbox.enqueue("report", "token", "query");
+        assertNotNull(outbox.claim(file));
+        StubDelivery delivery = new StubDelivery(RESPONSE);
+
+        assertTrue(new ReportOutboxSender(outbox, delivery, 2, LOGGER).send(file).isEmpty());
+        assertTrue(delivery.reports.isEmpty());
+    }
+
+    @Test
+    public void oldEntryIsNotSentAgainWhileBeingSent() throws Exception {
+        ReportOutbox outbox = new ReportOutbox(dir);
+        File file = outbox.enqueue("report", "token", "query");
+        assertTrue(file.setLastModified(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1)));
+        StubDelivery concurrentDelivery = new StubDelivery(RESPONSE);
+        List<Integer> concurrentlyPending = new ArrayList<>();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // other build drains the outbox while the report is being delivered
+            ReportOutboxSender.ReportDelivery delivery = (report, tokenAndEmail, benchQueryToken) -> {
+                concurrentlyPending.add(
+                        new ReportOutboxSender(outbox, concurrentDelivery, 0, LOGGER).drain(executor, true));
+                return RESPONSE;
+            };
+
+            assertFalse(new ReportOutboxSender(outbox, delivery, 0, LOGGER).send(file).isEmpty());
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(Collections.singletonList(0), concurrentlyPending);
+        assertTrue(concurrentDelivery.reports.isEmpty());
+        assertTrue(outbox.getPending(true).isEmpty());
+    }
+
+    @Test
+    public void drainSendsAllPendingEntries() throws Exception {
+        ReportOutbox outbox = new ReportOutbox(dir);
+        outbox.enqueue("report1", "token", "query");
+        outbox.enqueue("report2", "token", "query");
+        StubDelivery delivery = new StubDelivery(RESPONSE, RESPONSE);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            assertEquals(0, new ReportOutboxSender(outbox, delivery, 0, LOGGER).drain(executor, true));
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(2, delivery.reports.size());
+    }
+
+    /**
+     * Delivery returning given responses one after another, {@code null} response fails the attempt.
+     */
+    private static class StubDelivery implements ReportOutboxSender.ReportDelivery {
+        private final String[] responses;
+        private final List<String> reports = new ArrayList<>();
+
+        StubDelivery(String... responses) {
+            this.responses = responses;
+        }
+
+        @Override
+        public synchronized String send(String reportEncrypted, String tokenAndEmail, String benchQueryToken)
+                throws IOException {
+            String response = responses[reports.size()];
+            reports.add(reportEncrypted);
+            if (response == null) {
+                throw new IOException("connection refused");
+            }
+            return response;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.gocypher.cybench.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ReportOutboxTest {
+    @TempDir
+    File dir;
+
+    @Test
+    public void enqueuedEntryIsPending() throws IOException {
+        ReportOutbox outbox = new ReportOutbox(dir);
+        File file = outbox.enqueue("report", "token", "query");
+
+        assertEquals(1, outbox.getPending(false).size());
+        ReportOutbox.Entry entry = outbox.read(file);
+        assertEquals("report", entry.getReport());
+        assertEquals("token", entry.getTokenAndEmail());
+        assertEquals("query", entry.getBenchQueryToken());
+        assertEquals(0, entry.getAttempts());
+    }
+
+    @Test
+    public void claimedEntryIsClaimedOnce() throws IOException {
+        ReportOutbox outbox = new ReportOutbox(dir);
+        File file = outbox.enqueue("report", "token", "query");
+
+        File claimed = outbox.claim(file);
+        assertNotNull(claimed);
+        assertNull(outbox.claim(file));
+        assertTrue(outbox.getPending(true).isEmpty());
+    }
+
+    @Test
+    public void removedEntryIsNotPending() throws IOException {
+        ReportOutbox outbox = new ReportOutbox(dir);
+        File claimed = outbox.claim(outbox.enqueue("report", "token", "query"));
+
+        outbox.remove(claimed);
+        assertFalse(claimed.exists());
+        assertTrue(outbox.getPending(true).isEmpty());
+    }
+
+    @Test
+    public void releasedEntryIsDelayed() throws IOException {
+        ReportOutbox outbox = new ReportOutbox(dir);
+        File file = outbox.enqueue("report", "token", "query");
+        File claimed = outbox.claim(file);
+
+        long before = System.currentTimeMillis();
+        outbox.release(claimed, outbox.read(claimed), "timeout");
+
+        assertFalse(claimed.exists());
+        assertTrue(outbox.getPending(false).isEmpty());
+        List<File> pending = outbox.getPending(true);
+        assertEquals(1, pending.size());
+        ReportOutbox.Entry entry = outbox.read(pending.get(0));
+        assertEquals(1, entry.getAttempts());
+        assertEquals("timeout", entry.getLastError());
+        assertTrue(entry.getNextAttempt() >= before + TimeUnit.MINUTES.toMillis(1));
+    }
+
+    @Test
+    public void retryDelayGrowsExponentiallyUpToLimit() throws IOException {
+        ReportOutbox outbox = new ReportOutbox(dir);
+        File file = outbox.enqueue("report", "token", "query");
+
+        long previousDelay = 0;
+        for (int attempt = 1; attempt <= 12; attempt++) {
+            File claimed = outbox.claim(file);
+            long before = System.currentTimeMillis();
+            outbox.release(claimed, outbox.read(claimed), "timeout");
+            long after = System.currentTimeMillis();
+            file = outbox.getPending(true).get(0);
+            ReportOutbox.Entry entry = outbox.read(file);
+            assertEquals(attempt, entry.getAttempts());
+            long expected = Math.min(TimeUnit.MINUTES.toMillis(1) << (attempt - 1), TimeUnit.HOURS.toMillis(1));
+            assertTrue(entry.getNextAttempt() >= before + expected);
+            assertTrue(entry.getNextAttempt() <= after + expected);
+            assertTrue(expected >= previousDelay);
+            previousDelay = expected;
+        }
+    }
+
+    @Test
+    public void retryScheduleIsKnownWithoutReadingEntry() throws IOException {
+        ReportOutbox outbox = new ReportOutbox(dir);
+        File delayed = outbox.enqueue("report", "token", "query");
+        File claimed = outbox.claim(delayed);
+        outbox.release(claimed, outbox.read(claimed), "timeout");
+        delayed = outbox.getPending(true).get(0);
+        File due = outbox.enqueue("report", "token", "query");
+
+        // entries content is not read to list pending entries
+        Files.write(delayed.toPath(), new byte[0]);
+        Files.write(due.toPath(), new byte[0]);
+        assertEquals(Collections.singletonList(due), outbox.getPending(false));
+        assertEquals(Arrays.asList(delayed, due), outbox.getPending(true));
+    }
+
+    @Test
+    public void failedEntryIsMovedOut() throws IOException {
+        ReportOutbox outbox = new ReportOutbox(dir);
+        File claimed = outbox.claim(outbox.enqueue("report", "token", "query"));
+
+        File failed = outbox.fail(claimed, outbox.read(claimed), "rejected");
+
+        assertFalse(claimed.exists());
+        assertTrue(failed.isFile());
+        assertEquals(new File(dir, "failed"), failed.getParentFile());
+        assertTrue(outbox.getPending(true).isEmpty());
+        ReportOutbox.Entry entry = outbox.read(failed);
+        assertEquals(1, entry.getAttempts());
+        assertEquals("rejected", entry.getLastError());
+    }
+
+    @Test
+    public void claimOfOldEntryIsNotStale() throws IOException {
+        ReportOutbox outbox = new ReportOutbox(dir);
+        File file = outbox.enqueue("report", "token", "query");
+        // entry waited in outbox longer than claim is kept
+        assertTrue(file.setLastModified(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1)));
+
+        File claimed = outbox.claim(file);
+
+        assertNotNull(claimed);
+        assertTrue(outbox.getPending(true).isEmpty());
+        assertTrue(claimed.isFile());
+        assertNull(outbox.claim(file));
+    }
+
+    @Test
+    public void staleClaimIsRecovered() throws IOException {
+        ReportOutbox outbox = new ReportOutbox(dir);
+        File file = outbox.enqueue("report", "token", "query");
+        File claimed = outbox.claim(file);
+
+        assertTrue(outbox.getPending(true).isEmpty());
+        assertTrue(claimed.setLastModified(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1)));
+        assertEquals(1, outbox.getPending(true).size());
+        assertTrue(file.isFile());
+    }
+}
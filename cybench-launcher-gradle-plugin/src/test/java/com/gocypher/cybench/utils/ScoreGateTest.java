@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.gocypher.cybench.utils;
+
+import static com.gocypher.cybench.utils.TestResults.runResult;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.util.*;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.RunResult;
+
+public class ScoreGateTest {
+    private static final Logger LOGGER = Logging.getLogger(ScoreGateTest.class);
+
+    @TempDir
+    File dir;
+
+    @Test
+    public void thresholdPatternIsMatched() {
+        ScoreThreshold threshold = new ScoreThreshold("\\.A\\.");
+
+        assertTrue(threshold.matches("a.A.x"));
+        assertFalse(threshold.matches("b.B.x"));
+        threshold.setPattern("\\.B\\.");
+        assertTrue(threshold.matches("b.B.x"));
+        assertFalse(threshold.matches("a.A.x"));
+        threshold.setPattern(null);
+        assertFalse(threshold.matches("b.B.x"));
+    }
+
+    @Test
+    public void scoreLimitsAreChecked() {
+        ScoreThreshold threshold = new ScoreThreshold("\\.A\\.");
+        threshold.setMinScore(10.0);
+        threshold.setMaxScore(20.0);
+        ScoreGate gate = new ScoreGate(Collections.singletonList(threshold), null, 10, LOGGER);
+
+        gate.benchmarkCompleted(benchmarkResult(runResult("a.A.x", 15)));
+        gate.benchmarkCompleted(benchmarkResult(runResult("a.A.y", 5)));
+        gate.benchmarkCompleted(benchmarkResult(runResult("a.A.z", 25)));
+        gate.benchmarkCompleted(benchmarkResult(runResult("b.B.x", 5)));
+
+        List<String> violations = gate.getViolations();
+        assertEquals(2, violations.size());
+        assertTrue(violations.get(0).startsWith("a.A.y:thrpt: score 5.000000 is less than minimum"));
+        assertTrue(violations.get(1).startsWith("a.A.z:thrpt: score 25.000000 is greater than maximum"));
+    }
+
+    @Test
+    public void onlyRegressionsFromBaselineAreViolations() {
+        BenchmarkParams avgtParams = TestResults.params("a.A.t", Mode.AverageTime, Collections.emptyMap());
+        BenchmarkBaseline baseline = BenchmarkBaseline.load(new File(dir, "baseline.properties"), LOGGER);
+        baseline.update(Arrays.asList(runResult("a.A.x", 100), runResult("a.A.y", 100), runResult(avgtParams, 100)));
+        ScoreThreshold threshold = new ScoreThreshold("\\.A\\.");
+        threshold.setMaxChangePercent(10.0);
+        ScoreGate gate = new ScoreGate(Collections.singletonList(threshold), baseline, 10, LOGGER);
+
+        gate.benchmarkCompleted(benchmarkResult(runResult("a.A.x", 50)));
+        gate.benchmarkCompleted(benchmarkResult(runResult("a.A.y", 150)));
+        gate.benchmarkCompleted(benchmarkResult(runResult(avgtParams, 120)));
+        gate.benchmarkCompleted(benchmarkResult(runResult("a.A.z", 1)));
+
+        List<String> violations = gate.getViolations();
+        assertEquals(2, violations.size());
+        assertTrue(violations.get(0).startsWith("a.A.x:thrpt: score 50.000000 changed by -50.00%"));
+        assertTrue(violations.get(1).startsWith("a.A.t:avgt: score 120.000000 changed by +20.00%"));
+    }
+
+    @Test
+    public void runIsAbortedOnceViolationsExceedAllowed() {
+        ScoreThreshold threshold = new ScoreThreshold("x$");
+        threshold.setMinScore(10.0);
+        ScoreGate gate = new ScoreGate(Collections.singletonList(threshold), null, 1, LOGGER);
+
+        gate.benchmarkCompleted(benchmarkResult(runResult("a.A.x", 5)));
+        ThresholdViolationException exc = assertThrows(ThresholdViolationException.class,
+                () -> gate.benchmarkCompleted(benchmarkResult(runResult("b.B.x", 5))));
+        assertEquals(2, exc.getViolations().size());
+    }
+
+    @Test
+    public void deferredBenchmarksAreCheckedOnce() {
+        ScoreThreshold threshold = new ScoreThreshold("x$");
+        threshold.setMinScore(10.0);
+        ScoreGate gate = new ScoreGate(Collections.singletonList(threshold), null, 10, LOGGER);
+        RunResult result = runResult("a.A.x", 5);
+
+        gate.setDeferred(true);
+        gate.benchmarkCompleted(benchmarkResult(result));
+        assertTrue(gate.getViolations().isEmpty());
+        gate.setDeferred(false);
+        gate.verify(Collections.singletonList(result));
+        gate.verify(Collections.singletonList(result));
+        gate.benchmarkCompleted(benchmarkResult(result));
+        assertEquals(1, gate.getViolations().size());
+    }
+
+    private static BenchmarkResult benchmarkResult(RunResult result) {
+        return result.getBenchmarkResults().iterator().next();
+    }
+}
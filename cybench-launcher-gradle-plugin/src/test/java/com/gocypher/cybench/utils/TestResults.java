@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package com.gocypher.cybench.utils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.results.*;
+import org.openjdk.jmh.runner.IterationType;
+import org.openjdk.jmh.runner.WorkloadParams;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Fabricates JMH run results for tests.
+ */
+public final class TestResults {
+    private TestResults() {
+    }
+
+    public static BenchmarkParams params(String benchmark, Mode mode, Map<String, String> params) {
+        IterationParams warmup = new IterationParams(IterationType.WARMUP, 1, TimeValue.seconds(1), 1);
+        IterationParams measurement = new IterationParams(IterationType.MEASUREMENT, 1, TimeValue.seconds(1), 1);
+        WorkloadParams workloadParams = new WorkloadParams();
+        int order = 0;
+        for (Map.Entry<String, String> param : params.entrySet()) {
+            workloadParams.put(param.getKey(), param.getValue(), order++);
+        }
+        String jvm = new File(System.getProperty("java.home"), "bin/java").getAbsolutePath();
+        return new BenchmarkParams(benchmark, benchmark + "_jmhTest", false, 1, new int[] { 1 },
+                Collections.emptyList(), 1, 0, warmup, measurement, mode, workloadParams, TimeUnit.SECONDS, 1, jvm,
+                Collections.emptyList(), System.getProperty("java.version"), System.getProperty("java.vm.name"),
+                System.getProperty("java.vm.version"), "1.35", TimeValue.minutes(10));
+    }
+
+    public static RunResult runResult(String benchmark, double... scores) {
+        return runResult(params(benchmark, Mode.Throughput, Collections.emptyMap()), scores);
+    }
+
+    /**
+     * Creates run result having single fork with a measurement iteration per score.
+     */
+    public static RunResult runResult(BenchmarkParams params, double... scores) {
+        List<IterationResult> iterations = new ArrayList<>(scores.length);
+        for (double score : scores) {
+            IterationResult iteration = new IterationResult(params, params.getMeasurement(),
+                    new IterationResultMetaData(1000L, 1000L));
+            iteration.addResult(new ThroughputResult(ResultRole.PRIMARY, "", score, TimeUnit.SECONDS.toNanos(1),
+                    TimeUnit.SECONDS));
+            iterations.add(iteration);
+        }
+        return new RunResult(params, Collections.singletonList(new BenchmarkResult(params, iterations)));
+    }
+
+    /**
+     * Creates benchmark scores map from alternating benchmark key and score arguments.
+     */
+    public static Map<String, Double> scores(Object... keysAndScores) {
+        Map<String, Double> scores = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndScores.length; i += 2) {
+            scores.put((String) keysAndScores[i], (Double) keysAndScores[i + 1]);
+        }
+        return scores;
+    }
+}